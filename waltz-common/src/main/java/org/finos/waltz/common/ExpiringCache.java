@@ -0,0 +1,446 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.common;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * A small, thread-safe, size bounded cache where entries expire after a fixed time-to-live.
+ * Once the maximum size (or, if a weigher is given, the maximum total weight) is reached the
+ * least recently used entries are evicted.
+ *
+ * Values are computed outside of the cache lock, so a slow computation for one key does not
+ * block readers of other keys.  Concurrent misses for the same key share a single computation,
+ * so the compute function must not call back into the cache for the key it is computing.  If
+ * the cache is invalidated whilst a value is being computed the (potentially stale) computed
+ * value is returned to the callers waiting on it but is not retained, and later callers start
+ * a fresh computation.
+ *
+ * Entries may be given tags (e.g. the entities they were derived from) by a tagger, allowing
+ * them to be invalidated via {@link #invalidateTagged(Collection)} without examining every entry.
+ *
+ * @param <K> key type, must have sensible equals/hashCode implementations
+ * @param <V> value type
+ */
+public class ExpiringCache<K, V> {
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+        private final long weight;
+        private final Collection<?> tags;
+
+        private Entry(V value, long expiresAt, long weight, Collection<?> tags) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.weight = weight;
+            this.tags = tags;
+        }
+    }
+
+
+    private final int maxSize;
+    private final long maxWeight;
+    private final ToLongFunction<? super V> weigher;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+    private final BiFunction<? super K, ? super V, ? extends Collection<?>> tagger;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    // guarded by 'entries'
+    private long totalWeight = 0;
+    private final Map<Object, Set<K>> keysByTag = new HashMap<>();
+    private final Map<K, CompletableFuture<V>> computations = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private long generation = 0;
+
+
+    public ExpiringCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+
+    /**
+     * @param maxSize maximum number of entries to retain
+     * @param ttl how long an entry remains valid after it is stored
+     * @param ticker source of nanosecond time, exposed to allow deterministic testing
+     */
+    public ExpiringCache(int maxSize, Duration ttl, LongSupplier ticker) {
+        this(maxSize, Long.MAX_VALUE, v -> 0, ttl, ticker);
+    }
+
+
+    /**
+     * @param maxSize maximum number of entries to retain
+     * @param ttl how long an entry remains valid after it is stored
+     * @param tagger gives the tags for an entry, see {@link #invalidateTagged(Collection)}
+     */
+    public ExpiringCache(int maxSize,
+                         Duration ttl,
+                         BiFunction<? super K, ? super V, ? extends Collection<?>> tagger) {
+        this(maxSize, Long.MAX_VALUE, v -> 0, ttl, System::nanoTime, tagger);
+    }
+
+
+    /**
+     * @param maxSize maximum number of entries to retain
+     * @param maxWeight maximum total weight of the retained values, values heavier than this are not retained
+     * @param weigher gives the weight of a value (e.g. its approximate size), must be non-negative
+     * @param ttl how long an entry remains valid after it is stored
+     */
+    public ExpiringCache(int maxSize, long maxWeight, ToLongFunction<? super V> weigher, Duration ttl) {
+        this(maxSize, maxWeight, weigher, ttl, System::nanoTime);
+    }
+
+
+    public ExpiringCache(int maxSize,
+                         long maxWeight,
+                         ToLongFunction<? super V> weigher,
+                         Duration ttl,
+                         LongSupplier ticker) {
+        this(maxSize, maxWeight, weigher, ttl, ticker, (k, v) -> Collections.emptySet());
+    }
+
+
+    public ExpiringCache(int maxSize,
+                         long maxWeight,
+                         ToLongFunction<? super V> weigher,
+                         Duration ttl,
+                         LongSupplier ticker,
+                         BiFunction<? super K, ? super V, ? extends Collection<?>> tagger) {
+        checkTrue(maxSize > 0, "maxSize must be positive");
+        checkTrue(maxWeight > 0, "maxWeight must be positive");
+        checkNotNull(weigher, "weigher cannot be null");
+        checkNotNull(ttl, "ttl cannot be null");
+        checkNotNull(ticker, "ticker cannot be null");
+        checkNotNull(tagger, "tagger cannot be null");
+
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.ttlNanos = ttl.toNanos();
+        this.ticker = ticker;
+        this.tagger = tagger;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+
+    public Optional<V> get(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            } else if (isExpired(entry)) {
+                remove(key);
+                misses.incrementAndGet();
+                return Optional.empty();
+            } else {
+                hits.incrementAndGet();
+                return Optional.ofNullable(entry.value);
+            }
+        }
+    }
+
+
+    /**
+     * Returns the cached value for the key, computing (and storing) it if absent or expired.
+     *
+     * @param key  key to lookup
+     * @param computeFn  function used to compute the value on a cache miss
+     * @return the cached or freshly computed value
+     */
+    public V getOrCompute(K key, Function<? super K, ? extends V> computeFn) {
+        return getOrCompute(key, v -> true, computeFn);
+    }
+
+
+    /**
+     * Variant of {@link #getOrCompute(Object, Function)} which also recomputes the value if
+     * the currently cached value fails the given validity check.
+     *
+     * @param key  key to lookup
+     * @param isValid  test applied to any unexpired cached value, failures are treated as misses
+     * @param computeFn  function used to compute the value on a cache miss
+     * @return the cached or freshly computed value
+     */
+    public V getOrCompute(K key,
+                          Predicate<? super V> isValid,
+                          Function<? super K, ? extends V> computeFn) {
+        long generationAtStart;
+        CompletableFuture<V> inProgress;
+        CompletableFuture<V> computation = new CompletableFuture<>();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && !isExpired(entry) && isValid.test(entry.value)) {
+                hits.incrementAndGet();
+                return entry.value;
+            }
+            misses.incrementAndGet();
+            generationAtStart = generation;
+            inProgress = computations.putIfAbsent(key, computation);
+        }
+
+        if (inProgress != null) {
+            return awaitComputation(inProgress);
+        }
+
+        V value;
+        try {
+            value = computeFn.apply(key);
+        } catch (RuntimeException | Error e) {
+            synchronized (entries) {
+                computations.remove(key, computation);
+            }
+            computation.completeExceptionally(e);
+            throw e;
+        }
+
+        synchronized (entries) {
+            computations.remove(key, computation);
+            if (generationAtStart == generation) {
+                store(key, value);
+            }
+        }
+        computation.complete(value);
+        return value;
+    }
+
+
+    public void put(K key, V value) {
+        synchronized (entries) {
+            store(key, value);
+        }
+    }
+
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            generation++;
+            computations.remove(key);
+            remove(key);
+        }
+    }
+
+
+    /**
+     * Removes every entry which satisfies the given predicate.  This examines every entry, so
+     * large caches which are invalidated frequently should use tags instead.
+     * @param predicate  test applied to each key/value pair
+     * @return number of entries removed
+     */
+    public int invalidateIf(BiPredicate<? super K, ? super V> predicate) {
+        synchronized (entries) {
+            generation++;
+            computations.clear();
+            int removed = 0;
+            Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<K, Entry<V>> e = iterator.next();
+                if (predicate.test(e.getKey(), e.getValue().value)) {
+                    unlink(e.getKey(), e.getValue());
+                    iterator.remove();
+                    removed++;
+                }
+            }
+            return removed;
+        }
+    }
+
+
+    /**
+     * Removes every entry which was given any of the tags by the tagger.
+     * @param tags  tags to look up
+     * @return number of entries removed
+     */
+    public int invalidateTagged(Collection<?> tags) {
+        synchronized (entries) {
+            generation++;
+            computations.clear();
+            int removed = 0;
+            for (Object tag : tags) {
+                Set<K> keys = keysByTag.get(tag);
+                if (keys != null) {
+                    for (K key : new ArrayList<>(keys)) {
+                        if (remove(key)) {
+                            removed++;
+                        }
+                    }
+                }
+            }
+            return removed;
+        }
+    }
+
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            computations.clear();
+            entries.clear();
+            keysByTag.clear();
+            totalWeight = 0;
+        }
+    }
+
+
+    /**
+     * @return number of distinct tags held by the current entries
+     */
+    public int tagCount() {
+        synchronized (entries) {
+            return keysByTag.size();
+        }
+    }
+
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+
+    public long totalWeight() {
+        synchronized (entries) {
+            return totalWeight;
+        }
+    }
+
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+
+    public long missCount() {
+        return misses.get();
+    }
+
+
+    public long evictionCount() {
+        return evictions.get();
+    }
+
+
+    // guarded by 'entries'
+    private void store(K key, V value) {
+        long weight = weigher.applyAsLong(value);
+        if (weight > maxWeight) {
+            remove(key);
+            return;
+        }
+
+        Collection<?> tags = tagger.apply(key, value);
+        Entry<V> entry = new Entry<>(
+                value,
+                ticker.getAsLong() + ttlNanos,
+                weight,
+                tags == null || tags.isEmpty() ? Collections.emptySet() : new HashSet<>(tags));
+
+        Entry<V> previous = entries.put(key, entry);
+        if (previous != null) {
+            unlink(key, previous);
+        }
+        totalWeight += weight;
+        entry.tags.forEach(t -> keysByTag.computeIfAbsent(t, k -> new HashSet<>()).add(key));
+
+        // least recently used first, the new entry is last so is always retained
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxSize || totalWeight > maxWeight) {
+            Map.Entry<K, Entry<V>> eldest = iterator.next();
+            unlink(eldest.getKey(), eldest.getValue());
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+
+    // guarded by 'entries'
+    private boolean remove(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            unlink(key, removed);
+        }
+        return removed != null;
+    }
+
+
+    // guarded by 'entries', releases the weight and tags of an entry which is being removed from the map
+    private void unlink(K key, Entry<V> entry) {
+        totalWeight -= entry.weight;
+        for (Object tag : entry.tags) {
+            Set<K> keys = keysByTag.get(tag);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByTag.remove(tag);
+                }
+            }
+        }
+    }
+
+
+    private static <V> V awaitComputation(CompletableFuture<V> computation) {
+        try {
+            return computation.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw e;
+            }
+        }
+    }
+
+
+    private boolean isExpired(Entry<V> entry) {
+        return ticker.getAsLong() - entry.expiresAt >= 0;
+    }
+
+}
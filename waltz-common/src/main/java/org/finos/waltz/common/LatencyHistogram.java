@@ -0,0 +1,138 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.common;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * A fixed size, thread-safe histogram of latencies (recorded in microseconds) along with
+ * the number of rows associated with each recording.
+ *
+ * Values are counted in logarithmic buckets, four per power of two, so memory use is constant
+ * and recording is lock free.  Percentiles are therefore approximate, reported as the upper
+ * bound of the containing bucket (at most 25% above the true value) capped at the maximum
+ * recorded value.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40; // ~12 days in micros
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    private static final int BUCKET_COUNT = MAX_EXPONENT * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAdder totalRows = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+
+    public void record(long durationNanos, long rows) {
+        long micros = Math.min(MAX_VALUE, Math.max(0, TimeUnit.NANOSECONDS.toMicros(durationNanos)));
+
+        buckets.incrementAndGet(toBucketIndex(micros));
+        count.increment();
+        totalMicros.add(micros);
+        if (rows > 0) {
+            totalRows.add(rows);
+        }
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+
+    public long count() {
+        return count.sum();
+    }
+
+
+    public long totalMicros() {
+        return totalMicros.sum();
+    }
+
+
+    public long totalRows() {
+        return totalRows.sum();
+    }
+
+
+    public long maxMicros() {
+        return maxMicros.get();
+    }
+
+
+    public double meanMicros() {
+        long n = count();
+        return n == 0 ? 0 : (double) totalMicros() / n;
+    }
+
+
+    /**
+     * @param percentile  value between 0 and 100 (e.g. 95 for the 95th percentile)
+     * @return approximate latency, in microseconds, below which the given percentage of recordings fall
+     */
+    public long percentileMicros(double percentile) {
+        checkTrue(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+
+        long n = count();
+        if (n == 0) {
+            return 0;
+        }
+
+        long threshold = Math.max(1, (long) Math.ceil(n * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= threshold) {
+                return Math.min(maxMicros(), toBucketUpperBound(i));
+            }
+        }
+        return maxMicros();
+    }
+
+
+    // --- helpers ---
+
+    static int toBucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+
+    static long toBucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lower = (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lower + width - 1;
+    }
+
+}
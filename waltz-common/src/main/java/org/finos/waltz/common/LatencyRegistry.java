@@ -0,0 +1,77 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * A bounded collection of named {@link LatencyHistogram}s.  Once the maximum number of
+ * names has been reached, the least recently recorded name is evicted to make room for a
+ * new one, so the memory used by the registry cannot grow without limit while names which
+ * are still active keep their histograms.
+ */
+public class LatencyRegistry {
+
+    // guarded by 'histograms', access ordered so the eldest entry is the least recently recorded
+    private final Map<String, LatencyHistogram> histograms;
+
+
+    public LatencyRegistry(int maxNames) {
+        checkTrue(maxNames > 0, "maxNames must be positive");
+        this.histograms = new LinkedHashMap<String, LatencyHistogram>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LatencyHistogram> eldest) {
+                return size() > maxNames;
+            }
+        };
+    }
+
+
+    public void record(String name, long durationNanos, long rows) {
+        checkNotNull(name, "name cannot be null");
+
+        LatencyHistogram histogram;
+        synchronized (histograms) {
+            histogram = histograms.computeIfAbsent(name, k -> new LatencyHistogram());
+        }
+        histogram.record(durationNanos, rows);
+    }
+
+
+    /**
+     * @return snapshot of the histograms keyed by name, the histograms themselves are live
+     */
+    public Map<String, LatencyHistogram> getHistograms() {
+        synchronized (histograms) {
+            return new LinkedHashMap<>(histograms);
+        }
+    }
+
+
+    public void clear() {
+        synchronized (histograms) {
+            histograms.clear();
+        }
+    }
+
+}
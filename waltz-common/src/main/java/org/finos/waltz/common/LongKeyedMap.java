@@ -0,0 +1,144 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+/**
+ * An immutable map keyed by primitive longs.
+ *
+ * Keys are held in a sorted <code>long[]</code> (with values in a parallel array) and looked up via
+ * binary search, so no boxed keys or hash entries are allocated.  Intended for small to medium sized,
+ * read-mostly indexes such as reference data keyed by id.
+ *
+ * @param <V> value type
+ */
+public final class LongKeyedMap<V> {
+
+    private static final LongKeyedMap<?> EMPTY = new LongKeyedMap<>(new long[0], new Object[0]);
+
+    private final long[] keys;
+    private final Object[] values;
+
+
+    private LongKeyedMap(long[] keys, Object[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+
+    @SuppressWarnings("unchecked")
+    public static <V> LongKeyedMap<V> empty() {
+        return (LongKeyedMap<V>) EMPTY;
+    }
+
+
+    /**
+     * Indexes the given values by the key extracted from each.  If several values share a key
+     * the last one wins.
+     *
+     * @param xs  values to index
+     * @param keyFn  extracts the key for a value
+     * @param <V>  value type
+     * @return immutable map of key to value
+     */
+    public static <V> LongKeyedMap<V> index(Collection<V> xs, ToLongFunction<? super V> keyFn) {
+        checkNotNull(xs, "xs cannot be null");
+        checkNotNull(keyFn, "keyFn cannot be null");
+
+        List<V> items = new ArrayList<>(xs);
+        Integer[] order = new Integer[items.size()];
+        long[] unsortedKeys = new long[items.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            unsortedKeys[i] = keyFn.applyAsLong(items.get(i));
+        }
+        // stable sort, so for duplicate keys the later value is last
+        Arrays.sort(order, (a, b) -> Long.compare(unsortedKeys[a], unsortedKeys[b]));
+
+        long[] keys = new long[order.length];
+        Object[] values = new Object[order.length];
+        int size = 0;
+        for (Integer idx : order) {
+            long key = unsortedKeys[idx];
+            if (size > 0 && keys[size - 1] == key) {
+                values[size - 1] = items.get(idx);
+            } else {
+                keys[size] = key;
+                values[size] = items.get(idx);
+                size++;
+            }
+        }
+
+        return new LongKeyedMap<>(
+                Arrays.copyOf(keys, size),
+                Arrays.copyOf(values, size));
+    }
+
+
+    /**
+     * @return the value for the key, or null if absent
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int idx = Arrays.binarySearch(keys, key);
+        return idx < 0
+                ? null
+                : (V) values[idx];
+    }
+
+
+    public Optional<V> find(long key) {
+        return Optional.ofNullable(get(key));
+    }
+
+
+    public boolean containsKey(long key) {
+        return Arrays.binarySearch(keys, key) >= 0;
+    }
+
+
+    public int size() {
+        return keys.length;
+    }
+
+
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+
+    /**
+     * @return values ordered by key
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        return Collections.unmodifiableList(Arrays.asList((V[]) values));
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.common;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * Output stream which buffers in memory until <code>threshold</code> bytes have been written,
+ * after which the content is spilled to a temporary file.  The content can then be copied
+ * elsewhere via {@link #writeTo(OutputStream)}.  Closing the stream deletes any temporary file.
+ */
+public class SpooledOutputStream extends OutputStream {
+
+    private final int threshold;
+
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    private File file;
+    private OutputStream fileOut;
+    private long size = 0;
+
+
+    public SpooledOutputStream(int threshold) {
+        checkTrue(threshold > 0, "threshold must be positive");
+        this.threshold = threshold;
+    }
+
+
+    @Override
+    public void write(int b) throws IOException {
+        prepareFor(1).write(b);
+        size++;
+    }
+
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        prepareFor(len).write(b, off, len);
+        size += len;
+    }
+
+
+    @Override
+    public void flush() throws IOException {
+        if (fileOut != null) {
+            fileOut.flush();
+        }
+    }
+
+
+    /**
+     * @return number of bytes written so far
+     */
+    public long size() {
+        return size;
+    }
+
+
+    /**
+     * @return true if the content has exceeded the threshold and is held in a temporary file
+     */
+    public boolean isSpilled() {
+        return file != null;
+    }
+
+
+    /**
+     * Copies everything written so far to the given output stream, which is not closed.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (file == null) {
+            memory.writeTo(out);
+        } else {
+            fileOut.flush();
+            Files.copy(file.toPath(), out);
+        }
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        memory = null;
+        if (file != null) {
+            try {
+                fileOut.close();
+            } finally {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+    }
+
+
+    private OutputStream prepareFor(int len) throws IOException {
+        if (file == null && memory.size() + len > threshold) {
+            file = File.createTempFile("waltz-spool", ".tmp");
+            fileOut = new BufferedOutputStream(new FileOutputStream(file));
+            memory.writeTo(fileOut);
+            memory = null;
+        }
+        return file == null ? memory : fileOut;
+    }
+}
@@ -16,85 +16,289 @@
  *
  */
 
+
 package org.finos.waltz.common;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 
-import static org.finos.waltz.common.XmlUtilities.*;
+import static org.finos.waltz.common.XmlUtilities.createNonValidatingXmlInputFactory;
 
+/**
+ * Transformations applied to uploaded svg diagrams.
+ *
+ * Diagrams (especially those exported from Visio) can be several megabytes so the svg is
+ * processed as a stream of StAX events rather than being parsed into a DOM.  Element and
+ * attribute names are matched as written, i.e. including any prefix (e.g. <code>v:cp</code>).
+ */
 public class SvgUtilities {
 
-    public static String convertVisioSvg(String key, String svgStr) throws ParserConfigurationException, SAXException, IOException, XPathExpressionException, TransformerException {
-        DocumentBuilder builder = createNonValidatingDocumentBuilderFactory().newDocumentBuilder();
-        InputSource svgSource = new InputSource(new ByteArrayInputStream(svgStr.getBytes()));
-        Document svg = builder.parse(svgSource);
-
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        NodeList nodes = (NodeList) xpath.evaluate("//*", svg, XPathConstants.NODESET);
-
-        stream(nodes)
-                .forEach(n -> stream(n.getChildNodes())
-                        .filter(c -> c.getNodeName().contains("custProps"))
-                        .forEach(c -> stream(c.getChildNodes())
-                                .filter(cp -> cp.getNodeName().contains("cp"))
-                                .map(cp -> (Element) cp)
-                                .filter(cp -> key.equals(cp.getAttribute("v:lbl")))
-                                .map(cp -> cp.getAttribute("v:val"))
-                                .map(v -> v.replaceAll("^.*\\((.*)\\)$", "$1"))
-                                .forEach(v -> ((Element) n).setAttribute("data-"+key, v))
-                        )
-                );
-
-        return printDocument(svg, false); // do NOT toPrettyString print visio
+    private static final XMLInputFactory INPUT_FACTORY = createNonValidatingXmlInputFactory();
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    // strips the type marker from visio property values, e.g. VT4(APP-123) => APP-123
+    private static final Pattern VISIO_VALUE = Pattern.compile("^.*\\((.*)\\)$");
+
+
+    /**
+     * Visio records shape data as custom properties, e.g.
+     * <pre>
+     *     &lt;g&gt;
+     *         &lt;v:custProps&gt;
+     *             &lt;v:cp v:lbl="key" v:val="VT4(APP-123)"/&gt;
+     *         &lt;/v:custProps&gt;
+     *         ...
+     * </pre>
+     * For every element with a custom property labelled with the given key this adds a
+     * <code>data-{key}</code> attribute holding the property value (unwrapped from the
+     * <code>VT4(...)</code> type marker), e.g. <code>&lt;g data-key="APP-123"&gt;</code>.
+     *
+     * As the properties follow the start of the element they annotate the svg is read twice,
+     * once to collect the values and again to write the annotated copy.
+     */
+    public static String convertVisioSvg(String key, String svgStr) throws XMLStreamException {
+        Map<Integer, String> valuesByElementIdx = collectCustomPropertyValues(key, svgStr);
+        String attrName = "data-" + key;
+
+        return transform(svgStr, (elementIdx, tag) -> {
+            String value = valuesByElementIdx.get(elementIdx);
+            if (value != null) {
+                tag.setAttribute(attrName, value);
+            }
+        });
     }
 
 
+    /**
+     * Wraps every element (other than the root) which has a <code>data-{keyProp}</code> attribute
+     * in a hyperlink, the url is determined by the key to url function.  Elements without a url
+     * are left as is.
+     */
     public static String addWaltzEntityLinks(String svgStr,
                                              String keyProp,
-                                             Function<String, Optional<String>> keyToUrl) throws ParserConfigurationException, SAXException, IOException, XPathExpressionException, TransformerException {
-        DocumentBuilder builder = createNonValidatingDocumentBuilderFactory().newDocumentBuilder();
-        InputSource svgSource = new InputSource(new ByteArrayInputStream(svgStr.getBytes()));
-        Document svg = builder.parse(svgSource);
-
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        NodeList nodes = (NodeList) xpath.evaluate("//*", svg, XPathConstants.NODESET);
-
-        stream(nodes)
-                .forEach(n -> stream(n.getChildNodes())
-                        .filter(c -> c.hasAttributes() && c.getAttributes().getNamedItem("data-" + keyProp) != null)
-                        .forEach(c -> {
-                            String keyVal = c.getAttributes()
-                                                .getNamedItem("data-" + keyProp)
-                                                .getNodeValue();
-
-                            keyToUrl.apply(keyVal)
-                                    .ifPresent(url -> {
-                                        Element linkNode = svg.createElement("a");
-                                        linkNode.setAttribute("href", url);
-                                        linkNode.setAttribute("target", "_blank");
-                                        c.getParentNode().appendChild(linkNode);
-                                        linkNode.appendChild(c);
-                                    });
-                        })
-                );
-
-        return printDocument(svg, false);
+                                             Function<String, Optional<String>> keyToUrl) throws XMLStreamException {
+        String attrName = "data-" + keyProp;
+
+        return transform(svgStr, (elementIdx, tag) -> {
+            if (elementIdx > 0) {
+                tag.linkUrl = Optional
+                        .ofNullable(tag.getAttribute(attrName))
+                        .flatMap(keyToUrl)
+                        .orElse(null);
+            }
+        });
+    }
+
+
+    // --- helpers ---
+
+    /**
+     * A start tag read from the source svg, which may be modified before it is written.
+     */
+    private static class StartTag {
+
+        private final String name;
+        private final List<String> attrNames = new ArrayList<>();
+        private final List<String> attrValues = new ArrayList<>();
+        private String linkUrl = null;
+
+
+        private StartTag(XMLStreamReader reader) {
+            this.name = qualify(reader.getPrefix(), reader.getLocalName());
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                String prefix = reader.getNamespacePrefix(i);
+                attrNames.add(StringUtilities.isEmpty(prefix) ? "xmlns" : "xmlns:" + prefix);
+                attrValues.add(reader.getNamespaceURI(i));
+            }
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                attrNames.add(qualify(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)));
+                attrValues.add(reader.getAttributeValue(i));
+            }
+        }
+
+
+        private String getAttribute(String attrName) {
+            int idx = attrNames.indexOf(attrName);
+            return idx < 0 ? null : attrValues.get(idx);
+        }
+
+
+        private void setAttribute(String attrName, String value) {
+            int idx = attrNames.indexOf(attrName);
+            if (idx < 0) {
+                attrNames.add(attrName);
+                attrValues.add(value);
+            } else {
+                attrValues.set(idx, value);
+            }
+        }
+
+
+        private void write(XMLStreamWriter writer, boolean empty) throws XMLStreamException {
+            if (linkUrl != null) {
+                writer.writeStartElement("a");
+                writer.writeAttribute("href", linkUrl);
+                writer.writeAttribute("target", "_blank");
+            }
+            if (empty) {
+                writer.writeEmptyElement(name);
+            } else {
+                writer.writeStartElement(name);
+            }
+            for (int i = 0; i < attrNames.size(); i++) {
+                writer.writeAttribute(attrNames.get(i), attrValues.get(i));
+            }
+            if (empty && linkUrl != null) {
+                writer.writeEndElement();
+            }
+        }
+
+
+        /**
+         * Depending on the StAX implementation (and namespace awareness) the prefix may
+         * be reported separately or as part of the local name.
+         */
+        private static String qualify(String prefix, String localName) {
+            return StringUtilities.isEmpty(prefix) || localName.startsWith(prefix + ":")
+                    ? localName
+                    : prefix + ":" + localName;
+        }
+    }
+
+
+    @FunctionalInterface
+    private interface StartTagCustomiser {
+        void customise(int elementIdx, StartTag tag);
+    }
+
+
+    /**
+     * Finds the custom property values for the given key.
+     * @return values keyed by the (document order) index of the element they annotate
+     */
+    private static Map<Integer, String> collectCustomPropertyValues(String key, String svgStr) throws XMLStreamException {
+        Map<Integer, String> valuesByElementIdx = new HashMap<>();
+
+        // index and name of each open element, root first
+        List<Integer> openIdxs = new ArrayList<>();
+        List<String> openNames = new ArrayList<>();
+        int elementIdx = 0;
+
+        XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(new StringReader(svgStr));
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    StartTag tag = new StartTag(reader);
+                    int depth = openNames.size();
+                    if (depth >= 2
+                            && tag.name.contains("cp")
+                            && openNames.get(depth - 1).contains("custProps")
+                            && key.equals(tag.getAttribute("v:lbl"))) {
+                        String value = VISIO_VALUE
+                                .matcher(Optional.ofNullable(tag.getAttribute("v:val")).orElse(""))
+                                .replaceAll("$1");
+                        valuesByElementIdx.put(openIdxs.get(depth - 2), value);
+                    }
+                    openIdxs.add(elementIdx++);
+                    openNames.add(tag.name);
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    openIdxs.remove(openIdxs.size() - 1);
+                    openNames.remove(openNames.size() - 1);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return valuesByElementIdx;
+    }
+
+
+    /**
+     * Copies the svg event by event, giving the customiser the opportunity to modify each start tag.
+     * Start tags are held back by one event so elements without content can be written as empty
+     * elements.  The DTD (if any) is not copied.
+     */
+    private static String transform(String svgStr, StartTagCustomiser customiser) throws XMLStreamException {
+        StringWriter out = new StringWriter(svgStr.length() + svgStr.length() / 10);
+        XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(new StringReader(svgStr));
+        XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(out);
+
+        // whether each open element was wrapped in a link
+        Deque<Boolean> linked = new ArrayDeque<>();
+        StartTag pending = null;
+        int elementIdx = 0;
+
+        try {
+            writer.writeStartDocument("UTF-8", "1.0");
+            while (reader.hasNext()) {
+                int event = reader.next();
+
+                if (pending != null) {
+                    boolean empty = event == XMLStreamConstants.END_ELEMENT;
+                    pending.write(writer, empty);
+                    if (empty) {
+                        pending = null;
+                        continue;
+                    }
+                    linked.push(pending.linkUrl != null);
+                    pending = null;
+                }
+
+                switch (event) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        pending = new StartTag(reader);
+                        customiser.customise(elementIdx++, pending);
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        writer.writeEndElement();
+                        if (linked.pop()) {
+                            writer.writeEndElement();
+                        }
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.SPACE:
+                    case XMLStreamConstants.ENTITY_REFERENCE:
+                        writer.writeCharacters(reader.getText());
+                        break;
+                    case XMLStreamConstants.CDATA:
+                        writer.writeCData(reader.getText());
+                        break;
+                    case XMLStreamConstants.COMMENT:
+                        writer.writeComment(reader.getText());
+                        break;
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                        writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+                        break;
+                    default:
+                        // document start/end and dtd
+                        break;
+                }
+            }
+            writer.writeEndDocument();
+            writer.flush();
+        } finally {
+            writer.close();
+            reader.close();
+        }
+
+        return out.toString();
     }
 
 }
@@ -0,0 +1,331 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * A bounded, write-behind queue for low value, high volume writes (e.g. access logs).
+ *
+ * Producers call {@link #offer(Object)}, which never blocks: items are appended to a lock-free
+ * queue, or dropped (and counted) if the queue is at capacity.  A single daemon thread drains the
+ * queue and passes the items to the writer in batches of up to `batchSize`, either once a full
+ * batch is waiting or after the flush interval.  If a batch fails its items are written one at a
+ * time so a single bad item does not lose the rest of the batch.  An item which still fails is
+ * retried on later flushes, up to {@link #MAX_ATTEMPTS} times, before it is counted as failed.
+ *
+ * {@link #close()} stops accepting items and waits (up to the given timeout) for the writer thread
+ * to flush everything still queued.  An item offered concurrently with close is either written by
+ * the final flush (and the offer returns true) or counted as dropped.
+ *
+ * @param <T> item type
+ */
+public class WriteBehindQueue<T> implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    public static final int MAX_ATTEMPTS = 3;
+
+    private final String name;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Consumer<List<T>> writer;
+
+    private final ConcurrentLinkedQueue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Thread writerThread;
+    private volatile boolean closed = false;
+
+    // items awaiting another attempt, only accessed by the writer thread
+    private List<Retry<T>> retries = new ArrayList<>();
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+
+    /**
+     * @param name  used to name the writer thread and in log messages
+     * @param capacity  maximum number of items waiting to be written, further items are dropped
+     * @param batchSize  maximum number of items passed to the writer in one call
+     * @param flushInterval  maximum time an item waits before a (partial) batch is written
+     * @param writer  writes a batch of items, typically as a single jdbc batch
+     */
+    public WriteBehindQueue(String name,
+                            int capacity,
+                            int batchSize,
+                            Duration flushInterval,
+                            Consumer<List<T>> writer) {
+        checkNotNull(name, "name cannot be null");
+        checkTrue(capacity > 0, "capacity must be positive");
+        checkTrue(batchSize > 0, "batchSize must be positive");
+        checkNotNull(flushInterval, "flushInterval cannot be null");
+        checkNotNull(writer, "writer cannot be null");
+
+        this.name = name;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.writer = writer;
+
+        this.writerThread = new Thread(this::run, "WaltzWriteBehind-" + name);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+
+    /**
+     * Queues the item to be written, never blocks.
+     *
+     * @param item  item to write
+     * @return true if the item was queued, false if it was dropped as the queue is full (or closed)
+     */
+    public boolean offer(T item) {
+        checkNotNull(item, "item cannot be null");
+
+        if (closed) {
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        int newSize = size.incrementAndGet();
+        if (newSize > capacity) {
+            size.decrementAndGet();
+            long droppedCount = dropped.incrementAndGet();
+            if (droppedCount == 1 || droppedCount % 1_000 == 0) {
+                LOG.warn("Write behind queue: {} is full (capacity: {}), {} items dropped so far", name, capacity, droppedCount);
+            }
+            return false;
+        }
+
+        queue.add(item);
+        if (closed && queue.remove(item)) {
+            // closed whilst adding, the writer may already have made its final flush.  If the
+            // item has gone the final flush took it, otherwise it would never be written.
+            size.decrementAndGet();
+            dropped.incrementAndGet();
+            return false;
+        }
+        enqueued.incrementAndGet();
+
+        if (newSize == batchSize) {
+            LockSupport.unpark(writerThread);
+        }
+        return true;
+    }
+
+
+    /**
+     * Stops accepting items and waits for the queued items to be written.
+     *
+     * @param timeout  maximum time to wait for the final flush
+     * @return true if the queue was fully flushed within the timeout
+     */
+    public boolean close(Duration timeout) {
+        closed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(Math.max(1, timeout.toMillis()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        boolean flushed = ! writerThread.isAlive();
+        if (! flushed) {
+            LOG.warn("Write behind queue: {} did not flush within {}, {} items pending", name, timeout, size.get());
+        }
+        return flushed;
+    }
+
+
+    @Override
+    public void close() {
+        close(Duration.ofSeconds(10));
+    }
+
+
+    public int pendingCount() {
+        return size.get();
+    }
+
+
+    public int capacity() {
+        return capacity;
+    }
+
+
+    public long enqueuedCount() {
+        return enqueued.get();
+    }
+
+
+    public long writtenCount() {
+        return written.get();
+    }
+
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+
+    public long failedCount() {
+        return failed.get();
+    }
+
+
+    // --- helpers ---
+
+    private void run() {
+        while (! closed) {
+            if (size.get() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            flush();
+        }
+        flush();
+        for (int i = 1; i < MAX_ATTEMPTS && ! retries.isEmpty(); i++) {
+            writeRetries();
+        }
+        // no further flushes will retry these
+        failed.addAndGet(retries.size());
+        LOG.info(
+                "Write behind queue: {} closed, written: {}, dropped: {}, failed: {}",
+                name,
+                written.get(),
+                dropped.get(),
+                failed.get());
+    }
+
+
+    private void flush() {
+        writeRetries();
+
+        List<T> batch = new ArrayList<>(batchSize);
+        T item;
+        while ((item = queue.poll()) != null) {
+            size.decrementAndGet();
+            batch.add(item);
+            if (batch.size() == batchSize) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (! batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+
+    private void write(List<T> batch) {
+        long start = System.nanoTime();
+        try {
+            writer.accept(batch);
+            written.addAndGet(batch.size());
+            LOG.debug(
+                    "Write behind queue: {} wrote {} items in {}ms",
+                    name,
+                    batch.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            LOG.warn("Write behind queue: {} failed to write batch of {} items, writing individually", name, batch.size(), e);
+            List<Retry<T>> items = new ArrayList<>(batch.size());
+            batch.forEach(item -> items.add(new Retry<>(item, 1)));
+            writeIndividually(items);
+        }
+    }
+
+
+    private void writeRetries() {
+        if (retries.isEmpty()) {
+            return;
+        }
+        List<Retry<T>> toRetry = retries;
+        retries = new ArrayList<>();
+        writeIndividually(toRetry);
+    }
+
+
+    /**
+     * Writes the items one at a time.  After two consecutive failures the remaining items are
+     * deferred to the next flush, rather than hammering a database which may be unavailable.
+     */
+    private void writeIndividually(List<Retry<T>> items) {
+        boolean lastFailed = false;
+        for (int i = 0; i < items.size(); i++) {
+            Retry<T> r = items.get(i);
+            try {
+                writer.accept(Collections.singletonList(r.item));
+                written.incrementAndGet();
+                lastFailed = false;
+            } catch (Exception e) {
+                if (r.attempts < MAX_ATTEMPTS) {
+                    defer(new Retry<>(r.item, r.attempts + 1));
+                } else {
+                    failed.incrementAndGet();
+                    LOG.warn("Write behind queue: {} giving up on item after {} attempts", name, r.attempts, e);
+                }
+                if (lastFailed) {
+                    items.subList(i + 1, items.size()).forEach(this::defer);
+                    return;
+                }
+                lastFailed = true;
+            }
+        }
+    }
+
+
+    private void defer(Retry<T> r) {
+        if (retries.size() < capacity) {
+            retries.add(r);
+        } else {
+            failed.incrementAndGet();
+        }
+    }
+
+
+    private static class Retry<T> {
+        private final T item;
+        private final int attempts;
+
+        private Retry(T item, int attempts) {
+            this.item = item;
+            this.attempts = attempts;
+        }
+    }
+
+}
@@ -24,12 +24,14 @@ import org.w3c.dom.NodeList;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
@@ -84,4 +86,31 @@ public class XmlUtilities {
 
         return factory;
     }
+
+
+    /**
+     * Creates a StAX input factory with the same leniency as {@link #createNonValidatingDocumentBuilderFactory()},
+     * i.e. no namespace processing is performed and no external DTDs or entities are loaded.  Entities
+     * declared in the internal subset of the DTD are expanded.
+     */
+    public static XMLInputFactory createNonValidatingXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, true);
+        factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        // external DTDs (e.g. the SVG 1.1 DTD referenced by Visio exports) resolve to nothing
+        factory.setXMLResolver((publicId, systemId, baseUri, namespace) -> new ByteArrayInputStream(new byte[0]));
+
+        try {
+            // by default the jdk parser reports cdata sections as plain characters
+            factory.setProperty("http://java.sun.com/xml/stream/properties/report-cdata-event", true);
+        } catch (IllegalArgumentException e) {
+            // not supported by this StAX implementation, cdata sections will be written as escaped text
+        }
+
+        return factory;
+    }
 }
@@ -0,0 +1,190 @@
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExpiringCacheTest {
+
+    @Test
+    public void valuesAreComputedOnceUntilExpired() {
+        AtomicLong clock = new AtomicLong(0);
+        AtomicInteger computeCount = new AtomicInteger(0);
+        ExpiringCache<String, Integer> cache = new ExpiringCache<>(10, Duration.ofNanos(100), clock::get);
+
+        assertEquals(1, cache.getOrCompute("a", k -> computeCount.incrementAndGet()));
+        assertEquals(1, cache.getOrCompute("a", k -> computeCount.incrementAndGet()));
+        assertEquals(1, computeCount.get(), "second lookup should be a cache hit");
+
+        clock.set(100);
+        assertEquals(2, cache.getOrCompute("a", k -> computeCount.incrementAndGet()), "entry should have expired");
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvictedWhenFull() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, Duration.ofMinutes(1));
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get("a");
+        cache.put("c", "C");
+
+        assertEquals(2, cache.size());
+        assertEquals(Optional.of("A"), cache.get("a"));
+        assertFalse(cache.get("b").isPresent(), "b was least recently used so should be evicted");
+        assertEquals(1, cache.evictionCount());
+    }
+
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvictedWhenOverweight() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 10, String::length, Duration.ofMinutes(1));
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.get("a");
+        cache.put("c", "cccccc");
+
+        assertEquals(10, cache.totalWeight());
+        assertEquals(Optional.of("aaaa"), cache.get("a"));
+        assertFalse(cache.get("b").isPresent(), "b was least recently used so should be evicted");
+
+        cache.put("d", "ddddddddddd");
+        assertFalse(cache.get("d").isPresent(), "values heavier than the maximum are not retained");
+        assertEquals(10, cache.totalWeight());
+
+        cache.invalidate("a");
+        assertEquals(6, cache.totalWeight());
+    }
+
+
+    @Test
+    public void canInvalidateSelectively() {
+        ExpiringCache<Integer, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+        cache.put(1, "odd");
+        cache.put(2, "even");
+        cache.put(3, "odd");
+
+        assertEquals(2, cache.invalidateIf((k, v) -> v.equals("odd")));
+        assertEquals(1, cache.size());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+
+    @Test
+    public void valuesComputedDuringAnInvalidationAreNotRetained() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+
+        String result = cache.getOrCompute("a", k -> {
+            cache.invalidateAll();
+            return "stale";
+        });
+
+        assertEquals("stale", result, "caller still receives the computed value");
+        assertFalse(cache.get("a").isPresent(), "but it should not be cached");
+    }
+
+
+    @Test
+    public void concurrentMissesShareOneComputation() throws Exception {
+        ExpiringCache<String, Integer> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+        AtomicInteger computeCount = new AtomicInteger(0);
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = executor.submit(() -> cache.getOrCompute("a", k -> {
+                computing.countDown();
+                await(release);
+                return computeCount.incrementAndGet();
+            }));
+            assertTrue(computing.await(5, TimeUnit.SECONDS));
+
+            Future<Integer> second = executor.submit(() -> cache.getOrCompute("a", k -> computeCount.incrementAndGet()));
+            while (cache.missCount() < 2) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertEquals(1, first.get(5, TimeUnit.SECONDS));
+            assertEquals(1, second.get(5, TimeUnit.SECONDS), "second caller should wait for the first computation");
+            assertEquals(1, computeCount.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void failedComputationsAreNotRetained() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> cache.getOrCompute("a", k -> {
+                    throw new IllegalStateException("boom");
+                }));
+
+        assertEquals("A", cache.getOrCompute("a", k -> "A"), "next caller should compute afresh");
+    }
+
+
+    @Test
+    public void canInvalidateByTag() {
+        ExpiringCache<Integer, String> cache = new ExpiringCache<>(
+                2,
+                Duration.ofMinutes(1),
+                (k, v) -> asSet(v.split(",")));
+        cache.put(1, "x,y");
+        cache.put(2, "y,z");
+
+        assertEquals(3, cache.tagCount());
+        assertEquals(1, cache.invalidateTagged(singleton("x")));
+        assertFalse(cache.get(1).isPresent());
+        assertEquals(Optional.of("y,z"), cache.get(2));
+        assertEquals(2, cache.tagCount(), "tags of removed entries are released");
+
+        cache.put(3, "w");
+        cache.put(4, "w");
+        assertEquals(1, cache.tagCount(), "tags of evicted entries are released");
+        assertEquals(2, cache.invalidateTagged(asList("w", "unknown")));
+        assertEquals(0, cache.size());
+    }
+
+
+    @Test
+    public void sizeMustBePositive() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new ExpiringCache<>(0, Duration.ofMinutes(1)));
+    }
+
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
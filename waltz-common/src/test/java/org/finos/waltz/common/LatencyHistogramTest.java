@@ -0,0 +1,63 @@
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverEveryValue() {
+        for (long v = 0; v < 100_000; v++) {
+            int idx = LatencyHistogram.toBucketIndex(v);
+            assertTrue(LatencyHistogram.toBucketUpperBound(idx) >= v, "upper bound should include value: " + v);
+            assertTrue(idx == 0 || LatencyHistogram.toBucketUpperBound(idx - 1) < v, "previous bucket should not include value: " + v);
+        }
+    }
+
+
+    @Test
+    public void percentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int ms = 1; ms <= 100; ms++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(ms), 10);
+        }
+
+        assertEquals(100, histogram.count());
+        assertEquals(1000, histogram.totalRows());
+        assertEquals(100_000, histogram.maxMicros());
+        assertWithin(50_000, histogram.percentileMicros(50));
+        assertWithin(95_000, histogram.percentileMicros(95));
+        assertWithin(99_000, histogram.percentileMicros(99));
+        assertEquals(100_000, histogram.percentileMicros(100), "capped at the maximum recorded value");
+    }
+
+
+    @Test
+    public void registryIsBoundedByEvictingTheLeastRecentlyRecordedName() {
+        LatencyRegistry registry = new LatencyRegistry(2);
+        registry.record("a", 1000, 0);
+        registry.record("b", 1000, 0);
+        registry.record("a", 1000, 0);
+        registry.record("c", 1000, 0);
+
+        assertEquals(asSet("a", "c"), registry.getHistograms().keySet());
+        assertEquals(2, registry.getHistograms().get("a").count());
+
+        registry.record("b", 1000, 0);
+
+        assertEquals(asSet("c", "b"), registry.getHistograms().keySet());
+        assertEquals(1, registry.getHistograms().get("b").count(), "evicted names start afresh");
+    }
+
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(
+                actual >= expected && actual <= expected * 1.25,
+                String.format("expected %d to be within 25%% above %d", actual, expected));
+    }
+}
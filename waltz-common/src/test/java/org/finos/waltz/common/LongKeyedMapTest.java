@@ -0,0 +1,63 @@
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LongKeyedMapTest {
+
+    @Test
+    public void valuesCanBeLookedUpByKey() {
+        LongKeyedMap<String> m = LongKeyedMap.index(asList("ccc", "a", "bb"), String::length);
+
+        assertEquals(3, m.size());
+        assertEquals("a", m.get(1));
+        assertEquals("bb", m.get(2));
+        assertEquals(Optional.of("ccc"), m.find(3));
+        assertNull(m.get(4));
+        assertFalse(m.find(-1).isPresent());
+        assertTrue(m.containsKey(2));
+        assertFalse(m.containsKey(0));
+    }
+
+
+    @Test
+    public void valuesAreOrderedByKey() {
+        LongKeyedMap<String> m = LongKeyedMap.index(asList("ccc", "a", "bb"), String::length);
+        assertEquals(asList("a", "bb", "ccc"), m.values());
+    }
+
+
+    @Test
+    public void lastValueWinsForDuplicateKeys() {
+        LongKeyedMap<String> m = LongKeyedMap.index(asList("a", "bb", "b", "c"), String::length);
+
+        assertEquals(2, m.size());
+        assertEquals("c", m.get(1));
+        assertEquals("bb", m.get(2));
+    }
+
+
+    @Test
+    public void emptyMapHasNoValues() {
+        LongKeyedMap<String> m = LongKeyedMap.empty();
+        assertTrue(m.isEmpty());
+        assertNull(m.get(1));
+        assertTrue(m.values().isEmpty());
+    }
+
+
+    @Test
+    public void valuesCannotBeModified() {
+        LongKeyedMap<String> m = LongKeyedMap.index(asList("a"), String::length);
+        assertThrows(UnsupportedOperationException.class, () -> m.values().add("b"));
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpooledOutputStreamTest {
+
+    @Test
+    public void contentUnderThresholdIsHeldInMemory() throws IOException {
+        try (SpooledOutputStream spool = new SpooledOutputStream(10)) {
+            spool.write("hello".getBytes(StandardCharsets.UTF_8));
+
+            assertFalse(spool.isSpilled());
+            assertEquals(5, spool.size());
+            assertEquals("hello", copy(spool));
+        }
+    }
+
+
+    @Test
+    public void contentOverThresholdIsSpilledToDisk() throws IOException {
+        try (SpooledOutputStream spool = new SpooledOutputStream(4)) {
+            spool.write("hel".getBytes(StandardCharsets.UTF_8));
+            spool.write('l');
+            assertFalse(spool.isSpilled(), "threshold not yet exceeded");
+
+            spool.write("o world".getBytes(StandardCharsets.UTF_8));
+
+            assertTrue(spool.isSpilled());
+            assertEquals(11, spool.size());
+            assertEquals("hello world", copy(spool));
+        }
+    }
+
+
+    private static String copy(SpooledOutputStream spool) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        spool.writeTo(out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
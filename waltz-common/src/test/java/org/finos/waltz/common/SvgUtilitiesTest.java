@@ -0,0 +1,66 @@
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SvgUtilitiesTest {
+
+    private static final String VISIO_SVG = "<svg xmlns:v=\"http://schemas.microsoft.com/visio/2003/SVGExtensions/\">" +
+            "<g id=\"shape1\">" +
+            "<v:custProps><v:cp v:lbl=\"appId\" v:val=\"VT4(12)\"/><v:cp v:lbl=\"other\" v:val=\"VT4(x)\"/></v:custProps>" +
+            "<rect width=\"10\"/>" +
+            "</g>" +
+            "<g id=\"shape2\"><text>hello</text></g>" +
+            "</svg>";
+
+
+    @Test
+    public void visioCustomPropertyIsExposedAsDataAttribute() throws XMLStreamException {
+        String result = SvgUtilities.convertVisioSvg("appId", VISIO_SVG);
+
+        assertTrue(result.contains("<g id=\"shape1\" data-appId=\"12\">"), result);
+        assertFalse(result.contains("data-other"), "only the key property is exposed");
+        assertTrue(result.contains("<g id=\"shape2\"><text>hello</text></g>"), "other elements are untouched");
+        assertTrue(result.contains("<rect width=\"10\"/>"), "empty elements remain self-closing");
+    }
+
+
+    @Test
+    public void elementsWithKeyPropertyAreWrappedInLinks() throws XMLStreamException {
+        String svg = "<svg><g data-appId=\"12\"><rect/></g><g data-appId=\"99\"/><g/></svg>";
+
+        String result = SvgUtilities.addWaltzEntityLinks(
+                svg,
+                "appId",
+                k -> k.equals("12") ? Optional.of("app/12") : Optional.empty());
+
+        assertTrue(
+                result.contains("<a href=\"app/12\" target=\"_blank\"><g data-appId=\"12\"><rect/></g></a>"),
+                result);
+        assertTrue(result.contains("<g data-appId=\"99\"/>"), "unresolved keys are not linked");
+        assertEquals(1, result.split("<a ").length - 1);
+    }
+
+
+    @Test
+    public void internalEntitiesAreExpandedAndExternalDtdsAreNotLoaded() throws XMLStreamException {
+        String svg = "<?xml version=\"1.0\"?>" +
+                "<!DOCTYPE svg PUBLIC \"-//W3C//DTD SVG 1.1//EN\" \"http://localhost:1/svg11.dtd\" [" +
+                "<!ENTITY label \"hello\">" +
+                "<!ENTITY secret SYSTEM \"file:///etc/passwd\">" +
+                "]>" +
+                "<svg><text>&label;</text><desc>&secret;</desc></svg>";
+
+        String result = SvgUtilities.addWaltzEntityLinks(svg, "appId", k -> Optional.empty());
+
+        assertTrue(result.contains("<text>hello</text>"), result);
+        assertFalse(result.contains("root:"), "external entities are not loaded");
+    }
+
+}
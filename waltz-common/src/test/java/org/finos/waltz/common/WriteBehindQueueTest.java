@@ -0,0 +1,182 @@
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WriteBehindQueueTest {
+
+    @Test
+    public void itemsAreWrittenInBatches() {
+        List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindQueue<Integer> q = new WriteBehindQueue<>("test", 100, 2, Duration.ofMinutes(1), batches::add);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(q.offer(i));
+        }
+
+        assertTrue(q.close(Duration.ofSeconds(5)), "remaining items should be flushed on close");
+        assertEquals(5, q.writtenCount());
+        assertEquals(5, batches.stream().mapToInt(List::size).sum());
+        assertTrue(batches.stream().allMatch(b -> b.size() <= 2), "batches should not exceed batch size");
+    }
+
+
+    @Test
+    public void partialBatchesAreWrittenAfterFlushInterval() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        WriteBehindQueue<String> q = new WriteBehindQueue<>("test", 100, 10, Duration.ofMillis(10), b -> latch.countDown());
+
+        q.offer("a");
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "partial batch should be written without waiting for close");
+        q.close();
+    }
+
+
+    @Test
+    public void itemsAreDroppedWhenFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        WriteBehindQueue<String> q = new WriteBehindQueue<>("test", 2, 1, Duration.ofMinutes(1), b -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // first item is taken by the (blocked) writer, next two fill the queue
+        q.offer("a");
+        while (q.pendingCount() > 0) {
+            Thread.sleep(1);
+        }
+        assertTrue(q.offer("b"));
+        assertTrue(q.offer("c"));
+        assertFalse(q.offer("d"), "queue is full so item should be dropped");
+        assertEquals(1, q.droppedCount());
+
+        release.countDown();
+        q.close();
+        assertEquals(3, q.writtenCount());
+    }
+
+
+    @Test
+    public void failedBatchesAreCounted() {
+        WriteBehindQueue<String> q = new WriteBehindQueue<>("test", 10, 5, Duration.ofMinutes(1), b -> {
+            throw new IllegalStateException("boom");
+        });
+
+        q.offer("a");
+        q.offer("b");
+        q.close();
+
+        assertEquals(2, q.failedCount());
+        assertEquals(0, q.writtenCount());
+    }
+
+
+    @Test
+    public void aBadItemDoesNotLoseTheRestOfItsBatch() {
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindQueue<String> q = new WriteBehindQueue<>("test", 10, 5, Duration.ofMinutes(1), b -> {
+            if (b.contains("bad")) {
+                throw new IllegalStateException("boom");
+            }
+            written.addAll(b);
+        });
+
+        q.offer("a");
+        q.offer("bad");
+        q.offer("c");
+        q.close();
+
+        assertEquals(asList("a", "c"), written);
+        assertEquals(2, q.writtenCount());
+        assertEquals(1, q.failedCount());
+    }
+
+
+    @Test
+    public void failedItemsAreRetried() {
+        AtomicInteger calls = new AtomicInteger();
+        WriteBehindQueue<String> q = new WriteBehindQueue<>("test", 10, 5, Duration.ofMinutes(1), b -> {
+            if (calls.incrementAndGet() <= 2) {
+                throw new IllegalStateException("transient");
+            }
+        });
+
+        q.offer("a");
+        q.close();
+
+        assertEquals(1, q.writtenCount());
+        assertEquals(0, q.failedCount());
+    }
+
+
+    @Test
+    public void itemsOfferedAfterCloseAreDropped() {
+        WriteBehindQueue<String> q = new WriteBehindQueue<>("test", 10, 5, Duration.ofMinutes(1), b -> {});
+        q.close();
+
+        assertFalse(q.offer("a"));
+        assertEquals(1, q.droppedCount());
+    }
+
+
+    @Test
+    public void itemsOfferedWhilstClosingAreWrittenOrDropped() throws InterruptedException {
+        for (int run = 0; run < 20; run++) {
+            AtomicInteger accepted = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            WriteBehindQueue<Integer> q = new WriteBehindQueue<>("test", 100_000, 50, Duration.ofMillis(1), b -> {});
+
+            CountDownLatch started = new CountDownLatch(4);
+            List<Thread> producers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread producer = new Thread(() -> {
+                    started.countDown();
+                    for (int i = 0; i < 5_000; i++) {
+                        if (q.offer(i)) {
+                            accepted.incrementAndGet();
+                        } else {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                });
+                producer.start();
+                producers.add(producer);
+            }
+
+            started.await();
+            assertTrue(q.close(Duration.ofSeconds(5)));
+            for (Thread producer : producers) {
+                producer.join();
+            }
+
+            assertEquals(0, q.pendingCount(), "no item should be stranded in the queue");
+            assertEquals(accepted.get(), q.writtenCount(), "every accepted item should be written");
+            assertEquals(rejected.get(), q.droppedCount(), "every rejected item should be counted as dropped");
+        }
+    }
+
+
+    @Test
+    public void capacityMustBePositive() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new WriteBehindQueue<String>("test", 0, 1, Duration.ofSeconds(1), b -> {}));
+    }
+}
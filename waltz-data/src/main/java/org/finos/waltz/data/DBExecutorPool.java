@@ -18,34 +18,262 @@
 
 package org.finos.waltz.data;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * Executes database tasks on a fixed size pool.  The pool is sized at half the connection
+ * pool so background fan-out can never exhaust the available connections.
+ *
+ * Tasks submitted on behalf of a named caller are additionally limited to a number of
+ * concurrently running tasks per caller, so a burst of requests from one caller (e.g. search)
+ * cannot occupy the entire pool.  Tasks waiting on a caller limit are held in a per-caller
+ * queue rather than the pool queue.
+ */
 public class DBExecutorPool implements DBExecutorPoolInterface {
 
+    private static final Logger LOG = LoggerFactory.getLogger(DBExecutorPool.class);
+
     private final ExecutorService executorPool;
+    private final int poolSize;
+    private final int perCallerLimit;
+    private final Lane defaultLane;
+    private final Map<String, Lane> lanesByCaller = new ConcurrentHashMap<>();
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong startedCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+
+    /**
+     * Tasks which are started once a slot is available, never more than the lane limit at once
+     */
+    private class Lane {
+        private final int limit;
+        private final Deque<Runnable> waiting = new ArrayDeque<>();
+        private int running = 0;
+
+        private Lane(int limit) {
+            this.limit = limit;
+        }
+
+        private void dispatch(Runnable work) {
+            synchronized (this) {
+                if (running >= limit) {
+                    waiting.add(work);
+                    return;
+                }
+                running++;
+            }
+            executorPool.execute(work);
+        }
+
+        private void release() {
+            Runnable next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    running--;
+                }
+            }
+            if (next != null) {
+                executorPool.execute(next);
+            }
+        }
+    }
 
 
     @Autowired
     public DBExecutorPool(int dbPoolMin, int dbPoolMax) {
-        executorPool = Executors.newFixedThreadPool(
-                Integer.max(dbPoolMax / 2, 1),
+        this(dbPoolMin, dbPoolMax, Integer.max(dbPoolMax / 4, 1));
+    }
+
+
+    /**
+     * @param dbPoolMin  minimum size of the connection pool
+     * @param dbPoolMax  maximum size of the connection pool, the executor uses half this number of threads
+     * @param perCallerLimit  maximum number of concurrently running tasks for a named caller
+     */
+    public DBExecutorPool(int dbPoolMin, int dbPoolMax, int perCallerLimit) {
+        checkTrue(perCallerLimit > 0, "perCallerLimit must be positive");
+
+        this.poolSize = Integer.max(dbPoolMax / 2, 1);
+        this.perCallerLimit = Integer.min(perCallerLimit, poolSize);
+        this.defaultLane = new Lane(poolSize);
+        this.executorPool = Executors.newFixedThreadPool(
+                poolSize,
                 (runnable) -> {
                     Thread t = new Thread(runnable, "DB Executor");
                     t.setDaemon(true);
                     return t;
                 });
-
     }
 
 
     @Override
     public <T> Future<T> submit(Callable<T> task) {
-        return executorPool.submit(task);
+        return submit(defaultLane, task);
+    }
+
+
+    @Override
+    public <T> Future<T> submit(String caller, Callable<T> task) {
+        checkNotNull(caller, "caller cannot be null");
+        return submit(
+                lanesByCaller.computeIfAbsent(caller, c -> new Lane(perCallerLimit)),
+                task);
+    }
+
+
+    @Override
+    public <T> InvocationResults<T> invokeAll(String caller,
+                                 Collection<? extends Callable<T>> tasks,
+                                 Duration timeout) {
+        checkNotNull(tasks, "tasks cannot be null");
+        checkNotNull(timeout, "timeout cannot be null");
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        tasks.forEach(t -> futures.add(submit(caller, t)));
+
+        List<T> results = new ArrayList<>(futures.size());
+        int failed = 0;
+        int timedOut = 0;
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get(Math.max(0, deadline - System.nanoTime()), NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                timedOut++;
+                timeoutCount.incrementAndGet();
+                LOG.warn("Task for caller: {} did not complete within {}ms, cancelling", caller, timeout.toMillis());
+            } catch (ExecutionException e) {
+                failed++;
+                failedCount.incrementAndGet();
+                LOG.warn("Task for caller: {} failed: {}", caller, e.getCause() == null ? e.getMessage() : e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                futures.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted whilst waiting for tasks for caller: " + caller, e);
+            }
+        }
+
+        return ImmutableInvocationResults
+                .<T>builder()
+                .results(results)
+                .failedCount(failed)
+                .timedOutCount(timedOut)
+                .build();
+    }
+
+
+    // --- metrics ---
+
+    @Override
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+
+    @Override
+    public int getPerCallerLimit() {
+        return perCallerLimit;
+    }
+
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+
+    @Override
+    public long getStartedCount() {
+        return startedCount.get();
+    }
+
+
+    @Override
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+
+    @Override
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+
+    @Override
+    public double getAverageWaitMillis() {
+        long started = startedCount.get();
+        return started == 0
+                ? 0
+                : NANOSECONDS.toMicros(totalWaitNanos.get()) / 1000.0 / started;
+    }
+
+
+    @Override
+    public long getMaxWaitMillis() {
+        return NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+
+    // --- helpers ---
+
+    private <T> Future<T> submit(Lane lane, Callable<T> task) {
+        checkNotNull(task, "task cannot be null");
+
+        long submittedAt = System.nanoTime();
+        FutureTask<T> future = new FutureTask<>(task);
+
+        queueDepth.incrementAndGet();
+        lane.dispatch(() -> {
+            try {
+                recordWait(System.nanoTime() - submittedAt);
+                future.run(); // no-op if the future has been cancelled whilst waiting
+            } finally {
+                lane.release();
+            }
+        });
+
+        return future;
+    }
+
+
+    private void recordWait(long waitNanos) {
+        queueDepth.decrementAndGet();
+        startedCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
     }
 
 }
@@ -19,10 +19,62 @@
 package org.finos.waltz.data;
 
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
 
 public interface DBExecutorPoolInterface {
 
     <T> Future<T> submit(Callable<T> task);
+
+
+    /**
+     * Submits a task on behalf of the named caller.  Each caller is limited in the number of
+     * tasks it may have running concurrently, additional tasks wait (without occupying a pool
+     * thread) until one of the caller's earlier tasks completes.
+     *
+     * @param caller  identifies the caller (e.g. "entity-search"), used for fan-out limits
+     * @param task  the task to execute
+     * @return future for the task's result
+     */
+    <T> Future<T> submit(String caller, Callable<T> task);
+
+
+    /**
+     * Submits all the tasks on behalf of the named caller and waits for them to complete within
+     * the given timeout.  Tasks still outstanding at the deadline are cancelled.
+     *
+     * @return the results of the tasks which completed successfully, in submission order, along
+     *     with the number of tasks which failed or timed out
+     */
+    <T> InvocationResults<T> invokeAll(String caller, Collection<? extends Callable<T>> tasks, Duration timeout);
+
+
+    // --- metrics ---
+
+    int getPoolSize();
+
+    /**
+     * @return maximum number of tasks each named caller may have running concurrently
+     */
+    int getPerCallerLimit();
+
+    /**
+     * @return number of tasks submitted but not yet started (including those held back by caller limits)
+     */
+    int getQueueDepth();
+
+    long getStartedCount();
+
+    long getTimeoutCount();
+
+    /**
+     * @return number of tasks awaited by {@link #invokeAll} which threw an exception
+     */
+    long getFailedCount();
+
+    double getAverageWaitMillis();
+
+    long getMaxWaitMillis();
 }
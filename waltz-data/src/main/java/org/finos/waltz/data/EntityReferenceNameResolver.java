@@ -18,36 +18,57 @@
 
 package org.finos.waltz.data;
 
-import org.finos.waltz.common.ListUtilities;
+import org.finos.waltz.common.ExpiringCache;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.jooq.DSLContext;
 import org.jooq.Field;
-import org.jooq.Record2;
-import org.jooq.SelectSelectStep;
 import org.jooq.Table;
-import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple3;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.CollectionUtilities.maybeFirst;
-import static org.finos.waltz.common.ListUtilities.map;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.model.EntityReference.mkRef;
 
 /**
  * Service which takes a list of entity references and returns a list
  * enriched with entity names.
+ *
+ * References are grouped by kind and names are fetched with one <code>IN</code> query per kind
+ * (in chunks of {@link #QUERY_CHUNK_SIZE} ids).  Resolved names are held in a bounded cache per kind,
+ * entries are discarded via {@link #invalidate(EntityReference)} when an entity is renamed, or via
+ * {@link #invalidateKind(EntityKind)} after bulk changes to a kind (person bulk saves).  Kinds which are
+ * only written out-of-band (legal entities, physical specifications, servers, end-user applications,
+ * entity statistics and allocation schemes) rely on the time-to-live.
  */
 @Repository
 public class EntityReferenceNameResolver {
 
+    private static final Logger LOG = LoggerFactory.getLogger(EntityReferenceNameResolver.class);
+
+    private static final int QUERY_CHUNK_SIZE = 1000;
+    private static final int MAX_CACHED_NAMES_PER_KIND = 10_000;
+    private static final Duration CACHED_NAME_TTL = Duration.ofMinutes(10);
+
     private final DSLContext dsl;
+    private final Map<EntityKind, ExpiringCache<Long, String>> namesByKind = new ConcurrentHashMap<>();
 
     @Autowired
     public EntityReferenceNameResolver(DSLContext dsl) {
@@ -58,42 +79,104 @@ public class EntityReferenceNameResolver {
         return maybeFirst(resolve(newArrayList(ref)));
     }
 
+    /**
+     * @param refs  references to resolve, duplicates are removed
+     * @return one reference per distinct input (kind, id), names are empty if the entity
+     *      does not exist or the kind is not supported
+     */
     public List<EntityReference> resolve(List<EntityReference> refs) {
         checkNotNull(refs, "refs cannot be null");
-        
-        Field<Long> idField = DSL.field("tref_id", Long.class);
-        Field<String> kindField = DSL.field("tref_kind", String.class);
-
-        Field<String> nameField = InlineSelectFieldFactory.mkNameField(
-                idField,
-                kindField);
-
-        List<SelectSelectStep<Record2<String, Long>>> parts = map(
-                refs,
-                r -> DSL.select(
-                        DSL.val(r.kind().name()).as(kindField),
-                        DSL.val(r.id()).as(idField)));
-
-
-        if (parts.size() > 0) {
-            SelectSelectStep<Record2<String, Long>> firstPart = parts.get(0);
-            if (parts.size() > 1) {
-                List<SelectSelectStep<Record2<String, Long>>> tail = ListUtilities.drop(parts, 1);
-                tail.forEach(firstPart::union);
-            }
 
-            Table<Record2<String, Long>> tempRefs = firstPart.asTable("temp_refs");
-            return dsl
-                    .select(idField, kindField, nameField)
-                    .from(tempRefs)
-                    .fetch(r -> mkRef(
-                            EntityKind.valueOf(r.get(kindField)),
-                            r.get(idField),
-                            r.get(nameField)));
-        } else {
-            return Collections.emptyList();
+        Map<EntityKind, Set<Long>> idsByKind = new LinkedHashMap<>();
+        refs.forEach(r -> idsByKind
+                .computeIfAbsent(r.kind(), k -> new LinkedHashSet<>())
+                .add(r.id()));
+
+        List<EntityReference> resolved = new ArrayList<>();
+        idsByKind.forEach((kind, ids) -> {
+            Map<Long, String> names = resolveNames(kind, ids);
+            ids.forEach(id -> resolved.add(mkRef(kind, id, names.get(id))));
+        });
+
+        return resolved;
+    }
+
+
+    /**
+     * Discards the cached name for the given entity, should be called whenever an entity is renamed.
+     */
+    public void invalidate(EntityReference ref) {
+        if (ref == null) {
+            return;
+        }
+        ExpiringCache<Long, String> cache = namesByKind.get(ref.kind());
+        if (cache != null) {
+            cache.invalidate(ref.id());
+        }
+    }
+
+
+    /**
+     * Discards all cached names for the given kind, should be called after bulk changes to the kind.
+     */
+    public void invalidateKind(EntityKind kind) {
+        ExpiringCache<Long, String> cache = namesByKind.get(kind);
+        if (cache != null) {
+            LOG.debug("Invalidating {} cached names for kind: {}", cache.size(), kind);
+            cache.invalidateAll();
         }
+    }
+
+
+    // --- helpers ---
+
+    private Map<Long, String> resolveNames(EntityKind kind, Set<Long> ids) {
+        Optional<Tuple3<Table, Field<Long>, Field<String>>> mapping = InlineSelectFieldFactory.findNameMapping(kind);
+
+        if (! mapping.isPresent()) {
+            return Collections.emptyMap();
+        }
+
+        ExpiringCache<Long, String> cache = namesByKind.computeIfAbsent(
+                kind,
+                k -> new ExpiringCache<>(MAX_CACHED_NAMES_PER_KIND, CACHED_NAME_TTL));
+
+        Map<Long, String> names = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+
+        ids.forEach(id -> {
+            Optional<String> cachedName = cache.get(id);
+            if (cachedName.isPresent()) {
+                names.put(id, cachedName.get());
+            } else {
+                missingIds.add(id);
+            }
+        });
+
+        for (int i = 0; i < missingIds.size(); i += QUERY_CHUNK_SIZE) {
+            List<Long> chunk = missingIds.subList(i, Math.min(missingIds.size(), i + QUERY_CHUNK_SIZE));
+            Map<Long, String> fetchedNames = fetchNames(mapping.get(), chunk);
+            fetchedNames.forEach((id, name) -> {
+                if (name != null) {
+                    cache.put(id, name);
+                }
+            });
+            names.putAll(fetchedNames);
+        }
+
+        return names;
+    }
+
 
+    private Map<Long, String> fetchNames(Tuple3<Table, Field<Long>, Field<String>> mapping,
+                                         List<Long> ids) {
+        Map<Long, String> names = new HashMap<>();
+        dsl.select(mapping.v2, mapping.v3)
+                .from(mapping.v1)
+                .where(mapping.v2.in(ids))
+                .fetch()
+                .forEach(r -> names.put(r.value1(), r.value2()));
+        return names;
     }
 
 }
@@ -65,6 +65,15 @@ public class InlineSelectFieldFactory {
     }
 
 
+    /**
+     * @param kind  entity kind
+     * @return the (table, id field, name field) used to resolve names for the kind, or empty if unsupported
+     */
+    static Optional<Tuple3<Table, Field<Long>, Field<String>>> findNameMapping(EntityKind kind) {
+        return Optional.ofNullable(NAME_RESOLVER.mappings.get(kind));
+    }
+
+
     // --- External Id
 
     public static Field<String> mkExternalIdField(Field<Long> idCompareField,
@@ -0,0 +1,53 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data;
+
+import org.immutables.value.Value;
+
+import java.util.List;
+
+/**
+ * Outcome of {@link DBExecutorPoolInterface#invokeAll}.  Holds the results of the tasks which
+ * completed successfully along with the number which failed or were cancelled at the deadline.
+ */
+@Value.Immutable
+public abstract class InvocationResults<T> {
+
+    /**
+     * @return results of the successful tasks, in submission order
+     */
+    public abstract List<T> results();
+
+    @Value.Default
+    public int failedCount() {
+        return 0;
+    }
+
+    @Value.Default
+    public int timedOutCount() {
+        return 0;
+    }
+
+    /**
+     * @return true if any task failed or timed out, i.e. the results are incomplete
+     */
+    public boolean isPartial() {
+        return failedCount() > 0 || timedOutCount() > 0;
+    }
+}
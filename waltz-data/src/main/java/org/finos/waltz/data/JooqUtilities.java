@@ -51,6 +51,7 @@ import org.finos.waltz.schema.tables.records.ChangeLogRecord;
 import org.jooq.Batch;
 import org.jooq.CommonTableExpression;
 import org.jooq.Condition;
+import org.jooq.ConnectionProvider;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.Record;
@@ -58,6 +59,7 @@ import org.jooq.Record1;
 import org.jooq.Record2;
 import org.jooq.Record3;
 import org.jooq.RecordMapper;
+import org.jooq.ResultQuery;
 import org.jooq.SQL;
 import org.jooq.SQLDialect;
 import org.jooq.Select;
@@ -66,9 +68,13 @@ import org.jooq.Table;
 import org.jooq.TableField;
 import org.jooq.TableRecord;
 import org.jooq.UpdatableRecord;
+import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConnectionProvider;
 
+import java.sql.Connection;
 import java.sql.Date;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.Collection;
 import java.util.HashSet;
@@ -275,6 +281,113 @@ public class JooqUtilities {
     }
 
 
+    /**
+     * Executes the work within a read-only transaction, which is rolled back once the work
+     * completes.  Postgres ignores the fetch size under auto-commit and reads the whole result
+     * on execution, so lazy fetches (cursors / streams) which rely on it must run within a
+     * transaction.
+     *
+     * @param dsl  provides the connection
+     * @param work  given a context bound to the transaction's connection
+     * @return result of the work
+     */
+    public static <T> T readOnlyTransactionResult(DSLContext dsl,
+                                                  Function<DSLContext, T> work) {
+        checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(work, "work cannot be null");
+
+        ConnectionProvider connectionProvider = dsl.configuration().connectionProvider();
+        Connection connection = connectionProvider.acquire();
+        boolean autoCommit = beginReadOnlyTransaction(connectionProvider, connection);
+        T result;
+        try {
+            result = work.apply(DSL.using(dsl.configuration().derive(new DefaultConnectionProvider(connection))));
+        } catch (RuntimeException | Error e) {
+            endReadOnlyTransactionAfterFailure(connectionProvider, connection, autoCommit, e);
+            throw e;
+        }
+        endReadOnlyTransaction(connectionProvider, connection, autoCommit);
+        return result;
+    }
+
+
+    /**
+     * Lazily fetches the results of the query within a read-only transaction (see
+     * {@link #readOnlyTransactionResult(DSLContext, Function)}).  The transaction is rolled back,
+     * and the connection released, when the stream is closed.
+     *
+     * @param dsl  provides the connection
+     * @param query  query to execute, typically with a fetch size
+     * @return stream of records which must be closed by the caller
+     */
+    public static <R extends Record> Stream<R> fetchStreamReadOnly(DSLContext dsl,
+                                                                   ResultQuery<R> query) {
+        checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(query, "query cannot be null");
+
+        ConnectionProvider connectionProvider = dsl.configuration().connectionProvider();
+        Connection connection = connectionProvider.acquire();
+        boolean autoCommit = beginReadOnlyTransaction(connectionProvider, connection);
+        try {
+            return DSL
+                    .using(dsl.configuration().derive(new DefaultConnectionProvider(connection)))
+                    .fetchStream(query)
+                    .onClose(() -> endReadOnlyTransaction(connectionProvider, connection, autoCommit));
+        } catch (RuntimeException e) {
+            endReadOnlyTransactionAfterFailure(connectionProvider, connection, autoCommit, e);
+            throw e;
+        }
+    }
+
+
+    /**
+     * @return the previous auto-commit setting of the connection
+     */
+    private static boolean beginReadOnlyTransaction(ConnectionProvider connectionProvider,
+                                                    Connection connection) {
+        try {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            return autoCommit;
+        } catch (SQLException e) {
+            connectionProvider.release(connection);
+            throw new DataAccessException("Could not start read-only transaction", e);
+        }
+    }
+
+
+    private static void endReadOnlyTransaction(ConnectionProvider connectionProvider,
+                                               Connection connection,
+                                               boolean autoCommit) {
+        try {
+            connection.rollback();
+            connection.setReadOnly(false);
+            connection.setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not end read-only transaction", e);
+        } finally {
+            connectionProvider.release(connection);
+        }
+    }
+
+
+    /**
+     * Ends the transaction after the work has failed.  Any problem doing so is attached to the
+     * original failure as a suppressed exception, so it does not mask the cause.
+     */
+    private static void endReadOnlyTransactionAfterFailure(ConnectionProvider connectionProvider,
+                                                           Connection connection,
+                                                           boolean autoCommit,
+                                                           Throwable failure) {
+        try {
+            endReadOnlyTransaction(connectionProvider, connection, autoCommit);
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+
     public static class MSSQL {
 
         public static SQL mkContains(Collection<String> terms) {
@@ -33,9 +33,12 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.StringUtilities.limit;
 import static org.finos.waltz.schema.tables.AccessLog.ACCESS_LOG;
 
 
@@ -80,6 +83,49 @@ public class AccessLogDao {
     }
 
 
+    /**
+     * Truncates the entry's fields to fit their columns, the state and params are
+     * client supplied so may be arbitrarily long.
+     *
+     * @param logEntry  entry to truncate
+     * @return entry which can be safely inserted
+     */
+    public AccessLog fitToColumns(AccessLog logEntry) {
+        return ImmutableAccessLog
+                .copyOf(logEntry)
+                .withState(limit(logEntry.state(), ACCESS_LOG.STATE.getDataType().length()))
+                .withParams(limit(logEntry.params(), ACCESS_LOG.PARAMS.getDataType().length()))
+                .withUserId(limit(logEntry.userId(), ACCESS_LOG.USER_ID.getDataType().length()));
+    }
+
+
+    /**
+     * Inserts the entries as a single jdbc batch.
+     *
+     * @param logEntries  entries to insert
+     * @return number of entries inserted
+     */
+    public int writeAll(Collection<AccessLog> logEntries) {
+        if (logEntries.isEmpty()) {
+            return 0;
+        }
+
+        List<AccessLogRecord> records = logEntries
+                .stream()
+                .map(e -> {
+                    AccessLogRecord r = dsl.newRecord(ACCESS_LOG);
+                    r.setParams(e.params());
+                    r.setState(e.state());
+                    r.setUserId(e.userId());
+                    r.setCreatedAt(Timestamp.valueOf(e.createdAt()));
+                    return r;
+                })
+                .collect(toList());
+
+        return dsl.batchInsert(records).execute().length;
+    }
+
+
     public List<AccessLog> findForUserId(String userId,
                                          Optional<Integer> limit) {
         return dsl.select(ACCESS_LOG.fields())
@@ -0,0 +1,172 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.data.application;
+
+import org.finos.waltz.common.ExpiringCache;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.schema.tables.Application;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.Select;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.schema.tables.Application.APPLICATION;
+
+/**
+ * Variant of {@link ApplicationIdSelectorFactory} which evaluates the selector once and hands out
+ * a selector over the resulting ids.
+ *
+ * Selectors for deep hierarchies (org units, person reportees, measurables etc) are expensive
+ * and a single page typically issues many queries with the same selector, each of which would
+ * otherwise re-evaluate the hierarchy joins.  The resolved ids are held, keyed by the selection
+ * options, for a short time (long enough to serve a page load).
+ *
+ * Only selectors resolving to at most {@link #MAX_INLINED_IDS} applications are materialized and
+ * rendered as an inlined id list.  Resolution stops once that limit is exceeded and the decision
+ * is cached, larger selections use the original (sub-query) selector so that statement text, and
+ * therefore the database's cached plans, remain stable.
+ *
+ * Services which change applications, app group entries, measurable ratings or involvements
+ * invalidate the affected selectors.  Other changes become visible once the entries expire.
+ */
+@Service
+public class MaterializedApplicationIdSelectorFactory implements Function<IdSelectionOptions, Select<Record1<Long>>> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MaterializedApplicationIdSelectorFactory.class);
+
+    private static final int MAX_INLINED_IDS = 100;
+    private static final int MAX_CACHED_SELECTORS = 500;
+    private static final Duration CACHED_SELECTOR_TTL = Duration.ofSeconds(30);
+
+    // single ids and the entire estate gain nothing from being materialized
+    private static final Set<EntityKind> PASS_THROUGH_KINDS = asSet(
+            EntityKind.ALL,
+            EntityKind.APPLICATION);
+
+    private static final Application materializedApp = APPLICATION.as("mat_app");
+
+    private final ApplicationIdSelectorFactory applicationIdSelectorFactory = new ApplicationIdSelectorFactory();
+    private final ExpiringCache<IdSelectionOptions, Optional<Set<Long>>> idsByOptions = new ExpiringCache<>(
+            MAX_CACHED_SELECTORS,
+            CACHED_SELECTOR_TTL);
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public MaterializedApplicationIdSelectorFactory(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    @Override
+    public Select<Record1<Long>> apply(IdSelectionOptions options) {
+        checkNotNull(options, "options cannot be null");
+
+        Optional<Set<Long>> appIds = PASS_THROUGH_KINDS.contains(options.entityReference().kind())
+                ? Optional.empty()
+                : idsByOptions.getOrCompute(options, this::resolve);
+
+        return appIds
+                .map(MaterializedApplicationIdSelectorFactory::mkSelector)
+                .orElseGet(() -> applicationIdSelectorFactory.apply(options));
+    }
+
+
+    /**
+     * Discards all resolved selectors, should be called after bulk changes to applications
+     * or the relationships used to select them.
+     */
+    public void invalidateAll() {
+        idsByOptions.invalidateAll();
+    }
+
+
+    /**
+     * Discards resolved selectors for the given kind of entity (e.g. APP_GROUP after group
+     * entries change), should be called after changes to the relationships used to select them.
+     */
+    public void invalidateForKind(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+        idsByOptions.invalidateIf((options, ids) -> options.entityReference().kind() == kind);
+    }
+
+
+    // --- helpers ---
+
+    /**
+     * @return the selected ids, or empty if more than {@link #MAX_INLINED_IDS} are selected (only
+     * enough rows to make that decision are read)
+     */
+    private Optional<Set<Long>> resolve(IdSelectionOptions options) {
+        List<Long> ids = dsl
+                .selectFrom(applicationIdSelectorFactory.apply(options).asTable("selected_app"))
+                .limit(MAX_INLINED_IDS + 1)
+                .fetch(0, Long.class);
+
+        if (ids.size() > MAX_INLINED_IDS) {
+            LOG.debug("Not materializing app selector for {}, more than {} apps selected", options.entityReference(), MAX_INLINED_IDS);
+            return Optional.empty();
+        }
+
+        return Optional.of(Collections.unmodifiableSet(new HashSet<>(ids)));
+    }
+
+
+    private static Select<Record1<Long>> mkSelector(Set<Long> appIds) {
+        if (appIds.isEmpty()) {
+            return DSL
+                    .select(materializedApp.ID)
+                    .from(materializedApp)
+                    .where(DSL.falseCondition());
+        }
+
+        // ids are inlined (a short list, see MAX_INLINED_IDS) as many dao's render their queries inlined
+        List<Field<Long>> inlinedIds = appIds
+                .stream()
+                .sorted()
+                .map(DSL::inline)
+                .collect(toList());
+
+        return DSL
+                .select(materializedApp.ID)
+                .from(materializedApp)
+                .where(materializedApp.ID.in(inlinedIds));
+    }
+
+}
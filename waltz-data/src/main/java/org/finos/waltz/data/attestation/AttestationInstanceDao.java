@@ -39,6 +39,7 @@ import org.finos.waltz.model.attestation.ImmutableSyncRecipientsResponse;
 import org.finos.waltz.model.attestation.LatestMeasurableAttestationInfo;
 import org.finos.waltz.model.attestation.SyncRecipientsResponse;
 import org.finos.waltz.schema.tables.records.AttestationInstanceRecord;
+import org.jooq.BatchBindStep;
 import org.jooq.CommonTableExpression;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
@@ -67,6 +68,8 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -151,6 +154,63 @@ public class AttestationInstanceDao {
     }
 
 
+    /**
+     * Creates an instance for each of the given parent entities using a single batch of inserts.
+     *
+     * @param tx  transaction to use
+     * @param attestationRunId  run the instances belong to
+     * @param parentEntityKind  kind of the parent entities
+     * @param parentEntityIds  ids of the entities to create instances for
+     * @param attestedEntityKind  kind of entity being attested
+     * @return instance id keyed by parent entity id
+     */
+    public Map<Long, Long> createAll(DSLContext tx,
+                                     long attestationRunId,
+                                     EntityKind parentEntityKind,
+                                     Collection<Long> parentEntityIds,
+                                     EntityKind attestedEntityKind) {
+        if (parentEntityIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        BatchBindStep batch = tx.batch(tx
+                .insertInto(ATTESTATION_INSTANCE)
+                .set(ATTESTATION_INSTANCE.ATTESTATION_RUN_ID, (Long) null)
+                .set(ATTESTATION_INSTANCE.PARENT_ENTITY_KIND, (String) null)
+                .set(ATTESTATION_INSTANCE.PARENT_ENTITY_ID, (Long) null)
+                .set(ATTESTATION_INSTANCE.ATTESTED_ENTITY_KIND, (String) null));
+
+        parentEntityIds.forEach(id -> batch.bind(
+                attestationRunId,
+                parentEntityKind.name(),
+                id,
+                attestedEntityKind.name()));
+
+        batch.execute();
+
+        return tx
+                .select(ATTESTATION_INSTANCE.PARENT_ENTITY_ID, ATTESTATION_INSTANCE.ID)
+                .from(ATTESTATION_INSTANCE)
+                .where(ATTESTATION_INSTANCE.ATTESTATION_RUN_ID.eq(attestationRunId))
+                .and(ATTESTATION_INSTANCE.PARENT_ENTITY_KIND.eq(parentEntityKind.name()))
+                .and(ATTESTATION_INSTANCE.PARENT_ENTITY_ID.in(parentEntityIds))
+                .fetchMap(ATTESTATION_INSTANCE.PARENT_ENTITY_ID, ATTESTATION_INSTANCE.ID);
+    }
+
+
+    /**
+     * @return ids of the parent entities which already have an instance for the given run
+     */
+    public Set<Long> findParentEntityIdsForRun(long attestationRunId, EntityKind parentEntityKind) {
+        return dsl
+                .select(ATTESTATION_INSTANCE.PARENT_ENTITY_ID)
+                .from(ATTESTATION_INSTANCE)
+                .where(ATTESTATION_INSTANCE.ATTESTATION_RUN_ID.eq(attestationRunId))
+                .and(ATTESTATION_INSTANCE.PARENT_ENTITY_KIND.eq(parentEntityKind.name()))
+                .fetchSet(ATTESTATION_INSTANCE.PARENT_ENTITY_ID);
+    }
+
+
     public List<AttestationInstance> findByRecipient(String userId, boolean unattestedOnly) {
         Condition condition = ATTESTATION_INSTANCE_RECIPIENT.USER_ID.eq(userId);
         if(unattestedOnly) {
@@ -19,11 +19,15 @@
 package org.finos.waltz.data.attestation;
 
 import org.finos.waltz.schema.tables.records.AttestationInstanceRecipientRecord;
+import org.jooq.BatchBindStep;
 import org.jooq.DSLContext;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import static org.finos.waltz.schema.tables.AttestationInstance.ATTESTATION_INSTANCE;
 import static org.finos.waltz.schema.tables.AttestationInstanceRecipient.ATTESTATION_INSTANCE_RECIPIENT;
@@ -52,6 +56,29 @@ public class AttestationInstanceRecipientDao {
     }
 
 
+    /**
+     * Creates the given (instanceId, userId) recipients using a single batch of inserts.
+     *
+     * @param tx  transaction to use
+     * @param instanceRecipients  (instanceId, userId) pairs
+     * @return number of recipients created
+     */
+    public int createAll(DSLContext tx, Collection<Tuple2<Long, String>> instanceRecipients) {
+        if (instanceRecipients.isEmpty()) {
+            return 0;
+        }
+
+        BatchBindStep batch = tx.batch(tx
+                .insertInto(ATTESTATION_INSTANCE_RECIPIENT)
+                .set(ATTESTATION_INSTANCE_RECIPIENT.ATTESTATION_INSTANCE_ID, (Long) null)
+                .set(ATTESTATION_INSTANCE_RECIPIENT.USER_ID, (String) null));
+
+        instanceRecipients.forEach(r -> batch.bind(r.v1, r.v2));
+
+        return IntStream.of(batch.execute()).sum();
+    }
+
+
     public List<String> findRecipientsByRunId(Long id) {
 
         return dsl
@@ -34,6 +34,7 @@ import org.finos.waltz.model.attestation.ImmutableAttestationRun;
 import org.finos.waltz.model.attestation.ImmutableAttestationRunRecipient;
 import org.finos.waltz.model.attestation.ImmutableAttestationRunResponseSummary;
 import org.finos.waltz.schema.tables.records.AttestationRunRecord;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.Record;
@@ -47,6 +48,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -263,6 +265,76 @@ public class AttestationRunDao {
 
 
     public Set<AttestationRun> findPendingRuns() {
+        return findRunsWithStatus(AttestationStatus.PENDING);
+    }
+
+
+    /**
+     * Runs are marked as 'ISSUING' whilst their instances are being created and the claim time is
+     * refreshed as each chunk is written.  A run whose claim has not been refreshed since the given
+     * time was abandoned and should be resumed.
+     */
+    public Set<AttestationRun> findAbandonedIssuingRuns(Timestamp claimedBefore) {
+        return findRunsWithStatus(
+                AttestationStatus.ISSUING,
+                isClaimAbandoned(claimedBefore));
+    }
+
+
+    /**
+     * Claims a pending run, or an abandoned 'ISSUING' run, for issuance by marking it as 'ISSUING'.
+     * The claim is a conditional update, so only one caller (on any node) can succeed.
+     *
+     * @return true if the run was claimed by this caller
+     */
+    public boolean claimForIssuing(long runId, Timestamp claimedBefore) {
+        return dsl
+                .update(ATTESTATION_RUN)
+                .set(ATTESTATION_RUN.STATUS, AttestationStatus.ISSUING.name())
+                .set(ATTESTATION_RUN.ISSUING_CLAIMED_AT, nowUtcTimestamp())
+                .where(ATTESTATION_RUN.ID.eq(runId))
+                .and(ATTESTATION_RUN.STATUS.eq(AttestationStatus.PENDING.name())
+                        .or(ATTESTATION_RUN.STATUS.eq(AttestationStatus.ISSUING.name())
+                                .and(isClaimAbandoned(claimedBefore))))
+                .execute() == 1;
+    }
+
+
+    /**
+     * Marks a newly created run as 'ISSUING', claimed by the caller.
+     */
+    public int markIssuing(long runId) {
+        return dsl
+                .update(ATTESTATION_RUN)
+                .set(ATTESTATION_RUN.STATUS, AttestationStatus.ISSUING.name())
+                .set(ATTESTATION_RUN.ISSUING_CLAIMED_AT, nowUtcTimestamp())
+                .where(ATTESTATION_RUN.ID.eq(runId))
+                .execute();
+    }
+
+
+    public int refreshIssuingClaim(long runId) {
+        return dsl
+                .update(ATTESTATION_RUN)
+                .set(ATTESTATION_RUN.ISSUING_CLAIMED_AT, nowUtcTimestamp())
+                .where(ATTESTATION_RUN.ID.eq(runId))
+                .and(ATTESTATION_RUN.STATUS.eq(AttestationStatus.ISSUING.name()))
+                .execute();
+    }
+
+
+    private static Condition isClaimAbandoned(Timestamp claimedBefore) {
+        return ATTESTATION_RUN.ISSUING_CLAIMED_AT.isNull()
+                .or(ATTESTATION_RUN.ISSUING_CLAIMED_AT.lt(claimedBefore));
+    }
+
+
+    private Set<AttestationRun> findRunsWithStatus(AttestationStatus status) {
+        return findRunsWithStatus(status, DSL.trueCondition());
+    }
+
+
+    private Set<AttestationRun> findRunsWithStatus(AttestationStatus status, Condition condition) {
 
         Map<Long, List<Long>> involvementsByGroupId = InvolvementGroupDao.findAllInvolvementsByGroupId(dsl);
 
@@ -271,18 +343,27 @@ public class AttestationRunDao {
                 .select(ENTITY_NAME_FIELD)
                 .select(ATTESTED_ENTITY_NAME_FIELD)
                 .from(ATTESTATION_RUN)
-                .where(ATTESTATION_RUN.STATUS.eq(AttestationStatus.PENDING.name()))
+                .where(ATTESTATION_RUN.STATUS.eq(status.name()))
+                .and(condition)
                 .fetchSet(r -> mkAttestationRun(r, involvementsByGroupId));
     }
 
 
     public int updateStatusForRunIds(Set<Long> runIds, AttestationStatus newStatus) {
+        return updateStatusForRunIds(runIds, newStatus, "admin");
+    }
+
+
+    /**
+     * @param issuedBy  recorded as the issuer if the new status is 'ISSUED'
+     */
+    public int updateStatusForRunIds(Set<Long> runIds, AttestationStatus newStatus, String issuedBy) {
 
         if (AttestationStatus.ISSUED.equals(newStatus)){
             return dsl
                     .update(ATTESTATION_RUN)
                     .set(ATTESTATION_RUN.STATUS, newStatus.name())
-                    .set(ATTESTATION_RUN.ISSUED_BY, "admin")
+                    .set(ATTESTATION_RUN.ISSUED_BY, issuedBy)
                     .set(ATTESTATION_RUN.ISSUED_ON, toSqlDate(nowUtcTimestamp()))
                     .where(ATTESTATION_RUN.ID.in(runIds))
                     .execute();
@@ -31,7 +31,6 @@ import org.finos.waltz.schema.tables.AttestationInstance;
 import org.finos.waltz.schema.tables.records.ChangeLogRecord;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
-import org.jooq.Query;
 import org.jooq.Record;
 import org.jooq.Record4;
 import org.jooq.RecordMapper;
@@ -49,6 +48,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotEmpty;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
@@ -324,24 +324,29 @@ public class ChangeLogDao {
 
 
     public int[] write(Collection<ChangeLog> changeLogs) {
+        return write(Optional.empty(), changeLogs);
+    }
+
+
+    /**
+     * Writes the entries as a single jdbc batch (one prepared statement, one set of binds per entry).
+     * If no transaction is given the batch runs in its own, so it is written entirely or not at all.
+     */
+    public int[] write(Optional<DSLContext> tx, Collection<ChangeLog> changeLogs) {
         checkNotNull(changeLogs, "changeLogs must not be null");
 
-        Query[] queries = changeLogs
+        if (changeLogs.isEmpty()) {
+            return new int[0];
+        }
+
+        List<ChangeLogRecord> records = changeLogs
                 .stream()
-                .map(changeLog -> DSL.insertInto(CHANGE_LOG)
-                        .set(CHANGE_LOG.MESSAGE, changeLog.message())
-                        .set(CHANGE_LOG.PARENT_ID, changeLog.parentReference().id())
-                        .set(CHANGE_LOG.PARENT_KIND, changeLog.parentReference().kind().name())
-                        .set(CHANGE_LOG.USER_ID, changeLog.userId())
-                        .set(CHANGE_LOG.SEVERITY, changeLog.severity().name())
-                        .set(CHANGE_LOG.CHILD_KIND, changeLog.childKind().map(Enum::name).orElse(null))
-                        .set(CHANGE_LOG.CHILD_ID, changeLog.childId().orElse(null))
-                        .set(CHANGE_LOG.OPERATION, changeLog.operation().name())
-                        .set(CHANGE_LOG.CREATED_AT, Timestamp.valueOf(changeLog.createdAt())))
-                .toArray(Query[]::new);
-        return dsl
-                .batch(queries)
-                .execute();
+                .map(ChangeLogDao::mkRecord)
+                .collect(toList());
+
+        return tx
+                .map(t -> t.batchInsert(records).execute())
+                .orElseGet(() -> dsl.transactionResult(ctx -> ctx.dsl().batchInsert(records).execute()));
     }
 
 
@@ -362,4 +367,18 @@ public class ChangeLogDao {
                 .fetch(TO_DOMAIN_MAPPER);
     }
 
+
+    private static ChangeLogRecord mkRecord(ChangeLog changeLog) {
+        ChangeLogRecord record = new ChangeLogRecord();
+        record.setMessage(changeLog.message());
+        record.setParentId(changeLog.parentReference().id());
+        record.setParentKind(changeLog.parentReference().kind().name());
+        record.setUserId(changeLog.userId());
+        record.setSeverity(changeLog.severity().name());
+        record.setChildKind(changeLog.childKind().map(Enum::name).orElse(null));
+        record.setChildId(changeLog.childId().orElse(null));
+        record.setOperation(changeLog.operation().name());
+        record.setCreatedAt(Timestamp.valueOf(changeLog.createdAt()));
+        return record;
+    }
 }
@@ -22,6 +22,7 @@ import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.datatype.DataTypeDecorator;
 import org.finos.waltz.model.datatype.DataTypeUsageCharacteristics;
+import org.jooq.DSLContext;
 import org.jooq.Record1;
 import org.jooq.Select;
 
@@ -47,8 +48,12 @@ public abstract class DataTypeDecoratorDao {
     //only implemented for logical flows
     public abstract Set<DataTypeDecorator> findByFlowIds(Collection<Long> flowIds);
 
+    public abstract Set<DataTypeDecorator> findByEntityIds(DSLContext tx, Collection<Long> entityIds);
+
     public abstract int[] addDecorators(Collection<DataTypeDecorator> dataTypeDecorators);
 
+    public abstract int[] addDecorators(DSLContext tx, Collection<DataTypeDecorator> dataTypeDecorators);
+
     public abstract int removeDataTypes(EntityReference associatedEntityRef, Collection<Long> dataTypeIds);
 
     public abstract List<DataTypeUsageCharacteristics> findDatatypeUsageCharacteristics(EntityReference ref);
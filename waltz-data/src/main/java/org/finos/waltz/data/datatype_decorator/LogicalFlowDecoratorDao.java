@@ -27,16 +27,20 @@ import org.finos.waltz.model.datatype.DataTypeDecorator;
 import org.finos.waltz.model.datatype.DataTypeUsageCharacteristics;
 import org.finos.waltz.model.datatype.ImmutableDataTypeDecorator;
 import org.finos.waltz.model.datatype.ImmutableDataTypeUsageCharacteristics;
+import org.finos.waltz.model.datatype.ImmutableLogicalFlowDecoratorRating;
+import org.finos.waltz.model.datatype.LogicalFlowDecoratorRating;
 import org.finos.waltz.model.flow_classification_rule.FlowClassificationRuleVantagePoint;
 import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
 import org.finos.waltz.schema.tables.LogicalFlowDecorator;
 import org.finos.waltz.schema.tables.records.LogicalFlowDecoratorRecord;
+import org.jooq.BatchBindStep;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.Query;
 import org.jooq.Record;
 import org.jooq.Record1;
+import org.jooq.Record7;
 import org.jooq.RecordMapper;
 import org.jooq.Select;
 import org.jooq.SelectConditionStep;
@@ -52,11 +56,14 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.data.JooqUtilities.fetchStreamReadOnly;
 import static org.finos.waltz.data.logical_flow.LogicalFlowDao.LOGICAL_NOT_REMOVED;
 import static org.finos.waltz.model.EntityKind.DATA_TYPE;
 import static org.finos.waltz.model.EntityKind.LOGICAL_DATA_FLOW;
@@ -114,6 +121,8 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
         return r;
     };
 
+    private static final int RATING_FETCH_SIZE = 5000;
+
     private final DSLContext dsl;
 
     @Autowired
@@ -185,6 +194,18 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
         return findByCondition(condition);
     }
 
+    @Override
+    public Set<DataTypeDecorator> findByEntityIds(DSLContext tx, Collection<Long> flowIds) {
+        checkNotNull(flowIds, "flowIds cannot be null");
+
+        return tx
+                .select(LOGICAL_FLOW_DECORATOR.fields())
+                .select(ENTITY_NAME_FIELD)
+                .from(LOGICAL_FLOW_DECORATOR)
+                .where(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID.in(flowIds))
+                .fetchSet(TO_DECORATOR_MAPPER);
+    }
+
     public Set<DataTypeDecorator> findByFlowIdSelector(Select<Record1<Long>> flowIdSelector) {
 
         Condition condition = LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID.in(flowIdSelector);
@@ -255,6 +276,12 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
 
     @Override
     public int[] addDecorators(Collection<DataTypeDecorator> decorators) {
+        return addDecorators(dsl, decorators);
+    }
+
+
+    @Override
+    public int[] addDecorators(DSLContext tx, Collection<DataTypeDecorator> decorators) {
         checkNotNull(decorators, "decorators cannot be null");
 
         List<LogicalFlowDecoratorRecord> records = decorators
@@ -263,13 +290,13 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
                 .collect(toList());
 
         Query[] queries = records.stream().map(
-                record -> dsl
+                record -> tx
                         .insertInto(LOGICAL_FLOW_DECORATOR)
                         .set(record)
                         .onDuplicateKeyUpdate()
                         .set(record))
                 .toArray(Query[]::new);
-        return dsl.batch(queries).execute();
+        return tx.batch(queries).execute();
         // todo: in jOOQ 3.10.0 this can be written as follows #2979
         // return dsl.batchInsert(records).onDuplicateKeyIgnore().execute();
     }
@@ -376,6 +403,74 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
     }
 
 
+    /**
+     * Streams the data type decorators of all logical flows to the given visitor, along with the
+     * source of the flow and the org unit of the target application (if any).  The stream is backed
+     * by an open cursor and is closed once the visitor completes.
+     *
+     * @param visitor  function which consumes the stream of decorator ratings
+     * @param <T>  result type of the visitor
+     * @return  the result of the visitor
+     */
+    public <T> T visitDecoratorRatings(Function<Stream<LogicalFlowDecoratorRating>, T> visitor) {
+        SelectConditionStep<Record7<Long, Long, String, Long, String, Long, Long>> qry = dsl
+                .select(LOGICAL_FLOW_DECORATOR.ID,
+                        LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_ID,
+                        LOGICAL_FLOW_DECORATOR.RATING,
+                        LOGICAL_FLOW_DECORATOR.FLOW_CLASSIFICATION_RULE_ID,
+                        LOGICAL_FLOW.SOURCE_ENTITY_KIND,
+                        LOGICAL_FLOW.SOURCE_ENTITY_ID,
+                        APPLICATION.ORGANISATIONAL_UNIT_ID)
+                .from(LOGICAL_FLOW_DECORATOR)
+                .innerJoin(LOGICAL_FLOW).on(LOGICAL_FLOW.ID.eq(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID))
+                .leftJoin(APPLICATION).on(APPLICATION.ID.eq(LOGICAL_FLOW.TARGET_ENTITY_ID)
+                        .and(LOGICAL_FLOW.TARGET_ENTITY_KIND.eq(EntityKind.APPLICATION.name())))
+                .where(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_KIND.eq(DATA_TYPE.name()));
+
+        try (Stream<LogicalFlowDecoratorRating> ratings = fetchStreamReadOnly(dsl, qry.fetchSize(RATING_FETCH_SIZE))
+                .map(r -> ImmutableLogicalFlowDecoratorRating
+                        .builder()
+                        .decoratorId(r.get(LOGICAL_FLOW_DECORATOR.ID))
+                        .dataTypeId(r.get(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_ID))
+                        .source(mkRef(
+                                EntityKind.valueOf(r.get(LOGICAL_FLOW.SOURCE_ENTITY_KIND)),
+                                r.get(LOGICAL_FLOW.SOURCE_ENTITY_ID)))
+                        .targetOrgUnitId(Optional.ofNullable(r.get(APPLICATION.ORGANISATIONAL_UNIT_ID)))
+                        .rating(AuthoritativenessRatingValue.ofNullable(r.get(LOGICAL_FLOW_DECORATOR.RATING)))
+                        .flowClassificationRuleId(Optional.ofNullable(r.get(LOGICAL_FLOW_DECORATOR.FLOW_CLASSIFICATION_RULE_ID)))
+                        .build())) {
+            return visitor.apply(ratings);
+        }
+    }
+
+
+    /**
+     * Writes the rating and flow classification rule of each given decorator using a single
+     * batched update statement.
+     *
+     * @param ratings  decorators to update, identified by their decorator id
+     * @return  number of rows updated
+     */
+    public int updateDecoratorRatings(Collection<LogicalFlowDecoratorRating> ratings) {
+        if (ratings.isEmpty()) {
+            return 0;
+        }
+
+        BatchBindStep batch = dsl.batch(dsl
+                .update(LOGICAL_FLOW_DECORATOR)
+                .set(LOGICAL_FLOW_DECORATOR.RATING, (String) null)
+                .set(LOGICAL_FLOW_DECORATOR.FLOW_CLASSIFICATION_RULE_ID, (Long) null)
+                .where(LOGICAL_FLOW_DECORATOR.ID.eq((Long) null)));
+
+        ratings.forEach(r -> batch.bind(
+                r.rating().map(AuthoritativenessRatingValue::value).orElse(null),
+                r.flowClassificationRuleId().orElse(null),
+                r.decoratorId()));
+
+        return IntStream.of(batch.execute()).sum();
+    }
+
+
     public int updateRatingsByCondition(AuthoritativenessRatingValue rating, Condition condition) {
         return dsl
                 .update(LOGICAL_FLOW_DECORATOR)
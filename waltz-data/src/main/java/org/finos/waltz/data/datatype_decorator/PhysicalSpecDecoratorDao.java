@@ -151,6 +151,20 @@ public class PhysicalSpecDecoratorDao extends DataTypeDecoratorDao {
     }
 
 
+    @Override
+    public Set<DataTypeDecorator> findByEntityIds(DSLContext tx, Collection<Long> specIds) {
+        checkNotNull(specIds, "specIds cannot be null");
+
+        return tx
+                .select(PHYSICAL_SPEC_DATA_TYPE.fields())
+                .select(DATA_TYPE.NAME)
+                .from(PHYSICAL_SPEC_DATA_TYPE)
+                .innerJoin(DATA_TYPE).on(PHYSICAL_SPEC_DATA_TYPE.DATA_TYPE_ID.eq(DATA_TYPE.ID))
+                .where(PHYSICAL_SPEC_DATA_TYPE.SPECIFICATION_ID.in(specIds))
+                .fetchSet(TO_DOMAIN_MAPPER);
+    }
+
+
     @Override
     public Set<DataTypeDecorator> findByFlowIds(Collection<Long> flowIds) {
         throw new UnsupportedOperationException("method not supported for " + EntityKind.PHYSICAL_SPECIFICATION.prettyName());
@@ -159,13 +173,19 @@ public class PhysicalSpecDecoratorDao extends DataTypeDecoratorDao {
 
     @Override
     public int[] addDecorators(Collection<DataTypeDecorator> specificationDataTypes) {
+        return addDecorators(dsl, specificationDataTypes);
+    }
+
+
+    @Override
+    public int[] addDecorators(DSLContext tx, Collection<DataTypeDecorator> specificationDataTypes) {
         checkNotNull(specificationDataTypes, "specificationDataTypes cannot be null");
 
         List<PhysicalSpecDataTypeRecord> records = specificationDataTypes.stream()
                 .map(TO_RECORD_MAPPER)
                 .collect(toList());
 
-        return dsl.batchInsert(records)
+        return tx.batchInsert(records)
                 .execute();
     }
 
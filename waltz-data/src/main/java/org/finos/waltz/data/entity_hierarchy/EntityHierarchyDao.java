@@ -26,22 +26,30 @@ import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.entity_hierarchy.EntityHierarchyItem;
 import org.finos.waltz.model.entity_hierarchy.ImmutableEntityHierarchyItem;
 import org.finos.waltz.model.tally.Tally;
+import org.jooq.BatchBindStep;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Record;
 import org.jooq.RecordMapper;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 
 import static org.finos.waltz.schema.tables.EntityHierarchy.ENTITY_HIERARCHY;
 import static org.finos.waltz.common.Checks.checkNotNull;
-import static org.finos.waltz.common.ListUtilities.map;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Repository
 public class EntityHierarchyDao {
@@ -86,36 +94,79 @@ public class EntityHierarchyDao {
 
 
     /**
-     * Replaces an entity hierarch with a given set of hierarchy items.
-     * Partial replacements are possible using the deletion filter.
+     * Replaces an entity hierarchy with a given set of hierarchy items.
+     * Partial replacements are possible using the scope filter.
      *
      * A common use of a partial replacement is when rebuilding
      * for a single measurable category.
      *
+     * Rather than deleting and re-inserting every record, the required items are compared
+     * with the currently stored records (within the scope) and only the differences are
+     * applied.  Records for ancestor/descendant pairs which no longer exist are removed, new pairs
+     * are inserted and pairs whose levels have changed (e.g. due to a node moving) are updated.
+     *
      * @param kind  then entity kind of the hierarchy to create
      * @param hierarchyItems  the items making up the hierarchy
-     * @param deleteFilter  Any additional deletion restrictions
-     * @return number of hierarchy records created
+     * @param scopeFilter  Any additional restrictions on the existing records to consider
+     * @return number of hierarchy records inserted, updated or removed
      */
     public int replaceHierarchy(EntityKind kind,
                                 List<EntityHierarchyItem> hierarchyItems,
-                                Condition deleteFilter) {
+                                Condition scopeFilter) {
         checkNotNull(kind, "kind cannot be null");
         checkNotNull(hierarchyItems, "hierarchyItems cannot be null");
 
-        List<EntityHierarchyRecord> records = map(hierarchyItems, ITEM_TO_RECORD_MAPPER);
+        Map<Tuple2<Long, Long>, EntityHierarchyRecord> required = hierarchyItems
+                .stream()
+                .map(ITEM_TO_RECORD_MAPPER)
+                .collect(toMap(
+                        EntityHierarchyDao::toKey,
+                        r -> r,
+                        (r1, r2) -> r1));
 
-        LOG.info("Replacing hierarchy items for kind: {}, inserting new record (#{})", kind, hierarchyItems.size());
         return dsl.transactionResult(configuration -> {
             DSLContext txDsl = DSL.using(configuration);
-            txDsl.deleteFrom(ENTITY_HIERARCHY)
+
+            Map<Tuple2<Long, Long>, EntityHierarchyRecord> existing = txDsl
+                    .selectFrom(ENTITY_HIERARCHY)
                     .where(ENTITY_HIERARCHY.KIND.eq(kind.name()))
-                    .and(deleteFilter)
-                    .execute();
-            return txDsl
-                    .batchInsert(records)
-                    .execute()
-                    .length;
+                    .and(scopeFilter)
+                    .fetch()
+                    .stream()
+                    .collect(toMap(
+                            EntityHierarchyDao::toKey,
+                            r -> r,
+                            (r1, r2) -> r1));
+
+            List<EntityHierarchyRecord> toInsert = new ArrayList<>();
+            List<EntityHierarchyRecord> toUpdate = new ArrayList<>();
+            required.forEach((key, requiredRecord) -> {
+                EntityHierarchyRecord existingRecord = existing.get(key);
+                if (existingRecord == null) {
+                    toInsert.add(requiredRecord);
+                } else if (hasDifferentLevels(existingRecord, requiredRecord)) {
+                    toUpdate.add(requiredRecord);
+                }
+            });
+
+            List<EntityHierarchyRecord> toRemove = existing
+                    .entrySet()
+                    .stream()
+                    .filter(e -> ! required.containsKey(e.getKey()))
+                    .map(Map.Entry::getValue)
+                    .collect(toList());
+
+            LOG.info(
+                    "Updating hierarchy for kind: {}, required records: {}, inserting: {}, updating: {}, removing: {}",
+                    kind,
+                    required.size(),
+                    toInsert.size(),
+                    toUpdate.size(),
+                    toRemove.size());
+
+            return removeRecords(txDsl, kind, toRemove)
+                    + updateLevels(txDsl, kind, toUpdate)
+                    + insertRecords(txDsl, toInsert);
         });
     }
 
@@ -145,4 +196,63 @@ public class EntityHierarchyDao {
                 .fetch(TO_DOMAIN_MAPPER);
     }
 
+
+    // --- helpers ---
+
+    private static int removeRecords(DSLContext txDsl,
+                                     EntityKind kind,
+                                     List<EntityHierarchyRecord> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+
+        BatchBindStep batch = txDsl.batch(txDsl
+                .deleteFrom(ENTITY_HIERARCHY)
+                .where(ENTITY_HIERARCHY.KIND.eq(kind.name()))
+                .and(ENTITY_HIERARCHY.ID.eq((Long) null))
+                .and(ENTITY_HIERARCHY.ANCESTOR_ID.eq((Long) null)));
+
+        records.forEach(r -> batch.bind(kind.name(), r.getId(), r.getAncestorId()));
+        return IntStream.of(batch.execute()).sum();
+    }
+
+
+    private static int updateLevels(DSLContext txDsl,
+                                    EntityKind kind,
+                                    List<EntityHierarchyRecord> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+
+        BatchBindStep batch = txDsl.batch(txDsl
+                .update(ENTITY_HIERARCHY)
+                .set(ENTITY_HIERARCHY.LEVEL, (Integer) null)
+                .set(ENTITY_HIERARCHY.DESCENDANT_LEVEL, (Integer) null)
+                .where(ENTITY_HIERARCHY.KIND.eq(kind.name()))
+                .and(ENTITY_HIERARCHY.ID.eq((Long) null))
+                .and(ENTITY_HIERARCHY.ANCESTOR_ID.eq((Long) null)));
+
+        records.forEach(r -> batch.bind(r.getLevel(), r.getDescendantLevel(), kind.name(), r.getId(), r.getAncestorId()));
+        return IntStream.of(batch.execute()).sum();
+    }
+
+
+    private static int insertRecords(DSLContext txDsl,
+                                     List<EntityHierarchyRecord> records) {
+        return records.isEmpty()
+                ? 0
+                : txDsl.batchInsert(records).execute().length;
+    }
+
+
+    private static Tuple2<Long, Long> toKey(EntityHierarchyRecord r) {
+        return tuple(r.getId(), r.getAncestorId());
+    }
+
+
+    private static boolean hasDifferentLevels(EntityHierarchyRecord a, EntityHierarchyRecord b) {
+        return ! Objects.equals(a.getLevel(), b.getLevel())
+                || ! Objects.equals(a.getDescendantLevel(), b.getDescendantLevel());
+    }
+
 }
@@ -0,0 +1,203 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.entity_search;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.ImmutableEntityReference;
+import org.finos.waltz.model.entity_search.ImmutableSearchableEntity;
+import org.finos.waltz.model.entity_search.SearchableEntity;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.common.EnumUtilities.readEnum;
+import static org.finos.waltz.common.StringUtilities.notEmpty;
+import static org.finos.waltz.data.JooqUtilities.fetchStreamReadOnly;
+import static org.finos.waltz.schema.Tables.ACTOR;
+import static org.finos.waltz.schema.Tables.APPLICATION;
+import static org.finos.waltz.schema.Tables.CHANGE_INITIATIVE;
+import static org.finos.waltz.schema.Tables.DATA_TYPE;
+import static org.finos.waltz.schema.Tables.ENTITY_ALIAS;
+import static org.finos.waltz.schema.Tables.LEGAL_ENTITY;
+import static org.finos.waltz.schema.Tables.MEASURABLE;
+import static org.finos.waltz.schema.Tables.ORGANISATIONAL_UNIT;
+import static org.finos.waltz.schema.Tables.PERSON;
+
+/**
+ * Loads the searchable attributes (name, external id, aliases and lifecycle status)
+ * of entities, used to populate the in-memory entity search index.
+ */
+@Repository
+public class EntitySearchIndexDao {
+
+    private static final int FETCH_SIZE = 5000;
+
+    private static final Field<String> ACTIVE = DSL.val(EntityLifecycleStatus.ACTIVE.name());
+
+    private static class Source {
+        private final Table<?> table;
+        private final Field<Long> id;
+        private final Field<String> name;
+        private final Field<String> externalId;
+        private final Field<String> lifecycleStatus;
+        private final Condition condition;
+        private final Field<String> alternateKey;
+
+        private Source(Table<?> table,
+                       Field<Long> id,
+                       Field<String> name,
+                       Field<String> externalId,
+                       Field<String> lifecycleStatus,
+                       Condition condition,
+                       Field<String> alternateKey) {
+            this.table = table;
+            this.id = id;
+            this.name = name;
+            this.externalId = externalId;
+            this.lifecycleStatus = lifecycleStatus;
+            this.condition = condition;
+            this.alternateKey = alternateKey;
+        }
+    }
+
+    private static final Map<EntityKind, Source> SOURCES = mkSources();
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public EntitySearchIndexDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    public static Set<EntityKind> getSupportedEntityKinds() {
+        return Collections.unmodifiableSet(SOURCES.keySet());
+    }
+
+
+    /**
+     * Loads every searchable entity of the given kind.  Rows are read lazily within a read-only
+     * transaction, as Postgres ignores the fetch size under auto-commit and would otherwise
+     * buffer the whole table.
+     */
+    public List<SearchableEntity> findSearchableEntities(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+        checkTrue(SOURCES.containsKey(kind), "Entity kind: %s is not supported by the search index", kind);
+
+        Source source = SOURCES.get(kind);
+        Map<Long, Set<String>> aliasesById = findAliases(kind);
+
+        Collection<Field<?>> fields = new ArrayList<>();
+        fields.add(source.id);
+        fields.add(source.name);
+        fields.add(source.externalId);
+        fields.add(source.lifecycleStatus);
+        if (source.alternateKey != null) {
+            fields.add(source.alternateKey);
+        }
+
+        List<SearchableEntity> entities = new ArrayList<>();
+        try (Stream<Record> rows = fetchStreamReadOnly(
+                dsl,
+                dsl.select(fields)
+                        .from(source.table)
+                        .where(source.condition)
+                        .fetchSize(FETCH_SIZE))) {
+
+            rows.forEach(r -> {
+                Long id = r.get(source.id);
+                Set<String> aliases = new HashSet<>(aliasesById.getOrDefault(id, Collections.emptySet()));
+                if (source.alternateKey != null && notEmpty(r.get(source.alternateKey))) {
+                    aliases.add(r.get(source.alternateKey));
+                }
+
+                entities.add(ImmutableSearchableEntity
+                        .builder()
+                        .entityReference(ImmutableEntityReference
+                                .builder()
+                                .kind(kind)
+                                .id(id)
+                                .name(r.get(source.name))
+                                .externalId(Optional.ofNullable(r.get(source.externalId)))
+                                .entityLifecycleStatus(readEnum(
+                                        r.get(source.lifecycleStatus),
+                                        EntityLifecycleStatus.class,
+                                        s -> EntityLifecycleStatus.ACTIVE))
+                                .build())
+                        .aliases(aliases)
+                        .build());
+            });
+        }
+
+        return entities;
+    }
+
+
+    // --- helpers ---
+
+    private Map<Long, Set<String>> findAliases(EntityKind kind) {
+        return dsl
+                .select(ENTITY_ALIAS.ID, ENTITY_ALIAS.ALIAS)
+                .from(ENTITY_ALIAS)
+                .where(ENTITY_ALIAS.KIND.eq(kind.name()))
+                .fetch()
+                .stream()
+                .collect(groupingBy(
+                        r -> r.get(ENTITY_ALIAS.ID),
+                        mapping(r -> r.get(ENTITY_ALIAS.ALIAS), toSet())));
+    }
+
+
+    private static Map<EntityKind, Source> mkSources() {
+        Map<EntityKind, Source> sources = new EnumMap<>(EntityKind.class);
+        sources.put(EntityKind.ACTOR, new Source(ACTOR, ACTOR.ID, ACTOR.NAME, ACTOR.EXTERNAL_ID, ACTIVE, DSL.trueCondition(), null));
+        sources.put(EntityKind.APPLICATION, new Source(APPLICATION, APPLICATION.ID, APPLICATION.NAME, APPLICATION.ASSET_CODE, APPLICATION.ENTITY_LIFECYCLE_STATUS, APPLICATION.IS_REMOVED.isFalse(), null));
+        sources.put(EntityKind.CHANGE_INITIATIVE, new Source(CHANGE_INITIATIVE, CHANGE_INITIATIVE.ID, CHANGE_INITIATIVE.NAME, CHANGE_INITIATIVE.EXTERNAL_ID, ACTIVE, DSL.trueCondition(), null));
+        sources.put(EntityKind.DATA_TYPE, new Source(DATA_TYPE, DATA_TYPE.ID, DATA_TYPE.NAME, DATA_TYPE.CODE, ACTIVE, DSL.trueCondition(), null));
+        sources.put(EntityKind.LEGAL_ENTITY, new Source(LEGAL_ENTITY, LEGAL_ENTITY.ID, LEGAL_ENTITY.NAME, LEGAL_ENTITY.EXTERNAL_ID, LEGAL_ENTITY.ENTITY_LIFECYCLE_STATUS, DSL.trueCondition(), null));
+        sources.put(EntityKind.MEASURABLE, new Source(MEASURABLE, MEASURABLE.ID, MEASURABLE.NAME, MEASURABLE.EXTERNAL_ID, MEASURABLE.ENTITY_LIFECYCLE_STATUS, DSL.trueCondition(), null));
+        sources.put(EntityKind.ORG_UNIT, new Source(ORGANISATIONAL_UNIT, ORGANISATIONAL_UNIT.ID, ORGANISATIONAL_UNIT.NAME, ORGANISATIONAL_UNIT.EXTERNAL_ID, ACTIVE, DSL.trueCondition(), null));
+        sources.put(EntityKind.PERSON, new Source(PERSON, PERSON.ID, PERSON.DISPLAY_NAME, PERSON.EMPLOYEE_ID, ACTIVE, PERSON.IS_REMOVED.isFalse(), PERSON.EMAIL));
+        return sources;
+    }
+}
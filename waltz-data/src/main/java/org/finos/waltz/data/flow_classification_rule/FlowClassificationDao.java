@@ -77,6 +77,10 @@ public class FlowClassificationDao {
     }
 
 
+    /**
+     * Note: flow classifications are cached in the reference data snapshot, which is only
+     * refreshed by its max age unless the caller marks it as stale.
+     */
     public int remove(long id) {
         return dsl
                 .delete(FLOW_CLASSIFICATION)
@@ -42,17 +42,20 @@ import org.jooq.Record;
 import org.jooq.Record1;
 import org.jooq.Record2;
 import org.jooq.Record3;
+import org.jooq.Record4;
 import org.jooq.Record8;
 import org.jooq.RecordMapper;
 import org.jooq.Result;
 import org.jooq.Select;
 import org.jooq.SelectConditionStep;
 import org.jooq.SelectOnConditionStep;
+import org.jooq.SelectSeekStep1;
 import org.jooq.SelectSeekStep2;
 import org.jooq.SelectSeekStep3;
 import org.jooq.SelectSeekStep4;
 import org.jooq.UpdateSetMoreStep;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -82,6 +85,7 @@ import static org.finos.waltz.schema.tables.EntityHierarchy.ENTITY_HIERARCHY;
 import static org.finos.waltz.schema.tables.LogicalFlow.LOGICAL_FLOW;
 import static org.finos.waltz.schema.tables.LogicalFlowDecorator.LOGICAL_FLOW_DECORATOR;
 import static org.finos.waltz.schema.tables.OrganisationalUnit.ORGANISATIONAL_UNIT;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 
 @Repository
@@ -342,6 +346,20 @@ public class FlowClassificationRuleDao {
 
 
     public List<FlowClassificationRuleVantagePoint> findExpandedFlowClassificationRuleVantagePoints(Set<Long> orgIds) {
+        return findExpandedFlowClassificationRuleVantagePoints(ehOrgUnit.ID.in(orgIds));
+    }
+
+
+    /**
+     * Expands every rule to all descendant org units and data types of the declared vantage point
+     * @return  vantage points for every org unit covered by a rule
+     */
+    public List<FlowClassificationRuleVantagePoint> findAllExpandedFlowClassificationRuleVantagePoints() {
+        return findExpandedFlowClassificationRuleVantagePoints(DSL.trueCondition());
+    }
+
+
+    private List<FlowClassificationRuleVantagePoint> findExpandedFlowClassificationRuleVantagePoints(Condition orgUnitCondition) {
         SelectSeekStep3<Record8<Long, Integer, Long, Integer, Long, String, String, Long>, Integer, Integer, Long> select = dsl
                 .select(targetOrgUnitId,
                         declaredOrgUnitLevel,
@@ -361,7 +379,7 @@ public class FlowClassificationRuleDao {
                 .innerJoin(impliedDataType)
                     .on(impliedDataType.ID.eq(ehDataType.ID).and(ehDataType.KIND.eq(EntityKind.DATA_TYPE.name())))
                 .innerJoin(FLOW_CLASSIFICATION).on(FLOW_CLASSIFICATION_RULE.FLOW_CLASSIFICATION_ID.eq(FLOW_CLASSIFICATION.ID))
-                .where(ehOrgUnit.ID.in(orgIds))
+                .where(orgUnitCondition)
                 .orderBy(ehOrgUnit.LEVEL.desc(), ehDataType.LEVEL.desc(), ehOrgUnit.ID);
 
         return select
@@ -530,14 +548,48 @@ public class FlowClassificationRuleDao {
     }
 
 
+    /**
+     * Point-to-point rules (declared against the target of a flow) override the general rules.  Where
+     * more than one applies to a decorator the rule declared against the most specific data type wins.
+     *
+     * @return  classification code and rule id, keyed by the id of the logical flow decorator they apply to
+     */
+    public Map<Long, Tuple2<String, Long>> findPointToPointRatingsByDecoratorId() {
+        return selectPointToPointRatings(DSL.trueCondition())
+                .fetch()
+                .stream()
+                .collect(Collectors.toMap(
+                        r -> r.get(LOGICAL_FLOW_DECORATOR.ID),
+                        r -> tuple(r.get(FLOW_CLASSIFICATION.CODE), r.get(FLOW_CLASSIFICATION_RULE.ID)),
+                        (lessSpecific, moreSpecific) -> moreSpecific));
+    }
+
+
     public int updatePointToPointFlowClassificationRules() {
+        int[] updatedActorDecoratorRatings = selectPointToPointRatings(FLOW_CLASSIFICATION.CODE.ne(LOGICAL_FLOW_DECORATOR.RATING))
+                .fetch()
+                .stream()
+                .map(r -> dsl
+                        .update(LOGICAL_FLOW_DECORATOR)
+                        .set(LOGICAL_FLOW_DECORATOR.RATING, r.get(FLOW_CLASSIFICATION.CODE))
+                        .set(LOGICAL_FLOW_DECORATOR.FLOW_CLASSIFICATION_RULE_ID, r.get(FLOW_CLASSIFICATION_RULE.ID))
+                        .where(LOGICAL_FLOW_DECORATOR.ID.eq(r.get(LOGICAL_FLOW_DECORATOR.ID))
+                                .and(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_ID.eq(r.get(child_dt.ID))
+                                        .and(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_KIND.eq(EntityKind.DATA_TYPE.name())))))
+                .collect(collectingAndThen(Collectors.toSet(), r -> dsl.batch(r).execute()));
+
+        return IntStream.of(updatedActorDecoratorRatings).sum();
+    }
+
+
+    private SelectSeekStep1<Record4<Long, Long, String, Long>, Integer> selectPointToPointRatings(Condition condition) {
 
         Condition logicalFlowTargetIsAuthSourceParent = FLOW_CLASSIFICATION_RULE.SUBJECT_ENTITY_ID.eq(LOGICAL_FLOW.SOURCE_ENTITY_ID)
                 .and(LOGICAL_FLOW.SOURCE_ENTITY_KIND.eq(FLOW_CLASSIFICATION_RULE.SUBJECT_ENTITY_KIND)
                         .and(LOGICAL_FLOW.TARGET_ENTITY_KIND.eq(FLOW_CLASSIFICATION_RULE.PARENT_KIND)
                                 .and(LOGICAL_FLOW.TARGET_ENTITY_ID.eq(FLOW_CLASSIFICATION_RULE.PARENT_ID))));
 
-        int[] updatedActorDecoratorRatings = dsl
+        return dsl
                 .select(LOGICAL_FLOW_DECORATOR.ID,
                         child_dt.ID,
                         FLOW_CLASSIFICATION.CODE,
@@ -555,20 +607,8 @@ public class FlowClassificationRuleDao {
                         .and(level.ID.eq(level.ANCESTOR_ID)
                         .and(level.KIND.eq(EntityKind.DATA_TYPE.name()))))
                 .innerJoin(FLOW_CLASSIFICATION).on(FLOW_CLASSIFICATION_RULE.FLOW_CLASSIFICATION_ID.eq(FLOW_CLASSIFICATION.ID))
-                .where(FLOW_CLASSIFICATION.CODE.ne(LOGICAL_FLOW_DECORATOR.RATING))
-                .orderBy(level.LEVEL)
-                .fetch()
-                .stream()
-                .map(r -> dsl
-                        .update(LOGICAL_FLOW_DECORATOR)
-                        .set(LOGICAL_FLOW_DECORATOR.RATING, r.get(FLOW_CLASSIFICATION.CODE))
-                        .set(LOGICAL_FLOW_DECORATOR.FLOW_CLASSIFICATION_RULE_ID, r.get(FLOW_CLASSIFICATION_RULE.ID))
-                        .where(LOGICAL_FLOW_DECORATOR.ID.eq(r.get(LOGICAL_FLOW_DECORATOR.ID))
-                                .and(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_ID.eq(r.get(child_dt.ID))
-                                        .and(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_KIND.eq(EntityKind.DATA_TYPE.name())))))
-                .collect(collectingAndThen(Collectors.toSet(), r -> dsl.batch(r).execute()));
-
-        return IntStream.of(updatedActorDecoratorRatings).sum();
+                .where(condition)
+                .orderBy(level.LEVEL);
     }
 
 
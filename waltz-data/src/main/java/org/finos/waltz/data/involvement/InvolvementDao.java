@@ -35,11 +35,14 @@ import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.Record;
 import org.jooq.Record1;
+import org.jooq.Record2;
 import org.jooq.RecordMapper;
 import org.jooq.Select;
+import org.jooq.SelectSeekStep1;
 import org.jooq.Table;
 import org.jooq.TableField;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -50,20 +53,25 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.*;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.data.JooqUtilities.fetchStreamReadOnly;
 import static org.finos.waltz.schema.Tables.CHANGE_INITIATIVE;
 import static org.finos.waltz.schema.Tables.END_USER_APPLICATION;
 import static org.finos.waltz.schema.tables.Involvement.INVOLVEMENT;
 import static org.finos.waltz.schema.tables.Person.PERSON;
 import static org.finos.waltz.schema.tables.PersonHierarchy.PERSON_HIERARCHY;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 
 @Repository
 public class InvolvementDao {
 
+    private static final int PEOPLE_FETCH_SIZE = 5_000;
+
     private final DSLContext dsl;
 
     private static final Field<String> ENTITY_NAME_FIELD = InlineSelectFieldFactory
@@ -226,6 +234,42 @@ public class InvolvementDao {
     }
 
 
+    /**
+     * Streams the distinct (entity id, person email) pairs for people involved with the selected
+     * entities via any of the given involvement kinds.  Rows are ordered by entity id, so all the
+     * people for an entity are adjacent, and are fetched lazily to keep memory use bounded.  The
+     * fetch runs within a read-only transaction (as Postgres ignores the fetch size under
+     * auto-commit) which holds a connection until the visitor returns.
+     *
+     * @param entityKind  kind of the selected entities
+     * @param entityIdSelector  ids of the entities
+     * @param involvementKindIds  involvement kinds to consider
+     * @param visitor  function applied to the stream of (entity id, email) pairs
+     * @param <T>  result type of the visitor
+     * @return  result of the visitor
+     */
+    public <T> T visitPeopleByEntitySelectorAndInvolvement(EntityKind entityKind,
+                                                           Select<Record1<Long>> entityIdSelector,
+                                                           Set<Long> involvementKindIds,
+                                                           Function<Stream<Tuple2<Long, String>>, T> visitor) {
+        SelectSeekStep1<Record2<Long, String>, Long> qry = dsl
+                .selectDistinct(INVOLVEMENT.ENTITY_ID, PERSON.EMAIL)
+                .from(PERSON)
+                .innerJoin(INVOLVEMENT)
+                .on(INVOLVEMENT.EMPLOYEE_ID.eq(PERSON.EMPLOYEE_ID))
+                .where(PERSON.IS_REMOVED.isFalse()
+                        .and(INVOLVEMENT.ENTITY_KIND.eq(entityKind.name())
+                                .and(INVOLVEMENT.ENTITY_ID.in(entityIdSelector)
+                                        .and(INVOLVEMENT.KIND_ID.in(involvementKindIds)))))
+                .orderBy(INVOLVEMENT.ENTITY_ID);
+
+        try (Stream<Tuple2<Long, String>> people = fetchStreamReadOnly(dsl, qry.fetchSize(PEOPLE_FETCH_SIZE))
+                .map(r -> tuple(r.get(INVOLVEMENT.ENTITY_ID), r.get(PERSON.EMAIL)))) {
+            return visitor.apply(people);
+        }
+    }
+
+
     public int save(Involvement involvement) {
         return ! exists(involvement)
                 ? dsl.executeInsert(TO_RECORD_MAPPER.apply(involvement))
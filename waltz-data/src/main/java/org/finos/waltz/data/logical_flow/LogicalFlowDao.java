@@ -34,26 +34,33 @@ import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.Record;
 import org.jooq.Record1;
+import org.jooq.Record6;
 import org.jooq.RecordMapper;
 import org.jooq.Select;
 import org.jooq.SelectJoinStep;
+import org.jooq.SelectSeekStep1;
 import org.jooq.UpdateConditionStep;
 import org.jooq.impl.DSL;
 import org.jooq.lambda.tuple.Tuple2;
+import org.jooq.lambda.tuple.Tuple4;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.toSet;
@@ -67,6 +74,7 @@ import static org.finos.waltz.common.MapUtilities.groupBy;
 import static org.finos.waltz.common.MapUtilities.indexBy;
 import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.common.SetUtilities.union;
+import static org.finos.waltz.data.JooqUtilities.fetchStreamReadOnly;
 import static org.finos.waltz.data.application.ApplicationDao.IS_ACTIVE;
 import static org.finos.waltz.model.EntityLifecycleStatus.ACTIVE;
 import static org.finos.waltz.model.EntityLifecycleStatus.REMOVED;
@@ -74,6 +82,7 @@ import static org.finos.waltz.schema.Tables.PHYSICAL_SPECIFICATION;
 import static org.finos.waltz.schema.Tables.USER_ROLE;
 import static org.finos.waltz.schema.tables.Application.APPLICATION;
 import static org.finos.waltz.schema.tables.LogicalFlow.LOGICAL_FLOW;
+import static org.finos.waltz.schema.tables.LogicalFlowDecorator.LOGICAL_FLOW_DECORATOR;
 import static org.jooq.lambda.tuple.Tuple.tuple;
 
 
@@ -82,6 +91,9 @@ public class LogicalFlowDao {
 
     private static final Logger LOG = LoggerFactory.getLogger(LogicalFlowDao.class);
 
+    private static final int FLOW_DATA_TYPE_FETCH_SIZE = 5_000;
+    private static final int FLOW_FETCH_SIZE = 1_000;
+
     private static final Field<String> SOURCE_NAME_FIELD = InlineSelectFieldFactory.mkNameField(
             LOGICAL_FLOW.SOURCE_ENTITY_ID,
             LOGICAL_FLOW.SOURCE_ENTITY_KIND,
@@ -294,6 +306,88 @@ public class LogicalFlowDao {
     }
 
 
+    /**
+     * Resolves the ids of the logical flows for each of the given (source, target) pairs.
+     * Removed flows are restored and missing flows are created (via a single batch insert), so
+     * the number of statements issued does not depend on the number of pairs.
+     *
+     * @param tx  transaction to use
+     * @param sourceAndTargets  (source, target) pairs, references are compared by kind and id only
+     * @param username  user to record against restored or created flows
+     * @return logical flow id keyed by (source, target), the keys are bare (kind and id) references
+     */
+    public Map<Tuple2<EntityReference, EntityReference>, Long> getOrCreateFlowIds(DSLContext tx,
+                                                                                 Set<Tuple2<EntityReference, EntityReference>> sourceAndTargets,
+                                                                                 String username) {
+        checkNotNull(tx, "tx cannot be null");
+        checkNotNull(sourceAndTargets, "sourceAndTargets cannot be null");
+        checkNotNull(username, "username cannot be null");
+
+        Set<Tuple2<EntityReference, EntityReference>> required = sourceAndTargets
+                .stream()
+                .map(t -> tuple(
+                        EntityReference.mkRef(t.v1.kind(), t.v1.id()),
+                        EntityReference.mkRef(t.v2.kind(), t.v2.id())))
+                .collect(toSet());
+
+        if (required.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Tuple2<EntityReference, EntityReference>, LogicalFlowRecord> existing = findRecordsBySourceAndTarget(tx, required);
+
+        Set<Long> removedIds = existing
+                .values()
+                .stream()
+                .filter(LogicalFlowDao::isRemoved)
+                .map(LogicalFlowRecord::getId)
+                .collect(toSet());
+
+        LocalDateTime now = nowUtc();
+
+        if (! removedIds.isEmpty()) {
+            tx.update(LOGICAL_FLOW)
+                    .set(LOGICAL_FLOW.ENTITY_LIFECYCLE_STATUS, ACTIVE.name())
+                    .set(LOGICAL_FLOW.IS_REMOVED, false)
+                    .set(LOGICAL_FLOW.LAST_UPDATED_BY, username)
+                    .set(LOGICAL_FLOW.LAST_UPDATED_AT, Timestamp.valueOf(now))
+                    .where(LOGICAL_FLOW.ID.in(removedIds))
+                    .execute();
+        }
+
+        Set<Tuple2<EntityReference, EntityReference>> missing = required
+                .stream()
+                .filter(t -> ! existing.containsKey(t))
+                .collect(toSet());
+
+        Map<Tuple2<EntityReference, EntityReference>, Long> flowIds = new HashMap<>();
+        existing.forEach((k, r) -> flowIds.put(k, r.getId()));
+
+        if (! missing.isEmpty()) {
+            List<LogicalFlowRecord> records = missing
+                    .stream()
+                    .map(t -> TO_RECORD_MAPPER.apply(
+                            ImmutableLogicalFlow.builder()
+                                    .source(t.v1)
+                                    .target(t.v2)
+                                    .lastUpdatedBy(username)
+                                    .lastUpdatedAt(now)
+                                    .provenance("waltz")
+                                    .created(UserTimestamp.mkForUser(username, now))
+                                    .build(),
+                            tx))
+                    .collect(Collectors.toList());
+
+            tx.batchInsert(records).execute();
+
+            findRecordsBySourceAndTarget(tx, missing)
+                    .forEach((k, r) -> flowIds.put(k, r.getId()));
+        }
+
+        return flowIds;
+    }
+
+
     /**
      * Attempt to restore a flow.  The id is ignored and only source and target
      * are used. Return's true if the flow has been successfully restored or
@@ -345,13 +439,52 @@ public class LogicalFlowDao {
     }
 
 
+    /**
+     * Streams the active logical flows to the given visitor as (flow id, source, target, data type id) rows.
+     * There is one row per data type decorating the flow (the data type id is null for undecorated flows)
+     * and rows for the same flow are adjacent.  The stream is backed by an open cursor, read in batches
+     * within a read-only transaction (so the driver does not buffer the full result), and is closed once
+     * the visitor completes.
+     *
+     * @param visitor  function which consumes the stream of rows
+     * @param <T>  result type of the visitor
+     * @return  the result of the visitor
+     */
+    public <T> T visitActiveFlowDataTypes(Function<Stream<Tuple4<Long, EntityReference, EntityReference, Long>>, T> visitor) {
+        try (Stream<Tuple4<Long, EntityReference, EntityReference, Long>> rows = fetchStreamReadOnly(
+                    dsl,
+                    mkFlowDataTypesQuery(DSL.trueCondition()).fetchSize(FLOW_DATA_TYPE_FETCH_SIZE))
+                .map(LogicalFlowDao::toFlowDataTypeTuple)) {
+            return visitor.apply(rows);
+        }
+    }
+
+
+    /**
+     * Variant of {@link #visitActiveFlowDataTypes(Function)} for the given flows, flows which
+     * are removed (or not active) are omitted.
+     */
+    public List<Tuple4<Long, EntityReference, EntityReference, Long>> findActiveFlowDataTypesByFlowIds(Collection<Long> flowIds) {
+        if (flowIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return mkFlowDataTypesQuery(LOGICAL_FLOW.ID.in(flowIds))
+                .fetch(LogicalFlowDao::toFlowDataTypeTuple);
+    }
+
+
     public List<LogicalFlow> findActiveByFlowIds(Collection<Long> dataFlowIds) {
-        return findByFlowIdsWithCondition(dataFlowIds, LOGICAL_NOT_REMOVED);
+        return findActiveByFlowIds(dsl, dataFlowIds);
+    }
+
+
+    public List<LogicalFlow> findActiveByFlowIds(DSLContext tx, Collection<Long> dataFlowIds) {
+        return findByFlowIdsWithCondition(tx, dataFlowIds, LOGICAL_NOT_REMOVED);
     }
 
 
     public List<LogicalFlow> findAllByFlowIds(Collection<Long> dataFlowIds) {
-        return findByFlowIdsWithCondition(dataFlowIds, DSL.trueCondition());
+        return findByFlowIdsWithCondition(dsl, dataFlowIds, DSL.trueCondition());
     }
 
 
@@ -362,6 +495,48 @@ public class LogicalFlowDao {
     }
 
 
+    /**
+     * Lazily fetched variant of {@link #findBySelector(Select)}.
+     * The caller must close the stream to release the underlying cursor and connection.
+     */
+    public Stream<LogicalFlow> streamBySelector(Select<Record1<Long>> flowIdSelector) {
+        return fetchStreamReadOnly(
+                    dsl,
+                    baseQuery()
+                            .where(dsl.renderInlined(LOGICAL_FLOW.ID.in(flowIdSelector)))
+                            .fetchSize(FLOW_FETCH_SIZE))
+                .map(TO_DOMAIN_MAPPER::map);
+    }
+
+
+    private SelectSeekStep1<Record6<Long, String, Long, String, Long, Long>, Long> mkFlowDataTypesQuery(Condition condition) {
+        return dsl
+                .select(LOGICAL_FLOW.ID,
+                        LOGICAL_FLOW.SOURCE_ENTITY_KIND,
+                        LOGICAL_FLOW.SOURCE_ENTITY_ID,
+                        LOGICAL_FLOW.TARGET_ENTITY_KIND,
+                        LOGICAL_FLOW.TARGET_ENTITY_ID,
+                        LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_ID)
+                .from(LOGICAL_FLOW)
+                .leftJoin(LOGICAL_FLOW_DECORATOR)
+                .on(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID.eq(LOGICAL_FLOW.ID)
+                        .and(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_KIND.eq(EntityKind.DATA_TYPE.name())))
+                .where(LOGICAL_NOT_REMOVED
+                        .and(LOGICAL_FLOW.ENTITY_LIFECYCLE_STATUS.eq(ACTIVE.name()))
+                        .and(condition))
+                .orderBy(LOGICAL_FLOW.ID);
+    }
+
+
+    private static Tuple4<Long, EntityReference, EntityReference, Long> toFlowDataTypeTuple(Record6<Long, String, Long, String, Long, Long> r) {
+        return tuple(
+                r.value1(),
+                EntityReference.mkRef(EntityKind.valueOf(r.value2()), r.value3()),
+                EntityReference.mkRef(EntityKind.valueOf(r.value4()), r.value5()),
+                r.value6());
+    }
+
+
     public Integer cleanupOrphans() {
         Select<Record1<Long>> appIds = DSL
                 .select(APPLICATION.ID)
@@ -440,7 +615,12 @@ public class LogicalFlowDao {
     }
 
     private SelectJoinStep<Record> baseQuery() {
-        return dsl
+        return baseQuery(dsl);
+    }
+
+
+    private static SelectJoinStep<Record> baseQuery(DSLContext ctx) {
+        return ctx
                 .select(LOGICAL_FLOW.fields())
                 .select(SOURCE_NAME_FIELD, TARGET_NAME_FIELD)
                 .select(SOURCE_EXTERNAL_ID_FIELD, TARGET_EXTERNAL_ID_FIELD)
@@ -448,14 +628,53 @@ public class LogicalFlowDao {
     }
 
 
-    private List<LogicalFlow> findByFlowIdsWithCondition(Collection<Long> dataFlowIds, Condition condition) {
-        return baseQuery()
+    private static List<LogicalFlow> findByFlowIdsWithCondition(DSLContext ctx,
+                                                                Collection<Long> dataFlowIds,
+                                                                Condition condition) {
+        return baseQuery(ctx)
                 .where(LOGICAL_FLOW.ID.in(dataFlowIds))
                 .and(condition)
                 .fetch(TO_DOMAIN_MAPPER);
     }
 
 
+    /**
+     * Fetches the flows (including removed flows) for the given pairs, preferring active flows
+     * if a pair has more than one.
+     */
+    private static Map<Tuple2<EntityReference, EntityReference>, LogicalFlowRecord> findRecordsBySourceAndTarget(DSLContext tx,
+                                                                                                                 Set<Tuple2<EntityReference, EntityReference>> sourceAndTargets) {
+        Set<Long> sourceIds = sourceAndTargets.stream().map(t -> t.v1.id()).collect(toSet());
+        Set<Long> targetIds = sourceAndTargets.stream().map(t -> t.v2.id()).collect(toSet());
+
+        Map<Tuple2<EntityReference, EntityReference>, LogicalFlowRecord> recordsBySourceAndTarget = new HashMap<>();
+
+        tx.selectFrom(LOGICAL_FLOW)
+                .where(LOGICAL_FLOW.SOURCE_ENTITY_ID.in(sourceIds))
+                .and(LOGICAL_FLOW.TARGET_ENTITY_ID.in(targetIds))
+                .fetch()
+                .forEach(r -> {
+                    Tuple2<EntityReference, EntityReference> key = tuple(
+                            EntityReference.mkRef(EntityKind.valueOf(r.getSourceEntityKind()), r.getSourceEntityId()),
+                            EntityReference.mkRef(EntityKind.valueOf(r.getTargetEntityKind()), r.getTargetEntityId()));
+
+                    if (sourceAndTargets.contains(key)) {
+                        LogicalFlowRecord current = recordsBySourceAndTarget.get(key);
+                        if (current == null || (isRemoved(current) && ! isRemoved(r))) {
+                            recordsBySourceAndTarget.put(key, r);
+                        }
+                    }
+                });
+
+        return recordsBySourceAndTarget;
+    }
+
+
+    private static boolean isRemoved(LogicalFlowRecord r) {
+        return r.getIsRemoved() || REMOVED.name().equals(r.getEntityLifecycleStatus());
+    }
+
+
     private int restoreFlows(List<LogicalFlow> flows, String username) {
         if(flows.isEmpty()) {
             return 0;
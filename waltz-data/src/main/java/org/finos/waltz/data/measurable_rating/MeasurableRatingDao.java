@@ -70,6 +70,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 import static java.util.Collections.emptySet;
@@ -81,6 +82,7 @@ import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.common.SetUtilities.union;
 import static org.finos.waltz.common.StringUtilities.firstChar;
 import static org.finos.waltz.common.StringUtilities.notEmpty;
+import static org.finos.waltz.data.JooqUtilities.fetchStreamReadOnly;
 import static org.finos.waltz.schema.Tables.ALLOCATION;
 import static org.finos.waltz.schema.Tables.CHANGE_LOG;
 import static org.finos.waltz.schema.Tables.ENTITY_HIERARCHY;
@@ -97,6 +99,8 @@ public class MeasurableRatingDao {
 
     private static final Logger LOG = LoggerFactory.getLogger(MeasurableRatingDao.class);
 
+    private static final int RATING_FETCH_SIZE = 1_000;
+
     private static final Condition APP_JOIN_CONDITION = APPLICATION.ID.eq(MEASURABLE_RATING.ENTITY_ID)
             .and(MEASURABLE_RATING.ENTITY_KIND.eq(EntityKind.APPLICATION.name()));
 
@@ -293,14 +297,33 @@ public class MeasurableRatingDao {
 
     public Collection<MeasurableRating> findByApplicationIdSelector(Select<Record1<Long>> selector) {
         checkNotNull(selector, "selector cannot be null");
-        Condition condition = MEASURABLE_RATING.ENTITY_ID.in(selector)
-                .and(MEASURABLE_RATING.ENTITY_KIND.eq(DSL.val(EntityKind.APPLICATION.name())));
         return mkBaseQuery()
-                .where(dsl.renderInlined(condition))
+                .where(dsl.renderInlined(mkApplicationIdSelectorCondition(selector)))
                 .fetch(TO_DOMAIN_MAPPER);
     }
 
 
+    /**
+     * Lazily fetched variant of {@link #findByApplicationIdSelector(Select)}.
+     * The caller must close the stream to release the underlying cursor and connection.
+     */
+    public Stream<MeasurableRating> streamByApplicationIdSelector(Select<Record1<Long>> selector) {
+        checkNotNull(selector, "selector cannot be null");
+        return fetchStreamReadOnly(
+                    dsl,
+                    mkBaseQuery()
+                            .where(dsl.renderInlined(mkApplicationIdSelectorCondition(selector)))
+                            .fetchSize(RATING_FETCH_SIZE))
+                .map(TO_DOMAIN_MAPPER::map);
+    }
+
+
+    private static Condition mkApplicationIdSelectorCondition(Select<Record1<Long>> selector) {
+        return MEASURABLE_RATING.ENTITY_ID.in(selector)
+                .and(MEASURABLE_RATING.ENTITY_KIND.eq(DSL.val(EntityKind.APPLICATION.name())));
+    }
+
+
     public Collection<MeasurableRating> findByCategory(long id) {
         return mkBaseQuery()
                 .innerJoin(MEASURABLE).on(MEASURABLE_RATING.MEASURABLE_ID.eq(MEASURABLE.ID))
@@ -17,9 +17,11 @@ import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Record;
 import org.jooq.Record1;
+import org.jooq.Record3;
 import org.jooq.Record6;
 import org.jooq.SelectConditionStep;
 import org.jooq.impl.DSL;
+import org.jooq.Result;
 import org.jooq.lambda.tuple.Tuple3;
 import org.jooq.lambda.tuple.Tuple5;
 import org.springframework.stereotype.Repository;
@@ -129,6 +131,11 @@ public class PermissionGroupDao {
     }
 
 
+    /**
+     * Determines the involvements needed to satisfy the permission check.  The result also gives the
+     * permission groups which apply to the parent entity (its specific groups or, if none, the default
+     * groups), these are found by the same query as the groups are outer joined to their involvements.
+     */
     public RequiredInvolvementsResult getRequiredInvolvements(CheckPermissionCommand permissionCommand) {
 
         Condition groupCondition = PERMISSION_GROUP.ID.in(permissionGroupSelector(permissionCommand.parentEntityRef()))
@@ -143,30 +150,53 @@ public class PermissionGroupDao {
                 ? PERMISSION_GROUP_INVOLVEMENT.QUALIFIER_ID.isNull()
                 : PERMISSION_GROUP_INVOLVEMENT.QUALIFIER_ID.eq(permissionCommand.qualifierId());
 
-        SelectConditionStep<Record1<Long>> qry = dsl
-                .select(INVOLVEMENT_GROUP_ENTRY.INVOLVEMENT_KIND_ID)
-                .from(PERMISSION_GROUP_INVOLVEMENT)
-                .innerJoin(PERMISSION_GROUP).on(PERMISSION_GROUP.ID.eq(PERMISSION_GROUP_INVOLVEMENT.PERMISSION_GROUP_ID))
-                .leftJoin(INVOLVEMENT_GROUP).on(PERMISSION_GROUP_INVOLVEMENT.INVOLVEMENT_GROUP_ID.eq(INVOLVEMENT_GROUP.ID))
-                .leftJoin(INVOLVEMENT_GROUP_ENTRY).on(INVOLVEMENT_GROUP.ID.eq(INVOLVEMENT_GROUP_ENTRY.INVOLVEMENT_GROUP_ID))
-                .where(groupCondition)
+        Condition involvementCondition = PERMISSION_GROUP_INVOLVEMENT.PERMISSION_GROUP_ID.eq(PERMISSION_GROUP.ID)
                 .and(PERMISSION_GROUP_INVOLVEMENT.PARENT_KIND.eq(permissionCommand.parentEntityRef().kind().name()))
                 .and(PERMISSION_GROUP_INVOLVEMENT.SUBJECT_KIND.eq(permissionCommand.subjectKind().name()))
                 .and(PERMISSION_GROUP_INVOLVEMENT.OPERATION.eq(permissionCommand.operation().name()))
                 .and(qualifierKindCondition)
                 .and(qualifierIdCondition);
 
-        Set<Long> requiredInvolvementIds = qry
-                .fetchSet(INVOLVEMENT_GROUP_ENTRY.INVOLVEMENT_KIND_ID);
+        SelectConditionStep<Record3<Long, Long, Long>> qry = dsl
+                .select(PERMISSION_GROUP.ID,
+                        PERMISSION_GROUP_INVOLVEMENT.PERMISSION_GROUP_ID,
+                        INVOLVEMENT_GROUP_ENTRY.INVOLVEMENT_KIND_ID)
+                .from(PERMISSION_GROUP)
+                .leftJoin(PERMISSION_GROUP_INVOLVEMENT).on(involvementCondition)
+                .leftJoin(INVOLVEMENT_GROUP).on(PERMISSION_GROUP_INVOLVEMENT.INVOLVEMENT_GROUP_ID.eq(INVOLVEMENT_GROUP.ID))
+                .leftJoin(INVOLVEMENT_GROUP_ENTRY).on(INVOLVEMENT_GROUP.ID.eq(INVOLVEMENT_GROUP_ENTRY.INVOLVEMENT_GROUP_ID))
+                .where(groupCondition);
+
+        Result<Record3<Long, Long, Long>> rows = qry.fetch();
+
+        // groups without a matching involvement give a row with a null involvement, which must not count as 'all users'
+        Set<Long> requiredInvolvementIds = rows
+                .stream()
+                .filter(r -> r.get(PERMISSION_GROUP_INVOLVEMENT.PERMISSION_GROUP_ID) != null)
+                .map(r -> r.get(INVOLVEMENT_GROUP_ENTRY.INVOLVEMENT_KIND_ID))
+                .collect(toSet());
 
         return ImmutableRequiredInvolvementsResult
                 .builder()
                 .areAllUsersAllowed(requiredInvolvementIds.equals(ALL_USERS_ALLOWED))
                 .requiredInvolvementKindIds(minus(requiredInvolvementIds, ALL_USERS_ALLOWED))
+                .permissionGroupIds(map(rows, r -> r.get(PERMISSION_GROUP.ID)))
                 .build();
     }
 
 
+    /**
+     * @return ids of the permission groups whose involvements refer to the given involvement group
+     */
+    public Set<Long> findPermissionGroupIdsByInvolvementGroupId(long involvementGroupId) {
+        return dsl
+                .selectDistinct(PERMISSION_GROUP_INVOLVEMENT.PERMISSION_GROUP_ID)
+                .from(PERMISSION_GROUP_INVOLVEMENT)
+                .where(PERMISSION_GROUP_INVOLVEMENT.INVOLVEMENT_GROUP_ID.eq(involvementGroupId))
+                .fetchSet(PERMISSION_GROUP_INVOLVEMENT.PERMISSION_GROUP_ID);
+    }
+
+
     /**
      * Given an entity ref (typically an app) and a userId, this will return a list of
      * measurable categories that are attestable along with a flag to indicate if _this_
@@ -44,16 +44,23 @@ import org.jooq.RecordMapper;
 import org.jooq.Select;
 import org.jooq.TableField;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple6;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyList;
 import static org.finos.waltz.common.Checks.checkFalse;
@@ -69,6 +76,7 @@ import static org.finos.waltz.schema.Tables.PHYSICAL_SPEC_DATA_TYPE;
 import static org.finos.waltz.schema.tables.LogicalFlow.LOGICAL_FLOW;
 import static org.finos.waltz.schema.tables.PhysicalFlow.PHYSICAL_FLOW;
 import static org.finos.waltz.schema.tables.PhysicalSpecification.PHYSICAL_SPECIFICATION;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 
 @Repository
@@ -76,6 +84,8 @@ public class PhysicalFlowDao {
 
     private static final Logger LOG = LoggerFactory.getLogger(PhysicalFlowDao.class);
 
+    private static final int PARSED_FLOW_BATCH_SIZE = 1000;
+
     public static final RecordMapper<Record, PhysicalFlow> TO_DOMAIN_MAPPER = r -> {
         PhysicalFlowRecord record = r.into(PHYSICAL_FLOW);
         return ImmutablePhysicalFlow.builder()
@@ -298,6 +308,182 @@ public class PhysicalFlowDao {
         checkNotNull(flow, "flow cannot be null");
         checkFalse(flow.id().isPresent(), "flow must not have an id");
 
+        PhysicalFlowRecord record = mkRecord(dsl, flow);
+        record.store();
+        return record.getId();
+    }
+
+
+    /**
+     * Set based equivalent of {@link #getByParsedFlow(PhysicalFlowParsed)}.  Candidate flows are
+     * fetched for batches of source/target ids and matched in memory.
+     *
+     * @param flows  parsed flows to find matches for
+     * @return existing (active) physical flow keyed by the parsed flow, parsed flows with no match are omitted
+     */
+    public Map<PhysicalFlowParsed, PhysicalFlow> findByParsedFlows(Collection<PhysicalFlowParsed> flows) {
+        checkNotNull(flows, "flows cannot be null");
+
+        Map<PhysicalFlowParsed, PhysicalFlow> matches = new HashMap<>();
+
+        List<PhysicalFlowParsed> flowList = new ArrayList<>(flows);
+        for (int i = 0; i < flowList.size(); i += PARSED_FLOW_BATCH_SIZE) {
+            Map<List<Object>, List<PhysicalFlowParsed>> flowsByKey = flowList
+                    .subList(i, Math.min(flowList.size(), i + PARSED_FLOW_BATCH_SIZE))
+                    .stream()
+                    .collect(Collectors.groupingBy(PhysicalFlowDao::mkParsedFlowKey));
+
+            Set<Long> sourceIds = flowsByKey.values().stream().flatMap(List::stream).map(f -> f.source().id()).collect(Collectors.toSet());
+            Set<Long> targetIds = flowsByKey.values().stream().flatMap(List::stream).map(f -> f.target().id()).collect(Collectors.toSet());
+
+            dsl.select(PHYSICAL_FLOW.fields())
+                    .select(LOGICAL_FLOW.SOURCE_ENTITY_KIND,
+                            LOGICAL_FLOW.SOURCE_ENTITY_ID,
+                            LOGICAL_FLOW.TARGET_ENTITY_KIND,
+                            LOGICAL_FLOW.TARGET_ENTITY_ID,
+                            PHYSICAL_SPECIFICATION.OWNING_ENTITY_KIND,
+                            PHYSICAL_SPECIFICATION.OWNING_ENTITY_ID,
+                            PHYSICAL_SPECIFICATION.FORMAT,
+                            PHYSICAL_SPECIFICATION.NAME,
+                            PHYSICAL_SPEC_DATA_TYPE.DATA_TYPE_ID)
+                    .from(PHYSICAL_FLOW)
+                    .join(LOGICAL_FLOW).on(LOGICAL_FLOW.ID.eq(PHYSICAL_FLOW.LOGICAL_FLOW_ID))
+                    .join(PHYSICAL_SPECIFICATION).on(PHYSICAL_SPECIFICATION.ID.eq(PHYSICAL_FLOW.SPECIFICATION_ID))
+                    .join(PHYSICAL_SPEC_DATA_TYPE).on(PHYSICAL_SPEC_DATA_TYPE.SPECIFICATION_ID.eq(PHYSICAL_SPECIFICATION.ID))
+                    .where(LOGICAL_FLOW.SOURCE_ENTITY_ID.in(sourceIds))
+                    .and(LOGICAL_FLOW.TARGET_ENTITY_ID.in(targetIds))
+                    .and(LOGICAL_FLOW.ENTITY_LIFECYCLE_STATUS.ne(REMOVED.name()))
+                    .and(PHYSICAL_SPECIFICATION.IS_REMOVED.isFalse())
+                    .and(PHYSICAL_FLOW_NOT_REMOVED)
+                    .fetch()
+                    .forEach(r -> {
+                        List<Object> key = Arrays.asList(
+                                mkRef(EntityKind.valueOf(r.get(LOGICAL_FLOW.SOURCE_ENTITY_KIND)), r.get(LOGICAL_FLOW.SOURCE_ENTITY_ID)),
+                                mkRef(EntityKind.valueOf(r.get(LOGICAL_FLOW.TARGET_ENTITY_KIND)), r.get(LOGICAL_FLOW.TARGET_ENTITY_ID)),
+                                mkRef(EntityKind.valueOf(r.get(PHYSICAL_SPECIFICATION.OWNING_ENTITY_KIND)), r.get(PHYSICAL_SPECIFICATION.OWNING_ENTITY_ID)),
+                                r.get(PHYSICAL_SPECIFICATION.FORMAT),
+                                r.get(PHYSICAL_SPECIFICATION.NAME),
+                                r.get(PHYSICAL_SPEC_DATA_TYPE.DATA_TYPE_ID),
+                                r.get(PHYSICAL_FLOW.BASIS_OFFSET),
+                                r.get(PHYSICAL_FLOW.FREQUENCY),
+                                r.get(PHYSICAL_FLOW.TRANSPORT),
+                                r.get(PHYSICAL_FLOW.CRITICALITY));
+
+                        List<PhysicalFlowParsed> matchingFlows = flowsByKey.get(key);
+                        if (matchingFlows != null) {
+                            PhysicalFlow match = TO_DOMAIN_MAPPER.map(r);
+                            matchingFlows.forEach(f -> matches.putIfAbsent(f, match));
+                        }
+                    });
+        }
+
+        return matches;
+    }
+
+
+    /**
+     * Set based equivalent of calling {@link #matchPhysicalFlow(PhysicalFlow)} and, if there is no match,
+     * {@link #create(PhysicalFlow)} for each flow.  Missing flows are created via a single batch insert.
+     *
+     * @param tx  transaction to use
+     * @param flows  flows to find or create, ids are ignored
+     * @return physical flow id for each of the given flows
+     */
+    public Map<PhysicalFlow, Long> getOrCreateFlowIds(DSLContext tx,
+                                                      Collection<PhysicalFlow> flows) {
+        checkNotNull(tx, "tx cannot be null");
+        checkNotNull(flows, "flows cannot be null");
+
+        Map<Tuple6<Long, Long, Integer, String, String, String>, PhysicalFlow> required = new HashMap<>();
+        flows.forEach(f -> required.putIfAbsent(mkMatchKey(f), f));
+
+        if (required.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Tuple6<Long, Long, Integer, String, String, String>, Long> flowIds = findIdsByMatchKey(tx, required.keySet());
+
+        List<PhysicalFlowRecord> toInsert = required
+                .entrySet()
+                .stream()
+                .filter(e -> ! flowIds.containsKey(e.getKey()))
+                .map(e -> mkRecord(tx, e.getValue()))
+                .collect(Collectors.toList());
+
+        if (! toInsert.isEmpty()) {
+            tx.batchInsert(toInsert).execute();
+            findIdsByMatchKey(tx, required.keySet()).forEach(flowIds::putIfAbsent);
+        }
+
+        Map<PhysicalFlow, Long> idsByFlow = new HashMap<>();
+        flows.forEach(f -> idsByFlow.put(f, flowIds.get(mkMatchKey(f))));
+        return idsByFlow;
+    }
+
+
+    private static Map<Tuple6<Long, Long, Integer, String, String, String>, Long> findIdsByMatchKey(DSLContext tx,
+                                                                                                   Set<Tuple6<Long, Long, Integer, String, String, String>> keys) {
+        Set<Long> logicalFlowIds = keys.stream().map(k -> k.v1).collect(Collectors.toSet());
+        Set<Long> specIds = keys.stream().map(k -> k.v2).collect(Collectors.toSet());
+
+        Map<Tuple6<Long, Long, Integer, String, String, String>, Long> idsByKey = new HashMap<>();
+
+        tx.select(PHYSICAL_FLOW.ID,
+                  PHYSICAL_FLOW.LOGICAL_FLOW_ID,
+                  PHYSICAL_FLOW.SPECIFICATION_ID,
+                  PHYSICAL_FLOW.BASIS_OFFSET,
+                  PHYSICAL_FLOW.FREQUENCY,
+                  PHYSICAL_FLOW.TRANSPORT,
+                  PHYSICAL_FLOW.CRITICALITY)
+                .from(PHYSICAL_FLOW)
+                .where(PHYSICAL_FLOW.LOGICAL_FLOW_ID.in(logicalFlowIds))
+                .and(PHYSICAL_FLOW.SPECIFICATION_ID.in(specIds))
+                .orderBy(PHYSICAL_FLOW.ID)
+                .fetch()
+                .forEach(r -> {
+                    Tuple6<Long, Long, Integer, String, String, String> key = tuple(
+                            r.get(PHYSICAL_FLOW.LOGICAL_FLOW_ID),
+                            r.get(PHYSICAL_FLOW.SPECIFICATION_ID),
+                            r.get(PHYSICAL_FLOW.BASIS_OFFSET),
+                            r.get(PHYSICAL_FLOW.FREQUENCY),
+                            r.get(PHYSICAL_FLOW.TRANSPORT),
+                            r.get(PHYSICAL_FLOW.CRITICALITY));
+                    if (keys.contains(key)) {
+                        idsByKey.putIfAbsent(key, r.get(PHYSICAL_FLOW.ID));
+                    }
+                });
+
+        return idsByKey;
+    }
+
+
+    private static Tuple6<Long, Long, Integer, String, String, String> mkMatchKey(PhysicalFlow flow) {
+        return tuple(
+                flow.logicalFlowId(),
+                flow.specificationId(),
+                flow.basisOffset(),
+                flow.frequency().value(),
+                flow.transport().value(),
+                flow.criticality().value());
+    }
+
+
+    private static List<Object> mkParsedFlowKey(PhysicalFlowParsed flow) {
+        return Arrays.asList(
+                mkRef(flow.source().kind(), flow.source().id()),
+                mkRef(flow.target().kind(), flow.target().id()),
+                mkRef(flow.owner().kind(), flow.owner().id()),
+                flow.format().value(),
+                flow.name(),
+                flow.dataType().id(),
+                flow.basisOffset(),
+                flow.frequency().value(),
+                flow.transport().value(),
+                flow.criticality().value());
+    }
+
+
+    private static PhysicalFlowRecord mkRecord(DSLContext dsl, PhysicalFlow flow) {
         PhysicalFlowRecord record = dsl.newRecord(PHYSICAL_FLOW);
         record.setLogicalFlowId(flow.logicalFlowId());
 
@@ -319,9 +505,7 @@ public class PhysicalFlowDao {
 
         record.setCreatedAt(flow.created().map(UserTimestamp::atTimestamp).orElse(Timestamp.valueOf(flow.lastUpdatedAt())));
         record.setCreatedBy(flow.created().map(UserTimestamp::by).orElse(flow.lastUpdatedBy()));
-
-        record.store();
-        return record.getId();
+        return record;
     }
 
 
@@ -51,12 +51,18 @@ import org.jooq.SelectHavingConditionStep;
 import org.jooq.SelectJoinStep;
 import org.jooq.SelectOrderByStep;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple3;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.finos.waltz.common.Checks.checkFalse;
 import static org.finos.waltz.common.Checks.checkNotNull;
@@ -80,6 +86,7 @@ import static org.jooq.impl.DSL.exists;
 import static org.jooq.impl.DSL.notExists;
 import static org.jooq.impl.DSL.select;
 import static org.jooq.impl.DSL.val;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Repository
 public class PhysicalSpecificationDao {
@@ -209,6 +216,96 @@ public class PhysicalSpecificationDao {
         checkNotNull(specification, "specification cannot be null");
         checkFalse(specification.id().isPresent(), "specification must not have an id");
 
+        PhysicalSpecificationRecord record = mkRecord(dsl, specification);
+        record.store();
+        return record.getId();
+    }
+
+
+    /**
+     * Resolves the ids of the active specifications which match the given specifications by owner,
+     * format and name (see {@link #mkMatchKey(EntityReference, DataFormatKindValue, String)}).  Any
+     * which do not exist are created via a single batch insert.
+     *
+     * @param tx  transaction to use
+     * @param specifications  specifications to find or create, ids are ignored
+     * @return specification ids keyed by match key
+     */
+    public Map<Tuple3<EntityReference, String, String>, Long> getOrCreateSpecificationIds(DSLContext tx,
+                                                                                          Collection<PhysicalSpecification> specifications) {
+        checkNotNull(tx, "tx cannot be null");
+        checkNotNull(specifications, "specifications cannot be null");
+
+        Map<Tuple3<EntityReference, String, String>, PhysicalSpecification> required = new HashMap<>();
+        specifications.forEach(spec -> required.putIfAbsent(
+                mkMatchKey(spec.owningEntity(), spec.format(), spec.name()),
+                spec));
+
+        if (required.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Tuple3<EntityReference, String, String>, Long> specIds = findIdsByMatchKey(tx, required.keySet());
+
+        List<PhysicalSpecificationRecord> toInsert = required
+                .entrySet()
+                .stream()
+                .filter(e -> ! specIds.containsKey(e.getKey()))
+                .map(e -> mkRecord(tx, e.getValue()))
+                .collect(Collectors.toList());
+
+        if (! toInsert.isEmpty()) {
+            tx.batchInsert(toInsert).execute();
+            findIdsByMatchKey(tx, required.keySet()).forEach(specIds::putIfAbsent);
+        }
+
+        return specIds;
+    }
+
+
+    /**
+     * Specifications are considered equivalent if they have the same owner, format and name
+     */
+    public static Tuple3<EntityReference, String, String> mkMatchKey(EntityReference owner,
+                                                                     DataFormatKindValue format,
+                                                                     String name) {
+        return tuple(mkRef(owner.kind(), owner.id()), format.value(), name);
+    }
+
+
+    private static Map<Tuple3<EntityReference, String, String>, Long> findIdsByMatchKey(DSLContext tx,
+                                                                                        Set<Tuple3<EntityReference, String, String>> keys) {
+        Set<Long> ownerIds = keys.stream().map(k -> k.v1.id()).collect(Collectors.toSet());
+        Set<String> names = keys.stream().map(k -> k.v3).collect(Collectors.toSet());
+
+        Map<Tuple3<EntityReference, String, String>, Long> idsByKey = new HashMap<>();
+
+        tx.select(PHYSICAL_SPECIFICATION.ID,
+                  PHYSICAL_SPECIFICATION.OWNING_ENTITY_KIND,
+                  PHYSICAL_SPECIFICATION.OWNING_ENTITY_ID,
+                  PHYSICAL_SPECIFICATION.FORMAT,
+                  PHYSICAL_SPECIFICATION.NAME)
+                .from(PHYSICAL_SPECIFICATION)
+                .where(PHYSICAL_SPECIFICATION.OWNING_ENTITY_ID.in(ownerIds))
+                .and(PHYSICAL_SPECIFICATION.NAME.in(names))
+                .and(PHYSICAL_SPEC_NOT_REMOVED)
+                .orderBy(PHYSICAL_SPECIFICATION.ID)
+                .fetch()
+                .forEach(r -> {
+                    Tuple3<EntityReference, String, String> key = tuple(
+                            mkRef(EntityKind.valueOf(r.get(PHYSICAL_SPECIFICATION.OWNING_ENTITY_KIND)), r.get(PHYSICAL_SPECIFICATION.OWNING_ENTITY_ID)),
+                            r.get(PHYSICAL_SPECIFICATION.FORMAT),
+                            r.get(PHYSICAL_SPECIFICATION.NAME));
+                    if (keys.contains(key)) {
+                        idsByKey.putIfAbsent(key, r.get(PHYSICAL_SPECIFICATION.ID));
+                    }
+                });
+
+        return idsByKey;
+    }
+
+
+    private static PhysicalSpecificationRecord mkRecord(DSLContext dsl, PhysicalSpecification specification) {
         PhysicalSpecificationRecord record = dsl.newRecord(PHYSICAL_SPECIFICATION);
         record.setOwningEntityKind(specification.owningEntity().kind().name());
         record.setOwningEntityId(specification.owningEntity().id());
@@ -225,9 +322,7 @@ public class PhysicalSpecificationDao {
         record.setCreatedAt(specification.created().get().atTimestamp());
         record.setCreatedBy(specification.created().get().by());
         record.setIsReadonly(specification.isReadOnly());
-
-        record.store();
-        return record.getId();
+        return record;
     }
 
 
@@ -282,80 +377,95 @@ public class PhysicalSpecificationDao {
      * @return  number of updates made to logical flows
      */
     public int propagateDataTypesToLogicalFlows(String userName, long specificationId) {
-        return dsl.transactionResult(ctx -> {
-            DSLContext tx = ctx.dsl();
-
-            SelectConditionStep<Record3<Long, Long, String>> desiredQry = DSL
-                    .select(psdt.DATA_TYPE_ID, lf.ID, dt.NAME)
-                    .from(psdt)
-                    .innerJoin(pf).on(psdt.SPECIFICATION_ID.eq(pf.SPECIFICATION_ID))
-                    .innerJoin(lf).on(pf.LOGICAL_FLOW_ID.eq(lf.ID))
-                    .innerJoin(dt).on(dt.ID.eq(psdt.DATA_TYPE_ID))
-                    .where(pf.SPECIFICATION_ID.eq(specificationId))
-                    .and(lf.IS_REMOVED.isFalse())
-                    .and(pf.IS_REMOVED.isFalse())
-                    .and(lf.ENTITY_LIFECYCLE_STATUS.notEqual(EntityLifecycleStatus.REMOVED.name()))
-                    .and(pf.ENTITY_LIFECYCLE_STATUS.notEqual(EntityLifecycleStatus.REMOVED.name()));
-
-            SelectConditionStep<Record3<Long, Long, String>> existingQry = DSL
-                    .select(lfd.DECORATOR_ENTITY_ID, lfd.LOGICAL_FLOW_ID, dt.NAME)
-                    .from(lfd)
-                    .innerJoin(lf).on(lf.ID.eq(lfd.LOGICAL_FLOW_ID))
-                    .innerJoin(pf).on(pf.LOGICAL_FLOW_ID.eq(lf.ID))
-                    .innerJoin(dt).on(dt.ID.eq(lfd.DECORATOR_ENTITY_ID))
-                    .where(pf.SPECIFICATION_ID.eq(specificationId))
-                    .and(lfd.DECORATOR_ENTITY_KIND.eq(EntityKind.DATA_TYPE.name()));
-
-            SelectOrderByStep<Record3<Long, Long, String>> requiredQry = desiredQry
-                    .except(existingQry);
-
-            SelectJoinStep<? extends Record6<String, Long, String, String, String, String>> requiredChangeLogs = DSL
-                    .select(
-                        val(EntityKind.LOGICAL_DATA_FLOW.name()),
-                        requiredQry.field(1, Long.class), // logical flow id
-                        concat("Propagated data type from specification to flow: ", requiredQry.field(2, String.class)),
-                        val(userName),
-                        val(Severity.INFORMATION.name()),
-                        val(Operation.ADD.name()))
-                    .from(requiredQry);
-
-            SelectJoinStep<Record4<Long, String, Long, String>> requiredDecorators = DSL
-                    .select(
-                        requiredQry.field(1, Long.class),
-                        val(EntityKind.DATA_TYPE.name()),
-                        requiredQry.field(0, Long.class),
-                        val(userName))
-                    .from(requiredQry);
-
-            tx.insertInto(CHANGE_LOG)
-                    .columns(
-                            CHANGE_LOG.PARENT_KIND,
-                            CHANGE_LOG.PARENT_ID,
-                            CHANGE_LOG.MESSAGE,
-                            CHANGE_LOG.USER_ID,
-                            CHANGE_LOG.SEVERITY,
-                            CHANGE_LOG.OPERATION)
-                    .select(requiredChangeLogs)
-                    .execute();
-
-            int insertCount = tx
-                    .insertInto(lfd)
-                    .columns(
-                            lfd.LOGICAL_FLOW_ID,
-                            lfd.DECORATOR_ENTITY_KIND,
-                            lfd.DECORATOR_ENTITY_ID,
-                            lfd.LAST_UPDATED_BY)
-                    .select(requiredDecorators)
-                    .execute();
-
-
-            removeUnknownFromLogicalFlowWherePossible(tx, specificationId, userName);
-
-            return insertCount;
-        });
+        return dsl.transactionResult(ctx -> propagateDataTypesToLogicalFlows(
+                ctx.dsl(),
+                userName,
+                Collections.singleton(specificationId)));
+    }
+
+
+    /**
+     * Variant of {@link #propagateDataTypesToLogicalFlows(String, long)} for many specifications,
+     * executed within the given transaction.
+     *
+     * @param tx  transaction to execute within
+     * @param userName  user enacting the change
+     * @param specificationIds  specifications whose data types should be propagated
+     * @return  number of updates made to logical flows
+     */
+    public int propagateDataTypesToLogicalFlows(DSLContext tx,
+                                                String userName,
+                                                Collection<Long> specificationIds) {
+        SelectConditionStep<Record3<Long, Long, String>> desiredQry = DSL
+                .select(psdt.DATA_TYPE_ID, lf.ID, dt.NAME)
+                .from(psdt)
+                .innerJoin(pf).on(psdt.SPECIFICATION_ID.eq(pf.SPECIFICATION_ID))
+                .innerJoin(lf).on(pf.LOGICAL_FLOW_ID.eq(lf.ID))
+                .innerJoin(dt).on(dt.ID.eq(psdt.DATA_TYPE_ID))
+                .where(pf.SPECIFICATION_ID.in(specificationIds))
+                .and(lf.IS_REMOVED.isFalse())
+                .and(pf.IS_REMOVED.isFalse())
+                .and(lf.ENTITY_LIFECYCLE_STATUS.notEqual(EntityLifecycleStatus.REMOVED.name()))
+                .and(pf.ENTITY_LIFECYCLE_STATUS.notEqual(EntityLifecycleStatus.REMOVED.name()));
+
+        SelectConditionStep<Record3<Long, Long, String>> existingQry = DSL
+                .select(lfd.DECORATOR_ENTITY_ID, lfd.LOGICAL_FLOW_ID, dt.NAME)
+                .from(lfd)
+                .innerJoin(lf).on(lf.ID.eq(lfd.LOGICAL_FLOW_ID))
+                .innerJoin(pf).on(pf.LOGICAL_FLOW_ID.eq(lf.ID))
+                .innerJoin(dt).on(dt.ID.eq(lfd.DECORATOR_ENTITY_ID))
+                .where(pf.SPECIFICATION_ID.in(specificationIds))
+                .and(lfd.DECORATOR_ENTITY_KIND.eq(EntityKind.DATA_TYPE.name()));
+
+        SelectOrderByStep<Record3<Long, Long, String>> requiredQry = desiredQry
+                .except(existingQry);
+
+        SelectJoinStep<? extends Record6<String, Long, String, String, String, String>> requiredChangeLogs = DSL
+                .select(
+                    val(EntityKind.LOGICAL_DATA_FLOW.name()),
+                    requiredQry.field(1, Long.class), // logical flow id
+                    concat("Propagated data type from specification to flow: ", requiredQry.field(2, String.class)),
+                    val(userName),
+                    val(Severity.INFORMATION.name()),
+                    val(Operation.ADD.name()))
+                .from(requiredQry);
+
+        SelectJoinStep<Record4<Long, String, Long, String>> requiredDecorators = DSL
+                .select(
+                    requiredQry.field(1, Long.class),
+                    val(EntityKind.DATA_TYPE.name()),
+                    requiredQry.field(0, Long.class),
+                    val(userName))
+                .from(requiredQry);
+
+        tx.insertInto(CHANGE_LOG)
+                .columns(
+                        CHANGE_LOG.PARENT_KIND,
+                        CHANGE_LOG.PARENT_ID,
+                        CHANGE_LOG.MESSAGE,
+                        CHANGE_LOG.USER_ID,
+                        CHANGE_LOG.SEVERITY,
+                        CHANGE_LOG.OPERATION)
+                .select(requiredChangeLogs)
+                .execute();
+
+        int insertCount = tx
+                .insertInto(lfd)
+                .columns(
+                        lfd.LOGICAL_FLOW_ID,
+                        lfd.DECORATOR_ENTITY_KIND,
+                        lfd.DECORATOR_ENTITY_ID,
+                        lfd.LAST_UPDATED_BY)
+                .select(requiredDecorators)
+                .execute();
+
+
+        removeUnknownFromLogicalFlowWherePossible(tx, specificationIds, userName);
+
+        return insertCount;
     }
 
-    private void removeUnknownFromLogicalFlowWherePossible(DSLContext tx, long specificationId, String userName) {
+    private void removeUnknownFromLogicalFlowWherePossible(DSLContext tx, Collection<Long> specificationIds, String userName) {
 
         SelectHavingConditionStep<Record1<Long>> flowsWithOtherDataTypes = tx
                 .select(lfd.LOGICAL_FLOW_ID)
@@ -363,7 +473,7 @@ public class PhysicalSpecificationDao {
                 .innerJoin(lf).on(lf.ID.eq(lfd.LOGICAL_FLOW_ID))
                 .innerJoin(pf).on(pf.LOGICAL_FLOW_ID.eq(lf.ID))
                 .innerJoin(dt).on(dt.ID.eq(lfd.DECORATOR_ENTITY_ID))
-                .where(pf.SPECIFICATION_ID.eq(specificationId))
+                .where(pf.SPECIFICATION_ID.in(specificationIds))
                 .and(dt.UNKNOWN.isFalse())
                 .and(lfd.DECORATOR_ENTITY_KIND.eq(EntityKind.DATA_TYPE.name()))
                 .groupBy(lfd.LOGICAL_FLOW_ID)
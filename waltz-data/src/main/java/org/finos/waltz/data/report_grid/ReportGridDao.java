@@ -27,6 +27,7 @@ import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.common.hierarchy.FlatNode;
 import org.finos.waltz.common.hierarchy.Forest;
 import org.finos.waltz.common.hierarchy.Node;
+import org.finos.waltz.data.DBExecutorPoolInterface;
 import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.InlineSelectFieldFactory;
 import org.finos.waltz.model.Cardinality;
@@ -84,25 +85,34 @@ import org.jooq.SelectOrderByStep;
 import org.jooq.Table;
 import org.jooq.TableField;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.Unchecked;
 import org.jooq.lambda.tuple.Tuple2;
 import org.jooq.lambda.tuple.Tuple3;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
@@ -119,6 +129,8 @@ import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
 import static org.finos.waltz.common.CollectionUtilities.isEmpty;
 import static org.finos.waltz.common.DateTimeUtilities.toLocalDate;
 import static org.finos.waltz.common.DateTimeUtilities.toLocalDateTime;
@@ -192,7 +204,12 @@ public class ReportGridDao {
 
     private static final Logger LOG = LoggerFactory.getLogger(ReportGridDao.class);
 
+    private static final String EXECUTOR_CALLER = "report-grid";
+
     private final DSLContext dsl;
+    private final DBExecutorPoolInterface dbExecutorPool;
+    private final Duration fetchTimeout;
+    private final int queryTimeoutSeconds;
 
     private final org.finos.waltz.schema.tables.Measurable m = MEASURABLE.as("m");
     private final org.finos.waltz.schema.tables.MeasurableRating mr = MEASURABLE_RATING.as("mr");
@@ -258,8 +275,19 @@ public class ReportGridDao {
 
 
     @Autowired
-    public ReportGridDao(DSLContext dsl) {
+    public ReportGridDao(DSLContext dsl,
+                         DBExecutorPoolInterface dbExecutorPool,
+                         @Value("${report-grid.fetch.timeout-seconds:120}") int fetchTimeoutSeconds) {
+        checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(dbExecutorPool, "dbExecutorPool cannot be null");
+        checkTrue(fetchTimeoutSeconds > 0, "fetchTimeoutSeconds must be positive");
+
         this.dsl = dsl;
+        this.dbExecutorPool = dbExecutorPool;
+        this.fetchTimeout = Duration.ofSeconds(fetchTimeoutSeconds);
+        // cancelling a future does not stop a running jdbc statement, so the
+        // cell data queries are bounded by the same timeout
+        this.queryTimeoutSeconds = fetchTimeoutSeconds;
     }
 
 
@@ -295,13 +323,38 @@ public class ReportGridDao {
 
     public Set<ReportGridCell> findCellDataByGridId(long id,
                                                     GenericSelector genericSelector) {
+        return requireComplete(findCellDataByGridCondition(rg.ID.eq(id), genericSelector));
+    }
+
+
+    /**
+     * Fetches the cell data for the given grid, column kinds are fetched concurrently.
+     * Fetches which do not complete within <code>report-grid.fetch.timeout-seconds</code>
+     * are reported as incomplete rather than failing the whole grid.
+     *
+     * @param id  grid identifier
+     * @param genericSelector  selector for the grid subjects
+     * @return tuple of (cells, ids of columns which could not be fetched within the deadline)
+     */
+    public Tuple2<Set<ReportGridCell>, Set<Long>> findPartialCellDataByGridId(long id,
+                                                                             GenericSelector genericSelector) {
         return findCellDataByGridCondition(rg.ID.eq(id), genericSelector);
     }
 
 
     public Set<ReportGridCell> findCellDataByGridExternalId(String externalId,
                                                             GenericSelector genericSelector) {
-        return findCellDataByGridCondition(rg.EXTERNAL_ID.eq(externalId), genericSelector);
+        return requireComplete(findCellDataByGridCondition(rg.EXTERNAL_ID.eq(externalId), genericSelector));
+    }
+
+
+    private static Set<ReportGridCell> requireComplete(Tuple2<Set<ReportGridCell>, Set<Long>> cellsAndIncompleteColumnIds) {
+        if (! cellsAndIncompleteColumnIds.v2.isEmpty()) {
+            throw new IllegalStateException(format(
+                    "Could not fetch report grid cell data for columns: %s",
+                    cellsAndIncompleteColumnIds.v2));
+        }
+        return cellsAndIncompleteColumnIds.v1;
     }
 
 
@@ -831,13 +884,13 @@ public class ReportGridDao {
     }
 
 
-    private Set<ReportGridCell> findCellDataByGridCondition(Condition gridCondition,
-                                                            GenericSelector genericSelector) {
+    private Tuple2<Set<ReportGridCell>, Set<Long>> findCellDataByGridCondition(Condition gridCondition,
+                                                                              GenericSelector genericSelector) {
 
         ReportGridDefinition gridDefn = getGridDefinitionByCondition(gridCondition);
 
         if (gridDefn == null) {
-            return emptySet();
+            return tuple(emptySet(), emptySet());
 
         } else {
 
@@ -883,33 +936,125 @@ public class ReportGridDao {
                     .map(d -> tuple(d, fieldReferencesById.get(d.entityFieldReference().id().get())))
                     .collect(groupingBy(t -> t.v2.entityKind(), toSet()));
 
-            
-            return union(
-                    fetchAssessmentData(genericSelector, colsByKind.get(EntityKind.ASSESSMENT_DEFINITION)),
-                    fetchInvolvementData(genericSelector, colsByKind.get(EntityKind.INVOLVEMENT_KIND)),
-                    fetchCostData(genericSelector, colsByKind.get(EntityKind.COST_KIND)),
-                    fetchComplexityData(genericSelector, colsByKind.get(EntityKind.COMPLEXITY_KIND)),
-                    fetchSummaryMeasurableData(
-                            genericSelector,
-                            measurableColumnsByRollupKind.getOrDefault(AdditionalColumnOptions.PICK_HIGHEST, emptySet()),
-                            measurableColumnsByRollupKind.getOrDefault(AdditionalColumnOptions.PICK_LOWEST, emptySet())),
-                    fetchExactMeasurableData(genericSelector, measurableColumnsByRollupKind.get(AdditionalColumnOptions.NONE)),
-                    fetchPrimaryMeasurableData(genericSelector, measurableColumnsByRollupKind.get(AdditionalColumnOptions.PRIMARY)),
-                    fetchSurveyQuestionResponseData(genericSelector, colsByKind.get(EntityKind.SURVEY_QUESTION)),
-                    fetchSurveyTemplateResponseData(genericSelector, colsByKind.get(EntityKind.SURVEY_TEMPLATE)),
-                    fetchAppGroupData(genericSelector, colsByKind.get(EntityKind.APP_GROUP)),
-                    fetchApplicationFieldReferenceData(genericSelector, fieldRefColsByKind.get(EntityKind.APPLICATION)),
-                    fetchExactDataTypeData(genericSelector, dataTypeColumnsByIsExact.get(Boolean.TRUE)),
-                    fetchSummaryDataTypeData(genericSelector, dataTypeColumnsByIsExact.get(Boolean.FALSE)),
-                    fetchSurveyFieldReferenceData(genericSelector, fieldRefColsByKind.get(EntityKind.SURVEY_INSTANCE)),
-                    fetchChangeInitiativeFieldReferenceData(genericSelector, fieldRefColsByKind.get(EntityKind.CHANGE_INITIATIVE)),
-                    fetchAttestationData(genericSelector, colsByKind.get(EntityKind.ATTESTATION)),
-                    fetchOrgUnitFieldReferenceData(genericSelector, fieldRefColsByKind.get(EntityKind.ORG_UNIT)),
-                    fetchPrimaryMeasurableFieldReferenceData(genericSelector, fieldRefColsByKind.get(EntityKind.MEASURABLE)),
-                    fetchTagData(genericSelector, colsByKind.get(EntityKind.TAG)),
-                    fetchAliasData(genericSelector, colsByKind.get(EntityKind.ENTITY_ALIAS)),
-                    fetchMeasurableHierarchyData(genericSelector, colsByKind.get(EntityKind.MEASURABLE_CATEGORY)),
-                    fetchEntityStatisticData(genericSelector, colsByKind.get(EntityKind.ENTITY_STATISTIC)));
+
+            Collection<ReportGridFixedColumnDefinition> pickHighestMeasurableCols = measurableColumnsByRollupKind.getOrDefault(AdditionalColumnOptions.PICK_HIGHEST, emptySet());
+            Collection<ReportGridFixedColumnDefinition> pickLowestMeasurableCols = measurableColumnsByRollupKind.getOrDefault(AdditionalColumnOptions.PICK_LOWEST, emptySet());
+
+            List<CellFetch> fetches = asList(
+                    mkFetch("assessments", colsByKind.get(EntityKind.ASSESSMENT_DEFINITION), cols -> fetchAssessmentData(genericSelector, cols)),
+                    mkFetch("involvements", colsByKind.get(EntityKind.INVOLVEMENT_KIND), cols -> fetchInvolvementData(genericSelector, cols)),
+                    mkFetch("costs", colsByKind.get(EntityKind.COST_KIND), cols -> fetchCostData(genericSelector, cols)),
+                    mkFetch("complexities", colsByKind.get(EntityKind.COMPLEXITY_KIND), cols -> fetchComplexityData(genericSelector, cols)),
+                    mkFetch("summary measurables", union(pickHighestMeasurableCols, pickLowestMeasurableCols), cols -> fetchSummaryMeasurableData(genericSelector, pickHighestMeasurableCols, pickLowestMeasurableCols)),
+                    mkFetch("exact measurables", measurableColumnsByRollupKind.get(AdditionalColumnOptions.NONE), cols -> fetchExactMeasurableData(genericSelector, cols)),
+                    mkFetch("primary measurables", measurableColumnsByRollupKind.get(AdditionalColumnOptions.PRIMARY), cols -> fetchPrimaryMeasurableData(genericSelector, cols)),
+                    mkFetch("survey questions", colsByKind.get(EntityKind.SURVEY_QUESTION), cols -> fetchSurveyQuestionResponseData(genericSelector, cols)),
+                    mkFetch("survey templates", colsByKind.get(EntityKind.SURVEY_TEMPLATE), cols -> fetchSurveyTemplateResponseData(genericSelector, cols)),
+                    mkFetch("app groups", colsByKind.get(EntityKind.APP_GROUP), cols -> fetchAppGroupData(genericSelector, cols)),
+                    mkFieldRefFetch("application fields", fieldRefColsByKind.get(EntityKind.APPLICATION), cols -> fetchApplicationFieldReferenceData(genericSelector, cols)),
+                    mkFetch("exact data types", dataTypeColumnsByIsExact.get(Boolean.TRUE), cols -> fetchExactDataTypeData(genericSelector, cols)),
+                    mkFetch("summary data types", dataTypeColumnsByIsExact.get(Boolean.FALSE), cols -> fetchSummaryDataTypeData(genericSelector, cols)),
+                    mkFieldRefFetch("survey instance fields", fieldRefColsByKind.get(EntityKind.SURVEY_INSTANCE), cols -> fetchSurveyFieldReferenceData(genericSelector, cols)),
+                    mkFieldRefFetch("change initiative fields", fieldRefColsByKind.get(EntityKind.CHANGE_INITIATIVE), cols -> fetchChangeInitiativeFieldReferenceData(genericSelector, cols)),
+                    mkFetch("attestations", colsByKind.get(EntityKind.ATTESTATION), cols -> fetchAttestationData(genericSelector, cols)),
+                    mkFieldRefFetch("org unit fields", fieldRefColsByKind.get(EntityKind.ORG_UNIT), cols -> fetchOrgUnitFieldReferenceData(genericSelector, cols)),
+                    mkFieldRefFetch("primary measurable fields", fieldRefColsByKind.get(EntityKind.MEASURABLE), cols -> fetchPrimaryMeasurableFieldReferenceData(genericSelector, cols)),
+                    mkFetch("tags", colsByKind.get(EntityKind.TAG), cols -> fetchTagData(genericSelector, cols)),
+                    mkFetch("aliases", colsByKind.get(EntityKind.ENTITY_ALIAS), cols -> fetchAliasData(genericSelector, cols)),
+                    mkFetch("measurable hierarchies", colsByKind.get(EntityKind.MEASURABLE_CATEGORY), cols -> fetchMeasurableHierarchyData(genericSelector, cols)),
+                    mkFetch("entity statistics", colsByKind.get(EntityKind.ENTITY_STATISTIC), cols -> fetchEntityStatisticData(genericSelector, cols)));
+
+            return runFetches(
+                    fetches
+                            .stream()
+                            .filter(f -> !f.columnIds.isEmpty())
+                            .collect(toList()));
+        }
+    }
+
+
+    /**
+     * Runs each of the column-kind fetches concurrently on the report grid lane of the db executor
+     * pool, waiting at most <code>fetchTimeout</code> (in total) for them to complete.  Fetches which fail or do not complete
+     * in time are cancelled and the ids of their columns are returned so that the caller can
+     * report the grid as incomplete rather than failing outright.
+     *
+     * @param fetches  column kind fetches to execute
+     * @return tuple of (cells from the successful fetches, column ids from unsuccessful fetches)
+     */
+    private Tuple2<Set<ReportGridCell>, Set<Long>> runFetches(List<CellFetch> fetches) {
+        if (fetches.size() == 1) {
+            // no benefit in handing off a single fetch to another thread
+            CellFetch fetch = fetches.get(0);
+            return tuple(Unchecked.supplier(fetch.fetcher::call).get(), emptySet());
+        }
+
+        long deadline = System.nanoTime() + fetchTimeout.toNanos();
+
+        List<Tuple2<CellFetch, Future<Set<ReportGridCell>>>> futures = fetches
+                .stream()
+                .map(f -> tuple(f, dbExecutorPool.submit(EXECUTOR_CALLER, f.fetcher)))
+                .collect(toList());
+
+        Set<ReportGridCell> cells = new HashSet<>();
+        Set<Long> incompleteColumnIds = new HashSet<>();
+
+        for (Tuple2<CellFetch, Future<Set<ReportGridCell>>> t : futures) {
+            CellFetch fetch = t.v1;
+            Future<Set<ReportGridCell>> future = t.v2;
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                cells.addAll(future.get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                LOG.warn("Report grid fetch for {} did not complete within {}, reporting {} columns as incomplete",
+                        fetch.name,
+                        fetchTimeout,
+                        fetch.columnIds.size());
+                future.cancel(true);
+                incompleteColumnIds.addAll(fetch.columnIds);
+            } catch (ExecutionException e) {
+                LOG.error(format("Report grid fetch for %s failed, reporting %d columns as incomplete", fetch.name, fetch.columnIds.size()), e.getCause());
+                incompleteColumnIds.addAll(fetch.columnIds);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.v2.cancel(true));
+                throw new IllegalStateException("Interrupted whilst fetching report grid cell data", e);
+            }
+        }
+
+        return tuple(cells, incompleteColumnIds);
+    }
+
+
+    private static CellFetch mkFetch(String name,
+                                     Collection<ReportGridFixedColumnDefinition> cols,
+                                     Function<Collection<ReportGridFixedColumnDefinition>, Set<ReportGridCell>> fetcher) {
+        return new CellFetch(
+                name,
+                map(cols, ReportGridFixedColumnDefinition::gridColumnId),
+                () -> fetcher.apply(cols));
+    }
+
+
+    private static CellFetch mkFieldRefFetch(String name,
+                                             Set<Tuple2<ReportGridFixedColumnDefinition, EntityFieldReference>> cols,
+                                             Function<Set<Tuple2<ReportGridFixedColumnDefinition, EntityFieldReference>>, Set<ReportGridCell>> fetcher) {
+        return new CellFetch(
+                name,
+                map(cols, t -> t.v1.gridColumnId()),
+                () -> fetcher.apply(cols));
+    }
+
+
+    private static class CellFetch {
+        private final String name;
+        private final Set<Long> columnIds;
+        private final Callable<Set<ReportGridCell>> fetcher;
+
+        private CellFetch(String name, Set<Long> columnIds, Callable<Set<ReportGridCell>> fetcher) {
+            this.name = name;
+            this.columnIds = columnIds;
+            this.fetcher = fetcher;
         }
     }
 
@@ -1001,6 +1146,7 @@ public class ReportGridDao {
                             .eq(surveyInfo.field("sid", Long.class)));
 
             return qry
+                    .queryTimeout(queryTimeoutSeconds)
                     .fetchGroups(
                         r -> tuple(
                                 r.get("eid", Long.class),
@@ -1071,6 +1217,7 @@ public class ReportGridDao {
                                 .innerJoin(eh).on(m.ID.eq(eh.ID).and(eh.KIND.eq(EntityKind.MEASURABLE.name())))
                                 .where(m.MEASURABLE_CATEGORY_ID.eq(categoryAndQualifier.v1))
                                 .and(qualifierCondition)
+                                .queryTimeout(queryTimeoutSeconds)
                                 .fetchGroups(
                                         r -> tuple(
                                                 r.get(m.MEASURABLE_CATEGORY_ID),
@@ -1120,6 +1267,7 @@ public class ReportGridDao {
                 .innerJoin(MEASURABLE).on(ENTITY_HIERARCHY.ANCESTOR_ID.eq(MEASURABLE.ID))
                 .where(ENTITY_HIERARCHY.ID.in(mappedMeasurablesForColumn)
                         .and(ENTITY_HIERARCHY.KIND.eq(EntityKind.MEASURABLE.name())))
+                .queryTimeout(queryTimeoutSeconds)
                 .fetchSet(r -> new FlatNode<>(r.get(MEASURABLE.ID), ofNullable(r.get(MEASURABLE.PARENT_ID)), r.get(MEASURABLE.NAME)));
     }
 
@@ -1219,6 +1367,7 @@ public class ReportGridDao {
                     .where(rawAttestationData.field("latest", Integer.class).eq(1));
 
             return latestAttestationData
+                    .queryTimeout(queryTimeoutSeconds)
                     .fetchSet(r -> {
                         Long colId = colIdsByQualifierKindAnId.get(
                                 tuple(
@@ -1281,6 +1430,7 @@ public class ReportGridDao {
                     .where(dtu.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
                     .and(dtu.ENTITY_ID.in(genericSelector.selector()))
                     .and(dtu.DATA_TYPE_ID.in(dataTypeIdToDefIdMap.keySet()))
+                    .queryTimeout(queryTimeoutSeconds)
                     .fetchGroups(r -> tuple(
                             r.get(dtu.ENTITY_ID),
                             r.get(dtu.DATA_TYPE_ID)))
@@ -1323,6 +1473,7 @@ public class ReportGridDao {
                     .where(dtu.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
                     .and(dtu.ENTITY_ID.in(genericSelector.selector()))
                     .and(eh.ANCESTOR_ID.in(dataTypeIdToDefIdMap.keySet()))
+                    .queryTimeout(queryTimeoutSeconds)
                     .fetchGroups(r -> tuple(
                             r.get(dtu.ENTITY_ID),
                             r.get(eh.ANCESTOR_ID)))
@@ -1372,8 +1523,12 @@ public class ReportGridDao {
                     genericSelector,
                     groupIdToDefIdMap.keySet());
 
-            return dsl
-                    .fetch(appGroupInfoSelect)
+            // the app group query is built detached
+            appGroupInfoSelect.attach(dsl.configuration());
+
+            return appGroupInfoSelect
+                    .queryTimeout(queryTimeoutSeconds)
+                    .fetch()
                     .stream()
                     .map(r -> {
                         Long subjectId = r.get("subject_id", Long.class);
@@ -1483,6 +1638,7 @@ public class ReportGridDao {
                     .select(APPLICATION.fields())
                     .from(APPLICATION)
                     .where(APPLICATION.ID.in(selector.selector()))
+                    .queryTimeout(queryTimeoutSeconds)
                     .fetch()
                     .stream()
                     .flatMap(appRecord -> fields
@@ -1543,6 +1699,7 @@ public class ReportGridDao {
                     .from(ci)
                     .leftJoin(ci_parent).on(ci.PARENT_ID.eq(ci_parent.ID))
                     .where(ci.ID.in(selector.selector()))
+                    .queryTimeout(queryTimeoutSeconds)
                     .fetch()
                     .stream()
                     .flatMap(ciRecord -> fields
@@ -1633,6 +1790,7 @@ public class ReportGridDao {
                             .eq(surveyInfo.field("sid", Long.class)));
 
             return surveyInfoForLatestInstance
+                    .queryTimeout(queryTimeoutSeconds)
                     .fetch()
                     .stream()
                     .flatMap(surveyRecord -> {
@@ -1689,6 +1847,7 @@ public class ReportGridDao {
             SelectConditionStep<Record> qry = getOrgUnitSelectQuery(selector);
 
             return qry
+                    .queryTimeout(queryTimeoutSeconds)
                     .fetch()
                     .stream()
                     .flatMap(orgUnitRecord -> fields
@@ -1754,6 +1913,7 @@ public class ReportGridDao {
             SelectConditionStep<Record> qry = getPrimaryMeasurableSelectQuery(selector, fieldRefColumnsByCategoryId.keySet());
 
             return qry
+                    .queryTimeout(queryTimeoutSeconds)
                     .fetch()
                     .stream()
                     .flatMap(measurableInfo -> {
@@ -1836,6 +1996,7 @@ public class ReportGridDao {
                     .and(inv.ENTITY_ID.in(selector.selector()))
                     .and(inv.KIND_ID.in(involvementIdToDefIdMap.keySet()))
                     .and(p.IS_REMOVED.isFalse())
+                    .queryTimeout(queryTimeoutSeconds)
                     .fetchGroups(
                             r -> tuple(
                                 r.get(inv.ENTITY_ID),
@@ -1883,6 +2044,7 @@ public class ReportGridDao {
                             .innerJoin(tag).on(tag.ID.eq(tu.TAG_ID).and(tag.TARGET_KIND.eq(tu.ENTITY_KIND)))
                             .where(tu.ENTITY_KIND.eq(selector.kind().name()))
                             .and(tu.ENTITY_ID.in(selector.selector()))
+                            .queryTimeout(queryTimeoutSeconds)
                             .fetchSet(r -> ImmutableReportGridCell
                                     .builder()
                                     .subjectId(r.get(tu.ENTITY_ID))
@@ -1922,6 +2084,7 @@ public class ReportGridDao {
                             .from(ea)
                             .where(ea.KIND.eq(selector.kind().name()))
                             .and(ea.ID.in(selector.selector()))
+                            .queryTimeout(queryTimeoutSeconds)
                             .fetchSet(r -> ImmutableReportGridCell
                                     .builder()
                                     .subjectId(r.get(ea.ID))
@@ -1973,6 +2136,7 @@ public class ReportGridDao {
                     .where(dsl.renderInlined(c.COST_KIND_ID.in(costKindIdToDefIdMap.keySet())
                             .and(c.ENTITY_KIND.eq(selector.kind().name()))
                             .and(c.ENTITY_ID.in(selector.selector()))))
+                    .queryTimeout(queryTimeoutSeconds)
                     .fetchSet(r -> ImmutableReportGridCell.builder()
                             .subjectId(r.get(c.ENTITY_ID))
                             .columnDefinitionId(costKindIdToDefIdMap.get(r.get(c.COST_KIND_ID)))
@@ -2002,6 +2166,7 @@ public class ReportGridDao {
                     .where(dsl.renderInlined(cx.COMPLEXITY_KIND_ID.in(complexityKindIdToDefIdMap.keySet())
                             .and(cx.ENTITY_KIND.eq(selector.kind().name()))
                             .and(cx.ENTITY_ID.in(selector.selector()))))
+                    .queryTimeout(queryTimeoutSeconds)
                     .fetchSet(r -> ImmutableReportGridCell.builder()
                             .subjectId(r.get(cx.ENTITY_ID))
                             .columnDefinitionId(complexityKindIdToDefIdMap.get(r.get(cx.COMPLEXITY_KIND_ID)))
@@ -2064,6 +2229,7 @@ public class ReportGridDao {
 
         return dsl
                 .resultQuery(dsl.renderInlined(ratings))
+                .queryTimeout(queryTimeoutSeconds)
                 .fetchGroups(
                         r -> tuple(
                                 mkRef(selector.kind(), r.get(mr.ENTITY_ID)),
@@ -2136,6 +2302,7 @@ public class ReportGridDao {
 
             return dsl
                     .resultQuery(dsl.renderInlined(qry))
+                    .queryTimeout(queryTimeoutSeconds)
                     .fetchSet(r -> ImmutableReportGridCell.builder()
                             .subjectId(r.get(mr.ENTITY_ID))
                             .columnDefinitionId(measurableIdToDefIdMap.get(r.get(mr.MEASURABLE_ID)))
@@ -2175,6 +2342,7 @@ public class ReportGridDao {
 
             return dsl
                     .resultQuery(dsl.renderInlined(qry))
+                    .queryTimeout(queryTimeoutSeconds)
                     .fetchSet(r -> ImmutableReportGridCell.builder()
                             .subjectId(r.get(mr.ENTITY_ID))
                             .columnDefinitionId(measurableIdToDefIdMap.get(r.get(mr.MEASURABLE_ID)))
@@ -2211,6 +2379,7 @@ public class ReportGridDao {
                     .where(ar.ASSESSMENT_DEFINITION_ID.in(assessmentIdToDefIdMap.keySet())
                             .and(ar.ENTITY_KIND.eq(selector.kind().name()))
                             .and(ar.ENTITY_ID.in(selector.selector())))
+                    .queryTimeout(queryTimeoutSeconds)
                     .fetchGroups(r -> r.get(ad.CARDINALITY));
 
             Result<Record6<Long, Long, Long, String, String, String>> assessmentRatings = assessmentsByCardinality.get(Cardinality.ZERO_ONE.name());
@@ -2300,6 +2469,7 @@ public class ReportGridDao {
                             .and(esv.ENTITY_KIND.eq(selector.kind().name()))
                             .and(esv.ENTITY_ID.in(selector.selector())))
                     .orderBy(esv.OUTCOME)
+                    .queryTimeout(queryTimeoutSeconds)
                     .fetchGroups(
                             r -> tuple(
                                     r.get(esv.ENTITY_ID),
@@ -2397,6 +2567,7 @@ public class ReportGridDao {
                     .where(SURVEY_QUESTION_LIST_RESPONSE.QUESTION_ID.in(questionIdToDefIdMap.keySet()))
                     .and(SURVEY_INSTANCE.ENTITY_ID.in(selector.selector()))
                     .and(SURVEY_INSTANCE.ENTITY_KIND.eq(selector.kind().name()))
+                    .queryTimeout(queryTimeoutSeconds)
                     .fetchGroups(
                             k -> tuple(k.get(SURVEY_QUESTION_LIST_RESPONSE.SURVEY_INSTANCE_ID), k.get(SURVEY_QUESTION_LIST_RESPONSE.QUESTION_ID)),
                             v -> v.get(SURVEY_QUESTION_LIST_RESPONSE.RESPONSE));
@@ -2408,6 +2579,7 @@ public class ReportGridDao {
                             .eq(responsesWithQuestionTypeAndEntity.field("sid", Long.class)));
 
             return qry
+                    .queryTimeout(queryTimeoutSeconds)
                     .fetchSet(r -> {
                         String fieldType = r.get(SURVEY_QUESTION.FIELD_TYPE);
 
@@ -19,21 +19,40 @@
 package org.finos.waltz.data.scheduled_job;
 
 
+import org.finos.waltz.model.scheduled_job.ImmutableScheduledJobExecution;
 import org.finos.waltz.model.scheduled_job.JobKey;
 import org.finos.waltz.model.scheduled_job.JobLifecycleStatus;
+import org.finos.waltz.model.scheduled_job.ScheduledJobExecution;
+import org.finos.waltz.schema.tables.records.ScheduledJobRecord;
 import org.jooq.DSLContext;
+import org.jooq.RecordMapper;
 import org.jooq.impl.DSL;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.util.List;
 import java.util.Set;
 
+import static org.finos.waltz.schema.tables.ScheduledJob.SCHEDULED_JOB;
 import static org.finos.waltz.schema.tables.Settings.SETTINGS;
 import static org.finos.waltz.common.Checks.checkNotNull;
 
 @Repository
 public class ScheduledJobDao {
 
+    private static final RecordMapper<ScheduledJobRecord, ScheduledJobExecution> TO_EXECUTION_MAPPER = r -> ImmutableScheduledJobExecution
+            .builder()
+            .jobKey(JobKey.valueOf(r.getJobKey()))
+            .status(JobLifecycleStatus.valueOf(r.getLastStatus()))
+            .startedAt(r.getLastStartedAt().toLocalDateTime())
+            .completedAt(r.getLastCompletedAt().toLocalDateTime())
+            .durationMs(r.getLastDurationMs())
+            .queueWaitMs(r.getLastQueueWaitMs())
+            .rowsTouched(r.getLastRowsTouched())
+            .error(r.getLastError())
+            .build();
+
     private final DSLContext dsl;
 
 
@@ -83,4 +102,40 @@ public class ScheduledJobDao {
                                 .and(SETTINGS.VALUE.eq(JobLifecycleStatus.RUNNING.name()))));
     }
 
+
+    public List<ScheduledJobExecution> findLatestExecutions() {
+        return dsl
+                .selectFrom(SCHEDULED_JOB)
+                .fetch(TO_EXECUTION_MAPPER);
+    }
+
+
+    /**
+     * Stores the given execution, replacing any previously recorded execution of the same job
+     * @param execution  metrics for the execution
+     */
+    public void saveExecution(ScheduledJobExecution execution) {
+        ScheduledJobRecord record = dsl.newRecord(SCHEDULED_JOB);
+        record.setJobKey(execution.jobKey().name());
+        record.setLastStatus(execution.status().name());
+        record.setLastStartedAt(Timestamp.valueOf(execution.startedAt()));
+        record.setLastCompletedAt(Timestamp.valueOf(execution.completedAt()));
+        record.setLastDurationMs(execution.durationMs());
+        record.setLastQueueWaitMs(execution.queueWaitMs());
+        record.setLastRowsTouched(execution.rowsTouched());
+        record.setLastError(execution.error());
+
+        int updated = dsl
+                .update(SCHEDULED_JOB)
+                .set(record)
+                .where(SCHEDULED_JOB.JOB_KEY.eq(record.getJobKey()))
+                .execute();
+
+        if (updated == 0) {
+            dsl.insertInto(SCHEDULED_JOB)
+                    .set(record)
+                    .execute();
+        }
+    }
+
 }
@@ -21,8 +21,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static java.lang.String.format;
 import static java.util.Optional.ofNullable;
@@ -120,29 +123,91 @@ public class SurveyInstanceActionQueueDao {
     }
 
 
-    public void markActionInProgress(DSLContext tx, Long actionId) {
+    /**
+     * Marks the given pending actions as 'IN_PROGRESS'.  No actions are claimed if any other action
+     * is currently in progress (i.e. another queue consumer is running).
+     *
+     * The check and the claim are separate statements (MySQL/MariaDB do not allow an update to
+     * select from the table being updated), the claim only updates actions which are still
+     * 'PENDING' so each action is claimed by at most one consumer.
+     *
+     * The claim time is recorded in <code>actioned_at</code> (overwritten once the action completes)
+     * so claims abandoned by a failed consumer can be recovered, see {@link #resetStaleActionsInProgress(Timestamp)}.
+     *
+     * @param tx  transaction to use
+     * @param actionIds  ids of the actions to claim
+     * @return ids of the actions which were marked as 'IN_PROGRESS' by this call
+     */
+    public Set<Long> markActionsInProgress(DSLContext tx, List<Long> actionIds) {
+        if (actionIds.isEmpty()) {
+            return Collections.emptySet();
+        }
 
-        SelectConditionStep<Record1<Long>> inProgressAction = DSL
+        boolean otherActionInProgress = tx.fetchExists(DSL
                 .select(SURVEY_INSTANCE_ACTION_QUEUE.ID)
                 .from(SURVEY_INSTANCE_ACTION_QUEUE)
-                .where(SURVEY_INSTANCE_ACTION_QUEUE.STATUS.eq(SurveyInstanceActionStatus.IN_PROGRESS.name()));
+                .where(SURVEY_INSTANCE_ACTION_QUEUE.STATUS.eq(SurveyInstanceActionStatus.IN_PROGRESS.name())
+                        .and(SURVEY_INSTANCE_ACTION_QUEUE.ID.notIn(actionIds))));
+
+        if (otherActionInProgress) {
+            return Collections.emptySet();
+        }
 
         int updated = tx
                 .update(SURVEY_INSTANCE_ACTION_QUEUE)
                 .set(SURVEY_INSTANCE_ACTION_QUEUE.STATUS, SurveyInstanceActionStatus.IN_PROGRESS.name())
-                .where(SURVEY_INSTANCE_ACTION_QUEUE.ID.eq(actionId)
-                        .and(SURVEY_INSTANCE_ACTION_QUEUE.STATUS.eq(SurveyInstanceActionStatus.PENDING.name()))
-                        .and(DSL.notExists(inProgressAction)))
+                .set(SURVEY_INSTANCE_ACTION_QUEUE.ACTIONED_AT, DateTimeUtilities.nowUtcTimestamp())
+                .where(SURVEY_INSTANCE_ACTION_QUEUE.ID.in(actionIds)
+                        .and(SURVEY_INSTANCE_ACTION_QUEUE.STATUS.eq(SurveyInstanceActionStatus.PENDING.name())))
                 .execute();
 
-        if (updated != 1) {
+        if (updated == 0) {
+            return Collections.emptySet();
+        }
 
-            String messageString = "Unable to mark action %d as 'IN_PROGRESS', either the action id was not found, the action is no longer pending or there is another action currently marked 'IN_PROGRESS'";
+        return new HashSet<>(tx
+                .select(SURVEY_INSTANCE_ACTION_QUEUE.ID)
+                .from(SURVEY_INSTANCE_ACTION_QUEUE)
+                .where(SURVEY_INSTANCE_ACTION_QUEUE.ID.in(actionIds)
+                        .and(SURVEY_INSTANCE_ACTION_QUEUE.STATUS.eq(SurveyInstanceActionStatus.IN_PROGRESS.name())))
+                .fetch(SURVEY_INSTANCE_ACTION_QUEUE.ID));
+    }
 
-            throw new IllegalStateException(format(
-                    messageString,
-                    actionId,
-                    updated));
+
+    /**
+     * Updates the claim time of the given actions which are still 'IN_PROGRESS', so a long running
+     * consumer does not have its claims treated as abandoned.
+     *
+     * @return number of claims refreshed
+     */
+    public int refreshClaims(Set<Long> actionIds) {
+        if (actionIds.isEmpty()) {
+            return 0;
         }
+
+        return dsl
+                .update(SURVEY_INSTANCE_ACTION_QUEUE)
+                .set(SURVEY_INSTANCE_ACTION_QUEUE.ACTIONED_AT, DateTimeUtilities.nowUtcTimestamp())
+                .where(SURVEY_INSTANCE_ACTION_QUEUE.ID.in(actionIds)
+                        .and(SURVEY_INSTANCE_ACTION_QUEUE.STATUS.eq(SurveyInstanceActionStatus.IN_PROGRESS.name())))
+                .execute();
+    }
+
+
+    /**
+     * Returns actions which were claimed before the given time, but never completed (e.g. the
+     * consumer was stopped), to 'PENDING' so they will be attempted again.
+     *
+     * @param claimedBefore  actions claimed before this time are considered abandoned
+     * @return number of actions reset
+     */
+    public int resetStaleActionsInProgress(Timestamp claimedBefore) {
+        return dsl
+                .update(SURVEY_INSTANCE_ACTION_QUEUE)
+                .set(SURVEY_INSTANCE_ACTION_QUEUE.STATUS, SurveyInstanceActionStatus.PENDING.name())
+                .setNull(SURVEY_INSTANCE_ACTION_QUEUE.ACTIONED_AT)
+                .where(SURVEY_INSTANCE_ACTION_QUEUE.STATUS.eq(SurveyInstanceActionStatus.IN_PROGRESS.name())
+                        .and(SURVEY_INSTANCE_ACTION_QUEUE.ACTIONED_AT.lt(claimedBefore)))
+                .execute();
     }
 }
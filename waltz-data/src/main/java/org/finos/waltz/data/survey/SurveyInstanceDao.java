@@ -61,6 +61,7 @@ import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -217,6 +218,19 @@ public class SurveyInstanceDao {
     }
 
 
+    public List<SurveyInstance> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return dsl.select(si.fields())
+                .select(ENTITY_NAME_FIELD)
+                .select(EXTERNAL_ID_FIELD)
+                .from(si)
+                .where(si.ID.in(ids))
+                .fetch(TO_DOMAIN_MAPPER);
+    }
+
+
     public Set<SurveyInstance> findForRecipient(long personId) {
         return dsl.select(si.fields())
                 .select(ENTITY_NAME_FIELD)
@@ -28,9 +28,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 import java.util.function.Function;
 
+import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.schema.tables.UserAgentInfo.USER_AGENT_INFO;
 import static org.finos.waltz.common.Checks.checkNotNull;
 
@@ -82,6 +84,27 @@ public class UserAgentInfoDao {
     }
 
 
+    /**
+     * Inserts the records as a single jdbc batch.
+     *
+     * @param userAgentInfos  records to insert
+     * @return number of records inserted
+     */
+    public int saveAll(Collection<UserAgentInfo> userAgentInfos) {
+        checkNotNull(userAgentInfos, "userAgentInfos cannot be null");
+        if (userAgentInfos.isEmpty()) {
+            return 0;
+        }
+
+        List<UserAgentInfoRecord> records = userAgentInfos
+                .stream()
+                .map(TO_RECORD_MAPPER)
+                .collect(toList());
+
+        return dsl.batchInsert(records).execute().length;
+    }
+
+
     public List<UserAgentInfo> findLoginsForUser(String userName, int limit) {
         return dsl.select(uai.fields())
                 .from(uai)
@@ -0,0 +1,66 @@
+package org.finos.waltz.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DBExecutorPoolTest {
+
+    @Test
+    public void namedCallersAreLimitedInConcurrency() {
+        DBExecutorPool pool = new DBExecutorPool(1, 8, 2); // 4 threads, 2 per caller
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int n = i;
+            tasks.add(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(10);
+                running.decrementAndGet();
+                return n;
+            });
+        }
+
+        InvocationResults<Integer> results = pool.invokeAll("test", tasks, Duration.ofSeconds(10));
+
+        assertEquals(asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), results.results(), "results should be in submission order");
+        assertFalse(results.isPartial());
+        assertTrue(maxRunning.get() <= 2, "no more than 2 tasks should run concurrently for a caller");
+        assertEquals(0, pool.getQueueDepth());
+        assertEquals(10, pool.getStartedCount());
+    }
+
+
+    @Test
+    public void tasksExceedingTheDeadlineAreOmitted() {
+        DBExecutorPool pool = new DBExecutorPool(1, 4, 2);
+        CountDownLatch neverReleased = new CountDownLatch(1);
+
+        List<Callable<Integer>> tasks = asList(
+                () -> 1,
+                () -> neverReleased.await(1, TimeUnit.MINUTES) ? 2 : -1,
+                () -> { throw new IllegalStateException("boom"); });
+
+        InvocationResults<Integer> results = pool.invokeAll("test", tasks, Duration.ofMillis(200));
+
+        assertEquals(asList(1), results.results(), "slow and failing tasks should be skipped");
+        assertTrue(results.isPartial());
+        assertEquals(1, results.timedOutCount());
+        assertEquals(1, results.failedCount());
+        assertEquals(1, pool.getTimeoutCount());
+        assertEquals(1, pool.getFailedCount());
+    }
+}
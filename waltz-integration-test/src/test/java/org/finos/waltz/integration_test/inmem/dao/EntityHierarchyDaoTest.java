@@ -0,0 +1,70 @@
+package org.finos.waltz.integration_test.inmem.dao;
+
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.service.entity_hierarchy.EntityHierarchyService;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Set;
+
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.ORGANISATIONAL_UNIT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EntityHierarchyDaoTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private EntityHierarchyDao dao;
+
+    @Autowired
+    private EntityHierarchyService service;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @Test
+    public void rebuildingAnUnchangedHierarchyChangesNothing() {
+        assertEquals(0, service.buildFor(EntityKind.ORG_UNIT));
+    }
+
+
+    @Test
+    public void movingANodeOnlyChangesTheAffectedPairs() {
+        dsl.update(ORGANISATIONAL_UNIT)
+                .set(ORGANISATIONAL_UNIT.PARENT_ID, ouIds.b)
+                .where(ORGANISATIONAL_UNIT.ID.eq(ouIds.a1))
+                .execute();
+
+        assertEquals(2, service.buildFor(EntityKind.ORG_UNIT), "(a1 -> a) should be removed and (a1 -> b) inserted");
+        assertEquals(asSet(ouIds.a), findDescendantIds(ouIds.a));
+        assertEquals(asSet(ouIds.b, ouIds.a1), findDescendantIds(ouIds.b));
+        assertEquals(asSet(ouIds.root, ouIds.a, ouIds.b, ouIds.a1), findDescendantIds(ouIds.root));
+    }
+
+
+    @Test
+    public void levelsAreUpdatedWhenANodeChangesDepth() {
+        dsl.update(ORGANISATIONAL_UNIT)
+                .set(ORGANISATIONAL_UNIT.PARENT_ID, ouIds.root)
+                .where(ORGANISATIONAL_UNIT.ID.eq(ouIds.a1))
+                .execute();
+
+        // (a1 -> a) removed, (a1 -> root) and (a1 -> a1) have new descendant levels
+        assertEquals(3, service.buildFor(EntityKind.ORG_UNIT));
+        assertEquals(asSet(ouIds.a), findDescendantIds(ouIds.a));
+    }
+
+
+    private Set<Long> findDescendantIds(long ouId) {
+        return map(
+                dao.findDesendents(mkRef(EntityKind.ORG_UNIT, ouId)),
+                d -> d.id().get());
+    }
+
+}
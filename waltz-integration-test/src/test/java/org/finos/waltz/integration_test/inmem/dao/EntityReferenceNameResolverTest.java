@@ -0,0 +1,117 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.integration_test.inmem.dao;
+
+import org.finos.waltz.data.EntityReferenceNameResolver;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.stream.Collectors.toMap;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.tables.Application.APPLICATION;
+import static org.finos.waltz.schema.tables.OrganisationalUnit.ORGANISATIONAL_UNIT;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EntityReferenceNameResolverTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private EntityReferenceNameResolver nameResolver;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @Test
+    public void namesAreResolvedForMixedKinds() {
+        String appName = mkName("namesAreResolvedForMixedKinds", "app");
+        EntityReference app = appHelper.createNewApp(appName, ouIds.a);
+        EntityReference ou = mkRef(EntityKind.ORG_UNIT, ouIds.a);
+        EntityReference missingApp = mkRef(EntityKind.APPLICATION, -1L);
+        EntityReference unsupported = mkRef(EntityKind.BOOKMARK, 1L);
+
+        List<EntityReference> resolved = nameResolver.resolve(asList(
+                mkRef(EntityKind.APPLICATION, app.id()),
+                ou,
+                mkRef(EntityKind.APPLICATION, app.id()),
+                missingApp,
+                unsupported));
+
+        Map<EntityReference, Optional<String>> namesByRef = resolved
+                .stream()
+                .collect(toMap(r -> mkRef(r.kind(), r.id()), EntityReference::name));
+
+        assertEquals(4, resolved.size(), "duplicate references should be collapsed");
+        assertEquals(Optional.of(appName), namesByRef.get(mkRef(EntityKind.APPLICATION, app.id())));
+        assertEquals(Optional.of("aName"), namesByRef.get(ou));
+        assertEquals(Optional.empty(), namesByRef.get(missingApp));
+        assertEquals(Optional.empty(), namesByRef.get(unsupported));
+    }
+
+
+    @Test
+    public void cachedNamesAreRefreshedOnceInvalidated() {
+        String appName = mkName("cachedNamesAreRefreshedOnceInvalidated", "app");
+        EntityReference app = mkRef(EntityKind.APPLICATION, appHelper.createNewApp(appName, ouIds.a).id());
+
+        assertEquals(Optional.of(appName), nameResolver.resolve(app).flatMap(EntityReference::name));
+
+        dsl.update(APPLICATION)
+                .set(APPLICATION.NAME, "renamed")
+                .where(APPLICATION.ID.eq(app.id()))
+                .execute();
+
+        assertEquals(Optional.of(appName), nameResolver.resolve(app).flatMap(EntityReference::name), "name should be cached");
+
+        nameResolver.invalidate(app);
+
+        assertEquals(Optional.of("renamed"), nameResolver.resolve(app).flatMap(EntityReference::name));
+    }
+
+
+    @Test
+    public void hierarchyRebuildsRefreshCachedNamesOfTheKind() {
+        EntityReference ou = mkRef(EntityKind.ORG_UNIT, createOrgUnit("loaded", ouIds.root));
+
+        assertEquals(Optional.of("loadedName"), nameResolver.resolve(ou).flatMap(EntityReference::name));
+
+        dsl.update(ORGANISATIONAL_UNIT)
+                .set(ORGANISATIONAL_UNIT.NAME, "renamed by loader")
+                .where(ORGANISATIONAL_UNIT.ID.eq(ou.id()))
+                .execute();
+
+        rebuildHierarchy(EntityKind.ORG_UNIT);
+
+        assertEquals(Optional.of("renamed by loader"), nameResolver.resolve(ou).flatMap(EntityReference::name));
+    }
+}
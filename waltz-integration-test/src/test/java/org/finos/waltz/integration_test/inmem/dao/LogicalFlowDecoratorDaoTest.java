@@ -0,0 +1,141 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package org.finos.waltz.integration_test.inmem.dao;
+
+import org.finos.waltz.data.datatype_decorator.LogicalFlowDecoratorDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.datatype.DataTypeDecorator;
+import org.finos.waltz.model.datatype.ImmutableLogicalFlowDecoratorRating;
+import org.finos.waltz.model.datatype.LogicalFlowDecoratorRating;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
+import org.finos.waltz.test_common.helpers.ActorHelper;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.DataTypeHelper;
+import org.finos.waltz.test_common.helpers.FlowClassificationRuleHelper;
+import org.finos.waltz.test_common.helpers.LogicalFlowHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toMap;
+import static org.finos.waltz.common.CollectionUtilities.first;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class LogicalFlowDecoratorDaoTest extends BaseInMemoryIntegrationTest {
+
+    private static final AuthoritativenessRatingValue PRIMARY = AuthoritativenessRatingValue.of("PRIMARY");
+
+    @Autowired
+    private LogicalFlowDecoratorDao dao;
+
+    @Autowired
+    private ActorHelper actorHelper;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DataTypeHelper dataTypeHelper;
+
+    @Autowired
+    private LogicalFlowHelper lfHelper;
+
+    @Autowired
+    private FlowClassificationRuleHelper ruleHelper;
+
+
+    @Test
+    public void visitDecoratorRatingsProvidesTheSourceAndTargetOrgUnitOfEachDecorator() {
+        Long dt = dataTypeHelper.createDataType("dt");
+        EntityReference source = appHelper.createNewApp(mkName("source"), ouIds.b);
+        EntityReference target = appHelper.createNewApp(mkName("target"), ouIds.a1);
+        EntityReference actor = mkRef(EntityKind.ACTOR, actorHelper.createActor(mkName("actor")));
+
+        LogicalFlow appToApp = lfHelper.createLogicalFlow(source, target);
+        LogicalFlow appToActor = lfHelper.createLogicalFlow(source, actor);
+        lfHelper.createLogicalFlowDecorators(appToApp.entityReference(), asSet(dt));
+        lfHelper.createLogicalFlowDecorators(appToActor.entityReference(), asSet(dt));
+
+        long appToAppDecoratorId = findDecoratorId(appToApp);
+        long appToActorDecoratorId = findDecoratorId(appToActor);
+
+        Map<Long, LogicalFlowDecoratorRating> ratingsByDecoratorId = dao.visitDecoratorRatings(
+                ratings -> ratings.collect(toMap(LogicalFlowDecoratorRating::decoratorId, r -> r)));
+
+        LogicalFlowDecoratorRating appToAppRating = ratingsByDecoratorId.get(appToAppDecoratorId);
+        assertEquals(dt.longValue(), appToAppRating.dataTypeId());
+        assertEquals(source, appToAppRating.source());
+        assertEquals(Optional.of(ouIds.a1), appToAppRating.targetOrgUnitId());
+        assertEquals(Optional.of(AuthoritativenessRatingValue.NO_OPINION), appToAppRating.rating());
+        assertEquals(Optional.empty(), appToAppRating.flowClassificationRuleId());
+
+        assertFalse(
+                ratingsByDecoratorId.get(appToActorDecoratorId).targetOrgUnitId().isPresent(),
+                "flows which do not target an application have no target org unit");
+    }
+
+
+    @Test
+    public void updateDecoratorRatingsWritesTheRatingAndRuleOfEachDecorator() {
+        long primaryId = ruleHelper.createFlowClassification(PRIMARY.value());
+        Long dt = dataTypeHelper.createDataType("dt");
+        EntityReference source = appHelper.createNewApp(mkName("source"), ouIds.b);
+        EntityReference target = appHelper.createNewApp(mkName("target"), ouIds.a1);
+        long ruleId = ruleHelper.createRule(mkRef(EntityKind.ORG_UNIT, ouIds.a), source, dt, primaryId);
+
+        LogicalFlow flow = lfHelper.createLogicalFlow(source, target);
+        lfHelper.createLogicalFlowDecorators(flow.entityReference(), asSet(dt));
+        long decoratorId = findDecoratorId(flow);
+
+        assertEquals(0, dao.updateDecoratorRatings(emptyList()), "nothing to update");
+
+        int updated = dao.updateDecoratorRatings(asList(ImmutableLogicalFlowDecoratorRating
+                .builder()
+                .decoratorId(decoratorId)
+                .dataTypeId(dt)
+                .source(source)
+                .rating(PRIMARY)
+                .flowClassificationRuleId(ruleId)
+                .build()));
+
+        assertEquals(1, updated);
+
+        DataTypeDecorator decorator = first(lfHelper.fetchDecoratorsForFlow(flow.entityReference().id()));
+        assertEquals(Optional.of(PRIMARY), decorator.rating());
+        assertEquals(Optional.of(ruleId), decorator.flowClassificationRuleId());
+    }
+
+
+    private long findDecoratorId(LogicalFlow flow) {
+        return first(lfHelper.fetchDecoratorsForFlow(flow.entityReference().id()))
+                .id()
+                .get();
+    }
+
+}
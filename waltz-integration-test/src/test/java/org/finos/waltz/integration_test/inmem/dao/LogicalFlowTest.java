@@ -26,16 +26,23 @@ import org.finos.waltz.model.IdProvider;
 import org.finos.waltz.model.logical_flow.LogicalFlow;
 import org.finos.waltz.test_common.helpers.AppHelper;
 import org.finos.waltz.test_common.helpers.LogicalFlowHelper;
+import org.jooq.DSLContext;
+import org.jooq.lambda.tuple.Tuple2;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.Map;
+
 import static org.finos.waltz.common.CollectionUtilities.isEmpty;
 import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.common.SetUtilities.map;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.model.HierarchyQueryScope.CHILDREN;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.schema.Tables.LOGICAL_FLOW;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class LogicalFlowTest extends BaseInMemoryIntegrationTest {
@@ -49,6 +56,9 @@ public class LogicalFlowTest extends BaseInMemoryIntegrationTest {
     @Autowired
     private AppHelper appHelper;
 
+    @Autowired
+    private DSLContext dsl;
+
 
     @Test
     public void basicDirectAssociations() {
@@ -114,4 +124,44 @@ public class LogicalFlowTest extends BaseInMemoryIntegrationTest {
                 "find by ou 'b' gives only one flow");
     }
 
-}
\ No newline at end of file
+
+
+    @Test
+    public void getOrCreateFlowIds() {
+        EntityReference a = appHelper.createNewApp("a", ouIds.a);
+        EntityReference b = appHelper.createNewApp("b", ouIds.a1);
+        EntityReference c = appHelper.createNewApp("c", ouIds.b);
+        // a -> b  exists
+        // a -> c  exists, but has been removed
+        // b -> c  does not exist, requested twice (via differently named refs)
+        LogicalFlow ab = helper.createLogicalFlow(a, b);
+        LogicalFlow ac = helper.createLogicalFlow(a, c);
+        helper.removeFlow(ac.id().get());
+
+        Map<Tuple2<EntityReference, EntityReference>, Long> flowIds = dsl.transactionResult(ctx -> lfDao.getOrCreateFlowIds(
+                ctx.dsl(),
+                asSet(tuple(a, b),
+                      tuple(a, c),
+                      tuple(b, c),
+                      tuple(mkRef(b.kind(), b.id(), "renamed"), c)),
+                "getOrCreateFlowIds"));
+
+        assertEquals(3, flowIds.size(), "pairs are compared by kind and id only");
+        assertEquals(ab.id().get(), flowIds.get(tuple(mkRef(a.kind(), a.id()), mkRef(b.kind(), b.id()))), "existing flows are reused");
+        assertEquals(ac.id().get(), flowIds.get(tuple(mkRef(a.kind(), a.id()), mkRef(c.kind(), c.id()))), "removed flows are restored rather than recreated");
+
+        Long bcId = flowIds.get(tuple(mkRef(b.kind(), b.id()), mkRef(c.kind(), c.id())));
+        assertNotNull(bcId, "missing flows are created");
+
+        assertEquals(
+                asSet(ab.id(), ac.id()),
+                map(lfDao.findByEntityReference(a), IdProvider::id),
+                "restored flow is active again");
+
+        assertEquals(
+                1,
+                dsl.fetchCount(LOGICAL_FLOW, LOGICAL_FLOW.SOURCE_ENTITY_ID.eq(b.id()).and(LOGICAL_FLOW.TARGET_ENTITY_ID.eq(c.id()))),
+                "duplicate pairs only create a single flow");
+    }
+
+}
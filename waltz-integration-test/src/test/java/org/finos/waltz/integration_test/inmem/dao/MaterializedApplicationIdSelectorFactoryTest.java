@@ -0,0 +1,186 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.integration_test.inmem.dao;
+
+import org.finos.waltz.data.application.ApplicationDao;
+import org.finos.waltz.data.application.MaterializedApplicationIdSelectorFactory;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Set;
+
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.schema.tables.Application.APPLICATION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class MaterializedApplicationIdSelectorFactoryTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private MaterializedApplicationIdSelectorFactory selectorFactory;
+
+    @Autowired
+    private ApplicationDao appDao;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DSLContext dsl;
+
+    private Long rootOu;
+    private Long childOu;
+    private EntityReference rootApp;
+    private EntityReference childApp;
+
+
+    @BeforeEach
+    public void before() {
+        selectorFactory.invalidateAll();
+
+        rootOu = createOrgUnit("mat_root", null);
+        childOu = createOrgUnit("mat_child", rootOu);
+
+        rebuildHierarchy(EntityKind.ORG_UNIT);
+
+        rootApp = appHelper.createNewApp("mat_root_app", rootOu);
+        childApp = appHelper.createNewApp("mat_child_app", childOu);
+    }
+
+
+    @Test
+    public void orgUnitSelectorsAreResolvedToAppIds() {
+        IdSelectionOptions opts = mkOpts(mkRef(EntityKind.ORG_UNIT, rootOu));
+
+        assertTrue(isInlined(opts), "small selections should be inlined");
+        assertEquals(asSet(rootApp.id(), childApp.id()), findSelectedAppIds(opts));
+    }
+
+
+    @Test
+    public void resolvedIdsAreReusedUntilInvalidated() {
+        IdSelectionOptions opts = mkOpts(mkRef(EntityKind.ORG_UNIT, childOu));
+        assertEquals(asSet(childApp.id()), findSelectedAppIds(opts));
+
+        moveApp(rootApp, childOu);
+        assertEquals(asSet(childApp.id()), findSelectedAppIds(opts), "cached ids are reused");
+
+        selectorFactory.invalidateAll();
+        assertEquals(asSet(childApp.id(), rootApp.id()), findSelectedAppIds(opts));
+    }
+
+
+    @Test
+    public void registeringAnAppInvalidatesResolvedIds() {
+        IdSelectionOptions opts = mkOpts(mkRef(EntityKind.ORG_UNIT, childOu));
+        assertEquals(asSet(childApp.id()), findSelectedAppIds(opts));
+
+        EntityReference newApp = appHelper.createNewApp("mat_new_app", childOu);
+        assertEquals(asSet(childApp.id(), newApp.id()), findSelectedAppIds(opts));
+    }
+
+
+    @Test
+    public void onlySelectorsForTheGivenKindAreInvalidated() {
+        IdSelectionOptions ouOpts = mkOpts(mkRef(EntityKind.ORG_UNIT, childOu));
+        assertEquals(asSet(childApp.id()), findSelectedAppIds(ouOpts));
+
+        moveApp(rootApp, childOu);
+
+        selectorFactory.invalidateForKind(EntityKind.APP_GROUP);
+        assertEquals(asSet(childApp.id()), findSelectedAppIds(ouOpts), "org unit selectors are unaffected");
+
+        selectorFactory.invalidateForKind(EntityKind.ORG_UNIT);
+        assertEquals(asSet(childApp.id(), rootApp.id()), findSelectedAppIds(ouOpts));
+    }
+
+
+    @Test
+    public void largeSelectionsUseTheSubSelect() {
+        Long largeOu = createOrgUnit("mat_large", rootOu);
+        rebuildHierarchy(EntityKind.ORG_UNIT);
+        for (int i = 0; i < 101; i++) {
+            appHelper.createNewApp("mat_large_app_" + i, largeOu);
+        }
+
+        IdSelectionOptions opts = mkOpts(mkRef(EntityKind.ORG_UNIT, largeOu));
+
+        assertFalse(isInlined(opts), "ids should not be inlined for large selections");
+        assertEquals(101, findSelectedAppIds(opts).size());
+
+        EntityReference newApp = appHelper.createNewApp("mat_large_app_new", largeOu);
+        assertTrue(findSelectedAppIds(opts).contains(newApp.id()), "large selections are always evaluated by the database");
+    }
+
+
+    @Test
+    public void selectorsWithNoAppsSelectNothing() {
+        Long emptyOu = createOrgUnit("mat_empty", rootOu);
+        rebuildHierarchy(EntityKind.ORG_UNIT);
+
+        IdSelectionOptions opts = mkOpts(mkRef(EntityKind.ORG_UNIT, emptyOu));
+
+        assertEquals(0, appDao.findByAppIdSelector(selectorFactory.apply(opts)).size());
+    }
+
+
+    @Test
+    public void singleAppSelectorsAreNotMaterialized() {
+        IdSelectionOptions opts = mkOpts(rootApp);
+
+        assertFalse(isInlined(opts));
+        assertEquals(asSet(rootApp.id()), findSelectedAppIds(opts));
+    }
+
+
+    // -- HELPERS ----
+
+    private Set<Long> findSelectedAppIds(IdSelectionOptions opts) {
+        return map(
+                appDao.findByAppIdSelector(selectorFactory.apply(opts)),
+                a -> a.id().get());
+    }
+
+
+    private boolean isInlined(IdSelectionOptions opts) {
+        return selectorFactory.apply(opts).toString().contains("mat_app");
+    }
+
+
+    private void moveApp(EntityReference app, Long ouId) {
+        dsl.update(APPLICATION)
+                .set(APPLICATION.ORGANISATIONAL_UNIT_ID, ouId)
+                .where(APPLICATION.ID.eq(app.id()))
+                .execute();
+    }
+
+}
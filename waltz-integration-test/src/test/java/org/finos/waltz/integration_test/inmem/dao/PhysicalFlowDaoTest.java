@@ -0,0 +1,183 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package org.finos.waltz.integration_test.inmem.dao;
+
+import org.finos.waltz.data.physical_flow.PhysicalFlowDao;
+import org.finos.waltz.data.physical_specification.PhysicalSpecificationDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.physical_flow.CriticalityValue;
+import org.finos.waltz.model.physical_flow.FrequencyKindValue;
+import org.finos.waltz.model.physical_flow.ImmutablePhysicalFlow;
+import org.finos.waltz.model.physical_flow.ImmutablePhysicalFlowParsed;
+import org.finos.waltz.model.physical_flow.PhysicalFlow;
+import org.finos.waltz.model.physical_flow.PhysicalFlowParsed;
+import org.finos.waltz.model.physical_flow.TransportKindValue;
+import org.finos.waltz.model.physical_specification.PhysicalSpecification;
+import org.finos.waltz.service.data_type.DataTypeDecoratorService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.DataTypeHelper;
+import org.finos.waltz.test_common.helpers.LogicalFlowHelper;
+import org.finos.waltz.test_common.helpers.PhysicalFlowHelper;
+import org.finos.waltz.test_common.helpers.PhysicalSpecHelper;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Collections.emptySet;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.PHYSICAL_FLOW;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class PhysicalFlowDaoTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private PhysicalFlowDao dao;
+
+    @Autowired
+    private PhysicalSpecificationDao specDao;
+
+    @Autowired
+    private DataTypeDecoratorService dataTypeDecoratorService;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private LogicalFlowHelper lfHelper;
+
+    @Autowired
+    private PhysicalSpecHelper psHelper;
+
+    @Autowired
+    private PhysicalFlowHelper pfHelper;
+
+    @Autowired
+    private DataTypeHelper dataTypeHelper;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @Test
+    public void findByParsedFlows() {
+        EntityReference a = appHelper.createNewApp("a", ouIds.a);
+        EntityReference b = appHelper.createNewApp("b", ouIds.a1);
+        LogicalFlow ab = lfHelper.createLogicalFlow(a, b);
+
+        Long dtId = dataTypeHelper.createDataType("findByParsedFlows");
+        Long specId = psHelper.createPhysicalSpec(a, "findByParsedFlows");
+        dataTypeDecoratorService.updateDecorators(
+                mkName("findByParsedFlows"),
+                mkRef(EntityKind.PHYSICAL_SPECIFICATION, specId),
+                asSet(dtId),
+                emptySet());
+
+        // flow attributes used by the helper: T+1, daily, medium criticality
+        long existingId = pfHelper.createPhysicalFlow(ab.id().get(), specId, "findByParsedFlows").entityReference().id();
+        PhysicalSpecification spec = specDao.getById(specId);
+
+        PhysicalFlowParsed match = mkParsedFlow(a, b, spec, dtId, 1, "match");
+        PhysicalFlowParsed duplicateMatch = mkParsedFlow(a, b, spec, dtId, 1, "duplicate within the chunk");
+        PhysicalFlowParsed differentBasis = mkParsedFlow(a, b, spec, dtId, 7, "different basis offset");
+        PhysicalFlowParsed differentDataType = mkParsedFlow(a, b, spec, -1L, 1, "different data type");
+
+        Map<PhysicalFlowParsed, PhysicalFlow> matches = dao.findByParsedFlows(asList(
+                match,
+                duplicateMatch,
+                differentBasis,
+                differentDataType));
+
+        assertEquals(2, matches.size(), "only flows matching all attributes are returned");
+        assertEquals(existingId, matches.get(match).id().get(), "existing flow is found");
+        assertEquals(existingId, matches.get(duplicateMatch).id().get(), "duplicates within a chunk find the same flow");
+        assertFalse(matches.containsKey(differentBasis));
+        assertFalse(matches.containsKey(differentDataType));
+    }
+
+
+    @Test
+    public void getOrCreateFlowIds() {
+        EntityReference a = appHelper.createNewApp("a", ouIds.a);
+        EntityReference b = appHelper.createNewApp("b", ouIds.a1);
+        LogicalFlow ab = lfHelper.createLogicalFlow(a, b);
+        Long specId = psHelper.createPhysicalSpec(a, "getOrCreateFlowIds");
+
+        long existingId = pfHelper.createPhysicalFlow(ab.id().get(), specId, "getOrCreateFlowIds").entityReference().id();
+        PhysicalFlow existing = dao.getById(existingId);
+
+        PhysicalFlow missing = ImmutablePhysicalFlow
+                .copyOf(existing)
+                .withId(Optional.empty())
+                .withBasisOffset(0)
+                .withDescription("first");
+        PhysicalFlow duplicateMissing = ImmutablePhysicalFlow
+                .copyOf(missing)
+                .withDescription("duplicate within the chunk");
+
+        Map<PhysicalFlow, Long> flowIds = dsl.transactionResult(ctx -> dao.getOrCreateFlowIds(
+                ctx.dsl(),
+                asList(existing, missing, duplicateMissing)));
+
+        Long newId = flowIds.get(missing);
+
+        assertEquals(existingId, flowIds.get(existing), "existing flows are reused");
+        assertNotNull(newId, "missing flows are created");
+        assertNotEquals(existingId, newId);
+        assertEquals(newId, flowIds.get(duplicateMissing), "duplicates within a chunk resolve to the same flow");
+
+        assertEquals(
+                1,
+                dsl.fetchCount(PHYSICAL_FLOW, PHYSICAL_FLOW.LOGICAL_FLOW_ID.eq(ab.id().get()).and(PHYSICAL_FLOW.BASIS_OFFSET.eq(0))),
+                "duplicates within a chunk only create a single flow");
+    }
+
+
+    private static PhysicalFlowParsed mkParsedFlow(EntityReference source,
+                                                   EntityReference target,
+                                                   PhysicalSpecification spec,
+                                                   long dataTypeId,
+                                                   int basisOffset,
+                                                   String description) {
+        return ImmutablePhysicalFlowParsed.builder()
+                .source(source)
+                .target(target)
+                .owner(spec.owningEntity())
+                .format(spec.format())
+                .name(spec.name())
+                .dataType(mkRef(EntityKind.DATA_TYPE, dataTypeId))
+                .basisOffset(basisOffset)
+                .frequency(FrequencyKindValue.of("DAILY"))
+                .transport(TransportKindValue.UNKNOWN)
+                .criticality(CriticalityValue.of("MEDIUM"))
+                .description(description)
+                .build();
+    }
+
+}
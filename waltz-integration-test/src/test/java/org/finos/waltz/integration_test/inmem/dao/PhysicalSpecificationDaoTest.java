@@ -0,0 +1,101 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package org.finos.waltz.integration_test.inmem.dao;
+
+import org.finos.waltz.data.physical_specification.PhysicalSpecificationDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.UserTimestamp;
+import org.finos.waltz.model.physical_specification.DataFormatKindValue;
+import org.finos.waltz.model.physical_specification.ImmutablePhysicalSpecification;
+import org.finos.waltz.model.physical_specification.PhysicalSpecification;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.PhysicalSpecHelper;
+import org.jooq.DSLContext;
+import org.jooq.lambda.tuple.Tuple3;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Map;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.data.physical_specification.PhysicalSpecificationDao.mkMatchKey;
+import static org.finos.waltz.schema.Tables.PHYSICAL_SPECIFICATION;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class PhysicalSpecificationDaoTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private PhysicalSpecificationDao dao;
+
+    @Autowired
+    private PhysicalSpecHelper helper;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @Test
+    public void getOrCreateSpecificationIds() {
+        EntityReference owner = appHelper.createNewApp("owner", ouIds.a);
+
+        Long existingId = helper.createPhysicalSpec(owner, "getOrCreateSpecificationIds");
+        PhysicalSpecification existing = dao.getById(existingId);
+
+        String newName = mkName("getOrCreateSpecificationIds");
+
+        Map<Tuple3<EntityReference, String, String>, Long> specIds = dsl.transactionResult(ctx -> dao.getOrCreateSpecificationIds(
+                ctx.dsl(),
+                asList(existing,
+                       mkSpec(owner, newName, "first"),
+                       mkSpec(owner, newName, "duplicate within the chunk"))));
+
+        Long newId = specIds.get(mkMatchKey(owner, DataFormatKindValue.UNKNOWN, newName));
+
+        assertEquals(2, specIds.size(), "specs are matched by owner, format and name");
+        assertEquals(existingId, specIds.get(mkMatchKey(owner, existing.format(), existing.name())), "existing specs are reused");
+        assertNotNull(newId, "missing specs are created");
+        assertNotEquals(existingId, newId);
+
+        assertEquals(
+                1,
+                dsl.fetchCount(PHYSICAL_SPECIFICATION, PHYSICAL_SPECIFICATION.NAME.eq(newName)),
+                "duplicates within a chunk only create a single spec");
+    }
+
+
+    private static PhysicalSpecification mkSpec(EntityReference owner, String name, String description) {
+        return ImmutablePhysicalSpecification.builder()
+                .owningEntity(owner)
+                .format(DataFormatKindValue.UNKNOWN)
+                .name(name)
+                .externalId("")
+                .description(description)
+                .lastUpdatedBy("test")
+                .provenance(PROVENANCE)
+                .created(UserTimestamp.mkForUser("test"))
+                .build();
+    }
+
+}
@@ -31,12 +31,21 @@ import org.finos.waltz.test_common.helpers.AppHelper;
 import org.finos.waltz.test_common.helpers.InvolvementHelper;
 import org.finos.waltz.test_common.helpers.PersonHelper;
 import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.finos.waltz.common.CollectionUtilities.first;
 import static org.finos.waltz.common.CollectionUtilities.isEmpty;
@@ -44,6 +53,8 @@ import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
 import static org.finos.waltz.schema.tables.AttestationInstance.ATTESTATION_INSTANCE;
+import static org.finos.waltz.schema.tables.AttestationInstanceRecipient.ATTESTATION_INSTANCE_RECIPIENT;
+import static org.finos.waltz.schema.tables.AttestationRun.ATTESTATION_RUN;
 import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
 import static org.finos.waltz.test_common.helpers.NameHelper.mkUserId;
 import static org.junit.jupiter.api.Assertions.*;
@@ -101,6 +112,75 @@ public class AttestationServiceTest extends BaseInMemoryIntegrationTest {
         assertEquals(EntityKind.APPLICATION, run.targetEntityKind());
     }
 
+    @Test
+    public void interruptedIssuanceIsResumedWithoutDuplicatingInstances() {
+
+        Long runId = createIssuedRun("resumeIssuance");
+
+        assertEquals(2, countInstances(runId), "an instance should be issued for each app");
+        assertEquals(4, countRecipients(runId), "each involved person should be a recipient");
+
+        markIssuing(runId, DateTimeUtilities.nowUtc().minusHours(2));
+
+        arSvc.issueInstancesForPendingRuns();
+
+        assertEquals(AttestationStatus.ISSUED, arSvc.getById(runId).status(), "resumed run should be marked as issued");
+        assertEquals(2, countInstances(runId), "already issued instances should not be duplicated");
+        assertEquals(4, countRecipients(runId), "already issued recipients should not be duplicated");
+    }
+
+
+    @Test
+    public void runsBeingIssuedElsewhereAreNotResumed() {
+
+        Long runId = createIssuedRun("issuingElsewhere");
+        removeInstances(runId);
+
+        markIssuing(runId, DateTimeUtilities.nowUtc());
+
+        arSvc.issueInstancesForPendingRuns();
+
+        assertEquals(AttestationStatus.ISSUING, arSvc.getById(runId).status(), "run with a recent claim should be left to its issuer");
+        assertEquals(0, countInstances(runId), "run with a recent claim should not be issued by another caller");
+    }
+
+
+    @Test
+    public void concurrentIssuanceOfPendingRunsDoesNotDuplicateInstances() throws Exception {
+
+        Long runId = createIssuedRun("concurrentIssuance");
+        removeInstances(runId);
+
+        dsl.update(ATTESTATION_RUN)
+                .set(ATTESTATION_RUN.STATUS, AttestationStatus.PENDING.name())
+                .set(ATTESTATION_RUN.ISSUING_CLAIMED_AT, (Timestamp) null)
+                .where(ATTESTATION_RUN.ID.eq(runId))
+                .execute();
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return arSvc.issueInstancesForPendingRuns();
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(AttestationStatus.ISSUED, arSvc.getById(runId).status());
+        assertEquals(2, countInstances(runId), "each app should be issued exactly one instance");
+        assertEquals(4, countRecipients(runId), "each recipient should be added exactly once");
+    }
+
+
     @Test
     @Disabled
     public void basicRetrieval() {
@@ -234,4 +314,62 @@ public class AttestationServiceTest extends BaseInMemoryIntegrationTest {
     }
 
 
-}
\ No newline at end of file
+    private Long createIssuedRun(String stem) {
+        long invId = involvementHelper.mkInvolvementKind(mkName(stem));
+
+        for (int i = 0; i < 2; i++) {
+            EntityReference appRef = appHelper.createNewApp(mkName(stem), ouIds.a);
+            involvementHelper.createInvolvement(personHelper.createPerson(mkName(stem + "A")), invId, appRef);
+            involvementHelper.createInvolvement(personHelper.createPerson(mkName(stem + "B")), invId, appRef);
+        }
+
+        AttestationRunCreateCommand cmd = ImmutableAttestationRunCreateCommand.builder()
+                .dueDate(DateTimeUtilities.today().plusMonths(1))
+                .targetEntityKind(EntityKind.APPLICATION)
+                .attestedEntityKind(EntityKind.LOGICAL_DATA_FLOW)
+                .selectionOptions(mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a)))
+                .addInvolvementKindIds(invId)
+                .name(mkName(stem))
+                .description(stem + " Desc")
+                .build();
+
+        return arSvc.create(mkUserId("ast"), cmd).id().get();
+    }
+
+
+    private void markIssuing(long runId, LocalDateTime claimedAt) {
+        dsl.update(ATTESTATION_RUN)
+                .set(ATTESTATION_RUN.STATUS, AttestationStatus.ISSUING.name())
+                .set(ATTESTATION_RUN.ISSUING_CLAIMED_AT, Timestamp.valueOf(claimedAt))
+                .where(ATTESTATION_RUN.ID.eq(runId))
+                .execute();
+    }
+
+
+    private void removeInstances(long runId) {
+        dsl.deleteFrom(ATTESTATION_INSTANCE_RECIPIENT)
+                .where(ATTESTATION_INSTANCE_RECIPIENT.ATTESTATION_INSTANCE_ID.in(DSL
+                        .select(ATTESTATION_INSTANCE.ID)
+                        .from(ATTESTATION_INSTANCE)
+                        .where(ATTESTATION_INSTANCE.ATTESTATION_RUN_ID.eq(runId))))
+                .execute();
+        dsl.deleteFrom(ATTESTATION_INSTANCE)
+                .where(ATTESTATION_INSTANCE.ATTESTATION_RUN_ID.eq(runId))
+                .execute();
+    }
+
+
+    private int countInstances(long runId) {
+        return dsl.fetchCount(ATTESTATION_INSTANCE, ATTESTATION_INSTANCE.ATTESTATION_RUN_ID.eq(runId));
+    }
+
+
+    private int countRecipients(long runId) {
+        return dsl.fetchCount(dsl
+                .select(ATTESTATION_INSTANCE_RECIPIENT.ID)
+                .from(ATTESTATION_INSTANCE_RECIPIENT)
+                .innerJoin(ATTESTATION_INSTANCE)
+                .on(ATTESTATION_INSTANCE.ID.eq(ATTESTATION_INSTANCE_RECIPIENT.ATTESTATION_INSTANCE_ID))
+                .where(ATTESTATION_INSTANCE.ATTESTATION_RUN_ID.eq(runId)));
+    }
+}
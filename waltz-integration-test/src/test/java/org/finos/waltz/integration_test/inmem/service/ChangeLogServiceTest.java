@@ -0,0 +1,168 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.Severity;
+import org.finos.waltz.model.changelog.ChangeLog;
+import org.finos.waltz.model.changelog.ImmutableChangeLog;
+import org.finos.waltz.model.changelog.ImmutableChangeLogEvent;
+import org.finos.waltz.service.changelog.ChangeLogOutbox;
+import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.jooq.DSLContext;
+import org.jooq.exception.DataAccessException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.nCopies;
+import static java.util.Collections.singletonList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkUserId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChangeLogServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private ChangeLogService svc;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @Test
+    public void entriesAreVisibleAsSoonAsWriteReturns() {
+        EntityReference appRef = mkNewAppRef();
+
+        svc.write(asList(
+                mkChangeLog(appRef, "a", mkUserId()),
+                mkChangeLog(appRef, "b", mkUserId())));
+
+        assertEquals(asSet("a", "b"), findMessages(appRef));
+    }
+
+
+    @Test
+    public void failedBatchIsRetriedIndividuallyAndTheFailureRethrown() {
+        EntityReference appRef = mkNewAppRef();
+        String tooLongUserId = String.join("", nCopies(200, "x")); // user_id is varchar(128)
+
+        assertThrows(
+                DataAccessException.class,
+                () -> svc.write(asList(
+                        mkChangeLog(appRef, "before", mkUserId()),
+                        mkChangeLog(appRef, "bad", tooLongUserId),
+                        mkChangeLog(appRef, "after", mkUserId()))),
+                "the failure should still be reported to the caller");
+
+        assertEquals(
+                asSet("before", "after"),
+                findMessages(appRef),
+                "entries either side of the bad entry should have been written");
+    }
+
+
+    @Test
+    public void publishedEventsHaveReferencedNamesResolved() {
+        String appName = mkName("publishedEventsHaveReferencedNamesResolved");
+        EntityReference appRef = appHelper.createNewApp(appName, ouIds.root);
+        EntityReference unnamedAppRef = mkRef(EntityKind.APPLICATION, appRef.id());
+
+        svc.publish(ImmutableChangeLogEvent
+                .builder()
+                .parentReference(unnamedAppRef)
+                .messageTemplate("Updated {} and {}")
+                .messageReferences(asList(unnamedAppRef, mkRef(EntityKind.APPLICATION, -1L, "named")))
+                .userId(mkUserId())
+                .operation(Operation.UPDATE)
+                .build());
+
+        assertEquals(asSet("Updated " + appName + " and named"), findMessages(appRef));
+    }
+
+
+    @Test
+    public void outboxEntriesCommitWithTheTransaction() {
+        EntityReference appRef = mkNewAppRef();
+        ChangeLogOutbox outbox = svc.newOutbox();
+
+        dsl.transaction(ctx -> {
+            outbox.add(mkChangeLog(appRef, "a", mkUserId()));
+            outbox.addAll(singletonList(mkChangeLog(appRef, "b", mkUserId())));
+            assertEquals(2, outbox.size());
+            assertEquals(2, outbox.flush(ctx.dsl()));
+        });
+
+        assertTrue(outbox.isEmpty(), "flushing should empty the outbox");
+        assertEquals(asSet("a", "b"), findMessages(appRef));
+    }
+
+
+    @Test
+    public void outboxEntriesRollBackWithTheTransaction() {
+        EntityReference appRef = mkNewAppRef();
+        ChangeLogOutbox outbox = svc.newOutbox();
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> dsl.transaction(ctx -> {
+                    outbox.add(mkChangeLog(appRef, "a", mkUserId()));
+                    outbox.flush(ctx.dsl());
+                    throw new IllegalStateException("rollback");
+                }));
+
+        assertTrue(findMessages(appRef).isEmpty(), "entries should have been rolled back");
+    }
+
+
+    // -- HELPERS ----
+
+    private Set<String> findMessages(EntityReference ref) {
+        List<ChangeLog> changeLogs = svc.findByParentReference(ref, Optional.empty(), Optional.empty());
+        return map(changeLogs, ChangeLog::message);
+    }
+
+
+    private static ChangeLog mkChangeLog(EntityReference ref, String message, String userId) {
+        return ImmutableChangeLog
+                .builder()
+                .parentReference(ref)
+                .message(message)
+                .userId(userId)
+                .severity(Severity.INFORMATION)
+                .operation(Operation.UPDATE)
+                .build();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.datatype.DataTypeDecorator;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
+import org.finos.waltz.service.flow_classification_rule.FlowClassificationCalculator;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.DataTypeHelper;
+import org.finos.waltz.test_common.helpers.FlowClassificationRuleHelper;
+import org.finos.waltz.test_common.helpers.LogicalFlowHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Optional;
+
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FlowClassificationCalculatorTest extends BaseInMemoryIntegrationTest {
+
+    private static final AuthoritativenessRatingValue PRIMARY = AuthoritativenessRatingValue.of("PRIMARY");
+
+    @Autowired
+    private FlowClassificationCalculator calculator;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DataTypeHelper dataTypeHelper;
+
+    @Autowired
+    private LogicalFlowHelper lfHelper;
+
+    @Autowired
+    private FlowClassificationRuleHelper ruleHelper;
+
+
+    @Test
+    public void updateOnlyReRatesDecoratorsWithinTheDataTypeAndOrgUnitSubtrees() {
+        long primaryId = ruleHelper.createFlowClassification(PRIMARY.value());
+
+        Long parentDt = dataTypeHelper.createDataType("parent");
+        Long childDt = dataTypeHelper.createDataType("child", parentDt);
+        Long otherDt = dataTypeHelper.createDataType("other");
+        rebuildHierarchy(EntityKind.DATA_TYPE);
+
+        EntityReference source = appHelper.createNewApp(mkName("source"), ouIds.b);
+        EntityReference targetInA1 = appHelper.createNewApp(mkName("targetInA1"), ouIds.a1);
+        EntityReference targetInB = appHelper.createNewApp(mkName("targetInB"), ouIds.b);
+
+        LogicalFlow inScopeFlow = lfHelper.createLogicalFlow(source, targetInA1);
+        LogicalFlow outOfScopeFlow = lfHelper.createLogicalFlow(source, targetInB);
+        lfHelper.createLogicalFlowDecorators(inScopeFlow.entityReference(), asSet(childDt, otherDt));
+        lfHelper.createLogicalFlowDecorators(outOfScopeFlow.entityReference(), asSet(childDt));
+
+        long ruleId = ruleHelper.createRule(mkRef(EntityKind.ORG_UNIT, ouIds.a), source, parentDt, primaryId);
+        ruleHelper.createRule(mkRef(EntityKind.ORG_UNIT, ouIds.b), source, parentDt, primaryId);
+        ruleHelper.createRule(mkRef(EntityKind.ORG_UNIT, ouIds.a), source, otherDt, primaryId);
+
+        calculator.update(parentDt, mkRef(EntityKind.ORG_UNIT, ouIds.a));
+
+        DataTypeDecorator childDecorator = findDecorator(inScopeFlow, childDt);
+        assertEquals(
+                Optional.of(PRIMARY),
+                childDecorator.rating(),
+                "descendant data type consumed in a descendant org unit is re-rated");
+        assertEquals(
+                Optional.of(ruleId),
+                childDecorator.flowClassificationRuleId());
+
+        assertEquals(
+                Optional.of(AuthoritativenessRatingValue.NO_OPINION),
+                findDecorator(inScopeFlow, otherDt).rating(),
+                "data types outside the changed rule's subtree are left alone");
+
+        assertEquals(
+                Optional.of(AuthoritativenessRatingValue.NO_OPINION),
+                findDecorator(outOfScopeFlow, childDt).rating(),
+                "flows consumed outside the changed rule's org unit subtree are left alone");
+    }
+
+
+    private DataTypeDecorator findDecorator(LogicalFlow flow, Long dataTypeId) {
+        return lfHelper
+                .fetchDecoratorsForFlow(flow.entityReference().id())
+                .stream()
+                .filter(d -> d.decoratorEntity().id() == dataTypeId)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No decorator for data type: " + dataTypeId));
+    }
+
+}
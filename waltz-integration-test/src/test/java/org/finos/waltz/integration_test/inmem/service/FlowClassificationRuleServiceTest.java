@@ -0,0 +1,194 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.datatype_decorator.LogicalFlowDecoratorDao;
+import org.finos.waltz.data.flow_classification_rule.FlowClassificationRuleDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.datatype.DataTypeDecorator;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
+import org.finos.waltz.service.flow_classification_rule.FlowClassificationRuleService;
+import org.finos.waltz.test_common.helpers.AppHelper;
+import org.finos.waltz.test_common.helpers.DataTypeHelper;
+import org.finos.waltz.test_common.helpers.FlowClassificationRuleHelper;
+import org.finos.waltz.test_common.helpers.LogicalFlowHelper;
+import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.stream.Collectors.toMap;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FlowClassificationRuleServiceTest extends BaseInMemoryIntegrationTest {
+
+    private static final AuthoritativenessRatingValue PRIMARY = AuthoritativenessRatingValue.of("PRIMARY");
+    private static final AuthoritativenessRatingValue SECONDARY = AuthoritativenessRatingValue.of("SECONDARY");
+
+    @Autowired
+    private FlowClassificationRuleService svc;
+
+    @Autowired
+    private FlowClassificationRuleDao ruleDao;
+
+    @Autowired
+    private LogicalFlowDecoratorDao decoratorDao;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DataTypeHelper dataTypeHelper;
+
+    @Autowired
+    private LogicalFlowHelper lfHelper;
+
+    @Autowired
+    private FlowClassificationRuleHelper ruleHelper;
+
+    private Long childDt;
+
+
+    @Test
+    public void fastRecalculationMatchesTheRuleByRuleRecalculation() {
+        List<LogicalFlow> flows = setupFlowsAndRules();
+
+        recalculateRuleByRule();
+        Map<Tuple2<Long, Long>, Optional<AuthoritativenessRatingValue>> expected = fetchRatings(flows);
+
+        resetRatings();
+        svc.fastRecalculateAllFlowRatings();
+
+        assertEquals(expected, fetchRatings(flows));
+    }
+
+
+    @Test
+    public void fastRecalculationAppliesGeneralAndPointToPointRules() {
+        List<LogicalFlow> flows = setupFlowsAndRules();
+        LogicalFlow authoritativeFlow = flows.get(0);
+        LogicalFlow pointToPointFlow = flows.get(1);
+        LogicalFlow discouragedFlow = flows.get(2);
+
+        svc.fastRecalculateAllFlowRatings();
+
+        Map<Tuple2<Long, Long>, Optional<AuthoritativenessRatingValue>> ratings = fetchRatings(flows);
+
+        assertEquals(Optional.of(PRIMARY), ratings.get(tuple(authoritativeFlow.id().get(), childDt)));
+        assertEquals(Optional.of(SECONDARY), ratings.get(tuple(pointToPointFlow.id().get(), childDt)), "point-to-point rule overrides the general rule");
+        assertEquals(Optional.of(AuthoritativenessRatingValue.DISCOURAGED), ratings.get(tuple(discouragedFlow.id().get(), childDt)));
+    }
+
+
+    @Test
+    public void fastRecalculationOnlyWritesChangedRatings() {
+        setupFlowsAndRules();
+
+        svc.fastRecalculateAllFlowRatings();
+
+        assertEquals(
+                0,
+                svc.fastRecalculateAllFlowRatings(),
+                "nothing has changed, including decorators overridden by point-to-point rules, so nothing should be written");
+    }
+
+
+    // --- helpers ---
+
+    /**
+     *   - a, rule: parentDt from sourceA is PRIMARY
+     *   --- a1
+     *   -- b, rule: childDt from sourceB is SECONDARY
+     *   targetInA1, point-to-point rule: parentDt from sourceB is SECONDARY
+     *
+     * @return flows: sourceA -> targetInA1, sourceB -> targetInA1, sourceA -> targetInB, sourceB -> targetInB
+     */
+    private List<LogicalFlow> setupFlowsAndRules() {
+        long primaryId = ruleHelper.createFlowClassification(PRIMARY.value());
+        long secondaryId = ruleHelper.createFlowClassification(SECONDARY.value());
+
+        Long parentDt = dataTypeHelper.createDataType("parent");
+        childDt = dataTypeHelper.createDataType("child", parentDt);
+        Long otherDt = dataTypeHelper.createDataType("other");
+        rebuildHierarchy(EntityKind.DATA_TYPE);
+
+        EntityReference sourceA = appHelper.createNewApp(mkName("sourceA"), ouIds.b);
+        EntityReference sourceB = appHelper.createNewApp(mkName("sourceB"), ouIds.b);
+        EntityReference targetInA1 = appHelper.createNewApp(mkName("targetInA1"), ouIds.a1);
+        EntityReference targetInB = appHelper.createNewApp(mkName("targetInB"), ouIds.b);
+
+        ruleHelper.createRule(mkRef(EntityKind.ORG_UNIT, ouIds.a), sourceA, parentDt, primaryId);
+        ruleHelper.createRule(mkRef(EntityKind.ORG_UNIT, ouIds.b), sourceB, childDt, secondaryId);
+        ruleHelper.createRule(targetInA1, sourceB, parentDt, secondaryId);
+
+        List<LogicalFlow> flows = asList(
+                lfHelper.createLogicalFlow(sourceA, targetInA1),
+                lfHelper.createLogicalFlow(sourceB, targetInA1),
+                lfHelper.createLogicalFlow(sourceA, targetInB),
+                lfHelper.createLogicalFlow(sourceB, targetInB));
+
+        lfHelper.createLogicalFlowDecorators(flows.get(0).entityReference(), asSet(childDt, otherDt));
+        lfHelper.createLogicalFlowDecorators(flows.get(1).entityReference(), asSet(childDt));
+        lfHelper.createLogicalFlowDecorators(flows.get(2).entityReference(), asSet(childDt));
+        lfHelper.createLogicalFlowDecorators(flows.get(3).entityReference(), asSet(childDt, parentDt));
+
+        return flows;
+    }
+
+
+    /**
+     * The recalculation as it was prior to the single pass: reset everything, apply each
+     * rule from the most specific vantage point outwards, then the point-to-point rules.
+     */
+    private void recalculateRuleByRule() {
+        resetRatings();
+        ruleDao.findFlowClassificationRuleVantagePoints()
+                .forEach(decoratorDao::updateDecoratorsForFlowClassificationRule);
+        ruleDao.updatePointToPointFlowClassificationRules();
+    }
+
+
+    private void resetRatings() {
+        decoratorDao.updateRatingsByCondition(AuthoritativenessRatingValue.NO_OPINION, DSL.trueCondition());
+    }
+
+
+    private Map<Tuple2<Long, Long>, Optional<AuthoritativenessRatingValue>> fetchRatings(List<LogicalFlow> flows) {
+        return flows
+                .stream()
+                .flatMap(f -> lfHelper.fetchDecoratorsForFlow(f.id().get()).stream())
+                .collect(toMap(
+                        d -> tuple(d.dataFlowId(), d.dataTypeId()),
+                        DataTypeDecorator::rating));
+    }
+
+}
@@ -5,12 +5,15 @@ import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.Operation;
 import org.finos.waltz.model.attestation.UserAttestationPermission;
+import org.finos.waltz.model.involvement.ImmutableEntityInvolvementChangeCommand;
 import org.finos.waltz.model.permission_group.CheckPermissionCommand;
 import org.finos.waltz.model.permission_group.ImmutableCheckPermissionCommand;
 import org.finos.waltz.model.permission_group.Permission;
 import org.finos.waltz.schema.tables.records.InvolvementGroupRecord;
 import org.finos.waltz.schema.tables.records.PermissionGroupRecord;
 import org.finos.waltz.service.involvement.InvolvementService;
+import org.finos.waltz.service.involvement_group.InvolvementGroupService;
+import org.finos.waltz.service.permission.PermissionDecisionCache;
 import org.finos.waltz.service.permission.PermissionGroupService;
 import org.finos.waltz.test_common.helpers.*;
 import org.jooq.DSLContext;
@@ -54,9 +57,15 @@ public class PermissionGroupServiceTest extends BaseInMemoryIntegrationTest {
     @Autowired
     private InvolvementService involvementService;
 
+    @Autowired
+    private InvolvementGroupService involvementGroupService;
+
     @Autowired
     private PermissionGroupHelper permissionHelper;
 
+    @Autowired
+    private PermissionDecisionCache permissionDecisionCache;
+
     private final String stem = "pgst";
 
 
@@ -116,6 +125,78 @@ public class PermissionGroupServiceTest extends BaseInMemoryIntegrationTest {
     }
 
 
+    @Test
+    public void involvementChangesAreVisibleImmediately() {
+        String u1 = mkName(stem, "user1");
+        Long u1Id = personHelper.createPerson(u1);
+
+        EntityReference appA = appHelper.createNewApp(mkName(stem, "appA"), ouIds.a);
+
+        long privKind = involvementHelper.mkInvolvementKind(mkName(stem, "privileged"));
+        permissionHelper.setupSpecificPermissionGroupForApp(appA, privKind, stem);
+
+        // decisions are cached, so each check below would be stale if the change did not discard them
+        assertFalse(permissionGroupService.hasPermission(mkLogicalFlowAttestCommand(u1, appA)), "u1 should not have access as they have no involvement");
+
+        involvementHelper.createInvolvement(u1Id, privKind, appA);
+        assertTrue(permissionGroupService.hasPermission(mkLogicalFlowAttestCommand(u1, appA)), "u1 should have access as soon as the involvement is granted");
+
+        involvementService.removeEntityInvolvement(
+                mkName(stem, "remover"),
+                appA,
+                ImmutableEntityInvolvementChangeCommand.builder()
+                        .involvementKindId((int) privKind)
+                        .personEntityRef(mkRef(EntityKind.PERSON, u1Id))
+                        .operation(Operation.REMOVE)
+                        .build());
+        assertFalse(permissionGroupService.hasPermission(mkLogicalFlowAttestCommand(u1, appA)), "u1 should lose access as soon as the involvement is revoked");
+    }
+
+
+    @Test
+    public void permissionGroupChangesAreVisibleOnceDecisionsAreDiscarded() {
+        String u1 = mkName(stem, "user1");
+        personHelper.createPerson(u1);
+
+        EntityReference appA = appHelper.createNewApp(mkName(stem, "appA"), ouIds.a);
+        long privKind = involvementHelper.mkInvolvementKind(mkName(stem, "privileged"));
+
+        assertTrue(permissionGroupService.hasPermission(mkLogicalFlowAttestCommand(u1, appA)), "u1 should have access as is open by default");
+
+        // permission groups are maintained outside of Waltz (e.g. by loaders), which then discard the cached decisions
+        permissionHelper.setupSpecificPermissionGroupForApp(appA, privKind, stem);
+        permissionDecisionCache.invalidateForEntity(appA);
+
+        assertFalse(permissionGroupService.hasPermission(mkLogicalFlowAttestCommand(u1, appA)), "u1 should lose access once the app is locked down");
+    }
+
+
+    @Test
+    public void involvementGroupChangesAreVisibleImmediately() {
+        String u1 = mkName(stem, "user1");
+        Long u1Id = personHelper.createPerson(u1);
+
+        EntityReference appA = appHelper.createNewApp(mkName(stem, "appA"), ouIds.a);
+        EntityReference appB = appHelper.createNewApp(mkName(stem, "appB"), ouIds.a);
+        long privKind = involvementHelper.mkInvolvementKind(mkName(stem, "privileged"));
+        long otherKind = involvementHelper.mkInvolvementKind(mkName(stem, "other"));
+
+        InvolvementGroupRecord ig = permissionHelper.setupInvolvementGroup(privKind, stem);
+        PermissionGroupRecord pg = permissionHelper.setupPermissionGroup(appA, ig, stem);
+        permissionHelper.setupPermissionGroupEntry(appB, pg.getId());
+        involvementHelper.createInvolvement(u1Id, otherKind, appA);
+        involvementHelper.createInvolvement(u1Id, otherKind, appB);
+
+        assertFalse(permissionGroupService.hasPermission(mkLogicalFlowAttestCommand(u1, appA)), "u1 should not have access as they have the wrong involvement");
+        assertFalse(permissionGroupService.hasPermission(mkLogicalFlowAttestCommand(u1, appB)), "u1 should not have access as they have the wrong involvement");
+
+        involvementGroupService.updateInvolvements(ig.getId(), asSet(privKind, otherKind), mkName(stem, "admin"));
+
+        assertTrue(permissionGroupService.hasPermission(mkLogicalFlowAttestCommand(u1, appA)), "u1 should have access as soon as the group accepts their involvement");
+        assertTrue(permissionGroupService.hasPermission(mkLogicalFlowAttestCommand(u1, appB)), "every app in the permission group should be affected");
+    }
+
+
     @Test
     public void checkNoPermissionsSpecified() {
         String u1 = mkName(stem, "user1");
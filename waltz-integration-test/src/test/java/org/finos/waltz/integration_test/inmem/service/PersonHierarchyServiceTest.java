@@ -0,0 +1,103 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.person.PersonHierarchyRebuildSummary;
+import org.finos.waltz.service.person_hierarchy.PersonHierarchyService;
+import org.finos.waltz.test_common.helpers.PersonHelper;
+import org.jooq.DSLContext;
+import org.jooq.lambda.tuple.Tuple3;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Set;
+
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.schema.tables.PersonHierarchy.PERSON_HIERARCHY;
+import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersonHierarchyServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private DSLContext dsl;
+
+    @Autowired
+    private PersonHelper personHelper;
+
+    @Autowired
+    private PersonHierarchyService svc;
+
+
+    @Test
+    public void incrementalBuildMatchesFullRebuildWhenManagerIsRemoved() {
+        Long top = personHelper.createPerson(mkName("top"));
+        Long mid = personHelper.createPerson(mkName("mid"));
+        Long leaf1 = personHelper.createPerson(mkName("leaf1"));
+        Long leaf2 = personHelper.createPerson(mkName("leaf2"));
+        personHelper.updateManager(mid, top);
+        personHelper.updateManager(leaf1, mid);
+        personHelper.updateManager(leaf2, mid);
+
+        svc.fullRebuild();
+
+        String topEmpId = personHelper.getEmployeeId(top);
+        String midEmpId = personHelper.getEmployeeId(mid);
+        String leaf1EmpId = personHelper.getEmployeeId(leaf1);
+        assertEquals(
+                asSet(tuple(midEmpId, leaf1EmpId, 2), tuple(topEmpId, leaf1EmpId, 1)),
+                fetchRowsForEmployee(leaf1EmpId),
+                "leaf should report to mid and top before mid is removed");
+
+        personHelper.updateIsRemoved(mid, true);
+
+        PersonHierarchyRebuildSummary incremental = svc.build();
+        assertFalse(incremental.fullRebuild(), "second build should be incremental");
+
+        Set<Tuple3<String, String, Integer>> incrementalRows = fetchAllRows();
+
+        assertTrue(fetchRowsForEmployee(leaf1EmpId).isEmpty(), "former reportees should no longer have any managers");
+        assertEquals(
+                0,
+                dsl.fetchCount(PERSON_HIERARCHY, PERSON_HIERARCHY.MANAGER_ID.eq(midEmpId)),
+                "removed manager should not appear as a manager");
+
+        PersonHierarchyRebuildSummary full = svc.fullRebuild();
+        assertEquals(0, full.changedCount(), "full rebuild should have nothing to correct after the incremental build");
+        assertEquals(incrementalRows, fetchAllRows());
+    }
+
+
+    private Set<Tuple3<String, String, Integer>> fetchRowsForEmployee(String employeeId) {
+        return dsl
+                .selectFrom(PERSON_HIERARCHY)
+                .where(PERSON_HIERARCHY.EMPLOYEE_ID.eq(employeeId))
+                .fetchSet(r -> tuple(r.getManagerId(), r.getEmployeeId(), r.getLevel()));
+    }
+
+
+    private Set<Tuple3<String, String, Integer>> fetchAllRows() {
+        return dsl
+                .selectFrom(PERSON_HIERARCHY)
+                .fetchSet(r -> tuple(r.getManagerId(), r.getEmployeeId(), r.getLevel()));
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.data_type.DataTypeDao;
+import org.finos.waltz.data.flow_classification_rule.FlowClassificationDao;
+import org.finos.waltz.data.involvement_kind.InvolvementKindDao;
+import org.finos.waltz.data.measurable_category.MeasurableCategoryDao;
+import org.finos.waltz.data.rating_scheme.RatingSchemeDAO;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.service.reference_data.ReferenceDataService;
+import org.finos.waltz.service.reference_data.ReferenceDataSnapshot;
+import org.finos.waltz.test_common.helpers.DataTypeHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The shared context reloads reference data on every read (see integration-test.properties),
+ * so these tests use their own instance with a non-zero max age.
+ */
+public class ReferenceDataServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private DataTypeDao dataTypeDao;
+
+    @Autowired
+    private FlowClassificationDao flowClassificationDao;
+
+    @Autowired
+    private RatingSchemeDAO ratingSchemeDAO;
+
+    @Autowired
+    private MeasurableCategoryDao measurableCategoryDao;
+
+    @Autowired
+    private InvolvementKindDao involvementKindDao;
+
+    @Autowired
+    private DataTypeHelper dataTypeHelper;
+
+    private ReferenceDataService svc;
+
+
+    @BeforeEach
+    public void setUp() {
+        svc = new ReferenceDataService(
+                dataTypeDao,
+                flowClassificationDao,
+                ratingSchemeDAO,
+                measurableCategoryDao,
+                involvementKindDao,
+                5);
+    }
+
+
+    @Test
+    public void snapshotIsRetainedUntilMarkedStale() {
+        ReferenceDataSnapshot first = svc.getSnapshot();
+
+        Long dtId = dataTypeHelper.createDataType("refDataRetained");
+
+        ReferenceDataSnapshot second = svc.getSnapshot();
+        assertSame(first, second, "snapshot should be reused within the max age");
+        assertFalse(second.dataType(dtId).isPresent(), "direct changes are not visible until the snapshot is reloaded");
+
+        svc.markStale("test");
+
+        ReferenceDataSnapshot third = svc.getSnapshot();
+        assertTrue(third.version() > first.version(), "marking as stale should load a new snapshot");
+        assertTrue(third.dataType(dtId).isPresent(), "new snapshot should include the new data type");
+    }
+
+
+    @Test
+    public void reloadedSnapshotIsReusedByLaterReads() {
+        svc.markStale("test");
+        ReferenceDataSnapshot reloaded = svc.getSnapshot();
+
+        assertSame(reloaded, svc.getSnapshot(), "reloaded snapshot should be reused by later reads");
+    }
+
+}
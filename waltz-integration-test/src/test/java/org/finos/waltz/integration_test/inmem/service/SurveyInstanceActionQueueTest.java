@@ -37,6 +37,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -119,6 +120,28 @@ public class SurveyInstanceActionQueueTest extends BaseInMemoryIntegrationTest {
         Assertions.assertEquals(SurveyInstanceStatus.IN_PROGRESS, instancePostAction.status(), "Survey instance should be 'in progress' after submission, approval and reopen");
     }
 
+    @Test
+    public void processActionsCanHandleActionsForManyInstances() throws InsufficientPrivelegeException {
+        List<SurveyInstance> instances = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            String username = mkName("manyInstances");
+            SurveyInstance instance = setupSurvey("manyInstances" + i, username);
+            actionQueueHelper.addActionToQueue(instance.id().get(), SurveyInstanceAction.SUBMITTING, null, instance.status(), username);
+            actionQueueHelper.addActionToQueue(instance.id().get(), SurveyInstanceAction.APPROVING, null, SurveyInstanceStatus.COMPLETED, username);
+            instances.add(instance);
+        }
+
+        actionQueueService.performActions();
+
+        List<SurveyInstanceActionQueueItem> pendingActionsPostProcess = actionQueueService.findPendingActions();
+        Assertions.assertEquals(0, pendingActionsPostProcess.size(), "No actions should exist in the queue after processing");
+
+        instances.forEach(instance -> Assertions.assertEquals(
+                SurveyInstanceStatus.APPROVED,
+                instanceService.getById(instance.id().get()).status(),
+                "Each survey instance should have been submitted and then approved"));
+    }
+
     @Test
     public void processActionsWillOrderBySubmittedTimeAndOnlyActionFirstIfDuplicates() throws InsufficientPrivelegeException {
         String username = mkName("multipleActions");
@@ -1,13 +1,16 @@
 package org.finos.waltz.integration_test.inmem.service;
 
 import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.bulk_upload.BulkUploadMode;
 import org.finos.waltz.model.user.ImmutableUpdateRolesCommand;
 import org.finos.waltz.model.user.User;
 import org.finos.waltz.service.user.UserRoleService;
+import org.finos.waltz.test_common.helpers.PersonHelper;
 import org.finos.waltz.test_common.helpers.UserHelper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import static org.finos.waltz.common.ListUtilities.asList;
 import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.test_common.helpers.NameHelper.mkName;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -19,6 +22,9 @@ public class UserRoleServiceTest extends BaseInMemoryIntegrationTest {
     @Autowired
     private UserHelper helper;
 
+    @Autowired
+    private PersonHelper personHelper;
+
     @Autowired
     private UserRoleService svc;
 
@@ -98,5 +104,23 @@ public class UserRoleServiceTest extends BaseInMemoryIntegrationTest {
     }
 
 
+    @Test
+    public void bulkGrantsAndRevocationsAreVisibleImmediately() {
+        String userName = mkName("bulkGrantsAndRevocations_User");
+        String roleName = mkName("bulkGrantsAndRevocations_Role");
+        personHelper.createPerson(userName);
+        helper.createUser(userName);
+        helper.createRole(roleName);
+
+        // prime the cached roles for the user
+        assertFalse(svc.hasRole(userName, asSet(roleName)));
+
+        svc.bulkUpload(BulkUploadMode.ADD_ONLY, asList(userName + "," + roleName + ",grant"), "admin");
+        assertTrue(svc.hasRole(userName, asSet(roleName)), "Expecting grant to be visible without waiting for the cache to expire");
+
+        svc.bulkUpload(BulkUploadMode.REMOVE_ONLY, asList(userName + "," + roleName + ",revoke"), "admin");
+        assertFalse(svc.hasRole(userName, asSet(roleName)), "Expecting revocation to be visible without waiting for the cache to expire");
+        assertFalse(svc.hasRole(userName.toUpperCase(), asSet(roleName)), "Expecting revocation to apply regardless of user name case");
+    }
 
 }
@@ -0,0 +1,66 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.model.changelog;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.Severity;
+import org.immutables.value.Value;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A change which is yet to be recorded in the change log.  Unlike {@link ChangeLog} the message
+ * may refer to entities which have not been named, allowing callers to avoid looking up names just
+ * to format a message.
+ *
+ * Each <code>{}</code> in the message template is replaced, in order, by the name of the
+ * corresponding entry in {@link #messageReferences()}.  Names are resolved in bulk when the
+ * event is converted to a {@link ChangeLog}, references which already carry a name are used as-is.
+ */
+@Value.Immutable
+public abstract class ChangeLogEvent {
+
+    public static final String PLACEHOLDER = "{}";
+
+    public abstract EntityReference parentReference();
+    public abstract String messageTemplate();
+    public abstract List<EntityReference> messageReferences();
+    public abstract String userId();
+    public abstract Optional<EntityKind> childKind();
+    public abstract Optional<Long> childId();
+    public abstract Operation operation();
+
+
+    @Value.Default
+    public Severity severity() {
+        return Severity.INFORMATION;
+    }
+
+
+    @Value.Default
+    public LocalDateTime createdAt() {
+        return LocalDateTime.now(ZoneId.of("UTC"));
+    }
+}
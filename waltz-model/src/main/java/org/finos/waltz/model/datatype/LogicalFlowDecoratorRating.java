@@ -0,0 +1,49 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.datatype;
+
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
+import org.immutables.value.Value;
+
+import java.util.Optional;
+
+/**
+ * Minimal view of a logical flow data type decorator, holding just enough
+ * information to (re)calculate its flow classification rating.
+ */
+@Value.Immutable
+public abstract class LogicalFlowDecoratorRating {
+
+    public abstract long decoratorId();
+
+    public abstract long dataTypeId();
+
+    public abstract EntityReference source();
+
+    /**
+     * The org unit of the target application, empty if the flow does not target an application
+     */
+    public abstract Optional<Long> targetOrgUnitId();
+
+    public abstract Optional<AuthoritativenessRatingValue> rating();
+
+    public abstract Optional<Long> flowClassificationRuleId();
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.entity_search;
+
+import org.finos.waltz.model.EntityReference;
+import org.immutables.value.Value;
+
+import java.util.Set;
+
+/**
+ * An entity as held by the in-memory search index.  The entity reference carries
+ * the name, external id and lifecycle status, the aliases hold any additional
+ * identifiers (e.g. entity aliases, email addresses) the entity can be found by.
+ */
+@Value.Immutable
+public abstract class SearchableEntity {
+
+    public abstract EntityReference entityReference();
+
+    public abstract Set<String> aliases();
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.latency;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+/**
+ * Summary of the latencies recorded for a single query fingerprint or endpoint.
+ * Times are in milliseconds, percentiles are approximate.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableLatencySummary.class)
+@JsonDeserialize(as = ImmutableLatencySummary.class)
+public abstract class LatencySummary {
+
+    public abstract String name();
+
+    public abstract long count();
+
+    public abstract double totalMs();
+
+    public abstract double meanMs();
+
+    public abstract double p50Ms();
+
+    public abstract double p95Ms();
+
+    public abstract double p99Ms();
+
+    public abstract double maxMs();
+
+    public abstract long totalRows();
+
+    public abstract double meanRows();
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.model.lineage;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+import java.util.List;
+
+@Value.Immutable
+@JsonSerialize(as = ImmutableLineageResult.class)
+@JsonDeserialize(as = ImmutableLineageResult.class)
+public abstract class LineageResult {
+
+    /**
+     * Edges ordered by depth.  For a path these are the hops from the source to the target,
+     * an empty list indicates no route exists.
+     */
+    public abstract List<LineageEdge> edges();
+
+    /**
+     * True if the result was cut short as it exceeded the maximum number of edges
+     */
+    @Value.Default
+    public boolean truncated() {
+        return false;
+    }
+
+}
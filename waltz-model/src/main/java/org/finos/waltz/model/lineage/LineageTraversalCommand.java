@@ -0,0 +1,54 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.model.lineage;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.Nullable;
+import org.finos.waltz.model.command.Command;
+import org.immutables.value.Value;
+
+/**
+ * Requests the flows upstream (feeding) or downstream (fed by) the starting entity, up to
+ * the given number of hops.  If a data type is given only flows carrying that data type
+ * (or one of its descendants) are followed.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableLineageTraversalCommand.class)
+@JsonDeserialize(as = ImmutableLineageTraversalCommand.class)
+public abstract class LineageTraversalCommand implements Command {
+
+    public abstract EntityReference start();
+
+    @Value.Default
+    public LineageDirection direction() {
+        return LineageDirection.DOWNSTREAM;
+    }
+
+    @Value.Default
+    public int maxDepth() {
+        return 3;
+    }
+
+    @Nullable
+    public abstract Long dataTypeId();
+
+}
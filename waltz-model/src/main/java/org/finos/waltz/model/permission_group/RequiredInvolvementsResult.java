@@ -6,6 +6,7 @@ import org.immutables.value.Value;
 
 import java.util.Set;
 
+import static java.util.Collections.emptySet;
 import static org.finos.waltz.common.SetUtilities.hasIntersection;
 
 @Value.Immutable
@@ -19,6 +20,15 @@ public abstract class RequiredInvolvementsResult {
     public abstract Set<Long> requiredInvolvementKindIds();
 
 
+    /**
+     * Ids of the permission groups which applied to the parent entity when the requirements were determined
+     */
+    @Value.Default
+    public Set<Long> permissionGroupIds() {
+        return emptySet();
+    }
+
+
     public boolean isAllowed(Set<Long> userInvolvementKindIds) {
         return areAllUsersAllowed() ||
                 hasIntersection(requiredInvolvementKindIds(), userInvolvementKindIds);
@@ -0,0 +1,61 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.person;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+/**
+ * Describes the outcome of bringing the person hierarchy table in line with the
+ * reporting lines recorded against each person.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutablePersonHierarchyRebuildSummary.class)
+@JsonDeserialize(as = ImmutablePersonHierarchyRebuildSummary.class)
+public abstract class PersonHierarchyRebuildSummary {
+
+    /**
+     * @return true if every employee was considered, false if only the subtrees of employees whose manager changed
+     */
+    public abstract boolean fullRebuild();
+
+    /**
+     * @return number of employees whose manager changed (or who joined/left) since the previous build
+     */
+    public abstract int managerChangeCount();
+
+    /**
+     * @return number of employees whose hierarchy rows were recalculated
+     */
+    public abstract int affectedEmployeeCount();
+
+    public abstract int insertedCount();
+
+    public abstract int updatedCount();
+
+    public abstract int removedCount();
+
+
+    @Value.Derived
+    public int changedCount() {
+        return insertedCount() + updatedCount() + removedCount();
+    }
+
+}
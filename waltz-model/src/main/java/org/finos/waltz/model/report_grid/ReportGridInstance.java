@@ -16,4 +16,6 @@ public abstract class ReportGridInstance {
     public abstract Set<RatingSchemeItem> ratingSchemeItems();  // color scheme
 
     public abstract Set<ReportGridCell> cellData();  // raw cell data
+
+    public abstract Set<Long> incompleteColumnDefinitionIds();  // columns whose data could not be fetched in time
 }
\ No newline at end of file
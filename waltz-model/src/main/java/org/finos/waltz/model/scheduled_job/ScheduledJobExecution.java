@@ -0,0 +1,63 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.scheduled_job;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.finos.waltz.model.Nullable;
+import org.immutables.value.Value;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Metrics captured for the most recent execution of a scheduled job.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableScheduledJobExecution.class)
+@JsonDeserialize(as = ImmutableScheduledJobExecution.class)
+public abstract class ScheduledJobExecution {
+
+    public abstract JobKey jobKey();
+
+    public abstract JobLifecycleStatus status();
+
+    public abstract LocalDateTime startedAt();
+
+    public abstract LocalDateTime completedAt();
+
+    public abstract long durationMs();
+
+    /**
+     * Time between the job becoming eligible to run (all dependencies complete) and it starting
+     */
+    public abstract long queueWaitMs();
+
+    /**
+     * Number of rows created/updated/removed, if reported by the job
+     */
+    @Nullable
+    public abstract Long rowsTouched();
+
+    @Nullable
+    public abstract String error();
+
+    public abstract Set<JobKey> dependsOn();
+
+}
@@ -23,11 +23,13 @@ import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.finos.waltz.data.DBExecutorPool;
 import org.finos.waltz.data.DBExecutorPoolInterface;
+import org.finos.waltz.service.latency.LatencyMetricsService;
 import org.jooq.DSLContext;
 import org.jooq.SQLDialect;
 import org.jooq.conf.Settings;
 import org.jooq.impl.DSL;
 import org.jooq.impl.DefaultConfiguration;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -37,6 +39,7 @@ import org.springframework.context.annotation.PropertySource;
 import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
 
 import javax.sql.DataSource;
+import java.util.Optional;
 
 
 @Configuration
@@ -68,6 +71,9 @@ public class DIBaseConfiguration {
     @Value("${database.pool.min:2}")
     private int dbPoolMin;
 
+    @Value("${database.executor.per-caller-limit:0}")
+    private int dbExecutorPerCallerLimit;
+
     @Value("${jooq.dialect}")
     private String dialect;
 
@@ -90,13 +96,16 @@ public class DIBaseConfiguration {
 
     @Bean
     public DBExecutorPoolInterface dbExecutorPool() {
-        return new DBExecutorPool(dbPoolMin, dbPoolMax);
+        return dbExecutorPerCallerLimit > 0
+                ? new DBExecutorPool(dbPoolMin, dbPoolMax, dbExecutorPerCallerLimit)
+                : new DBExecutorPool(dbPoolMin, dbPoolMax);
     }
 
 
     @Bean
     @Autowired
-    public DSLContext dsl(DataSource dataSource) {
+    public DSLContext dsl(DataSource dataSource,
+                          ObjectProvider<LatencyMetricsService> latencyMetricsService) {
         try {
             SQLDialect.valueOf(dialect);
         } catch (IllegalArgumentException iae) {
@@ -120,7 +129,10 @@ public class DIBaseConfiguration {
                 .set(dslSettings)
                 .set(
                     //new SlowDatabaseConnectionSimulator(2000),
-                    new SlowQueryListener(databasePerformanceQuerySlowThreshold),
+                    new SlowQueryListener(
+                            databasePerformanceQuerySlowThreshold,
+                            // not scanned by this configuration, only present in full (service) contexts
+                            Optional.ofNullable(latencyMetricsService.getIfAvailable())),
                     new SpringExceptionTranslationExecuteListener(new SQLStateSQLExceptionTranslator()));
 
         return DSL.using(configuration);
@@ -18,14 +18,26 @@
 
 package org.finos.waltz.service;
 
+import org.finos.waltz.data.DBExecutorPoolInterface;
 import org.finos.waltz.model.ImmutableWaltzVersionInfo;
 import org.finos.waltz.model.WaltzVersionInfo;
 import org.finos.waltz.model.authentication.ImmutableOAuthConfiguration;
 import org.finos.waltz.model.authentication.OAuthConfiguration;
 import org.finos.waltz.model.settings.ImmutableSetting;
 import org.finos.waltz.model.settings.Setting;
+import org.finos.waltz.service.access_log.AccessLogService;
+import org.finos.waltz.service.flow_classification_rule.FlowRatingRecalculationQueue;
+import org.finos.waltz.service.jmx.AccessControlCacheMonitor;
+import org.finos.waltz.service.jmx.DBExecutorPoolMonitor;
+import org.finos.waltz.service.jmx.FlowRatingRecalculationMonitor;
+import org.finos.waltz.service.jmx.LatencyMetrics;
 import org.finos.waltz.service.jmx.PersonMaintenance;
+import org.finos.waltz.service.jmx.TelemetryWriteMonitor;
+import org.finos.waltz.service.latency.LatencyMetricsService;
+import org.finos.waltz.service.permission.PermissionDecisionCache;
 import org.finos.waltz.service.person_hierarchy.PersonHierarchyService;
+import org.finos.waltz.service.user.UserRoleService;
+import org.finos.waltz.service.user_agent_info.UserAgentInfoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -140,6 +152,43 @@ public class DIConfiguration implements SchedulingConfigurer {
     }
 
 
+    @Bean
+    @Autowired
+    public DBExecutorPoolMonitor dbExecutorPoolMonitor(DBExecutorPoolInterface dbExecutorPool) {
+        return new DBExecutorPoolMonitor(dbExecutorPool);
+    }
+
+
+    @Bean
+    @Autowired
+    public LatencyMetrics latencyMetrics(LatencyMetricsService latencyMetricsService) {
+        return new LatencyMetrics(latencyMetricsService);
+    }
+
+
+    @Bean
+    @Autowired
+    public AccessControlCacheMonitor accessControlCacheMonitor(UserRoleService userRoleService,
+                                                               PermissionDecisionCache permissionDecisionCache) {
+        return new AccessControlCacheMonitor(userRoleService, permissionDecisionCache);
+    }
+
+
+    @Bean
+    @Autowired
+    public TelemetryWriteMonitor telemetryWriteMonitor(AccessLogService accessLogService,
+                                                       UserAgentInfoService userAgentInfoService) {
+        return new TelemetryWriteMonitor(accessLogService, userAgentInfoService);
+    }
+
+
+    @Bean
+    @Autowired
+    public FlowRatingRecalculationMonitor flowRatingRecalculationMonitor(FlowRatingRecalculationQueue flowRatingRecalculationQueue) {
+        return new FlowRatingRecalculationMonitor(flowRatingRecalculationQueue);
+    }
+
+
     @Bean
     public TaskScheduler taskScheduler() {
         ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
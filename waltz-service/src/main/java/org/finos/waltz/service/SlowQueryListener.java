@@ -19,25 +19,39 @@
 package org.finos.waltz.service;
 
 
+import org.finos.waltz.service.latency.LatencyMetricsService;
 import org.jooq.DSLContext;
 import org.jooq.ExecuteContext;
 import org.jooq.conf.Settings;
 import org.jooq.impl.DSL;
 import org.jooq.impl.DefaultExecuteListener;
-import org.jooq.tools.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
+import static org.finos.waltz.common.Checks.checkNotNull;
 
+
+/**
+ * Records the latency (execution plus fetch) and row count of every query against the
+ * query's fingerprint, see {@link LatencyMetricsService} (if one is available in the context),
+ * and logs any query exceeding the slow query threshold.
+ *
+ * A single listener instance is shared by all executions, so per-execution state is held
+ * in the {@link ExecuteContext} rather than in fields.
+ */
 public class SlowQueryListener extends DefaultExecuteListener {
 
     private static final String PERFORMANCE_APPENDER = "WALTZ.PERFORMANCE";
     private static final Logger LOG = LoggerFactory.getLogger(PERFORMANCE_APPENDER);
 
-    private StopWatch stopWatch;
-    private long slowQueryThresholdInNanos;
+    private static final String START_KEY = SlowQueryListener.class.getName() + ".start";
+    private static final String ROWS_KEY = SlowQueryListener.class.getName() + ".rows";
+
+    private final long slowQueryThresholdInNanos;
+    private final Optional<LatencyMetricsService> latencyMetricsService;
 
     public class SQLPerformanceWarning
             extends Exception {
@@ -48,29 +62,60 @@ public class SlowQueryListener extends DefaultExecuteListener {
     }
 
 
-    public SlowQueryListener(int slowQueryThresholdSeconds) {
+    public SlowQueryListener(int slowQueryThresholdSeconds,
+                             Optional<LatencyMetricsService> latencyMetricsService) {
+        checkNotNull(latencyMetricsService, "latencyMetricsService cannot be null");
         LOG.info("Initialising with {} second threshold", slowQueryThresholdSeconds);
         this.slowQueryThresholdInNanos = TimeUnit.SECONDS.toNanos(slowQueryThresholdSeconds);
+        this.latencyMetricsService = latencyMetricsService;
     }
 
 
     @Override
     public void executeStart(ExecuteContext ctx) {
         super.executeStart(ctx);
-        stopWatch = new StopWatch();
+        ctx.data(START_KEY, System.nanoTime());
+        ctx.data(ROWS_KEY, new long[1]);
     }
 
 
     @Override
-    public void executeEnd(ExecuteContext ctx) {
-        super.executeEnd(ctx);
-        long split = stopWatch.split();
-        if (split > slowQueryThresholdInNanos) {
+    public void recordEnd(ExecuteContext ctx) {
+        super.recordEnd(ctx);
+        Object rows = ctx.data(ROWS_KEY);
+        if (rows != null) {
+            ((long[]) rows)[0]++;
+        }
+    }
+
+
+    @Override
+    public void end(ExecuteContext ctx) {
+        super.end(ctx);
+
+        Object start = ctx.data(START_KEY);
+        if (start == null || ctx.sql() == null) {
+            return; // execution never started (e.g. failed to render)
+        }
+
+        long duration = System.nanoTime() - (Long) start;
+        long fetchedRows = ((long[]) ctx.data(ROWS_KEY))[0];
+
+        latencyMetricsService.ifPresent(s -> s.recordQuery(
+                ctx.sql(),
+                duration,
+                fetchedRows > 0 ? fetchedRows : ctx.rows()));
+
+        if (duration > slowQueryThresholdInNanos) {
             DSLContext context = DSL.using(ctx.dialect(),
                     // ... and the flag for pretty-printing
                     new Settings().withRenderFormatted(true));
 
-            LOG.info(String.format("Slow SQL executed in %d seconds", TimeUnit.NANOSECONDS.toSeconds(split)), new SQLPerformanceWarning(context.renderInlined(ctx.query())));
+            String sql = ctx.query() == null
+                    ? ctx.sql()
+                    : context.renderInlined(ctx.query());
+
+            LOG.info(String.format("Slow SQL executed in %d seconds", TimeUnit.NANOSECONDS.toSeconds(duration)), new SQLPerformanceWarning(sql));
         }
     }
 }
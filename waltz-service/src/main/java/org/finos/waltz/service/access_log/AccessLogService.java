@@ -18,10 +18,13 @@
 
 package org.finos.waltz.service.access_log;
 
+import org.finos.waltz.common.WriteBehindQueue;
 import org.finos.waltz.data.access_log.AccessLogDao;
 import org.finos.waltz.model.accesslog.AccessLog;
 import org.finos.waltz.model.accesslog.AccessTime;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
@@ -34,14 +37,29 @@ import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
 
 
+/**
+ * Access log entries recorded for client navigation are written asynchronously, see
+ * {@link #enqueue(AccessLog)}, so that high volume telemetry does not add latency to requests
+ * or compete with them for database connections.
+ */
 @Service
-public class AccessLogService {
+public class AccessLogService implements DisposableBean {
 
     private final AccessLogDao accessLogDao;
+    private final WriteBehindQueue<AccessLog> writeQueue;
 
     @Autowired
-    public AccessLogService(AccessLogDao accessLogDao) {
+    public AccessLogService(AccessLogDao accessLogDao,
+                            @Value("${access-log.write-behind.capacity:10000}") int capacity,
+                            @Value("${access-log.write-behind.batch-size:500}") int batchSize,
+                            @Value("${access-log.write-behind.flush-interval-ms:1000}") int flushIntervalMillis) {
         this.accessLogDao = accessLogDao;
+        this.writeQueue = new WriteBehindQueue<>(
+                "AccessLog",
+                capacity,
+                batchSize,
+                Duration.ofMillis(flushIntervalMillis),
+                accessLogDao::writeAll);
     }
 
 
@@ -51,6 +69,20 @@ public class AccessLogService {
     }
 
 
+    /**
+     * Queues the entry to be written in a later batch.  Never blocks, if the queue is full the
+     * entry is dropped.  Fields are truncated to their column widths so that an oversized entry
+     * cannot fail the batch it is written in.
+     *
+     * @param logEntry  entry to write
+     * @return true if the entry was queued
+     */
+    public boolean enqueue(AccessLog logEntry) {
+        checkNotNull(logEntry, "logEntry must not be null");
+        return writeQueue.offer(accessLogDao.fitToColumns(logEntry));
+    }
+
+
     public List<AccessLog> findForUserId(String userId,
                                          Optional<Integer> limit) {
         checkNotEmpty(userId, "UserId must not be empty");
@@ -63,4 +95,33 @@ public class AccessLogService {
         return accessLogDao.findActiveUsersSince(sinceTime);
     }
 
+
+    public int pendingWriteCount() {
+        return writeQueue.pendingCount();
+    }
+
+
+    public long writtenCount() {
+        return writeQueue.writtenCount();
+    }
+
+
+    public long droppedCount() {
+        return writeQueue.droppedCount();
+    }
+
+
+    public long failedWriteCount() {
+        return writeQueue.failedCount();
+    }
+
+
+    /**
+     * Flushes any queued entries on shutdown.
+     */
+    @Override
+    public void destroy() {
+        writeQueue.close();
+    }
+
 }
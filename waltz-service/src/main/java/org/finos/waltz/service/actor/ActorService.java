@@ -18,6 +18,7 @@
 
 package org.finos.waltz.service.actor;
 
+import org.finos.waltz.data.EntityReferenceNameResolver;
 import org.finos.waltz.data.actor.ActorDao;
 import org.finos.waltz.data.actor.ActorSearchDao;
 import org.finos.waltz.model.EntityKind;
@@ -31,6 +32,7 @@ import org.finos.waltz.model.command.CommandOutcome;
 import org.finos.waltz.model.command.CommandResponse;
 import org.finos.waltz.model.command.ImmutableCommandResponse;
 import org.finos.waltz.model.entity_search.EntitySearchOptions;
+import org.finos.waltz.service.entity_search.EntitySearchIndexService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -46,15 +48,24 @@ public class ActorService {
 
     private final ActorDao actorDao;
     private final ActorSearchDao actorSearchDao;
+    private final EntityReferenceNameResolver nameResolver;
+    private final EntitySearchIndexService entitySearchIndexService;
 
 
     @Autowired
-    public ActorService(ActorDao actorDao, ActorSearchDao actorSearchDao) {
+    public ActorService(ActorDao actorDao,
+                        ActorSearchDao actorSearchDao,
+                        EntityReferenceNameResolver nameResolver,
+                        EntitySearchIndexService entitySearchIndexService) {
         checkNotNull(actorDao, "actorDao cannot be null");
         checkNotNull(actorSearchDao, "actorSearchDao cannot be null");
+        checkNotNull(nameResolver, "nameResolver cannot be null");
+        checkNotNull(entitySearchIndexService, "entitySearchIndexService cannot be null");
 
         this.actorDao = actorDao;
         this.actorSearchDao = actorSearchDao;
+        this.nameResolver = nameResolver;
+        this.entitySearchIndexService = entitySearchIndexService;
     }
 
 
@@ -72,7 +83,9 @@ public class ActorService {
         checkNotNull(command, "command cannot be null");
         checkNotNull(username, "username cannot be null");
 
-        return actorDao.create(command, username);
+        Long id = actorDao.create(command, username);
+        entitySearchIndexService.markStale(EntityKind.ACTOR);
+        return id;
     }
 
 
@@ -85,6 +98,8 @@ public class ActorService {
                 .withLastUpdate(UserTimestamp.mkForUser(username));
 
         boolean success = actorDao.update(updateCommand);
+        nameResolver.invalidate(EntityReference.mkRef(EntityKind.ACTOR, command.id()));
+        entitySearchIndexService.markStale(EntityKind.ACTOR);
         return ImmutableCommandResponse.<ActorChangeCommand>builder()
                 .originalCommand(command)
                 .entityReference(EntityReference.mkRef(EntityKind.ACTOR, command.id()))
@@ -94,7 +109,9 @@ public class ActorService {
 
 
     public boolean delete(long id) {
-        return actorDao.deleteIfNotUsed(id);
+        boolean deleted = actorDao.deleteIfNotUsed(id);
+        entitySearchIndexService.markStale(EntityKind.ACTOR);
+        return deleted;
     }
 
 
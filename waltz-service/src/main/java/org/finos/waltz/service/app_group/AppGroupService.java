@@ -21,11 +21,13 @@ package org.finos.waltz.service.app_group;
 import org.finos.waltz.common.Checks;
 import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.common.exception.InsufficientPrivelegeException;
+import org.finos.waltz.data.EntityReferenceNameResolver;
 import org.finos.waltz.data.app_group.AppGroupDao;
 import org.finos.waltz.data.app_group.AppGroupEntryDao;
 import org.finos.waltz.data.app_group.AppGroupMemberDao;
 import org.finos.waltz.data.app_group.AppGroupOrganisationalUnitDao;
 import org.finos.waltz.data.application.ApplicationDao;
+import org.finos.waltz.data.application.MaterializedApplicationIdSelectorFactory;
 import org.finos.waltz.data.entity_relationship.EntityRelationshipDao;
 import org.finos.waltz.data.orgunit.OrganisationalUnitDao;
 import org.finos.waltz.model.DiffResult;
@@ -52,6 +54,7 @@ import org.finos.waltz.model.entity_search.EntitySearchOptions;
 import org.finos.waltz.model.orgunit.OrganisationalUnit;
 import org.finos.waltz.service.change_initiative.ChangeInitiativeService;
 import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.report_grid.ReportGridCellStore;
 import org.jooq.lambda.tuple.Tuple2;
 import org.jooq.lambda.tuple.Tuple3;
 import org.slf4j.Logger;
@@ -72,6 +75,7 @@ import static java.lang.String.format;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.ListUtilities.append;
 import static org.finos.waltz.common.MapUtilities.indexBy;
+import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.data.JooqUtilities.summarizeResults;
 import static org.finos.waltz.model.DiffResult.mkDiff;
 import static org.finos.waltz.model.EntityReference.mkRef;
@@ -91,6 +95,9 @@ public class AppGroupService {
     private final EntityRelationshipDao entityRelationshipDao;
     private final ChangeInitiativeService changeInitiativeService;
     private final ChangeLogService changeLogService;
+    private final EntityReferenceNameResolver nameResolver;
+    private final MaterializedApplicationIdSelectorFactory applicationIdSelectorFactory;
+    private final ReportGridCellStore reportGridCellStore;
 
 
     @Autowired
@@ -102,7 +109,10 @@ public class AppGroupService {
                            OrganisationalUnitDao organisationalUnitDao,
                            EntityRelationshipDao entityRelationshipDao,
                            ChangeInitiativeService changeInitiativeService,
-                           ChangeLogService changeLogService) {
+                           ChangeLogService changeLogService,
+                           EntityReferenceNameResolver nameResolver,
+                           MaterializedApplicationIdSelectorFactory applicationIdSelectorFactory,
+                           ReportGridCellStore reportGridCellStore) {
         checkNotNull(appGroupDao, "appGroupDao cannot be null");
         checkNotNull(appGroupEntryDao, "appGroupEntryDao cannot be null");
         checkNotNull(appGroupEntryDao, "appGroupEntryDao cannot be null");
@@ -112,6 +122,9 @@ public class AppGroupService {
         checkNotNull(entityRelationshipDao, "entityRelationshipDao cannot be null");
         checkNotNull(changeInitiativeService, "changeInitiativeService cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
+        checkNotNull(nameResolver, "nameResolver cannot be null");
+        checkNotNull(applicationIdSelectorFactory, "applicationIdSelectorFactory cannot be null");
+        checkNotNull(reportGridCellStore, "reportGridCellStore cannot be null");
 
         this.appGroupDao = appGroupDao;
         this.appGroupMemberDao = appGroupMemberDao;
@@ -122,6 +135,9 @@ public class AppGroupService {
         this.entityRelationshipDao = entityRelationshipDao;
         this.changeInitiativeService = changeInitiativeService;
         this.changeLogService = changeLogService;
+        this.nameResolver = nameResolver;
+        this.applicationIdSelectorFactory = applicationIdSelectorFactory;
+        this.reportGridCellStore = reportGridCellStore;
     }
 
 
@@ -215,6 +231,8 @@ public class AppGroupService {
     public Set<AppGroupSubscription> deleteGroup(String userId, long groupId) throws InsufficientPrivelegeException {
         verifyUserCanUpdateGroup(userId, groupId);
         appGroupDao.deleteGroup(groupId);
+        applicationIdSelectorFactory.invalidateForKind(EntityKind.APP_GROUP);
+        reportGridCellStore.invalidateAll("app group removed");
         entityRelationshipDao.removeAnyInvolving(mkRef(EntityKind.APP_GROUP, groupId));
         audit(groupId, userId, format("Removed group %d", groupId), null, null, Operation.REMOVE);
         return findGroupSubscriptionsForUser(userId);
@@ -228,6 +246,8 @@ public class AppGroupService {
         Application app = applicationDao.getById(applicationId);
         if (app != null) {
             appGroupEntryDao.addApplication(groupId, applicationId);
+            applicationIdSelectorFactory.invalidateForKind(EntityKind.APP_GROUP);
+            invalidateReportGrids(groupId, EntityKind.APPLICATION, asSet(applicationId));
             audit(groupId, userId, format("Added application %s to group", app.name()), EntityKind.APPLICATION, applicationId, Operation.ADD);
         }
 
@@ -242,6 +262,8 @@ public class AppGroupService {
         verifyUserCanUpdateGroup(userId, groupId);
 
         appGroupEntryDao.addApplications(groupId, applicationIds);
+        applicationIdSelectorFactory.invalidateForKind(EntityKind.APP_GROUP);
+        invalidateReportGrids(groupId, EntityKind.APPLICATION, applicationIds);
 
         EntityReference entityReference = mkRef(EntityKind.APP_GROUP, groupId);
         List<Application> apps = applicationDao.findByIds(applicationIds);
@@ -278,6 +300,8 @@ public class AppGroupService {
     public List<AppGroupEntry> removeApplication(String userId, long groupId, long applicationId) throws InsufficientPrivelegeException {
         verifyUserCanUpdateGroup(userId, groupId);
         appGroupEntryDao.removeApplication(groupId, applicationId);
+        applicationIdSelectorFactory.invalidateForKind(EntityKind.APP_GROUP);
+        invalidateReportGrids(groupId, EntityKind.APPLICATION, asSet(applicationId));
         Application app = applicationDao.getById(applicationId);
         audit(groupId, userId, format(
                     "Removed application %s from group",
@@ -296,6 +320,8 @@ public class AppGroupService {
         OrganisationalUnit orgUnit = organisationalUnitDao.getById(orgUnitId);
         if (orgUnit != null) {
             appGroupOrganisationalUnitDao.addOrgUnit(groupId, orgUnitId);
+            applicationIdSelectorFactory.invalidateForKind(EntityKind.APP_GROUP);
+            reportGridCellStore.invalidateForSelector(mkRef(EntityKind.APP_GROUP, groupId));
             audit(groupId, userId, format("Added application %s to group", orgUnit.name()), EntityKind.ORG_UNIT, orgUnitId, Operation.ADD);
         }
         return appGroupOrganisationalUnitDao.getEntriesForGroup(groupId);
@@ -304,6 +330,8 @@ public class AppGroupService {
     public List<AppGroupEntry> removeOrganisationalUnit(String userId, long groupId, long orgUnitId) throws InsufficientPrivelegeException {
         verifyUserCanUpdateGroup(userId, groupId);
         appGroupOrganisationalUnitDao.removeOrgUnit(groupId, orgUnitId);
+        applicationIdSelectorFactory.invalidateForKind(EntityKind.APP_GROUP);
+        reportGridCellStore.invalidateForSelector(mkRef(EntityKind.APP_GROUP, groupId));
         OrganisationalUnit ou = organisationalUnitDao.getById(orgUnitId);
         audit(groupId, userId, format("Removed application %s from group", ou != null ? ou.name() : orgUnitId), EntityKind.ORG_UNIT, orgUnitId, Operation.REMOVE);
         return appGroupOrganisationalUnitDao.getEntriesForGroup(groupId);
@@ -312,6 +340,8 @@ public class AppGroupService {
         verifyUserCanUpdateGroup(userId, groupId);
 
         appGroupEntryDao.removeApplications(groupId, applicationIds);
+        applicationIdSelectorFactory.invalidateForKind(EntityKind.APP_GROUP);
+        invalidateReportGrids(groupId, EntityKind.APPLICATION, applicationIds);
 
         List<Application> apps = applicationDao.findByIds(applicationIds);
         List<ChangeLog> changeLogs = apps
@@ -354,6 +384,7 @@ public class AppGroupService {
     public AppGroupDetail updateOverview(String userId, AppGroup appGroup) throws InsufficientPrivelegeException {
         verifyUserCanUpdateGroup(userId, appGroup.id().get());
         appGroupDao.update(appGroup);
+        nameResolver.invalidate(mkRef(EntityKind.APP_GROUP, appGroup.id().get()));
         audit(appGroup.id().get(), userId, "Updated group overview", null, null, Operation.UPDATE);
         return getGroupDetailById(appGroup.id().get());
     }
@@ -390,6 +421,7 @@ public class AppGroupService {
 
         EntityRelationship entityRelationship = buildChangeInitiativeRelationship(username, groupId, changeInitiativeId);
         entityRelationshipDao.save(entityRelationship);
+        invalidateReportGrids(groupId, EntityKind.CHANGE_INITIATIVE, asSet(changeInitiativeId));
 
         audit(groupId,
                 username,
@@ -410,6 +442,7 @@ public class AppGroupService {
 
         EntityRelationship entityRelationship = buildChangeInitiativeRelationship(username, groupId, changeInitiativeId);
         entityRelationshipDao.remove(entityRelationship.toKey());
+        invalidateReportGrids(groupId, EntityKind.CHANGE_INITIATIVE, asSet(changeInitiativeId));
 
         audit(groupId,
                 username,
@@ -426,6 +459,7 @@ public class AppGroupService {
         verifyUserCanUpdateGroup(userId, groupId);
 
         entityRelationshipDao.saveAll(userId, groupId, changeInitiativeIds);
+        invalidateReportGrids(groupId, EntityKind.CHANGE_INITIATIVE, changeInitiativeIds);
 
         List<ChangeLog> changeInitiativeChangeLogs = changeInitiativeIds
                 .stream()
@@ -448,6 +482,7 @@ public class AppGroupService {
         verifyUserCanUpdateGroup(userId, groupId);
 
         entityRelationshipDao.removeAll(groupId, changeInitiativeIds);
+        invalidateReportGrids(groupId, EntityKind.CHANGE_INITIATIVE, changeInitiativeIds);
 
         List<ChangeLog> changeInitiativeChangeLogs = changeInitiativeIds
                 .stream()
@@ -484,6 +519,8 @@ public class AppGroupService {
 
         appGroupEntryDao.replaceGroupApplicationEntries(appEntriesToUpdate);
         appGroupEntryDao.replaceGroupChangeInitiativeEntries(initiativeEntriesToUpdate);
+        applicationIdSelectorFactory.invalidateForKind(EntityKind.APP_GROUP);
+        reportGridCellStore.invalidateAll("app group entries replaced");
     }
 
 
@@ -510,6 +547,7 @@ public class AppGroupService {
         LOG.debug("Additions: {}, Removals: {}", additions.size(), removals.size());
 
         appGroupDao.processAdditionsAndRemovals(additions, removals, userId);
+        applicationIdSelectorFactory.invalidateForKind(EntityKind.APP_GROUP);
 
         int changeLogCount = summarizeResults(Stream
                 .concat(additions.stream().map(t -> t.concat(Operation.ADD)),
@@ -568,6 +606,16 @@ public class AppGroupService {
     }
 
 
+    /**
+     * Grids selected via the group have different subjects, and the (app group) cells of the
+     * added/removed entries change.
+     */
+    private void invalidateReportGrids(long groupId, EntityKind entryKind, Collection<Long> entryIds) {
+        reportGridCellStore.invalidateForSelector(mkRef(EntityKind.APP_GROUP, groupId));
+        reportGridCellStore.invalidateForSubjects(SetUtilities.map(entryIds, id -> mkRef(entryKind, id)));
+    }
+
+
     private void audit(long groupId, String userId, String message, EntityKind childKind, Long childId, Operation operation) {
         changeLogService.write(ImmutableChangeLog.builder()
                 .message(message)
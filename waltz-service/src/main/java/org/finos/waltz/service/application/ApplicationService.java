@@ -18,8 +18,9 @@
 
 package org.finos.waltz.service.application;
 
+import org.finos.waltz.data.EntityReferenceNameResolver;
 import org.finos.waltz.data.application.ApplicationDao;
-import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
+import org.finos.waltz.data.application.MaterializedApplicationIdSelectorFactory;
 import org.finos.waltz.data.application.search.ApplicationSearchDao;
 import org.finos.waltz.data.entity_alias.EntityAliasDao;
 import org.finos.waltz.model.EntityKind;
@@ -33,6 +34,8 @@ import org.finos.waltz.model.application.AssetCodeRelationshipKind;
 import org.finos.waltz.model.entity_search.EntitySearchOptions;
 import org.finos.waltz.model.external_identifier.ExternalIdValue;
 import org.finos.waltz.model.tally.Tally;
+import org.finos.waltz.service.entity_search.EntitySearchIndexService;
+import org.finos.waltz.service.report_grid.ReportGridCellStore;
 import org.finos.waltz.service.tag.TagService;
 import org.jooq.Record1;
 import org.jooq.Select;
@@ -61,23 +64,38 @@ public class ApplicationService {
     private final TagService tagService;
     private final EntityAliasDao entityAliasDao;
     private final ApplicationSearchDao appSearchDao;
-    private final ApplicationIdSelectorFactory appIdSelectorFactory = new ApplicationIdSelectorFactory();
+    private final EntitySearchIndexService entitySearchIndexService;
+    private final EntityReferenceNameResolver nameResolver;
+    private final MaterializedApplicationIdSelectorFactory appIdSelectorFactory;
+    private final ReportGridCellStore reportGridCellStore;
 
 
     @Autowired
     public ApplicationService(ApplicationDao appDao,
                               TagService tagService,
                               EntityAliasDao entityAliasDao,
-                              ApplicationSearchDao appSearchDao) {
+                              ApplicationSearchDao appSearchDao,
+                              EntitySearchIndexService entitySearchIndexService,
+                              EntityReferenceNameResolver nameResolver,
+                              MaterializedApplicationIdSelectorFactory appIdSelectorFactory,
+                              ReportGridCellStore reportGridCellStore) {
         checkNotNull(appDao, "appDao must not be null");
         checkNotNull(tagService, "tagService must not be null");
         checkNotNull(entityAliasDao, "entityAliasDao must not be null");
         checkNotNull(appSearchDao, "appSearchDao must not be null");
+        checkNotNull(entitySearchIndexService, "entitySearchIndexService must not be null");
+        checkNotNull(nameResolver, "nameResolver must not be null");
+        checkNotNull(appIdSelectorFactory, "appIdSelectorFactory must not be null");
+        checkNotNull(reportGridCellStore, "reportGridCellStore must not be null");
 
         this.applicationDao = appDao;
         this.tagService = tagService;
         this.entityAliasDao = entityAliasDao;
         this.appSearchDao = appSearchDao;
+        this.entitySearchIndexService = entitySearchIndexService;
+        this.nameResolver = nameResolver;
+        this.appIdSelectorFactory = appIdSelectorFactory;
+        this.reportGridCellStore = reportGridCellStore;
     }
 
 
@@ -132,6 +150,8 @@ public class ApplicationService {
                     request.aliases());
 
             tagService.updateTags(entityReference, request.tags(), username);
+            entitySearchIndexService.markStale(EntityKind.APPLICATION);
+            appIdSelectorFactory.invalidateAll();
         }
 
         return response;
@@ -139,7 +159,15 @@ public class ApplicationService {
 
 
     public Integer update(Application application) {
-        return applicationDao.update(application);
+        Integer result = applicationDao.update(application);
+        entitySearchIndexService.markStale(EntityKind.APPLICATION);
+        appIdSelectorFactory.invalidateAll();
+        application.id().ifPresent(id -> {
+            EntityReference ref = EntityReference.mkRef(EntityKind.APPLICATION, id);
+            nameResolver.invalidate(ref);
+            reportGridCellStore.invalidateForSubject(ref);
+        });
+        return result;
     }
 
 
@@ -18,6 +18,7 @@
 
 package org.finos.waltz.service.assessment_rating;
 
+import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.common.exception.InsufficientPrivelegeException;
 import org.finos.waltz.data.GenericSelector;
@@ -34,6 +35,7 @@ import org.finos.waltz.model.rating.RatingScheme;
 import org.finos.waltz.model.rating.RatingSchemeItem;
 import org.finos.waltz.service.changelog.ChangeLogService;
 import org.finos.waltz.service.permission.permission_checker.AssessmentRatingPermissionChecker;
+import org.finos.waltz.service.report_grid.ReportGridCellStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -54,6 +56,7 @@ public class AssessmentRatingService {
     private final RatingSchemeDAO ratingSchemeDAO;
     private final ChangeLogService changeLogService;
     private final AssessmentRatingPermissionChecker assessmentRatingPermissionChecker;
+    private final ReportGridCellStore reportGridCellStore;
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
 
 
@@ -63,20 +66,22 @@ public class AssessmentRatingService {
             AssessmentDefinitionDao assessmentDefinitionDao,
             RatingSchemeDAO ratingSchemeDAO,
             ChangeLogService changeLogService,
-            AssessmentRatingPermissionChecker assessmentRatingPermissionChecker) {
+            AssessmentRatingPermissionChecker assessmentRatingPermissionChecker,
+            ReportGridCellStore reportGridCellStore) {
 
         checkNotNull(assessmentRatingDao, "assessmentRatingDao cannot be null");
         checkNotNull(assessmentDefinitionDao, "assessmentDefinitionDao cannot be null");
         checkNotNull(ratingSchemeDAO, "ratingSchemeDao cannot be null");
         checkNotNull(assessmentRatingPermissionChecker, "ratingPermissionChecker cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
+        checkNotNull(reportGridCellStore, "reportGridCellStore cannot be null");
 
         this.assessmentRatingPermissionChecker = assessmentRatingPermissionChecker;
         this.assessmentRatingDao = assessmentRatingDao;
         this.ratingSchemeDAO = ratingSchemeDAO;
         this.assessmentDefinitionDao = assessmentDefinitionDao;
         this.changeLogService = changeLogService;
-
+        this.reportGridCellStore = reportGridCellStore;
     }
 
 
@@ -105,7 +110,9 @@ public class AssessmentRatingService {
     public int deleteByAssessmentRatingRelatedSelector(EntityKind targetKind,
                                                        IdSelectionOptions selectionOptions) {
         GenericSelector genericSelector = genericSelectorFactory.applyForKind(targetKind, selectionOptions);
-        return assessmentRatingDao.deleteByGenericSelector(genericSelector);
+        int removedCount = assessmentRatingDao.deleteByGenericSelector(genericSelector);
+        reportGridCellStore.invalidateAll("assessment ratings removed by selector");
+        return removedCount;
     }
 
 
@@ -120,7 +127,9 @@ public class AssessmentRatingService {
         AssessmentDefinition assessmentDefinition = assessmentDefinitionDao.getById(command.assessmentDefinitionId());
         createChangeLogEntryForSave(command, username, assessmentDefinition);
 
-        return assessmentRatingDao.store(command);
+        boolean stored = assessmentRatingDao.store(command);
+        reportGridCellStore.invalidateForSubject(command.entityReference());
+        return stored;
     }
 
 
@@ -130,7 +139,9 @@ public class AssessmentRatingService {
                         String username) throws InsufficientPrivelegeException {
 
         verifyPermission(Operation.LOCK, entityReference, assessmentDefinitionId, ratingId, username);
-        return assessmentRatingDao.lock(entityReference, assessmentDefinitionId, ratingId, username);
+        boolean locked = assessmentRatingDao.lock(entityReference, assessmentDefinitionId, ratingId, username);
+        reportGridCellStore.invalidateForSubject(entityReference);
+        return locked;
     }
 
 
@@ -144,11 +155,13 @@ public class AssessmentRatingService {
                 assessmentDefinitionId,
                 ratingId,
                 username);
-        return assessmentRatingDao.unlock(
+        boolean unlocked = assessmentRatingDao.unlock(
                 entityReference,
                 assessmentDefinitionId,
                 ratingId,
                 username);
+        reportGridCellStore.invalidateForSubject(entityReference);
+        return unlocked;
     }
 
 
@@ -183,7 +196,9 @@ public class AssessmentRatingService {
 
         changeLogService.write(logEntry);
 
-        return assessmentRatingDao.bulkRemove(command);
+        boolean removed = assessmentRatingDao.bulkRemove(command);
+        reportGridCellStore.invalidateForSubject(command.entityReference());
+        return removed;
     }
 
 
@@ -208,6 +223,10 @@ public class AssessmentRatingService {
         }
         createChangeLogs(assessmentDefinitionId, username, ratingsToUpdate, Operation.ADD);
 
+        reportGridCellStore.invalidateForSubjects(SetUtilities.map(
+                SetUtilities.union(ratingsToAdd, ratingsToUpdate),
+                AssessmentRating::entityReference));
+
         return addedResult + updatedCommentsResult > 1;
     }
 
@@ -218,6 +237,7 @@ public class AssessmentRatingService {
         Set<AssessmentRating> ratingsToRemove = getRatingsFilterByOperation(commands, assessmentDefinitionId, username, Operation.REMOVE);
         createChangeLogs(assessmentDefinitionId, username, ratingsToRemove, Operation.REMOVE);
         int result = assessmentRatingDao.bulkRemove(ratingsToRemove);
+        reportGridCellStore.invalidateForSubjects(SetUtilities.map(ratingsToRemove, AssessmentRating::entityReference));
 
         return result > 1;
     }
@@ -248,7 +268,9 @@ public class AssessmentRatingService {
                 existingRating.ratingId(),
                 username);
         createUpdateCommentChangeLogs(id, comment, username); // do first so that comment from old rating retained
-        return assessmentRatingDao.updateComment(id, comment, username);
+        boolean updated = assessmentRatingDao.updateComment(id, comment, username);
+        reportGridCellStore.invalidateForSubject(existingRating.entityReference());
+        return updated;
     }
 
     public boolean updateRating(long assessmentRatingId, UpdateRatingCommand cmd, String username) throws InsufficientPrivelegeException {
@@ -263,7 +285,9 @@ public class AssessmentRatingService {
 
         if (definition.cardinality().equals(Cardinality.ZERO_ONE)) {
             createUpdateRatingChangeLogs(existingRating, definition, cmd, username); // do first so that comment from old rating retained
-            return assessmentRatingDao.updateRating(assessmentRatingId, cmd, username);
+            boolean updated = assessmentRatingDao.updateRating(assessmentRatingId, cmd, username);
+            reportGridCellStore.invalidateForSubject(existingRating.entityReference());
+            return updated;
         } else {
             throw new IllegalArgumentException("Cannot update ratings for multi-valued assessments, you must remove the rating then add another");
         }
@@ -34,6 +34,7 @@ import org.finos.waltz.model.person.Person;
 import org.finos.waltz.service.application.ApplicationService;
 import org.finos.waltz.service.changelog.ChangeLogService;
 import org.finos.waltz.service.permission.PermissionGroupService;
+import org.finos.waltz.service.report_grid.ReportGridCellStore;
 import org.jooq.Condition;
 import org.jooq.Record1;
 import org.jooq.Select;
@@ -67,6 +68,7 @@ public class AttestationInstanceService {
     private final PersonDao personDao;
     private final ChangeLogService changeLogService;
     private final PermissionGroupService permissionGroupService;
+    private final ReportGridCellStore reportGridCellStore;
 
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
 
@@ -76,12 +78,14 @@ public class AttestationInstanceService {
                                       AttestationPreCheckService attestationPreCheckService,
                                       ApplicationService applicationService,
                                       PersonDao personDao, ChangeLogService changeLogService,
-                                      PermissionGroupService permissionGroupService) {
+                                      PermissionGroupService permissionGroupService,
+                                      ReportGridCellStore reportGridCellStore) {
 
         checkNotNull(attestationInstanceDao, "attestationInstanceDao cannot be null");
         checkNotNull(attestationRunService, "attestationRunService cannot be null");
         checkNotNull(personDao, "personDao cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
+        checkNotNull(reportGridCellStore, "reportGridCellStore cannot be null");
 
         this.attestationInstanceDao = attestationInstanceDao;
         this.attestationRunService = attestationRunService;
@@ -90,6 +94,7 @@ public class AttestationInstanceService {
         this.personDao = personDao;
         this.changeLogService = changeLogService;
         this.permissionGroupService = permissionGroupService;
+        this.reportGridCellStore = reportGridCellStore;
     }
 
 
@@ -122,6 +127,7 @@ public class AttestationInstanceService {
             AttestationInstance instance = attestationInstanceDao.getById(instanceId);
             AttestationRun run = attestationRunService.getById(instance.attestationRunId());
             logChange(attestedBy, instance, run.attestedEntityKind());
+            reportGridCellStore.invalidateForSubject(instance.parentEntity());
         }
         return success;
     }
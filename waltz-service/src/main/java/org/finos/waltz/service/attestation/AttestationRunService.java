@@ -32,15 +32,11 @@ import org.finos.waltz.model.IdSelectionOptions;
 import org.finos.waltz.model.ImmutableIdCommandResponse;
 import org.finos.waltz.model.attestation.AttestEntityCommand;
 import org.finos.waltz.model.attestation.AttestationCreateSummary;
-import org.finos.waltz.model.attestation.AttestationInstance;
-import org.finos.waltz.model.attestation.AttestationInstanceRecipient;
 import org.finos.waltz.model.attestation.AttestationRun;
 import org.finos.waltz.model.attestation.AttestationRunCreateCommand;
 import org.finos.waltz.model.attestation.AttestationRunRecipient;
 import org.finos.waltz.model.attestation.AttestationRunResponseSummary;
 import org.finos.waltz.model.attestation.ImmutableAttestationCreateSummary;
-import org.finos.waltz.model.attestation.ImmutableAttestationInstance;
-import org.finos.waltz.model.attestation.ImmutableAttestationInstanceRecipient;
 import org.finos.waltz.model.attestation.ImmutableAttestationRunCreateCommand;
 import org.finos.waltz.model.involvement_group.ImmutableInvolvementGroup;
 import org.finos.waltz.model.involvement_group.ImmutableInvolvementGroupCreateCommand;
@@ -48,56 +44,79 @@ import org.finos.waltz.model.involvement_group.InvolvementGroup;
 import org.finos.waltz.model.involvement_group.InvolvementGroupCreateCommand;
 import org.finos.waltz.model.person.Person;
 import org.finos.waltz.service.involvement_group.InvolvementGroupService;
+import org.jooq.DSLContext;
 import org.jooq.Record1;
 import org.jooq.Select;
+import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static java.lang.String.format;
-import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
-import static org.finos.waltz.common.ListUtilities.asList;
-import static org.finos.waltz.common.ListUtilities.isEmpty;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
 import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.SetUtilities.union;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
 import static org.finos.waltz.model.attestation.AttestationStatus.ISSUED;
-import static org.finos.waltz.model.attestation.AttestationStatus.ISSUING;
-import static org.finos.waltz.model.utils.IdUtilities.toIds;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Service
 public class AttestationRunService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(AttestationRunService.class);
+
+    // number of attested entities whose instances and recipients are written per transaction
+    private static final int ISSUANCE_CHUNK_SIZE = 1000;
+
     private final AttestationInstanceDao attestationInstanceDao;
     private final AttestationInstanceRecipientDao attestationInstanceRecipientDao;
     private final AttestationRunDao attestationRunDao;
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
     private final InvolvementDao involvementDao;
     private final InvolvementGroupService involvementGroupService;
+    private final DSLContext dsl;
+    private final int abandonedAfterMinutes;
 
     @Autowired
     public AttestationRunService(AttestationInstanceDao attestationInstanceDao,
                                  AttestationInstanceRecipientDao attestationInstanceRecipientDao,
                                  AttestationRunDao attestationRunDao,
-                                 InvolvementDao involvementDao, InvolvementGroupService involvementGroupService) {
+                                 InvolvementDao involvementDao, InvolvementGroupService involvementGroupService,
+                                 DSLContext dsl,
+                                 @Value("${attestation.issuance.abandoned-after-minutes:30}") int abandonedAfterMinutes) {
         checkNotNull(attestationInstanceRecipientDao, "attestationInstanceRecipientDao cannot be null");
         checkNotNull(attestationInstanceDao, "attestationInstanceDao cannot be null");
         checkNotNull(attestationRunDao, "attestationRunDao cannot be null");
         checkNotNull(involvementDao, "involvementDao cannot be null");
         checkNotNull(involvementGroupService, "involvementGroupService cannot be null");
+        checkNotNull(dsl, "dsl cannot be null");
+        checkTrue(abandonedAfterMinutes > 0, "abandonedAfterMinutes must be positive");
 
         this.attestationInstanceDao = attestationInstanceDao;
         this.attestationInstanceRecipientDao = attestationInstanceRecipientDao;
         this.attestationRunDao = attestationRunDao;
         this.involvementDao = involvementDao;
         this.involvementGroupService = involvementGroupService;
+        this.dsl = dsl;
+        this.abandonedAfterMinutes = abandonedAfterMinutes;
     }
 
 
@@ -165,14 +184,11 @@ public class AttestationRunService {
         Long runId = attestationRunDao.create(userId, command);
         createRecipientsGroup(runId, command.name(), command.involvementKindIds(), userId);
 
-        // generate instances and recipients
-        List<AttestationInstanceRecipient> instanceRecipients = generateAttestationInstanceRecipients(
-                runId,
-                command.attestedEntityKind(),
-                userId);
-
-        // store
-        createAttestationInstancesAndRecipients(instanceRecipients);
+        // generate and store instances and recipients, if this fails the run is left as 'ISSUING' and resumed by issueInstancesForPendingRuns
+        attestationRunDao.markIssuing(runId);
+        AttestationRun attestationRun = attestationRunDao.getById(runId);
+        checkNotNull(attestationRun, "attestationRun " + runId + " not found");
+        issue(attestationRun, userId);
 
         return ImmutableIdCommandResponse.builder()
                 .id(runId)
@@ -180,29 +196,116 @@ public class AttestationRunService {
     }
 
 
-    private List<AttestationInstanceRecipient> generateAttestationInstanceRecipients(long attestationRunId,
-                                                                                     EntityKind attestedEntityKind,
-                                                                                     String userId) {
-        AttestationRun attestationRun = attestationRunDao.getById(attestationRunId);
-        checkNotNull(attestationRun, "attestationRun " + attestationRunId + " not found");
+    /**
+     * Creates the instances and recipients for a run.  Recipients are streamed from the database
+     * and written in chunks (each chunk in its own transaction), so memory use does not depend on
+     * the size of the run.
+     *
+     * Each chunk acts as a checkpoint: entities which already have an instance for the run are
+     * skipped, allowing an interrupted issuance to be resumed.
+     *
+     * @return (instance count, recipient count) created by this call
+     */
+    private Tuple2<Integer, Integer> issueInstances(AttestationRun attestationRun,
+                                                    String userId) {
+        long attestationRunId = attestationRun.id().get();
 
-        if(attestationRun.involvementKindIds().isEmpty()) {
+        if (attestationRun.involvementKindIds().isEmpty()) {
 
-            return asList(mkInstanceRecipient(attestationRunId, attestationRun.selectionOptions().entityReference(), userId, attestedEntityKind));
+            EntityReference ref = attestationRun.selectionOptions().entityReference();
+            checkCanIssueFor(ref.kind());
+
+            Set<Long> alreadyIssued = attestationInstanceDao.findParentEntityIdsForRun(attestationRunId, ref.kind());
+            if (alreadyIssued.contains(ref.id())) {
+                return tuple(0, 0);
+            }
+
+            Map<Long, Set<String>> recipientsByEntityId = new HashMap<>();
+            recipientsByEntityId.put(ref.id(), asSet(userId));
+            return writeChunk(attestationRun, ref.kind(), recipientsByEntityId);
 
         } else {
 
-            Map<EntityReference, List<Person>> entityRefToPeople = getEntityReferenceToPeople(
-                    attestationRun.targetEntityKind(),
-                    attestationRun.selectionOptions(),
-                    attestationRun.involvementKindIds());
+            EntityKind targetEntityKind = attestationRun.targetEntityKind();
+            checkCanIssueFor(targetEntityKind);
+
+            Set<Long> alreadyIssued = attestationInstanceDao.findParentEntityIdsForRun(attestationRunId, targetEntityKind);
+
+            return involvementDao.visitPeopleByEntitySelectorAndInvolvement(
+                    targetEntityKind,
+                    mkIdSelector(targetEntityKind, attestationRun.selectionOptions()),
+                    attestationRun.involvementKindIds(),
+                    people -> {
+                        int instanceCount = 0;
+                        int recipientCount = 0;
+                        Map<Long, Set<String>> chunk = new LinkedHashMap<>();
+
+                        Iterator<Tuple2<Long, String>> iterator = people.iterator();
+                        while (iterator.hasNext()) {
+                            Tuple2<Long, String> entityAndPerson = iterator.next();
+                            if (alreadyIssued.contains(entityAndPerson.v1)) {
+                                continue;
+                            }
+
+                            // rows are ordered by entity, so a full chunk is only written on moving to a new entity
+                            if (chunk.size() >= ISSUANCE_CHUNK_SIZE && ! chunk.containsKey(entityAndPerson.v1)) {
+                                Tuple2<Integer, Integer> written = writeChunk(attestationRun, targetEntityKind, chunk);
+                                instanceCount += written.v1;
+                                recipientCount += written.v2;
+                                chunk.clear();
+                            }
+
+                            chunk.computeIfAbsent(entityAndPerson.v1, k -> new LinkedHashSet<>())
+                                    .add(entityAndPerson.v2);
+                        }
+
+                        Tuple2<Integer, Integer> written = writeChunk(attestationRun, targetEntityKind, chunk);
+                        return tuple(instanceCount + written.v1, recipientCount + written.v2);
+                    });
+        }
+    }
+
+
+    private Tuple2<Integer, Integer> writeChunk(AttestationRun attestationRun,
+                                                EntityKind parentEntityKind,
+                                                Map<Long, Set<String>> recipientsByEntityId) {
+        if (recipientsByEntityId.isEmpty()) {
+            return tuple(0, 0);
+        }
+
+        Tuple2<Integer, Integer> written = dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
 
-            return entityRefToPeople.entrySet()
+            Map<Long, Long> instanceIdsByEntityId = attestationInstanceDao.createAll(
+                    tx,
+                    attestationRun.id().get(),
+                    parentEntityKind,
+                    recipientsByEntityId.keySet(),
+                    attestationRun.attestedEntityKind());
+
+            List<Tuple2<Long, String>> instanceRecipients = recipientsByEntityId
+                    .entrySet()
                     .stream()
-                    .flatMap(e -> e.getValue().stream()
-                            .map(p -> mkInstanceRecipient(attestationRunId, e.getKey(), p.email(), attestedEntityKind)))
-                    .distinct()
+                    .flatMap(e -> e.getValue()
+                            .stream()
+                            .map(userId -> tuple(instanceIdsByEntityId.get(e.getKey()), userId)))
                     .collect(toList());
+
+            int recipientCount = attestationInstanceRecipientDao.createAll(tx, instanceRecipients);
+
+            return tuple(instanceIdsByEntityId.size(), recipientCount);
+        });
+
+        // keeps the claim alive, so the run is not treated as abandoned whilst it is being issued
+        attestationRunDao.refreshIssuingClaim(attestationRun.id().get());
+
+        return written;
+    }
+
+
+    private static void checkCanIssueFor(EntityKind kind) {
+        if (kind != EntityKind.APPLICATION) {
+            throw new IllegalArgumentException("Cannot create attestation instances for entity kind: " + kind);
         }
     }
 
@@ -224,49 +327,6 @@ public class AttestationRunService {
     }
 
 
-    private AttestationInstanceRecipient mkInstanceRecipient(long attestationRunId,
-                                                             EntityReference ref,
-                                                             String userId,
-                                                             EntityKind attestedKind) {
-        switch (ref.kind()) {
-            case APPLICATION:
-                return ImmutableAttestationInstanceRecipient.builder()
-                                .attestationInstance(ImmutableAttestationInstance.builder()
-                                        .attestationRunId(attestationRunId)
-                                        .parentEntity(ref)
-                                        .attestedEntityKind(attestedKind)
-                                        .build())
-                                .userId(userId)
-                                .build();
-            default:
-                throw new IllegalArgumentException("Cannot create attestation instances for entity kind: " + ref.kind());
-        }
-    }
-
-
-    private void createAttestationInstancesAndRecipients(List<AttestationInstanceRecipient> instanceRecipients) {
-
-        Map<AttestationInstance, List<AttestationInstanceRecipient>> instancesAndRecipientsToSave = instanceRecipients
-                .stream()
-                .collect(groupingBy(
-                        AttestationInstanceRecipient::attestationInstance,
-                        toList()
-                ));
-
-
-        // insert new instances and recipients
-        instancesAndRecipientsToSave.forEach(
-                (k, v) -> {
-                    // create instance
-                    long instanceId = attestationInstanceDao.create(k);
-
-                    // create recipients for the instance
-                    v.forEach(r -> attestationInstanceRecipientDao.create(instanceId, r.userId()));
-                }
-        );
-    }
-
-
     public IdCommandResponse createRunForEntity(String username, AttestEntityCommand entityRunCreateCommand) {
         return create(username, mkCreateCommand(entityRunCreateCommand));
     }
@@ -293,27 +353,71 @@ public class AttestationRunService {
     }
 
 
+    /**
+     * Issues instances for all pending runs, and resumes any runs whose issuance was abandoned
+     * (i.e. 'ISSUING' runs which have not written a chunk for `attestation.issuance.abandoned-after-minutes`).
+     * Each run is claimed before it is issued, so runs being issued elsewhere are skipped.
+     * Runs are issued one at a time, a failure is logged and the run is left as 'ISSUING' so it
+     * will be resumed once abandoned.
+     *
+     * @return number of instance recipients created, which (with the job duration) gives the issuance throughput
+     */
     public int issueInstancesForPendingRuns() {
 
+        Timestamp abandonedBefore = Timestamp.valueOf(nowUtc().minusMinutes(abandonedAfterMinutes));
+
+        Set<AttestationRun> abandonedRuns = attestationRunDao.findAbandonedIssuingRuns(abandonedBefore);
         Set<AttestationRun> pendingRuns = attestationRunDao.findPendingRuns();
 
-        List<AttestationInstanceRecipient> instanceRecipients = pendingRuns
-                .stream()
-                .flatMap(run -> generateAttestationInstanceRecipients(
-                            run.id().get(),
-                            run.attestedEntityKind(),
-                            "admin")
-                        .stream())
-                .collect(toList());
-
-        Set<Long> runsBeingIssued = toIds(pendingRuns);
-        attestationRunDao.updateStatusForRunIds(runsBeingIssued, ISSUING);
-
-        if (!isEmpty(instanceRecipients)) {
-            createAttestationInstancesAndRecipients(instanceRecipients);
+        if (! abandonedRuns.isEmpty()) {
+            LOG.info("Resuming issuance of {} abandoned attestation runs", abandonedRuns.size());
+        }
+
+        int recipientCount = 0;
+        for (AttestationRun run : union(abandonedRuns, pendingRuns)) {
+            if (attestationRunDao.claimForIssuing(run.id().get(), abandonedBefore)) {
+                recipientCount += issueRun(run);
+            } else {
+                LOG.info("Attestation run: {} is being issued elsewhere, skipping", run.id().get());
+            }
         }
+        return recipientCount;
+    }
+
+
+    private int issueRun(AttestationRun run) {
+        try {
+            return issue(run, "admin").v2;
+        } catch (Exception e) {
+            LOG.error("Failed to issue attestation run: {}, it will be resumed on the next attempt", run.id().get(), e);
+            return 0;
+        }
+    }
+
+
+    /**
+     * Creates the instances and recipients of a run claimed by the caller and then marks it as 'ISSUED'.
+     * A failure leaves the run as 'ISSUING' so the issuance can be resumed.
+     *
+     * @return (instance count, recipient count) created by this call
+     */
+    private Tuple2<Integer, Integer> issue(AttestationRun run, String userId) {
+        Set<Long> runIds = asSet(run.id().get());
+        long startNanos = System.nanoTime();
+
+        Tuple2<Integer, Integer> issued = issueInstances(run, userId);
+
+        attestationRunDao.updateStatusForRunIds(runIds, ISSUED, userId);
+
+        long durationMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        LOG.info("Issued attestation run: {}, created {} instances and {} recipients in {}ms ({} recipients/s)",
+                run.id().get(),
+                issued.v1,
+                issued.v2,
+                durationMillis,
+                issued.v2 * 1000L / durationMillis);
 
-        return attestationRunDao.updateStatusForRunIds(runsBeingIssued, ISSUED);
+        return issued;
     }
 
 
@@ -0,0 +1,113 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.changelog;
+
+import org.finos.waltz.model.changelog.ChangeLog;
+import org.finos.waltz.model.changelog.ChangeLogEvent;
+import org.jooq.DSLContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+/**
+ * Collects change log entries whilst a transaction is in progress and writes them, as a single
+ * batch, as part of that transaction.  The entries therefore commit (or roll back) atomically with
+ * the changes they describe.
+ *
+ * <pre>
+ *     ChangeLogOutbox outbox = changeLogService.newOutbox();
+ *     dsl.transaction(ctx -> {
+ *         DSLContext tx = ctx.dsl();
+ *         ... make changes, outbox.add(...) ...
+ *         outbox.flush(tx);
+ *     });
+ * </pre>
+ *
+ * Not thread safe, an outbox should be confined to the thread running the transaction.
+ */
+public class ChangeLogOutbox {
+
+    private final ChangeLogService changeLogService;
+    private final List<ChangeLog> changeLogs = new ArrayList<>();
+    private final List<ChangeLogEvent> events = new ArrayList<>();
+
+
+    ChangeLogOutbox(ChangeLogService changeLogService) {
+        this.changeLogService = changeLogService;
+    }
+
+
+    public ChangeLogOutbox add(ChangeLog changeLog) {
+        changeLogs.add(checkNotNull(changeLog, "changeLog cannot be null"));
+        return this;
+    }
+
+
+    public ChangeLogOutbox addAll(Collection<ChangeLog> changeLogs) {
+        checkNotNull(changeLogs, "changeLogs cannot be null");
+        this.changeLogs.addAll(changeLogs);
+        return this;
+    }
+
+
+    /**
+     * Adds a structured event, names referenced by the message are resolved when the outbox is flushed.
+     */
+    public ChangeLogOutbox add(ChangeLogEvent event) {
+        events.add(checkNotNull(event, "event cannot be null"));
+        return this;
+    }
+
+
+    public int size() {
+        return changeLogs.size() + events.size();
+    }
+
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+
+    /**
+     * Writes the collected entries as part of the given transaction and empties the outbox.
+     *
+     * @param tx  transaction which the entries should be written in
+     * @return number of entries written
+     */
+    public int flush(DSLContext tx) {
+        checkNotNull(tx, "tx cannot be null");
+
+        List<ChangeLog> toWrite = new ArrayList<>(changeLogs);
+        toWrite.addAll(changeLogService.toChangeLogs(events));
+        changeLogs.clear();
+        events.clear();
+
+        if (! toWrite.isEmpty()) {
+            changeLogService.write(Optional.of(tx), toWrite);
+        }
+        return toWrite.size();
+    }
+
+}
@@ -32,6 +32,7 @@ import org.finos.waltz.data.physical_flow.PhysicalFlowDao;
 import org.finos.waltz.data.physical_specification.PhysicalSpecificationDao;
 import org.finos.waltz.model.*;
 import org.finos.waltz.model.changelog.ChangeLog;
+import org.finos.waltz.model.changelog.ChangeLogEvent;
 import org.finos.waltz.model.changelog.ImmutableChangeLog;
 import org.finos.waltz.model.external_identifier.ExternalIdValue;
 import org.finos.waltz.model.logical_flow.LogicalFlow;
@@ -42,18 +43,26 @@ import org.finos.waltz.model.physical_flow.PhysicalFlow;
 import org.finos.waltz.model.physical_specification.PhysicalSpecification;
 import org.finos.waltz.model.tally.DateTally;
 import org.jooq.DSLContext;
+import org.jooq.exception.DataAccessException;
 import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 
 import java.sql.Date;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import static java.lang.String.format;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotEmpty;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.SetUtilities.*;
@@ -63,9 +72,18 @@ import static org.finos.waltz.model.EntityReferenceUtilities.safeName;
 import static org.jooq.lambda.tuple.Tuple.tuple;
 
 
+/**
+ * Change log entries are written synchronously, multiple entries are written as a single jdbc batch.
+ * {@link #publish(Collection)} accepts {@link ChangeLogEvent}s, the entity names referenced by their
+ * messages are resolved in bulk (via the cached {@link EntityReferenceNameResolver}) so callers need
+ * not look up names just to format messages.  Transactional callers may collect entries in a
+ * {@link ChangeLogOutbox} and write them as part of their transaction.
+ */
 @Service
 public class ChangeLogService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeLogService.class);
+
     private final ChangeLogDao changeLogDao;
     private final ChangeLogSummariesDao changeLogSummariesDao;
     private final PhysicalFlowDao physicalFlowDao;
@@ -162,8 +180,52 @@ public class ChangeLogService {
     }
 
 
+    /**
+     * Writes the entries as a single (all or nothing) batch.  If the batch fails the entries are retried
+     * individually, so a single bad entry does not lose the rest, and the first failure is then rethrown.
+     */
     public int[] write(Collection<ChangeLog> changeLogs) {
-        return changeLogDao.write(changeLogs);
+        checkNotNull(changeLogs, "changeLogs cannot be null");
+        return writeBatch(changeLogs instanceof List
+                ? (List<ChangeLog>) changeLogs
+                : new ArrayList<>(changeLogs));
+    }
+
+
+    /**
+     * Writes the entries, as a single batch, as part of the given transaction (or as per
+     * {@link #write(Collection)} if no transaction is given).
+     */
+    public int[] write(Optional<DSLContext> tx, Collection<ChangeLog> changeLogs) {
+        return tx.isPresent()
+                ? changeLogDao.write(tx, changeLogs)
+                : write(changeLogs);
+    }
+
+
+    /**
+     * Writes the event, see {@link ChangeLogEvent}.
+     */
+    public void publish(ChangeLogEvent event) {
+        checkNotNull(event, "event cannot be null");
+        publish(singletonList(event));
+    }
+
+
+    /**
+     * Writes the events as a single batch, names referenced by their messages are resolved in bulk.
+     */
+    public void publish(Collection<ChangeLogEvent> events) {
+        checkNotNull(events, "events cannot be null");
+        write(toChangeLogs(events));
+    }
+
+
+    /**
+     * @return an outbox for collecting entries to be written as part of a transaction
+     */
+    public ChangeLogOutbox newOutbox() {
+        return new ChangeLogOutbox(this);
     }
 
 
@@ -280,7 +342,7 @@ public class ChangeLogService {
                         .operation(operation)
                         .build());
 
-        changeLogDao.write(changeLogEntries);
+        write(changeLogEntries);
     }
 
 
@@ -302,7 +364,7 @@ public class ChangeLogService {
                         .operation(operation)
                         .build());
 
-        changeLogDao.write(changeLogEntries);
+        write(changeLogEntries);
     }
 
 
@@ -420,4 +482,86 @@ public class ChangeLogService {
                 .flatMap(EntityReference::name)
                 .orElse("UNKNOWN");
     }
+
+
+    /**
+     * Converts events to change log entries, resolving the names of entities referenced by the
+     * messages in bulk.
+     */
+    List<ChangeLog> toChangeLogs(Collection<ChangeLogEvent> events) {
+        List<EntityReference> unnamedRefs = events
+                .stream()
+                .flatMap(e -> e.messageReferences().stream())
+                .filter(r -> ! r.name().isPresent())
+                .collect(toList());
+
+        Map<Tuple2<EntityKind, Long>, String> names = new HashMap<>();
+        if (! unnamedRefs.isEmpty()) {
+            nameResolver
+                    .resolve(unnamedRefs)
+                    .forEach(r -> r.name().ifPresent(n -> names.put(tuple(r.kind(), r.id()), n)));
+        }
+
+        return events
+                .stream()
+                .map(e -> ImmutableChangeLog
+                        .builder()
+                        .parentReference(e.parentReference())
+                        .message(formatMessage(e, names))
+                        .userId(e.userId())
+                        .childKind(e.childKind())
+                        .childId(e.childId())
+                        .operation(e.operation())
+                        .severity(e.severity())
+                        .createdAt(e.createdAt())
+                        .build())
+                .collect(toList());
+    }
+
+
+    static String formatMessage(ChangeLogEvent event,
+                                Map<Tuple2<EntityKind, Long>, String> names) {
+        String template = event.messageTemplate();
+        StringBuilder sb = new StringBuilder(template.length() + 32);
+        int from = 0;
+        for (EntityReference ref : event.messageReferences()) {
+            int idx = template.indexOf(ChangeLogEvent.PLACEHOLDER, from);
+            if (idx < 0) {
+                break;
+            }
+            String name = ref.name()
+                    .orElseGet(() -> names.getOrDefault(tuple(ref.kind(), ref.id()), safeName(ref)));
+            sb.append(template, from, idx).append(name);
+            from = idx + ChangeLogEvent.PLACEHOLDER.length();
+        }
+        return sb.append(template, from, template.length()).toString();
+    }
+
+
+    private int[] writeBatch(List<ChangeLog> changeLogs) {
+        try {
+            return changeLogDao.write(changeLogs);
+        } catch (DataAccessException e) {
+            LOG.warn("Failed to write batch of {} change log entries, retrying individually", changeLogs.size(), e);
+
+            int[] counts = new int[changeLogs.size()];
+            DataAccessException firstFailure = null;
+            for (int i = 0; i < changeLogs.size(); i++) {
+                ChangeLog changeLog = changeLogs.get(i);
+                try {
+                    counts[i] = changeLogDao.write(Optional.empty(), changeLog);
+                } catch (DataAccessException ex) {
+                    LOG.error("Failed to write change log entry: {}", changeLog, ex);
+                    if (firstFailure == null) {
+                        firstFailure = ex;
+                    }
+                }
+            }
+
+            if (firstFailure != null) {
+                throw firstFailure;
+            }
+            return counts;
+        }
+    }
 }
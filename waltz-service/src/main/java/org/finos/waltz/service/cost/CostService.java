@@ -32,6 +32,7 @@ import org.finos.waltz.model.cost.CostKindWithYears;
 import org.finos.waltz.model.cost.EntityCost;
 import org.finos.waltz.model.cost.EntityCostsSummary;
 import org.finos.waltz.model.cost.ImmutableEntityCostsSummary;
+import org.finos.waltz.service.report_grid.ReportGridCellStore;
 import org.jooq.lambda.tuple.Tuple2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,20 +57,24 @@ public class CostService {
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
     private final CostKindDao costKindDao;
     private final AllocatedCostDefinitionDao allocatedCostDefinitionDao;
+    private final ReportGridCellStore reportGridCellStore;
 
 
     @Autowired
     CostService(CostDao costDao,
                 CostKindDao costKindDao,
-                AllocatedCostDefinitionDao allocatedCostDefinitionDao){
+                AllocatedCostDefinitionDao allocatedCostDefinitionDao,
+                ReportGridCellStore reportGridCellStore){
 
         checkNotNull(allocatedCostDefinitionDao, "allocatedCostDefinitionDao must not be null");
         checkNotNull(costDao, "costDao must not be null");
         checkNotNull(costKindDao, "costKindDao must not be null");
+        checkNotNull(reportGridCellStore, "reportGridCellStore must not be null");
 
         this.allocatedCostDefinitionDao = allocatedCostDefinitionDao;
         this.costKindDao = costKindDao;
         this.costDao = costDao;
+        this.reportGridCellStore = reportGridCellStore;
     }
 
 
@@ -153,6 +158,8 @@ public class CostService {
                     allocateCostsByDefinition(defn, maxYear);
 
                 });
+
+        reportGridCellStore.invalidateAll("allocated costs populated");
     }
 
     public void allocateCostsByDefinition(AllocatedCostDefinition defn, Integer year) {
@@ -20,14 +20,14 @@ package org.finos.waltz.service.data_flow_decorator;
 
 
 import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.lineage.LineageService;
 import org.finos.waltz.service.logical_flow.LogicalFlowService;
 import org.finos.waltz.service.usage_info.DataTypeUsageService;
 import org.finos.waltz.common.Checks;
 import org.finos.waltz.common.ListUtilities;
 import org.finos.waltz.common.SetUtilities;
-import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
+import org.finos.waltz.data.application.MaterializedApplicationIdSelectorFactory;
 import org.finos.waltz.data.data_flow_decorator.LogicalFlowDecoratorSummaryDao;
-import org.finos.waltz.data.data_type.DataTypeDao;
 import org.finos.waltz.data.datatype_decorator.LogicalFlowDecoratorDao;
 import org.finos.waltz.data.logical_flow.LogicalFlowDao;
 import org.finos.waltz.data.logical_flow.LogicalFlowStatsDao;
@@ -41,6 +41,8 @@ import org.finos.waltz.model.datatype.ImmutableDataTypeDecorator;
 import org.finos.waltz.model.logical_flow.ImmutableLogicalFlowMeasures;
 import org.finos.waltz.model.logical_flow.LogicalFlow;
 import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
+import org.finos.waltz.service.reference_data.ReferenceDataService;
+import org.finos.waltz.service.reference_data.ReferenceDataSnapshot;
 import org.jooq.Record1;
 import org.jooq.Select;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -72,11 +74,12 @@ public class LogicalFlowDecoratorService {
     private final LogicalFlowDecoratorSummaryDao logicalFlowDecoratorSummaryDao;
     private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
     private final LogicalFlowDecoratorRatingsCalculator ratingsCalculator;
-    private final ApplicationIdSelectorFactory applicationIdSelectorFactory = new ApplicationIdSelectorFactory();
+    private final MaterializedApplicationIdSelectorFactory applicationIdSelectorFactory;
     private final DataTypeUsageService dataTypeUsageService;
-    private final DataTypeDao dataTypeDao;
+    private final ReferenceDataService referenceDataService;
     private final LogicalFlowDao logicalFlowDao;
     private final ChangeLogService changeLogService;
+    private final LineageService lineageService;
 
 
     @Autowired
@@ -84,28 +87,34 @@ public class LogicalFlowDecoratorService {
                                        LogicalFlowDecoratorDao logicalFlowDecoratorDao,
                                        LogicalFlowDecoratorRatingsCalculator ratingsCalculator,
                                        DataTypeUsageService dataTypeUsageService,
-                                       DataTypeDao dataTypeDao,
+                                       ReferenceDataService referenceDataService,
                                        LogicalFlowDao logicalFlowDao,
                                        LogicalFlowService logicalFlowService,
                                        LogicalFlowStatsDao logicalFlowStatsDao,
-                                       ChangeLogService changeLogService) {
+                                       ChangeLogService changeLogService,
+                                       MaterializedApplicationIdSelectorFactory applicationIdSelectorFactory,
+                                       LineageService lineageService) {
 
         checkNotNull(logicalFlowDecoratorSummaryDao, "logicalFlowDecoratorDao cannot be null");
         checkNotNull(ratingsCalculator, "ratingsCalculator cannot be null");
         checkNotNull(dataTypeUsageService, "dataTypeUsageService cannot be null");
-        checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
+        checkNotNull(referenceDataService, "referenceDataService cannot be null");
         checkNotNull(logicalFlowDao, "logicalFlowDao cannot be null");
         checkNotNull(logicalFlowService, "logicalFlowService cannot be null");
         checkNotNull(logicalFlowStatsDao, "logicalFlowStatsDao cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
+        checkNotNull(applicationIdSelectorFactory, "applicationIdSelectorFactory cannot be null");
+        checkNotNull(lineageService, "lineageService cannot be null");
 
         this.logicalFlowDecoratorSummaryDao = logicalFlowDecoratorSummaryDao;
         this.ratingsCalculator = ratingsCalculator;
         this.dataTypeUsageService = dataTypeUsageService;
-        this.dataTypeDao = dataTypeDao;
+        this.referenceDataService = referenceDataService;
         this.logicalFlowDao = logicalFlowDao;
         this.changeLogService = changeLogService;
         this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
+        this.applicationIdSelectorFactory = applicationIdSelectorFactory;
+        this.lineageService = lineageService;
     }
 
 
@@ -143,6 +152,7 @@ public class LogicalFlowDecoratorService {
                 .collect(Collectors.toList());
 
         dataTypeUsageService.recalculateForApplications(effectedEntities);
+        lineageService.refreshFlows(map(actions, UpdateDataFlowDecoratorsAction::flowId));
         bulkAudit(actions, username, effectedFlows);
 
         return added;
@@ -193,10 +203,12 @@ public class LogicalFlowDecoratorService {
 
 
     private String mkAuditMessage(Operation op, Collection<EntityReference> decoratorReferences) {
-        String dtNames = dataTypeDao
-                .findByIds(map(decoratorReferences, EntityReference::id))
+        ReferenceDataSnapshot referenceData = referenceDataService.getSnapshot();
+        String dtNames = map(decoratorReferences, EntityReference::id)
                 .stream()
-                .map(NameProvider::name)
+                .distinct()
+                .map(id -> referenceData.dataType(id).map(NameProvider::name).orElse(null))
+                .filter(Objects::nonNull)
                 .collect(joining(", ", "", ""));
 
         switch (op) {
@@ -248,7 +260,7 @@ public class LogicalFlowDecoratorService {
 
     private Set<LogicalFlowDecoratorStat> findFlowIdsByDataTypeForParentsAndChildren(Map<DataTypeDirectionKey, List<Long>> logicalFlowIdsByDataType) {
 
-        List<DataType> dataTypes = dataTypeDao.findAll();
+        List<DataType> dataTypes = referenceDataService.getSnapshot().dataTypes();
         Map<Optional<Long>, DataType> dataTypesById = indexBy(IdProvider::id, dataTypes);
 
         return dataTypes
@@ -27,6 +27,7 @@ import org.finos.waltz.data.physical_specification.PhysicalSpecificationDao;
 import org.finos.waltz.model.*;
 import org.finos.waltz.model.assessment_definition.AssessmentDefinition;
 import org.finos.waltz.model.assessment_rating.AssessmentRating;
+import org.finos.waltz.model.changelog.ChangeLog;
 import org.finos.waltz.model.changelog.ImmutableChangeLog;
 import org.finos.waltz.model.datatype.DataTypeDecorator;
 import org.finos.waltz.model.datatype.DataTypeUsageCharacteristics;
@@ -44,18 +45,23 @@ import org.finos.waltz.service.changelog.ChangeLogService;
 import org.finos.waltz.service.data_flow_decorator.LogicalFlowDecoratorRatingsCalculator;
 import org.finos.waltz.service.data_flow_decorator.LogicalFlowDecoratorService;
 import org.finos.waltz.service.flow_classification_rule.FlowClassificationRuleService;
+import org.finos.waltz.service.lineage.LineageService;
 import org.finos.waltz.service.logical_flow.LogicalFlowService;
 import org.finos.waltz.service.physical_specification.PhysicalSpecificationService;
 import org.finos.waltz.service.rating_scheme.RatingSchemeService;
 import org.finos.waltz.service.usage_info.DataTypeUsageService;
+import org.jooq.DSLContext;
 import org.jooq.Record1;
 import org.jooq.Select;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 import static org.finos.waltz.common.Checks.checkNotNull;
@@ -66,6 +72,7 @@ import static org.finos.waltz.common.SetUtilities.map;
 import static org.finos.waltz.model.EntityKind.*;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Service
 public class DataTypeDecoratorService {
@@ -86,6 +93,7 @@ public class DataTypeDecoratorService {
     private final RatingSchemeService ratingSchemeService;
 
     private final FlowClassificationRuleService flowClassificationRuleService;
+    private final LineageService lineageService;
 
     @Autowired
     public DataTypeDecoratorService(ChangeLogService changeLogService,
@@ -101,7 +109,8 @@ public class DataTypeDecoratorService {
                                     AssessmentRatingService assessmentRatingService,
                                     AssessmentDefinitionService assessmentDefinitionService,
                                     RatingSchemeService ratingSchemeService,
-                                    FlowClassificationRuleService flowClassificationRuleService) {
+                                    FlowClassificationRuleService flowClassificationRuleService,
+                                    LineageService lineageService) {
 
         checkNotNull(assessmentDefinitionService, "assessmentDefinitionService cannot be null");
         checkNotNull(assessmentRatingService, "assessmentRatingService cannot be null");
@@ -110,6 +119,7 @@ public class DataTypeDecoratorService {
         checkNotNull(logicalFlowDecoratorService, "logicalFlowDecoratorService cannot be null");
         checkNotNull(physicalSpecificationService, "physicalSpecificationService cannot be null");
         checkNotNull(ratingSchemeService, "ratingSchemeService cannot be null");
+        checkNotNull(lineageService, "lineageService cannot be null");
 
         this.assessmentDefinitionService = assessmentDefinitionService;
         this.assessmentRatingService = assessmentRatingService;
@@ -124,6 +134,7 @@ public class DataTypeDecoratorService {
         this.physicalSpecificationService = physicalSpecificationService;
         this.ratingsCalculator = ratingsCalculator;
         this.ratingSchemeService = ratingSchemeService;
+        this.lineageService = lineageService;
     }
 
 
@@ -205,6 +216,100 @@ public class DataTypeDecoratorService {
     }
 
 
+    /**
+     * Bulk variant of {@link #addDecorators(String, EntityReference, Set)} which only adds the data types
+     * not already associated to each entity.  Existing decorators are looked up, ratings calculated, the
+     * new decorators written, specification data types propagated and the changes audited with a fixed
+     * number of set based operations within the given transaction, regardless of the number of entities.
+     *
+     * Data type usages and lineage are not recalculated, callers should call
+     * {@link #refreshForLogicalFlows(Collection)} once the transaction has committed.
+     *
+     * @param tx  transaction to write the decorators in
+     * @param userName  user making the change
+     * @param entityKind  kind of the decorated entities, either logical flows or physical specifications
+     * @param dataTypeIdsByEntityId  required data type ids keyed by entity id
+     * @return number of decorators added
+     */
+    public int addMissingDecorators(DSLContext tx,
+                                    String userName,
+                                    EntityKind entityKind,
+                                    Map<Long, Set<Long>> dataTypeIdsByEntityId) {
+        checkNotNull(tx, "tx cannot be null");
+        checkNotNull(userName, "userName cannot be null");
+        checkNotNull(entityKind, "entityKind cannot be null");
+        checkNotNull(dataTypeIdsByEntityId, "dataTypeIdsByEntityId cannot be null");
+
+        if (dataTypeIdsByEntityId.isEmpty()) {
+            return 0;
+        }
+
+        DataTypeDecoratorDao dao = dataTypeDecoratorDaoSelectorFactory.getDao(entityKind);
+
+        Set<Tuple2<Long, Long>> existing = map(
+                dao.findByEntityIds(tx, dataTypeIdsByEntityId.keySet()),
+                d -> tuple(d.dataFlowId(), d.dataTypeId()));
+
+        Map<Long, Set<Long>> missingByEntityId = new HashMap<>();
+        dataTypeIdsByEntityId.forEach((entityId, dataTypeIds) -> dataTypeIds
+                .stream()
+                .filter(dtId -> ! existing.contains(tuple(entityId, dtId)))
+                .forEach(dtId -> missingByEntityId
+                        .computeIfAbsent(entityId, k -> new HashSet<>())
+                        .add(dtId)));
+
+        if (missingByEntityId.isEmpty()) {
+            return 0;
+        }
+
+        Collection<DataTypeDecorator> decorators = LOGICAL_DATA_FLOW.equals(entityKind)
+                ? mkLogicalFlowDecorators(tx, userName, missingByEntityId)
+                : missingByEntityId
+                    .entrySet()
+                    .stream()
+                    .flatMap(e -> mkDecorators(userName, mkRef(entityKind, e.getKey()), e.getValue()).stream())
+                    .collect(Collectors.toList());
+
+        int added = IntStream.of(dao.addDecorators(tx, decorators)).sum();
+
+        changeLogService.write(Optional.of(tx), missingByEntityId
+                .entrySet()
+                .stream()
+                .map(e -> mkAuditEntry(
+                        format("Added data types: %s", e.getValue().toString()),
+                        mkRef(entityKind, e.getKey()),
+                        userName))
+                .collect(Collectors.toList()));
+
+        if (PHYSICAL_SPECIFICATION.equals(entityKind)) {
+            physicalSpecificationDao.propagateDataTypesToLogicalFlows(tx, userName, missingByEntityId.keySet());
+        }
+
+        return added;
+    }
+
+
+    /**
+     * Refreshes the lineage and data type usages derived from the decorators of the given logical flows.
+     *
+     * @param logicalFlowIds  flows whose decorators have changed
+     */
+    public void refreshForLogicalFlows(Collection<Long> logicalFlowIds) {
+        checkNotNull(logicalFlowIds, "logicalFlowIds cannot be null");
+
+        if (logicalFlowIds.isEmpty()) {
+            return;
+        }
+
+        lineageService.refreshFlows(logicalFlowIds);
+        dataTypeUsageService.recalculateForApplications(logicalFlowDao
+                .findActiveByFlowIds(logicalFlowIds)
+                .stream()
+                .flatMap(f -> Stream.of(f.source(), f.target()))
+                .collect(Collectors.toSet()));
+    }
+
+
     public int removeDataTypeDecorator(String userName, EntityReference entityReference, Set<Long> dataTypeIds) {
         checkNotNull(userName, "userName cannot be null");
         checkNotNull(dataTypeIds, "dataTypeIds cannot be null");
@@ -224,6 +329,7 @@ public class DataTypeDecoratorService {
 
     private void recalculateDataTypeUsageForApplications(EntityReference associatedEntityReference) {
         if(LOGICAL_DATA_FLOW.equals(associatedEntityReference.kind())) {
+            lineageService.refreshFlows(newArrayList(associatedEntityReference.id()));
             LogicalFlow flow = logicalFlowDao.getByFlowId(associatedEntityReference.id());
             dataTypeUsageService.recalculateForApplications(newArrayList(flow.source(), flow.target()));
         }
@@ -254,6 +360,46 @@ public class DataTypeDecoratorService {
     }
 
 
+    /**
+     * Logical flow decorators start with no opinion, app to app flows are then rated in a single pass
+     */
+    private Collection<DataTypeDecorator> mkLogicalFlowDecorators(DSLContext tx,
+                                                                  String userName,
+                                                                  Map<Long, Set<Long>> dataTypeIdsByFlowId) {
+        // the flows may have been created in this transaction
+        List<LogicalFlow> flows = logicalFlowDao.findActiveByFlowIds(tx, dataTypeIdsByFlowId.keySet());
+
+        Set<Long> appToAppFlowIds = flows
+                .stream()
+                .filter(f -> f.source().kind() == APPLICATION && f.target().kind() == APPLICATION)
+                .map(f -> f.id().get())
+                .collect(Collectors.toSet());
+
+        List<DataTypeDecorator> unrated = new ArrayList<>();
+        List<DataTypeDecorator> toRate = new ArrayList<>();
+
+        dataTypeIdsByFlowId.forEach((flowId, dataTypeIds) -> dataTypeIds.forEach(dtId -> {
+            DataTypeDecorator decorator = mkDecorator(
+                    userName,
+                    mkRef(LOGICAL_DATA_FLOW, flowId),
+                    dtId,
+                    Optional.of(AuthoritativenessRatingValue.NO_OPINION));
+
+            if (appToAppFlowIds.contains(flowId)) {
+                toRate.add(decorator);
+            } else {
+                unrated.add(decorator);
+            }
+        }));
+
+        if (! toRate.isEmpty()) {
+            unrated.addAll(ratingsCalculator.calculate(toRate, flows));
+        }
+
+        return unrated;
+    }
+
+
     private ImmutableDataTypeDecorator mkDecorator(String userName,
                                                    EntityReference entityReference,
                                                    Long dtId,
@@ -309,8 +455,14 @@ public class DataTypeDecoratorService {
     private void audit(String message,
                        EntityReference entityReference,
                        String username) {
+        changeLogService.write(mkAuditEntry(message, entityReference, username));
+    }
 
-        ImmutableChangeLog logEntry = ImmutableChangeLog.builder()
+
+    private static ChangeLog mkAuditEntry(String message,
+                                          EntityReference entityReference,
+                                          String username) {
+        return ImmutableChangeLog.builder()
                 .parentReference(entityReference)
                 .userId(username)
                 .severity(Severity.INFORMATION)
@@ -318,8 +470,6 @@ public class DataTypeDecoratorService {
                 .childKind(EntityKind.DATA_TYPE)
                 .operation(Operation.UPDATE)
                 .build();
-
-        changeLogService.write(logEntry);
     }
 
 
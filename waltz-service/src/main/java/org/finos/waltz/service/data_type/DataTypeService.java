@@ -26,6 +26,7 @@ import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.datatype.DataType;
 import org.finos.waltz.model.entity_search.EntitySearchOptions;
+import org.finos.waltz.service.reference_data.ReferenceDataService;
 import org.jooq.Record1;
 import org.jooq.Select;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -51,29 +52,38 @@ public class DataTypeService {
     private final DataTypeDao dataTypeDao;
     private final DataTypeSearchDao searchDao;
     private final LogicalFlowDao logicalFlowDao;
+    private final ReferenceDataService referenceDataService;
 
 
     @Autowired
     public DataTypeService(DataTypeDao dataTypeDao,
                            DataTypeSearchDao searchDao,
-                           LogicalFlowDao logicalFlowDao) {
+                           LogicalFlowDao logicalFlowDao,
+                           ReferenceDataService referenceDataService) {
         checkNotNull(dataTypeDao, "dataTypeDao must not be null");
         checkNotNull(searchDao, "searchDao cannot be null");
         checkNotNull(logicalFlowDao, "logicalFlowService cannot be null");
+        checkNotNull(referenceDataService, "referenceDataService cannot be null");
 
         this.dataTypeDao = dataTypeDao;
         this.searchDao = searchDao;
         this.logicalFlowDao = logicalFlowDao;
+        this.referenceDataService = referenceDataService;
     }
 
 
     public List<DataType> findAll() {
-        return dataTypeDao.findAll();
+        return referenceDataService
+                .getSnapshot()
+                .dataTypes();
     }
 
 
     public DataType getDataTypeById(long dataTypeId) {
-        return dataTypeDao.getById(dataTypeId);
+        return referenceDataService
+                .getSnapshot()
+                .dataType(dataTypeId)
+                .orElseGet(() -> dataTypeDao.getById(dataTypeId));
     }
 
 
@@ -95,8 +105,7 @@ public class DataTypeService {
      * @return `Optional.of(unknownDataType)` if an unknown datatype has been defined otherwise `Optional.empty()`.
      */
     public Optional<DataType> getUnknownDataType() {
-        return dataTypeDao
-                .findAll()
+        return findAll()
                 .stream()
                 .filter(DataType::unknown)
                 .findFirst();
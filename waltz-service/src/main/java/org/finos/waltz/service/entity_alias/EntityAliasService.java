@@ -21,6 +21,8 @@ package org.finos.waltz.service.entity_alias;
 import org.finos.waltz.common.Checks;
 import org.finos.waltz.data.entity_alias.EntityAliasDao;
 import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.service.entity_search.EntitySearchIndexService;
+import org.finos.waltz.service.report_grid.ReportGridCellStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -31,11 +33,19 @@ import java.util.List;
 public class EntityAliasService {
 
     private final EntityAliasDao entityAliasDao;
+    private final EntitySearchIndexService entitySearchIndexService;
+    private final ReportGridCellStore reportGridCellStore;
 
     @Autowired
-    public EntityAliasService(EntityAliasDao entityAliasDao) {
+    public EntityAliasService(EntityAliasDao entityAliasDao,
+                              EntitySearchIndexService entitySearchIndexService,
+                              ReportGridCellStore reportGridCellStore) {
         Checks.checkNotNull(entityAliasDao, "entityAliasDao cannot be null");
+        Checks.checkNotNull(entitySearchIndexService, "entitySearchIndexService cannot be null");
+        Checks.checkNotNull(reportGridCellStore, "reportGridCellStore cannot be null");
         this.entityAliasDao = entityAliasDao;
+        this.entitySearchIndexService = entitySearchIndexService;
+        this.reportGridCellStore = reportGridCellStore;
     }
 
 
@@ -45,6 +55,9 @@ public class EntityAliasService {
 
 
     public int[] updateAliases(EntityReference ref, Collection<String> aliases) {
-        return entityAliasDao.updateAliases(ref, aliases);
+        int[] result = entityAliasDao.updateAliases(ref, aliases);
+        entitySearchIndexService.markStale(ref.kind());
+        reportGridCellStore.invalidateForSubject(ref);
+        return result;
     }
 }
@@ -74,6 +74,10 @@ public class EntityHierarchyService {
     private final PersonHierarchyService personHierarchyService;
     private final PersonDao personDao;
 
+    // rebuilds diff the stored entity_hierarchy rows against the required rows, so all rebuilds
+    // (e.g. the scheduled jobs for each kind and admin requests) are serialised
+    private final Object rebuildLock = new Object();
+
     @Autowired
     public EntityHierarchyService(DSLContext dsl,
                                   ChangeInitiativeDao changeInitiativeDao,
@@ -151,33 +155,38 @@ public class EntityHierarchyService {
 
     public int buildFor(EntityKind kind) {
         if (kind == PERSON) {
-            int[] rc = personHierarchyService.build();
-            return rc.length;
+            return personHierarchyService
+                    .build()
+                    .changedCount();
         } else {
             Table<?> table = determineTableToRebuild(kind);
-            return buildFor(table, kind, DSL.trueCondition(), DSL.trueCondition());
+            synchronized (rebuildLock) {
+                return buildFor(table, kind, DSL.trueCondition(), DSL.trueCondition());
+            }
         }
     }
 
 
     public int buildForMeasurableByCategory(long categoryId) {
-        return buildFor(MEASURABLE,
-                        EntityKind.MEASURABLE,
-                        MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId),
-                        ENTITY_HIERARCHY.ID.in(select(MEASURABLE.ID)
-                                                .from(MEASURABLE)
-                                                .where(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId))));
+        synchronized (rebuildLock) {
+            return buildFor(MEASURABLE,
+                            EntityKind.MEASURABLE,
+                            MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId),
+                            ENTITY_HIERARCHY.ID.in(select(MEASURABLE.ID)
+                                                    .from(MEASURABLE)
+                                                    .where(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId))));
+        }
     }
 
 
     private int buildFor(Table<?> table,
                          EntityKind kind,
                          Condition selectFilter,
-                         Condition deleteFilter) {
+                         Condition scopeFilter) {
         Collection<FlatNode<Long, Long>> flatNodes = fetchFlatNodes(table, selectFilter);
         List<EntityHierarchyItem> hierarchyItems = convertFlatNodesToHierarchyItems(kind, flatNodes);
 
-        return entityHierarchyDao.replaceHierarchy(kind, hierarchyItems, deleteFilter);
+        return entityHierarchyDao.replaceHierarchy(kind, hierarchyItems, scopeFilter);
     }
 
 
@@ -0,0 +1,390 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.entity_search;
+
+import org.finos.waltz.data.SearchUtilities;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.entity_search.EntitySearchOptions;
+import org.finos.waltz.model.entity_search.SearchableEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+/**
+ * Immutable, in-memory search index over entity names, external ids and aliases.
+ *
+ * Each entity kind has its own trigram inverted index.  Query terms of three or more
+ * characters are used to find candidate entities (those containing every trigram of the
+ * term), the candidates are then scored against all terms.  Every term must match the
+ * name, external id or an alias for an entity to be returned.
+ *
+ * Results are ranked across all kinds, exact matches first, followed by prefix matches,
+ * word prefix matches and finally substring matches.  Matches on the name are preferred over
+ * matches on external ids/aliases.  Ties are broken by favouring shorter names.
+ *
+ * Updates are copy-on-write, see {@link #withKind(EntityKind, Collection)}, so an instance
+ * may be safely shared between threads.
+ */
+public class EntitySearchIndex {
+
+    private static final int NAME_EXACT = 100;
+    private static final int KEY_EXACT = 90;
+    private static final int NAME_PREFIX = 60;
+    private static final int KEY_PREFIX = 50;
+    private static final int NAME_WORD_PREFIX = 40;
+    private static final int NAME_CONTAINS = 20;
+    private static final int KEY_CONTAINS = 10;
+
+    private static final int[] NO_MATCHES = new int[0];
+
+    private static final EntitySearchIndex EMPTY = new EntitySearchIndex(Collections.emptyMap());
+
+
+    private static class Doc {
+        private final EntityReference ref;
+        private final String name;
+        private final String[] keys;
+
+        private Doc(EntityReference ref, String name, String[] keys) {
+            this.ref = ref;
+            this.name = name;
+            this.keys = keys;
+        }
+    }
+
+
+    private static class Hit {
+        private final Doc doc;
+        private final int score;
+
+        private Hit(Doc doc, int score) {
+            this.doc = doc;
+            this.score = score;
+        }
+    }
+
+
+    private static class KindIndex {
+        private final Doc[] docs;
+        private final Map<String, int[]> postings;
+
+        private KindIndex(Doc[] docs, Map<String, int[]> postings) {
+            this.docs = docs;
+            this.postings = postings;
+        }
+    }
+
+
+    private static final Comparator<Hit> RANKING = Comparator
+            .comparingInt((Hit h) -> -h.score)
+            .thenComparingInt(h -> h.doc.name.length())
+            .thenComparing(h -> h.doc.name)
+            .thenComparingLong(h -> h.doc.ref.id());
+
+
+    private final Map<EntityKind, KindIndex> indexesByKind;
+
+
+    private EntitySearchIndex(Map<EntityKind, KindIndex> indexesByKind) {
+        this.indexesByKind = indexesByKind;
+    }
+
+
+    public static EntitySearchIndex empty() {
+        return EMPTY;
+    }
+
+
+    /**
+     * Returns a new index where the entries for the given kind are replaced by the given entities.
+     * Entries for other kinds are shared with this index.
+     */
+    public EntitySearchIndex withKind(EntityKind kind, Collection<SearchableEntity> entities) {
+        checkNotNull(kind, "kind cannot be null");
+        checkNotNull(entities, "entities cannot be null");
+
+        Map<EntityKind, KindIndex> updated = new EnumMap<>(EntityKind.class);
+        updated.putAll(indexesByKind);
+        updated.put(kind, mkKindIndex(entities));
+        return new EntitySearchIndex(updated);
+    }
+
+
+    public Set<EntityKind> getIndexedKinds() {
+        return indexesByKind.isEmpty()
+                ? Collections.emptySet()
+                : Collections.unmodifiableSet(EnumSet.copyOf(indexesByKind.keySet()));
+    }
+
+
+    public boolean isIndexed(EntityKind kind) {
+        return indexesByKind.containsKey(kind);
+    }
+
+
+    public int size() {
+        return indexesByKind
+                .values()
+                .stream()
+                .mapToInt(idx -> idx.docs.length)
+                .sum();
+    }
+
+
+    /**
+     * Searches the indexed kinds listed in the options (other kinds are ignored).
+     * At most `options.limit()` results are returned per entity kind.
+     *
+     * @param options  search query, kinds, lifecycle statuses and limit
+     * @return entity references (with name, external id and lifecycle status) in ranked order
+     */
+    public List<EntityReference> search(EntitySearchOptions options) {
+        checkNotNull(options, "options cannot be null");
+
+        List<String> terms = SearchUtilities
+                .mkTerms(options.searchQuery())
+                .stream()
+                .map(String::toLowerCase)
+                .collect(toList());
+
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<EntityLifecycleStatus> statuses = options.entityLifecycleStatuses().isEmpty()
+                ? EnumSet.noneOf(EntityLifecycleStatus.class)
+                : EnumSet.copyOf(options.entityLifecycleStatuses());
+
+        List<Hit> hits = new ArrayList<>();
+        for (EntityKind kind : options.entityKinds()) {
+            KindIndex index = indexesByKind.get(kind);
+            if (index != null) {
+                hits.addAll(searchKind(index, terms, statuses, options.limit()));
+            }
+        }
+
+        return hits
+                .stream()
+                .sorted(RANKING)
+                .map(h -> h.doc.ref)
+                .collect(toList());
+    }
+
+
+    // --- helpers ---
+
+    private static List<Hit> searchKind(KindIndex index,
+                                        List<String> terms,
+                                        Set<EntityLifecycleStatus> statuses,
+                                        int limit) {
+        int[] candidates = findCandidates(index, terms);
+
+        List<Hit> hits = new ArrayList<>();
+        int candidateCount = candidates == null ? index.docs.length : candidates.length;
+        for (int i = 0; i < candidateCount; i++) {
+            Doc doc = index.docs[candidates == null ? i : candidates[i]];
+            if (! statuses.contains(doc.ref.entityLifecycleStatus())) {
+                continue;
+            }
+            int score = score(doc, terms);
+            if (score > 0) {
+                hits.add(new Hit(doc, score));
+            }
+        }
+
+        hits.sort(RANKING);
+        return hits.size() > limit
+                ? hits.subList(0, limit)
+                : hits;
+    }
+
+
+    /**
+     * @return sorted ids of documents containing every trigram of the (sufficiently long) terms,
+     *      or null if no term is long enough to narrow the candidates
+     */
+    private static int[] findCandidates(KindIndex index, List<String> terms) {
+        int[] candidates = null;
+        for (String term : terms) {
+            for (String trigram : toTrigrams(term)) {
+                int[] docIds = index.postings.get(trigram);
+                if (docIds == null) {
+                    return NO_MATCHES;
+                }
+                candidates = candidates == null
+                        ? docIds
+                        : intersect(candidates, docIds);
+                if (candidates.length == 0) {
+                    return NO_MATCHES;
+                }
+            }
+        }
+        return candidates;
+    }
+
+
+    private static int score(Doc doc, List<String> terms) {
+        int total = 0;
+        for (String term : terms) {
+            int best = scoreName(doc.name, term);
+            for (String key : doc.keys) {
+                best = Math.max(best, scoreKey(key, term));
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+
+    private static int scoreName(String name, String term) {
+        if (name.equals(term)) {
+            return NAME_EXACT;
+        } else if (name.startsWith(term)) {
+            return NAME_PREFIX;
+        }
+
+        int idx = name.indexOf(term);
+        if (idx == -1) {
+            return 0;
+        }
+
+        while (idx != -1) {
+            if (! Character.isLetterOrDigit(name.charAt(idx - 1))) {
+                return NAME_WORD_PREFIX;
+            }
+            idx = name.indexOf(term, idx + 1);
+        }
+        return NAME_CONTAINS;
+    }
+
+
+    private static int scoreKey(String key, String term) {
+        if (key.equals(term)) {
+            return KEY_EXACT;
+        } else if (key.startsWith(term)) {
+            return KEY_PREFIX;
+        } else if (key.contains(term)) {
+            return KEY_CONTAINS;
+        } else {
+            return 0;
+        }
+    }
+
+
+    private static KindIndex mkKindIndex(Collection<SearchableEntity> entities) {
+        Doc[] docs = new Doc[entities.size()];
+        Map<String, int[]> postings = new HashMap<>();
+        Map<String, Integer> postingSizes = new HashMap<>();
+
+        int docId = 0;
+        for (SearchableEntity entity : entities) {
+            EntityReference ref = entity.entityReference();
+
+            List<String> keys = new ArrayList<>();
+            ref.externalId().ifPresent(extId -> keys.add(extId.toLowerCase()));
+            entity.aliases().forEach(alias -> keys.add(alias.toLowerCase()));
+
+            Doc doc = new Doc(ref, ref.name().orElse("").toLowerCase(), keys.stream().distinct().toArray(String[]::new));
+            docs[docId] = doc;
+
+            addPostings(postings, postingSizes, docId, doc.name);
+            for (String key : doc.keys) {
+                addPostings(postings, postingSizes, docId, key);
+            }
+            docId++;
+        }
+
+        postings.replaceAll((trigram, ids) -> Arrays.copyOf(ids, postingSizes.get(trigram)));
+        return new KindIndex(docs, postings);
+    }
+
+
+    /**
+     * Appends the doc id to the postings of each trigram in the value.  Doc ids are added
+     * in increasing order, so each postings array remains sorted and duplicates are adjacent.
+     */
+    private static void addPostings(Map<String, int[]> postings,
+                                    Map<String, Integer> postingSizes,
+                                    int docId,
+                                    String value) {
+        for (String trigram : toTrigrams(value)) {
+            int[] ids = postings.get(trigram);
+            int size = postingSizes.getOrDefault(trigram, 0);
+            if (ids == null) {
+                ids = new int[4];
+                postings.put(trigram, ids);
+            } else if (ids[size - 1] == docId) {
+                continue;
+            } else if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                postings.put(trigram, ids);
+            }
+            ids[size] = docId;
+            postingSizes.put(trigram, size + 1);
+        }
+    }
+
+
+    private static List<String> toTrigrams(String value) {
+        if (value.length() < 3) {
+            return Collections.emptyList();
+        }
+        List<String> trigrams = new ArrayList<>(value.length() - 2);
+        for (int i = 0; i + 3 <= value.length(); i++) {
+            trigrams.add(value.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+}
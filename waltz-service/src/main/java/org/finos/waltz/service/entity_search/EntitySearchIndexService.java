@@ -0,0 +1,169 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.entity_search;
+
+import org.finos.waltz.data.entity_search.EntitySearchIndexDao;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.entity_search.SearchableEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+/**
+ * Maintains the (optional) in-memory {@link EntitySearchIndex}.
+ *
+ * When enabled (`entity-search.index.enabled`) the index is built in the background at
+ * startup and fully rebuilt periodically (`entity-search.index.refresh-minutes`) to pick up
+ * changes made outside of Waltz (e.g. loaders).  Changes made via Waltz should be reported
+ * via {@link #markStale(EntityKind)}, which reloads just the affected kind.  Applications,
+ * actors, measurables and aliases are reported when written; people, org units, change
+ * initiatives, data types and legal entities are only written by loaders so are picked up
+ * by the periodic rebuild.
+ *
+ * Until a kind has been loaded it is not reported as indexed, and searches for that kind
+ * continue to be answered by the database.
+ */
+@Service
+public class EntitySearchIndexService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EntitySearchIndexService.class);
+
+    private final EntitySearchIndexDao entitySearchIndexDao;
+    private final boolean enabled;
+
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "WaltzEntitySearchIndex");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // guarded by 'pending'
+    private final Set<EntityKind> pending = EnumSet.noneOf(EntityKind.class);
+
+    private volatile EntitySearchIndex index = EntitySearchIndex.empty();
+
+
+    @Autowired
+    public EntitySearchIndexService(EntitySearchIndexDao entitySearchIndexDao,
+                                    @Value("${entity-search.index.enabled:false}") boolean enabled,
+                                    @Value("${entity-search.index.refresh-minutes:15}") int refreshMinutes) {
+        checkNotNull(entitySearchIndexDao, "entitySearchIndexDao cannot be null");
+        checkTrue(refreshMinutes > 0, "refreshMinutes must be positive");
+
+        this.entitySearchIndexDao = entitySearchIndexDao;
+        this.enabled = enabled;
+
+        if (enabled) {
+            worker.scheduleWithFixedDelay(
+                    this::rebuild,
+                    0,
+                    refreshMinutes,
+                    TimeUnit.MINUTES);
+        }
+    }
+
+
+    public boolean isIndexed(EntityKind kind) {
+        return enabled && index.isIndexed(kind);
+    }
+
+
+    /**
+     * Returns the current (immutable) index.  Callers should use a single snapshot per request
+     * so the indexed kinds and the search results are consistent with each other.
+     */
+    public EntitySearchIndex getIndex() {
+        return enabled
+                ? index
+                : EntitySearchIndex.empty();
+    }
+
+
+    /**
+     * Requests the entries for the given kind be reloaded.  Returns immediately, multiple
+     * requests for the same kind are coalesced.
+     */
+    public void markStale(EntityKind kind) {
+        if (! enabled || ! EntitySearchIndexDao.getSupportedEntityKinds().contains(kind)) {
+            return;
+        }
+
+        synchronized (pending) {
+            if (worker.isShutdown()) {
+                return;
+            }
+            if (pending.add(kind)) {
+                worker.execute(() -> {
+                    synchronized (pending) {
+                        pending.remove(kind);
+                    }
+                    reload(kind);
+                });
+            }
+        }
+    }
+
+
+    public int size() {
+        return index.size();
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+
+    // --- helpers ---
+
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        EntitySearchIndexDao
+                .getSupportedEntityKinds()
+                .forEach(this::reload);
+        LOG.info("Rebuilt entity search index with {} entries in {}ms", index.size(), System.currentTimeMillis() - start);
+    }
+
+
+    private void reload(EntityKind kind) {
+        try {
+            List<SearchableEntity> entities = new ArrayList<>(entitySearchIndexDao.findSearchableEntities(kind));
+            index = index.withKind(kind, entities);
+            LOG.debug("Reloaded {} {} entities into the search index", entities.size(), kind);
+        } catch (Exception e) {
+            LOG.error("Failed to reload search index entries for kind: {}, existing entries retained", kind, e);
+        }
+    }
+
+}
@@ -34,30 +34,40 @@ import org.finos.waltz.service.physical_specification.PhysicalSpecificationServi
 import org.finos.waltz.service.roadmap.RoadmapService;
 import org.finos.waltz.service.server_information.ServerInformationService;
 import org.finos.waltz.service.software_catalog.SoftwareCatalogService;
+import org.finos.waltz.common.ListUtilities;
 import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.data.DBExecutorPoolInterface;
+import org.finos.waltz.data.InvocationResults;
 import org.finos.waltz.data.SearchUtilities;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.WaltzEntity;
 import org.finos.waltz.model.entity_search.EntitySearchOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Future;
 
 import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
-import static org.jooq.lambda.Unchecked.supplier;
 
 @Service
 public class EntitySearchService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(EntitySearchService.class);
+
+    private static final String SEARCH_CALLER = "entity-search";
+
     private final DBExecutorPoolInterface dbExecutorPool;
+    private final EntitySearchIndexService entitySearchIndexService;
     private final ActorService actorService;
     private final ApplicationService applicationService;
     private final AppGroupService appGroupService;
@@ -74,10 +84,12 @@ public class EntitySearchService {
     private final FlowDiagramService flowDiagramService;
     private final LegalEntityService legalEntityService;
     private final DatabaseInformationService databaseInformationService;
+    private final Duration searchTimeout;
 
 
     @Autowired
     public EntitySearchService(DBExecutorPoolInterface dbExecutorPool,
+                               EntitySearchIndexService entitySearchIndexService,
                                ActorService actorService,
                                ApplicationService applicationService,
                                AppGroupService appGroupService,
@@ -93,9 +105,11 @@ public class EntitySearchService {
                                SoftwareCatalogService softwareCatalogService,
                                FlowDiagramService flowDiagramService,
                                LegalEntityService legalEntityService,
-                               DatabaseInformationService databaseInformationService) {
+                               DatabaseInformationService databaseInformationService,
+                               @Value("${entity-search.timeout-seconds:10}") int searchTimeoutSeconds) {
 
         checkNotNull(dbExecutorPool, "dbExecutorPool cannot be null");
+        checkNotNull(entitySearchIndexService, "entitySearchIndexService cannot be null");
         checkNotNull(actorService, "actorService cannot be null");
         checkNotNull(applicationService, "applicationService cannot be null");
         checkNotNull(appGroupService, "appGroupService cannot be null");
@@ -115,6 +129,7 @@ public class EntitySearchService {
 
         this.actorService = actorService;
         this.dbExecutorPool = dbExecutorPool;
+        this.entitySearchIndexService = entitySearchIndexService;
         this.applicationService = applicationService;
         this.appGroupService = appGroupService;
         this.changeInitiativeService = changeInitiativeService;
@@ -130,6 +145,7 @@ public class EntitySearchService {
         this.softwareCatalogService = softwareCatalogService;
         this.legalEntityService = legalEntityService;
         this.databaseInformationService = databaseInformationService;
+        this.searchTimeout = Duration.ofSeconds(searchTimeoutSeconds);
     }
 
 
@@ -141,17 +157,41 @@ public class EntitySearchService {
             return Collections.emptyList();
         }
 
-        List<Future<Collection<? extends WaltzEntity>>> futures = options
+        // kinds held in the search index are answered (and ranked) in memory, the remainder go to the database
+        EntitySearchIndex index = entitySearchIndexService.getIndex();
+        Set<EntityKind> indexedKinds = index.getIndexedKinds();
+        List<EntityReference> indexedResults = index.search(options);
+
+        List<Callable<Collection<? extends WaltzEntity>>> callables = options
                 .entityKinds()
                 .stream()
-                .map(ek -> dbExecutorPool.submit(mkCallable(ek, options)))
+                .filter(ek -> ! indexedKinds.contains(ek))
+                .map(ek -> mkCallable(ek, options))
                 .collect(toList());
 
-        return futures
+        if (callables.isEmpty()) {
+            return indexedResults;
+        }
+
+        // kinds which fail, or do not respond in time, are omitted rather than failing the whole search
+        InvocationResults<Collection<? extends WaltzEntity>> invocationResults = dbExecutorPool
+                .invokeAll(SEARCH_CALLER, callables, searchTimeout);
+
+        if (invocationResults.isPartial()) {
+            LOG.warn("Search results are incomplete, of {} entity kinds searched in the database {} failed and {} timed out",
+                    callables.size(),
+                    invocationResults.failedCount(),
+                    invocationResults.timedOutCount());
+        }
+
+        List<EntityReference> dbResults = invocationResults
+                .results()
                 .stream()
-                .flatMap(f -> supplier(f::get).get().stream())
+                .flatMap(Collection::stream)
                 .map(WaltzEntity::entityReference)
                 .collect(toList());
+
+        return ListUtilities.concat(indexedResults, dbResults);
     }
 
 
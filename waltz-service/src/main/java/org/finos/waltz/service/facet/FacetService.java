@@ -20,7 +20,7 @@ package org.finos.waltz.service.facet;
 
 
 import org.finos.waltz.data.application.ApplicationDao;
-import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
+import org.finos.waltz.data.application.MaterializedApplicationIdSelectorFactory;
 import org.finos.waltz.model.IdSelectionOptions;
 import org.finos.waltz.model.tally.Tally;
 import org.jooq.Record1;
@@ -39,13 +39,16 @@ public class FacetService {
 
     private final ApplicationDao applicationDao;
 
-    private final ApplicationIdSelectorFactory applicationIdSelectorFactory = new ApplicationIdSelectorFactory();
+    private final MaterializedApplicationIdSelectorFactory applicationIdSelectorFactory;
 
 
     @Autowired
-    public FacetService(ApplicationDao applicationDao) {
+    public FacetService(ApplicationDao applicationDao,
+                        MaterializedApplicationIdSelectorFactory applicationIdSelectorFactory) {
         checkNotNull(applicationDao, "applicationDao cannot be null");
+        checkNotNull(applicationIdSelectorFactory, "applicationIdSelectorFactory cannot be null");
         this.applicationDao = applicationDao;
+        this.applicationIdSelectorFactory = applicationIdSelectorFactory;
     }
 
 
@@ -20,22 +20,21 @@ package org.finos.waltz.service.flow_classification_rule;
 
 import org.finos.waltz.schema.Tables;
 import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.reference_data.ReferenceDataService;
 import org.finos.waltz.common.exception.NotFoundException;
 import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.GenericSelectorFactory;
-import org.finos.waltz.data.actor.ActorDao;
-import org.finos.waltz.data.application.ApplicationDao;
 import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
-import org.finos.waltz.data.data_type.DataTypeDao;
 import org.finos.waltz.data.data_type.DataTypeIdSelectorFactory;
 import org.finos.waltz.data.datatype_decorator.LogicalFlowDecoratorDao;
-import org.finos.waltz.data.flow_classification_rule.FlowClassificationDao;
 import org.finos.waltz.data.flow_classification_rule.FlowClassificationRuleDao;
-import org.finos.waltz.data.orgunit.OrganisationalUnitDao;
 import org.finos.waltz.model.*;
 import org.finos.waltz.model.changelog.ChangeLog;
+import org.finos.waltz.model.changelog.ChangeLogEvent;
 import org.finos.waltz.model.changelog.ImmutableChangeLog;
-import org.finos.waltz.model.datatype.DataType;
+import org.finos.waltz.model.changelog.ImmutableChangeLogEvent;
+import org.finos.waltz.model.datatype.ImmutableLogicalFlowDecoratorRating;
+import org.finos.waltz.model.datatype.LogicalFlowDecoratorRating;
 import org.finos.waltz.model.flow_classification.FlowClassification;
 import org.finos.waltz.model.flow_classification_rule.*;
 import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
@@ -43,6 +42,7 @@ import org.jooq.Condition;
 import org.jooq.Record1;
 import org.jooq.Select;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -51,11 +51,15 @@ import org.springframework.stereotype.Service;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 import static org.finos.waltz.schema.tables.LogicalFlowDecorator.LOGICAL_FLOW_DECORATOR;
 import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.StreamUtilities.batchProcessingCollector;
 import static org.finos.waltz.model.EntityKind.ACTOR;
 import static org.finos.waltz.model.EntityKind.ORG_UNIT;
 import static org.finos.waltz.model.EntityReference.mkRef;
@@ -65,14 +69,12 @@ import static org.finos.waltz.model.EntityReference.mkRef;
 public class FlowClassificationRuleService {
 
     private static final Logger LOG = LoggerFactory.getLogger(FlowClassificationRuleService.class);
+    private static final int RATING_UPDATE_BATCH_SIZE = 1000;
 
     private final FlowClassificationRuleDao flowClassificationRuleDao;
-    private final FlowClassificationDao flowClassificationDao;
-    private final DataTypeDao dataTypeDao;
-    private final OrganisationalUnitDao organisationalUnitDao;
-    private final ApplicationDao applicationDao;
-    private final ActorDao actorDao;
+    private final ReferenceDataService referenceDataService;
     private final FlowClassificationCalculator ratingCalculator;
+    private final FlowRatingRecalculationQueue ratingRecalculationQueue;
     private final ChangeLogService changeLogService;
     private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
     private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory = new DataTypeIdSelectorFactory();
@@ -82,31 +84,22 @@ public class FlowClassificationRuleService {
 
     @Autowired
     public FlowClassificationRuleService(FlowClassificationRuleDao flowClassificationRuleDao,
-                                         FlowClassificationDao flowClassificationDao,
-                                         DataTypeDao dataTypeDao,
-                                         OrganisationalUnitDao organisationalUnitDao,
-                                         ApplicationDao applicationDao,
-                                         ActorDao actorDao,
+                                         ReferenceDataService referenceDataService,
                                          FlowClassificationCalculator ratingCalculator,
+                                         FlowRatingRecalculationQueue ratingRecalculationQueue,
                                          ChangeLogService changeLogService,
                                          LogicalFlowDecoratorDao logicalFlowDecoratorDao) {
         checkNotNull(flowClassificationRuleDao, "flowClassificationRuleDao must not be null");
-        checkNotNull(flowClassificationDao, "flowClassificationDao must not be null");
-        checkNotNull(actorDao, "actorDao must not be null");
-        checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
-        checkNotNull(organisationalUnitDao, "organisationalUnitDao cannot be null");
-        checkNotNull(applicationDao, "applicationDao cannot be null");
+        checkNotNull(referenceDataService, "referenceDataService cannot be null");
         checkNotNull(ratingCalculator, "ratingCalculator cannot be null");
+        checkNotNull(ratingRecalculationQueue, "ratingRecalculationQueue cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
         checkNotNull(logicalFlowDecoratorDao, "logicalFlowDecoratorDao cannot be null");
 
         this.flowClassificationRuleDao = flowClassificationRuleDao;
-        this.flowClassificationDao = flowClassificationDao;
-        this.dataTypeDao = dataTypeDao;
-        this.organisationalUnitDao = organisationalUnitDao;
-        this.applicationDao = applicationDao;
-        this.actorDao = actorDao;
+        this.referenceDataService = referenceDataService;
         this.ratingCalculator = ratingCalculator;
+        this.ratingRecalculationQueue = ratingRecalculationQueue;
         this.changeLogService = changeLogService;
         this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
     }
@@ -138,8 +131,8 @@ public class FlowClassificationRuleService {
                 .id()
                 .orElseThrow(() -> new IllegalArgumentException("cannot update an flow classification rule without an id"));
         FlowClassificationRule updatedClassificationRule = getById(ruleId);
-        ratingCalculator.update(updatedClassificationRule.dataTypeId(), updatedClassificationRule.vantagePointReference());
-        logUpdate(command, username);
+        ratingRecalculationQueue.submit(updatedClassificationRule.dataTypeId(), updatedClassificationRule.vantagePointReference());
+        logUpdate(updatedClassificationRule, command, username);
         return updateCount;
     }
 
@@ -148,7 +141,7 @@ public class FlowClassificationRuleService {
         long classificationRuleId = flowClassificationRuleDao.insert(command, username);
 
         if (command.parentReference().kind() == ORG_UNIT) {
-            ratingCalculator.update(command.dataTypeId(), command.parentReference());
+            ratingRecalculationQueue.submit(command.dataTypeId(), command.parentReference());
         }
 
         logInsert(classificationRuleId, command, username);
@@ -166,7 +159,7 @@ public class FlowClassificationRuleService {
             throw new NotFoundException("ASRM-NF", "Flow Classification Rule not found");
         }
 
-        logRemoval(id, username);
+        logRemoval(classificationRuleToDelete, username);
 
         int deletedCount = flowClassificationRuleDao.remove(id);
 
@@ -176,8 +169,8 @@ public class FlowClassificationRuleService {
 
         LOG.debug("Updated point-point");
         if (classificationRuleToDelete.vantagePointReference().kind() != ACTOR) {
-            LOG.debug("Updating org unit /app flow ratings");
-            ratingCalculator.update(classificationRuleToDelete.dataTypeId(), classificationRuleToDelete.vantagePointReference());
+            LOG.debug("Queueing org unit /app flow rating recalculation");
+            ratingRecalculationQueue.submit(classificationRuleToDelete.dataTypeId(), classificationRuleToDelete.vantagePointReference());
         }
 
         return deletedCount;
@@ -200,27 +193,42 @@ public class FlowClassificationRuleService {
     }
 
 
+    /**
+     * Recalculates the rating of every logical flow decorator in a single pass.
+     *
+     * All rules are expanded (by org unit and data type hierarchies) and loaded into a
+     * {@link FlowClassificationRuleResolver}, alongside the point-to-point rules which override them.
+     * The decorators are then streamed through the resolver and only those whose rating or rule
+     * has changed are written back.
+     *
+     * @return number of decorators updated
+     */
     public int fastRecalculateAllFlowRatings() {
-        logicalFlowDecoratorDao.updateRatingsByCondition(AuthoritativenessRatingValue.NO_OPINION, DSL.trueCondition());
+        FlowClassificationRuleResolver resolver = new FlowClassificationRuleResolver(
+                flowClassificationRuleDao.findAllExpandedFlowClassificationRuleVantagePoints());
 
-        //finds all the vantage points to apply using parent as selector
-        List<FlowClassificationRuleVantagePoint> flowClassificationRuleVantagePoints = flowClassificationRuleDao
-                .findFlowClassificationRuleVantagePoints();
+        Map<Long, Tuple2<String, Long>> pointToPointRatingsByDecoratorId = flowClassificationRuleDao.findPointToPointRatingsByDecoratorId();
 
-        int updatedRuleDecorators = flowClassificationRuleVantagePoints
-                .stream()
-                .mapToInt(logicalFlowDecoratorDao::updateDecoratorsForFlowClassificationRule)
-                .sum();
+        // changes are gathered before writing so the decorator cursor is closed before any updates are issued
+        List<LogicalFlowDecoratorRating> changedRatings = logicalFlowDecoratorDao.visitDecoratorRatings(
+                ratings -> ratings
+                        .map(r -> recalculateRating(resolver, pointToPointRatingsByDecoratorId, r))
+                        .filter(Optional::isPresent)
+                        .map(Optional::get)
+                        .collect(toList()));
 
-        //overrides rating for point to point flows (must run after the above)
-        int updatedPointToPointDecorators = flowClassificationRuleDao.updatePointToPointFlowClassificationRules();
+        int updatedDecorators = changedRatings
+                .stream()
+                .collect(batchProcessingCollector(
+                        RATING_UPDATE_BATCH_SIZE,
+                        logicalFlowDecoratorDao::updateDecoratorRatings));
 
         LOG.info(
-                "Updated decorators for: {} for general rules and {} point-to-point flows",
-                updatedRuleDecorators,
-                updatedPointToPointDecorators);
+                "Updated ratings for {} decorators ({} decorators are covered by point-to-point rules)",
+                updatedDecorators,
+                pointToPointRatingsByDecoratorId.size());
 
-        return updatedRuleDecorators + updatedPointToPointDecorators;
+        return updatedDecorators;
     }
 
 
@@ -233,22 +241,24 @@ public class FlowClassificationRuleService {
     public Integer cleanupOrphans(String userId) {
         Set<EntityReference> entityReferences = flowClassificationRuleDao.cleanupOrphans();
 
-        entityReferences
-                .forEach(ref -> {
+        List<ChangeLog> logEntries = entityReferences
+                .stream()
+                .map(ref -> {
                     String message = ref.kind() == EntityKind.APPLICATION
                             ? "Removed as a flow classification rule source as declaring Org Unit no longer exists"
                             : "Application removed as an flow classification rule source as it no longer exists";
 
-                    ChangeLog logEntry = ImmutableChangeLog.builder()
+                    return (ChangeLog) ImmutableChangeLog.builder()
                             .parentReference(ref)
                             .message(message)
                             .severity(Severity.INFORMATION)
                             .operation(Operation.UPDATE)
                             .userId(userId)
                             .build();
+                })
+                .collect(toList());
 
-                    changeLogService.write(logEntry);
-                });
+        changeLogService.write(logEntries);
 
         return entityReferences.size();
     }
@@ -322,171 +332,144 @@ public class FlowClassificationRuleService {
 
     // -- HELPERS
 
-    private Condition mkConsumerSelectionCondition(IdSelectionOptions options) {
-        Select<Record1<Long>> appIdSelector = applicationIdSelectorFactory.apply(options);
-        return FlowClassificationRuleDao.CONSUMER_APP.ID.in(appIdSelector);
-    }
+    /**
+     * @return  the decorator with its new rating and rule, or empty if neither has changed
+     */
+    private static Optional<LogicalFlowDecoratorRating> recalculateRating(FlowClassificationRuleResolver resolver,
+                                                                         Map<Long, Tuple2<String, Long>> pointToPointRatingsByDecoratorId,
+                                                                         LogicalFlowDecoratorRating current) {
+        Tuple2<String, Long> pointToPointRating = pointToPointRatingsByDecoratorId.get(current.decoratorId());
 
+        AuthoritativenessRatingValue rating;
+        Optional<Long> ruleId;
 
-    private void logRemoval(long id, String username) {
-        FlowClassificationRule rule = getById(id);
+        if (pointToPointRating != null) {
+            rating = AuthoritativenessRatingValue.of(pointToPointRating.v1);
+            ruleId = Optional.of(pointToPointRating.v2);
+        } else {
+            Optional<EntityReference> vantagePoint = current
+                    .targetOrgUnitId()
+                    .map(ouId -> mkRef(ORG_UNIT, ouId));
 
-        if (rule == null) {
-            return;
-        }
+            rating = vantagePoint
+                    .map(vp -> resolver.resolve(vp, current.source(), current.dataTypeId()))
+                    .orElse(AuthoritativenessRatingValue.NO_OPINION);
 
-        String parentName = getParentEntityName(rule.vantagePointReference());
-        DataType dataType = dataTypeDao.getById(rule.dataTypeId());
-        EntityReference subjectRef = enrichSubjectRef(rule.subjectReference());
-
-
-        if (subjectRef != null && dataType != null && parentName != null) {
-            String msg = format(
-                    "Removed the flow classification rule where %s [%s/%d] is a source for type: %s [%d] for %s: %s",
-                    subjectRef.name(),
-                    subjectRef.kind().name(),
-                    subjectRef.id(),
-                    dataType.name(),
-                    dataType.id().get(),
-                    rule.vantagePointReference().kind().prettyName(),
-                    parentName);
-
-            multiLog(username,
-                    id,
-                    rule.vantagePointReference(),
-                    dataType,
-                    subjectRef,
-                    msg,
-                    Operation.REMOVE);
+            ruleId = vantagePoint
+                    .flatMap(vp -> resolver.resolveAuthSource(vp, current.source(), current.dataTypeId()))
+                    .map(FlowClassificationRuleVantagePoint::ruleId);
         }
-    }
-
 
-    private void logInsert(Long ruleId, FlowClassificationRuleCreateCommand command, String username) {
+        boolean isUnchanged = current.rating().equals(Optional.of(rating))
+                && current.flowClassificationRuleId().equals(ruleId);
 
-        String parentName = getParentEntityName(command.parentReference());
-        DataType dataType = dataTypeDao.getById(command.dataTypeId());
-        EntityReference subjectRef = enrichSubjectRef(command.subjectReference());
-
-        if (subjectRef != null && dataType != null && parentName != null) {
-            String msg = format(
-                    "Registered the flow classification rule with %s [%s/%d] as the source for type: %s [%d] for %s: %s",
-                    subjectRef.name(),
-                    subjectRef.kind().name(),
-                    subjectRef.id(),
-                    dataType.name(),
-                    dataType.id().get(),
-                    command.parentReference().kind().prettyName(),
-                    parentName);
-
-            multiLog(
-                    username,
-                    ruleId,
-                    command.parentReference(),
-                    dataType,
-                    subjectRef,
-                    msg,
-                    Operation.ADD);
-        }
+        return isUnchanged
+                ? Optional.empty()
+                : Optional.of(ImmutableLogicalFlowDecoratorRating
+                    .copyOf(current)
+                    .withRating(rating)
+                    .withFlowClassificationRuleId(ruleId));
     }
 
 
-    private String getParentEntityName(EntityReference entityReference) {
-        switch (entityReference.kind()) {
-            case ORG_UNIT:
-                return organisationalUnitDao.getById(entityReference.id()).name();
-            case APPLICATION:
-                return applicationDao.getById(entityReference.id()).name();
-            case ACTOR:
-                return actorDao.getById(entityReference.id()).name();
-            default:
-                throw new IllegalArgumentException(format("Cannot find name for entity kind: %s", entityReference.kind()));
-        }
+    private Condition mkConsumerSelectionCondition(IdSelectionOptions options) {
+        Select<Record1<Long>> appIdSelector = applicationIdSelectorFactory.apply(options);
+        return FlowClassificationRuleDao.CONSUMER_APP.ID.in(appIdSelector);
     }
 
 
-    private void logUpdate(FlowClassificationRuleUpdateCommand command, String username) {
-        FlowClassificationRule rule = getById(command.id().get());
+    private void logRemoval(FlowClassificationRule rule, String username) {
+        String msg = format(
+                "Removed the flow classification rule where {} [%s/%d] is a source for type: {} [%d] for %s: {}",
+                rule.subjectReference().kind().name(),
+                rule.subjectReference().id(),
+                rule.dataTypeId(),
+                rule.vantagePointReference().kind().prettyName());
+
+        multiLog(username,
+                rule.id().get(),
+                rule.vantagePointReference(),
+                rule.dataTypeId(),
+                rule.subjectReference(),
+                msg,
+                Operation.REMOVE);
+    }
 
-        if (rule == null) {
-            return;
-        }
 
-        String parentName = getParentEntityName(rule.vantagePointReference());
-        DataType dataType = dataTypeDao.getById(rule.dataTypeId());
-        EntityReference subjectRef = enrichSubjectRef(rule.subjectReference());
-
-        FlowClassification classification = flowClassificationDao.getById(command.classificationId());
-
-        if (subjectRef != null && dataType != null && parentName != null) {
-
-            String msg = format(
-                    "Updated flow classification rule: %s [%s/%d] as the source, with rating: %s, for type: %s[%d], for %s: %s",
-                    subjectRef.name(),
-                    subjectRef.kind().name(),
-                    subjectRef.id(),
-                    classification.name(),
-                    dataType.name(),
-                    dataType.id().get(),
-                    rule.vantagePointReference().kind().prettyName(),
-                    parentName);
-
-            multiLog(username,
-                    rule.id().get(),
-                    rule.vantagePointReference(),
-                    dataType,
-                    subjectRef,
-                    msg,
-                    Operation.UPDATE);
-        }
+    private void logInsert(Long ruleId, FlowClassificationRuleCreateCommand command, String username) {
+        String msg = format(
+                "Registered the flow classification rule with {} [%s/%d] as the source for type: {} [%d] for %s: {}",
+                command.subjectReference().kind().name(),
+                command.subjectReference().id(),
+                command.dataTypeId(),
+                command.parentReference().kind().prettyName());
+
+        multiLog(username,
+                ruleId,
+                command.parentReference(),
+                command.dataTypeId(),
+                command.subjectReference(),
+                msg,
+                Operation.ADD);
     }
 
 
-    private EntityReference enrichSubjectRef(EntityReference subjectReference) {
-        if (subjectReference.kind().equals(EntityKind.APPLICATION)) {
-            return applicationDao.getById(subjectReference.id()).entityReference();
-        } else if (subjectReference.kind().equals(EntityKind.ACTOR)) {
-            return actorDao.getById(subjectReference.id()).entityReference();
-        } else {
-            return null;
-        }
+    private void logUpdate(FlowClassificationRule rule, FlowClassificationRuleUpdateCommand command, String username) {
+        String classificationName = referenceDataService
+                .getSnapshot()
+                .flowClassification(command.classificationId())
+                .map(FlowClassification::name)
+                .orElse("UNKNOWN");
+
+        String msg = format(
+                "Updated flow classification rule: {} [%s/%d] as the source, with rating: %s, for type: {}[%d], for %s: {}",
+                rule.subjectReference().kind().name(),
+                rule.subjectReference().id(),
+                classificationName,
+                rule.dataTypeId(),
+                rule.vantagePointReference().kind().prettyName());
+
+        multiLog(username,
+                rule.id().get(),
+                rule.vantagePointReference(),
+                rule.dataTypeId(),
+                rule.subjectReference(),
+                msg,
+                Operation.UPDATE);
     }
 
 
+    /**
+     * Logs against the vantage point, subject, data type and the rule itself.  The message template
+     * should refer to the subject, data type and vantage point (in that order), their names are
+     * resolved when the entries are written.
+     */
     private void multiLog(String username,
                           Long classificationRuleId,
-                          EntityReference parentRef,
-                          DataType dataType,
+                          EntityReference vantagePointRef,
+                          long dataTypeId,
                           EntityReference subjectRef,
-                          String msg,
+                          String msgTemplate,
                           Operation operation) {
 
-        ChangeLog parentLog = ImmutableChangeLog.builder()
-                .message(msg)
+        EntityReference dataTypeRef = mkRef(EntityKind.DATA_TYPE, dataTypeId);
+
+        ChangeLogEvent parentLog = ImmutableChangeLogEvent.builder()
+                .messageTemplate(msgTemplate)
+                .messageReferences(asList(subjectRef, dataTypeRef, vantagePointRef))
                 .severity(Severity.INFORMATION)
                 .userId(username)
-                .parentReference(parentRef)
+                .parentReference(vantagePointRef)
                 .childKind(EntityKind.FLOW_CLASSIFICATION_RULE)
                 .childId(classificationRuleId)
                 .operation(operation)
                 .build();
 
-        ChangeLog subjectLog = ImmutableChangeLog
-                .copyOf(parentLog)
-                .withParentReference(subjectRef);
-
-        ChangeLog dtLog = ImmutableChangeLog
-                .copyOf(parentLog)
-                .withParentReference(dataType.entityReference());
-
-        ChangeLog authLog = ImmutableChangeLog
-                .copyOf(parentLog)
-                .withParentReference(mkRef(EntityKind.FLOW_CLASSIFICATION_RULE, classificationRuleId));
-
-        changeLogService.write(parentLog);
-        changeLogService.write(subjectLog);
-        changeLogService.write(dtLog);
-        changeLogService.write(authLog);
+        changeLogService.publish(asList(
+                parentLog,
+                ImmutableChangeLogEvent.copyOf(parentLog).withParentReference(subjectRef),
+                ImmutableChangeLogEvent.copyOf(parentLog).withParentReference(dataTypeRef),
+                ImmutableChangeLogEvent.copyOf(parentLog).withParentReference(mkRef(EntityKind.FLOW_CLASSIFICATION_RULE, classificationRuleId))));
     }
 
 
@@ -20,6 +20,7 @@ package org.finos.waltz.service.flow_classification_rule;
 
 import org.finos.waltz.data.flow_classification_rule.FlowClassificationDao;
 import org.finos.waltz.model.flow_classification.FlowClassification;
+import org.finos.waltz.service.reference_data.ReferenceDataService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -32,18 +33,25 @@ import static org.finos.waltz.common.Checks.checkNotNull;
 public class FlowClassificationService {
 
     private final FlowClassificationDao flowClassificationDao;
+    private final ReferenceDataService referenceDataService;
 
     @Autowired
-    public FlowClassificationService(FlowClassificationDao flowClassificationDao) {
+    public FlowClassificationService(FlowClassificationDao flowClassificationDao,
+                                     ReferenceDataService referenceDataService) {
         checkNotNull(flowClassificationDao, "flowClassificationDao must not be null");
+        checkNotNull(referenceDataService, "referenceDataService must not be null");
 
         this.flowClassificationDao = flowClassificationDao;
+        this.referenceDataService = referenceDataService;
     }
 
     public FlowClassification getById(long id) {
-        return flowClassificationDao.getById(id);
+        return referenceDataService
+                .getSnapshot()
+                .flowClassification(id)
+                .orElseGet(() -> flowClassificationDao.getById(id));
     }
 
-    public Set<FlowClassification> findAll() { return flowClassificationDao.findAll(); }
+    public Set<FlowClassification> findAll() { return referenceDataService.getSnapshot().flowClassifications(); }
 
 }
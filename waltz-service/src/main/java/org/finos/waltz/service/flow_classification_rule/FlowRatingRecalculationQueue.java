@@ -0,0 +1,191 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.flow_classification_rule;
+
+import org.finos.waltz.data.flow_classification_rule.FlowClassificationRuleDao;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+/**
+ * Recalculates flow ratings in the background following a change to a flow classification rule.
+ *
+ * Each change is recorded as a scope (data type, vantage point).  The scope is expanded via the
+ * entity hierarchy to the data type and org unit subtrees and only the decorators in that
+ * scope are re-rated (see {@link FlowClassificationCalculator}).  Pending scopes are de-duplicated
+ * and processed by a single worker thread, so a burst of edits to the same rule results in a
+ * single recalculation.
+ *
+ * Point-to-point rules are re-applied after each batch as they override the general ratings.
+ * The scheduled full recalculation remains as a safety net.
+ */
+@Service
+public class FlowRatingRecalculationQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FlowRatingRecalculationQueue.class);
+
+    private static final Set<EntityKind> SUPPORTED_VANTAGE_POINT_KINDS = asSet(
+            EntityKind.ORG_UNIT,
+            EntityKind.APPLICATION);
+
+    private final BiConsumer<Long, EntityReference> recalculator;
+    private final Runnable pointToPointReapplier;
+    private final ExecutorService worker;
+
+    // guarded by 'pending'
+    private final Set<Tuple2<Long, EntityReference>> pending = new LinkedHashSet<>();
+    private boolean drainScheduled = false;
+
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+
+    @Autowired
+    public FlowRatingRecalculationQueue(FlowClassificationCalculator ratingCalculator,
+                                        FlowClassificationRuleDao flowClassificationRuleDao) {
+        this(checkNotNull(ratingCalculator, "ratingCalculator cannot be null")::update,
+             checkNotNull(flowClassificationRuleDao, "flowClassificationRuleDao cannot be null")::updatePointToPointFlowClassificationRules,
+             Executors.newSingleThreadExecutor(r -> {
+                 Thread t = new Thread(r, "WaltzFlowRatingRecalculation");
+                 t.setDaemon(true);
+                 return t;
+             }));
+    }
+
+
+    FlowRatingRecalculationQueue(BiConsumer<Long, EntityReference> recalculator,
+                                 Runnable pointToPointReapplier,
+                                 ExecutorService worker) {
+        checkNotNull(recalculator, "recalculator cannot be null");
+        checkNotNull(pointToPointReapplier, "pointToPointReapplier cannot be null");
+        checkNotNull(worker, "worker cannot be null");
+
+        this.recalculator = recalculator;
+        this.pointToPointReapplier = pointToPointReapplier;
+        this.worker = worker;
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+
+    /**
+     * Requests the ratings for the given data type (and its descendants) be recalculated for
+     * flows consumed within the vantage point.  Returns immediately.
+     *
+     * @param dataTypeId  data type of the changed rule
+     * @param vantagePoint  vantage point (org unit or application) of the changed rule
+     */
+    public void submit(long dataTypeId, EntityReference vantagePoint) {
+        checkNotNull(vantagePoint, "vantagePoint cannot be null");
+
+        if (! SUPPORTED_VANTAGE_POINT_KINDS.contains(vantagePoint.kind())) {
+            LOG.debug("Ignoring recalculation request for unsupported vantage point: {}", vantagePoint);
+            return;
+        }
+
+        synchronized (pending) {
+            pending.add(tuple(dataTypeId, EntityReference.mkRef(vantagePoint.kind(), vantagePoint.id())));
+            if (! drainScheduled) {
+                drainScheduled = true;
+                worker.submit(this::drain);
+            }
+        }
+    }
+
+
+    public int pendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+
+    public long processedCount() {
+        return processedCount.get();
+    }
+
+
+    public long failedCount() {
+        return failedCount.get();
+    }
+
+
+    // --- helpers ---
+
+    private void drain() {
+        while (true) {
+            List<Tuple2<Long, EntityReference>> scopes;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    drainScheduled = false;
+                    return;
+                }
+                scopes = new ArrayList<>(pending);
+                pending.clear();
+            }
+
+            LOG.debug("Recalculating flow ratings for {} scopes", scopes.size());
+            scopes.forEach(this::recalculate);
+            reapplyPointToPointRules();
+        }
+    }
+
+
+    private void recalculate(Tuple2<Long, EntityReference> scope) {
+        try {
+            recalculator.accept(scope.v1, scope.v2);
+            processedCount.incrementAndGet();
+        } catch (Exception e) {
+            failedCount.incrementAndGet();
+            LOG.error("Failed to recalculate flow ratings for data type: {} and vantage point: {}", scope.v1, scope.v2, e);
+        }
+    }
+
+
+    private void reapplyPointToPointRules() {
+        try {
+            pointToPointReapplier.run();
+        } catch (Exception e) {
+            LOG.error("Failed to re-apply point-to-point flow classification rules", e);
+        }
+    }
+
+}
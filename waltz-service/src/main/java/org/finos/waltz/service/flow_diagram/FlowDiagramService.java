@@ -24,6 +24,7 @@ import org.finos.waltz.common.DateTimeUtilities;
 import org.finos.waltz.common.ListUtilities;
 import org.finos.waltz.common.RandomUtilities;
 import org.finos.waltz.common.SetUtilities;
+import org.finos.waltz.data.EntityReferenceNameResolver;
 import org.finos.waltz.data.actor.ActorDao;
 import org.finos.waltz.data.application.ApplicationDao;
 import org.finos.waltz.data.change_initiative.ChangeInitiativeDao;
@@ -91,6 +92,7 @@ public class FlowDiagramService {
     private final LogicalFlowIdSelectorFactory logicalFlowIdSelectorFactory = new LogicalFlowIdSelectorFactory();
     private final MeasurableDao measurableDao;
     private final ChangeInitiativeDao changeInitiativeDao;
+    private final EntityReferenceNameResolver nameResolver;
 
 
     @Autowired
@@ -106,7 +108,8 @@ public class FlowDiagramService {
                               PhysicalSpecificationDao physicalSpecificationDao,
                               ActorDao actorDao,
                               MeasurableDao measurableDao,
-                              ChangeInitiativeDao changeInitiativeDao) {
+                              ChangeInitiativeDao changeInitiativeDao,
+                              EntityReferenceNameResolver nameResolver) {
         checkNotNull(changeLogService, "changeLogService cannot be null");
         checkNotNull(dataTypeService, "        checkNotNull(changeInitiativeDao, \"changeInitiativeDao cannot be null\");\n cannot be null");
         checkNotNull(flowDiagramDao, "flowDiagramDao cannot be null");
@@ -120,6 +123,7 @@ public class FlowDiagramService {
         checkNotNull(actorDao, "actorDao cannot be null");
         checkNotNull(measurableDao, "measurableDao cannot be null");
         checkNotNull(changeInitiativeDao, "changeInitiativeDao cannot be null");
+        checkNotNull(nameResolver, "nameResolver cannot be null");
 
         this.changeLogService = changeLogService;
         this.dataTypeService = dataTypeService;
@@ -135,6 +139,7 @@ public class FlowDiagramService {
         this.actorDao = actorDao;
         this.measurableDao = measurableDao;
         this.changeInitiativeDao = changeInitiativeDao;
+        this.nameResolver = nameResolver;
     }
 
 
@@ -187,6 +192,7 @@ public class FlowDiagramService {
             if(!flowDiagramDao.update(diagram)) {
                 throw new InvalidResultException("Could not update diagram with Id: " + diagramId);
             }
+            nameResolver.invalidate(mkRef(FLOW_DIAGRAM, diagramId));
 
             existingEntities = map(flowDiagramEntityDao.findForDiagram(diagramId), fde -> fde.entityReference());
             auditChange("updated", mkRef(FLOW_DIAGRAM, diagramId), username, Operation.UPDATE);
@@ -213,7 +219,9 @@ public class FlowDiagramService {
         checkNotNull(command, "command cannot be null");
         checkNotNull(username, "username cannot be null");
 
-        return flowDiagramDao.updateName(id, command.newName());
+        boolean updated = flowDiagramDao.updateName(id, command.newName());
+        nameResolver.invalidate(mkRef(FLOW_DIAGRAM, id));
+        return updated;
     }
 
     public boolean updateDescription(long id, UpdateDescriptionCommand command, String username) {
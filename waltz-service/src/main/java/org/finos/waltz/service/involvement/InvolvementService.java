@@ -23,6 +23,7 @@ import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.data.EntityReferenceNameResolver;
 import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.GenericSelectorFactory;
+import org.finos.waltz.data.application.MaterializedApplicationIdSelectorFactory;
 import org.finos.waltz.data.involvement.InvolvementDao;
 import org.finos.waltz.data.person.PersonDao;
 import org.finos.waltz.model.EntityKind;
@@ -39,7 +40,9 @@ import org.finos.waltz.model.involvement_kind.InvolvementKind;
 import org.finos.waltz.model.person.Person;
 import org.finos.waltz.model.user.SystemRole;
 import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.report_grid.ReportGridCellStore;
 import org.finos.waltz.service.involvement_kind.InvolvementKindService;
+import org.finos.waltz.service.permission.PermissionDecisionCache;
 import org.finos.waltz.service.user.UserRoleService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -70,6 +73,9 @@ public class InvolvementService {
     private final InvolvementKindService involvementKindService;
     private final PersonDao personDao;
     private final UserRoleService userRoleService;
+    private final ReportGridCellStore reportGridCellStore;
+    private final PermissionDecisionCache permissionDecisionCache;
+    private final MaterializedApplicationIdSelectorFactory applicationIdSelectorFactory;
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
 
     private Map<Long, String> involvementKindIdToNameMap;
@@ -81,13 +87,19 @@ public class InvolvementService {
                               EntityReferenceNameResolver entityReferenceNameResolver,
                               InvolvementKindService involvementKindService,
                               PersonDao personDao,
-                              UserRoleService userRoleService) {
+                              UserRoleService userRoleService,
+                              ReportGridCellStore reportGridCellStore,
+                              PermissionDecisionCache permissionDecisionCache,
+                              MaterializedApplicationIdSelectorFactory applicationIdSelectorFactory) {
         checkNotNull(changeLogService, "changeLogService cannot be null");
         checkNotNull(dao, "involvementDao must not be null");
         checkNotNull(entityReferenceNameResolver, "entityReferenceNameResolver cannot be null");
         checkNotNull(involvementKindService, "involvementKindService cannot be null");
         checkNotNull(userRoleService, "userRoleService cannot be null");
         checkNotNull(personDao, "personDao cannot be null");
+        checkNotNull(reportGridCellStore, "reportGridCellStore cannot be null");
+        checkNotNull(permissionDecisionCache, "permissionDecisionCache cannot be null");
+        checkNotNull(applicationIdSelectorFactory, "applicationIdSelectorFactory cannot be null");
 
         this.changeLogService = changeLogService;
         this.involvementDao = dao;
@@ -95,6 +107,9 @@ public class InvolvementService {
         this.involvementKindService = involvementKindService;
         this.userRoleService = userRoleService;
         this.personDao = personDao;
+        this.reportGridCellStore = reportGridCellStore;
+        this.permissionDecisionCache = permissionDecisionCache;
+        this.applicationIdSelectorFactory = applicationIdSelectorFactory;
     }
 
 
@@ -150,6 +165,9 @@ public class InvolvementService {
         Involvement involvement = mkInvolvement(entityReference, command);
         boolean result = involvementDao.save(involvement) == 1;
         if (result) {
+            reportGridCellStore.invalidateForSubject(entityReference);
+            permissionDecisionCache.invalidateForEntity(entityReference);
+            applicationIdSelectorFactory.invalidateForKind(EntityKind.PERSON);
             logChange(entityReference, userId, command);
         }
         return result;
@@ -165,6 +183,9 @@ public class InvolvementService {
 
         boolean result = involvementDao.remove(involvement) > 0;
         if (result) {
+            reportGridCellStore.invalidateForSubject(entityReference);
+            permissionDecisionCache.invalidateForEntity(entityReference);
+            applicationIdSelectorFactory.invalidateForKind(EntityKind.PERSON);
             logChange(entityReference, userId, command);
         }
         return result;
@@ -180,8 +201,12 @@ public class InvolvementService {
     public int deleteByGenericEntitySelector(IdSelectionOptions selectionOptions) {
         GenericSelector genericSelector = genericSelectorFactory
                 .apply(selectionOptions);
-        return involvementDao
+        int removedCount = involvementDao
                 .deleteByGenericEntitySelector(genericSelector);
+        reportGridCellStore.invalidateAll("involvements removed by selector");
+        permissionDecisionCache.invalidateAll("involvements removed by selector");
+        applicationIdSelectorFactory.invalidateForKind(EntityKind.PERSON);
+        return removedCount;
     }
 
 
@@ -193,12 +218,20 @@ public class InvolvementService {
     public int cleanupInvolvementsForKind(String userName, EntityKind entityKind) {
         boolean isAdmin = userRoleService.hasRole(userName, SystemRole.ADMIN);
         Checks.checkTrue(isAdmin, "Must be an admin to bulk remove involvements");
-        return involvementDao.cleanupInvolvementsForKind(entityKind);
+        int removedCount = involvementDao.cleanupInvolvementsForKind(entityKind);
+        reportGridCellStore.invalidateAll("orphan involvements removed");
+        permissionDecisionCache.invalidateAll("orphan involvements removed");
+        applicationIdSelectorFactory.invalidateForKind(EntityKind.PERSON);
+        return removedCount;
     }
 
     public int bulkStoreInvolvements(Set<Involvement> involvements, String username) {
 
         int insertedRecords = involvementDao.bulkStoreInvolvements(involvements);
+        Set<EntityReference> affectedEntities = map(involvements, Involvement::entityReference);
+        reportGridCellStore.invalidateForSubjects(affectedEntities);
+        permissionDecisionCache.invalidateForEntities(affectedEntities);
+        applicationIdSelectorFactory.invalidateForKind(EntityKind.PERSON);
 
         Map<Long, String> involvementKindNameByIdMap = loadInvolvementKindIdToNameMap();
 
@@ -218,6 +251,10 @@ public class InvolvementService {
     public int bulkDeleteInvolvements(Set<Involvement> involvements, String username) {
 
         int removedRecords = involvementDao.bulkDeleteInvolvements(involvements);
+        Set<EntityReference> affectedEntities = map(involvements, Involvement::entityReference);
+        reportGridCellStore.invalidateForSubjects(affectedEntities);
+        permissionDecisionCache.invalidateForEntities(affectedEntities);
+        applicationIdSelectorFactory.invalidateForKind(EntityKind.PERSON);
 
         Map<Long, String> involvementKindNameByIdMap = loadInvolvementKindIdToNameMap();
 
@@ -2,6 +2,7 @@ package org.finos.waltz.service.involvement_group;
 
 import org.finos.waltz.data.involvement_group.InvolvementGroupDao;
 import org.finos.waltz.model.involvement_group.InvolvementGroupCreateCommand;
+import org.finos.waltz.service.permission.PermissionGroupService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -11,10 +12,13 @@ import java.util.Set;
 public class InvolvementGroupService {
 
     public final InvolvementGroupDao involvementGroupDao;
+    private final PermissionGroupService permissionGroupService;
 
     @Autowired
-    public InvolvementGroupService(InvolvementGroupDao involvementGroupDao) {
+    public InvolvementGroupService(InvolvementGroupDao involvementGroupDao,
+                                   PermissionGroupService permissionGroupService) {
         this.involvementGroupDao = involvementGroupDao;
+        this.permissionGroupService = permissionGroupService;
     }
 
     public long createGroup(InvolvementGroupCreateCommand groupCreateCommand, String username) {
@@ -22,6 +26,10 @@ public class InvolvementGroupService {
     }
 
     public void updateInvolvements(Long groupId, Set<Long> involvementKindIds, String userName) {
-        involvementGroupDao.updateInvolvements(groupId, involvementKindIds);
+        try {
+            involvementGroupDao.updateInvolvements(groupId, involvementKindIds);
+        } finally {
+            permissionGroupService.invalidateForInvolvementGroup(groupId);
+        }
     }
 }
@@ -30,6 +30,7 @@ import org.finos.waltz.model.involvement_kind.InvolvementKind;
 import org.finos.waltz.model.involvement_kind.InvolvementKindChangeCommand;
 import org.finos.waltz.model.involvement_kind.InvolvementKindCreateCommand;
 import org.finos.waltz.model.involvement_kind.InvolvementKindUsageStat;
+import org.finos.waltz.service.reference_data.ReferenceDataService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -42,23 +43,30 @@ import static org.finos.waltz.common.Checks.checkNotNull;
 public class InvolvementKindService {
 
     private final InvolvementKindDao involvementKindDao;
+    private final ReferenceDataService referenceDataService;
 
 
     @Autowired
-    public InvolvementKindService(InvolvementKindDao involvementKindDao) {
+    public InvolvementKindService(InvolvementKindDao involvementKindDao,
+                                  ReferenceDataService referenceDataService) {
         checkNotNull(involvementKindDao, "involvementKindDao cannot be null");
+        checkNotNull(referenceDataService, "referenceDataService cannot be null");
 
         this.involvementKindDao = involvementKindDao;
+        this.referenceDataService = referenceDataService;
     }
 
 
     public List<InvolvementKind> findAll() {
-        return involvementKindDao.findAll();
+        return referenceDataService.getSnapshot().involvementKinds();
     }
 
 
     public InvolvementKind getById(long id) {
-        return involvementKindDao.getById(id);
+        return referenceDataService
+                .getSnapshot()
+                .involvementKind(id)
+                .orElseGet(() -> involvementKindDao.getById(id));
     }
 
 
@@ -72,7 +80,9 @@ public class InvolvementKindService {
         checkNotNull(command, "command cannot be null");
         checkNotNull(username, "username cannot be null");
 
-        return involvementKindDao.create(command, username);
+        Long id = involvementKindDao.create(command, username);
+        referenceDataService.markStale("involvement kind created");
+        return id;
     }
 
 
@@ -85,6 +95,7 @@ public class InvolvementKindService {
                 .withLastUpdate(UserTimestamp.mkForUser(username));
 
         boolean success = involvementKindDao.update(updateCommand);
+        referenceDataService.markStale("involvement kind updated");
         return ImmutableCommandResponse.<InvolvementKindChangeCommand>builder()
                 .originalCommand(command)
                 .entityReference(EntityReference.mkRef(EntityKind.INVOLVEMENT_KIND, command.id()))
@@ -94,7 +105,9 @@ public class InvolvementKindService {
 
 
     public boolean delete(long id) {
-        return involvementKindDao.deleteIfNotUsed(id);
+        boolean removed = involvementKindDao.deleteIfNotUsed(id);
+        referenceDataService.markStale("involvement kind removed");
+        return removed;
     }
 
 
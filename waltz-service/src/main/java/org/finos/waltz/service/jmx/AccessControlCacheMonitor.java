@@ -0,0 +1,95 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.jmx;
+
+import org.finos.waltz.service.permission.PermissionDecisionCache;
+import org.finos.waltz.service.user.UserRoleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import static java.util.Collections.singleton;
+
+@ManagedResource(description = "Utilisation of the user role and permission decision caches")
+public class AccessControlCacheMonitor {
+
+    private final UserRoleService userRoleService;
+    private final PermissionDecisionCache permissionDecisionCache;
+
+    @Autowired
+    public AccessControlCacheMonitor(UserRoleService userRoleService,
+                                     PermissionDecisionCache permissionDecisionCache) {
+        this.userRoleService = userRoleService;
+        this.permissionDecisionCache = permissionDecisionCache;
+    }
+
+
+    @ManagedAttribute(description = "Number of users whose roles are currently cached")
+    public int getRoleCacheSize() {
+        return userRoleService.rolesCacheSize();
+    }
+
+
+    @ManagedAttribute
+    public long getRoleCacheHitCount() {
+        return userRoleService.rolesCacheHitCount();
+    }
+
+
+    @ManagedAttribute
+    public long getRoleCacheMissCount() {
+        return userRoleService.rolesCacheMissCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of permission check outcomes currently cached")
+    public int getPermissionCacheSize() {
+        return permissionDecisionCache.size();
+    }
+
+
+    @ManagedAttribute
+    public long getPermissionCacheHitCount() {
+        return permissionDecisionCache.hitCount();
+    }
+
+
+    @ManagedAttribute
+    public long getPermissionCacheMissCount() {
+        return permissionDecisionCache.missCount();
+    }
+
+
+    @ManagedOperation(description = "Discards all cached roles and permission decisions, e.g. after editing permission groups directly in the database")
+    public void invalidateAll() {
+        userRoleService.invalidateAllRoles("requested via JMX");
+        permissionDecisionCache.invalidateAll("requested via JMX");
+    }
+
+
+    @ManagedOperation(description = "Discards the permission decisions drawn from a permission group, e.g. after editing its involvements directly in the database")
+    @ManagedOperationParameter(name = "permissionGroupId", description = "Id of the permission group")
+    public void invalidatePermissionGroup(long permissionGroupId) {
+        permissionDecisionCache.invalidateForPermissionGroups(singleton(permissionGroupId));
+    }
+
+}
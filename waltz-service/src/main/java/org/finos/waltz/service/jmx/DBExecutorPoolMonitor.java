@@ -0,0 +1,84 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.jmx;
+
+import org.finos.waltz.data.DBExecutorPoolInterface;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "Utilisation of the pool used for concurrent database queries")
+public class DBExecutorPoolMonitor {
+
+    private final DBExecutorPoolInterface dbExecutorPool;
+
+    @Autowired
+    public DBExecutorPoolMonitor(DBExecutorPoolInterface dbExecutorPool) {
+        this.dbExecutorPool = dbExecutorPool;
+    }
+
+
+    @ManagedAttribute(description = "Number of threads (and therefore connections) available to the pool")
+    public int getPoolSize() {
+        return dbExecutorPool.getPoolSize();
+    }
+
+
+    @ManagedAttribute(description = "Maximum concurrently running tasks per named caller")
+    public int getPerCallerLimit() {
+        return dbExecutorPool.getPerCallerLimit();
+    }
+
+
+    @ManagedAttribute(description = "Tasks submitted but not yet started")
+    public int getQueueDepth() {
+        return dbExecutorPool.getQueueDepth();
+    }
+
+
+    @ManagedAttribute
+    public long getStartedCount() {
+        return dbExecutorPool.getStartedCount();
+    }
+
+
+    @ManagedAttribute(description = "Tasks cancelled as they did not complete within the caller's deadline")
+    public long getTimeoutCount() {
+        return dbExecutorPool.getTimeoutCount();
+    }
+
+
+    @ManagedAttribute(description = "Tasks which threw an exception whilst the caller was waiting on them")
+    public long getFailedCount() {
+        return dbExecutorPool.getFailedCount();
+    }
+
+
+    @ManagedAttribute
+    public double getAverageWaitMillis() {
+        return dbExecutorPool.getAverageWaitMillis();
+    }
+
+
+    @ManagedAttribute
+    public long getMaxWaitMillis() {
+        return dbExecutorPool.getMaxWaitMillis();
+    }
+
+}
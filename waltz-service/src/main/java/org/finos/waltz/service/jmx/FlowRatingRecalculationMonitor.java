@@ -0,0 +1,56 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+
+package org.finos.waltz.service.jmx;
+
+import org.finos.waltz.service.flow_classification_rule.FlowRatingRecalculationQueue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "Background recalculation of flow ratings following flow classification rule changes")
+public class FlowRatingRecalculationMonitor {
+
+    private final FlowRatingRecalculationQueue flowRatingRecalculationQueue;
+
+    @Autowired
+    public FlowRatingRecalculationMonitor(FlowRatingRecalculationQueue flowRatingRecalculationQueue) {
+        this.flowRatingRecalculationQueue = flowRatingRecalculationQueue;
+    }
+
+
+    @ManagedAttribute(description = "(data type, vantage point) scopes waiting to be recalculated")
+    public int getPendingCount() {
+        return flowRatingRecalculationQueue.pendingCount();
+    }
+
+
+    @ManagedAttribute
+    public long getProcessedCount() {
+        return flowRatingRecalculationQueue.processedCount();
+    }
+
+
+    @ManagedAttribute(description = "Scopes which could not be recalculated, the scheduled full recalculation will correct these")
+    public long getFailedCount() {
+        return flowRatingRecalculationQueue.failedCount();
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.jmx;
+
+import org.finos.waltz.model.latency.LatencySummary;
+import org.finos.waltz.service.latency.LatencyMetricsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.joining;
+
+@ManagedResource(description = "Latency of database queries and web endpoints")
+public class LatencyMetrics {
+
+    private final LatencyMetricsService latencyMetricsService;
+
+    @Autowired
+    public LatencyMetrics(LatencyMetricsService latencyMetricsService) {
+        this.latencyMetricsService = latencyMetricsService;
+    }
+
+
+    @ManagedOperation(description = "Queries with the highest total execution time")
+    @ManagedOperationParameter(name = "limit", description = "Number of queries to list")
+    public String topQueries(int limit) {
+        return format(latencyMetricsService.findQuerySummaries(limit));
+    }
+
+
+    @ManagedOperation(description = "Endpoints with the highest total response time")
+    @ManagedOperationParameter(name = "limit", description = "Number of endpoints to list")
+    public String topEndpoints(int limit) {
+        return format(latencyMetricsService.findEndpointSummaries(limit));
+    }
+
+
+    @ManagedOperation(description = "Discard all recorded latencies")
+    public void reset() {
+        latencyMetricsService.reset();
+    }
+
+
+    private static String format(List<LatencySummary> summaries) {
+        return summaries
+                .stream()
+                .map(s -> String.format(
+                        "count=%d total=%.0fms p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms rows(mean)=%.1f :: %s",
+                        s.count(),
+                        s.totalMs(),
+                        s.p50Ms(),
+                        s.p95Ms(),
+                        s.p99Ms(),
+                        s.maxMs(),
+                        s.meanRows(),
+                        s.name()))
+                .collect(joining("\n"));
+    }
+
+}
@@ -39,10 +39,17 @@ public class PersonMaintenance {
     }
 
 
-    @ManagedOperation(description = "Rebuild the person hierarchy table")
+    @ManagedOperation(description = "Update the person hierarchy table for reporting lines which have changed since the last build")
     public int rebuildHierarchyTable() {
         LOG.warn("Rebuild person hierarchy (via jmx)");
-        return personHierarchyService.build().length;
+        return personHierarchyService.build().changedCount();
+    }
+
+
+    @ManagedOperation(description = "Recalculate the person hierarchy table for every person")
+    public int fullyRebuildHierarchyTable() {
+        LOG.warn("Full rebuild of person hierarchy (via jmx)");
+        return personHierarchyService.fullRebuild().changedCount();
     }
 
 
@@ -0,0 +1,89 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.jmx;
+
+import org.finos.waltz.service.access_log.AccessLogService;
+import org.finos.waltz.service.user_agent_info.UserAgentInfoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "Queues used to asynchronously write access logs and user agent info")
+public class TelemetryWriteMonitor {
+
+    private final AccessLogService accessLogService;
+    private final UserAgentInfoService userAgentInfoService;
+
+    @Autowired
+    public TelemetryWriteMonitor(AccessLogService accessLogService,
+                                 UserAgentInfoService userAgentInfoService) {
+        this.accessLogService = accessLogService;
+        this.userAgentInfoService = userAgentInfoService;
+    }
+
+
+    @ManagedAttribute(description = "Access log entries waiting to be written")
+    public int getAccessLogPendingCount() {
+        return accessLogService.pendingWriteCount();
+    }
+
+
+    @ManagedAttribute
+    public long getAccessLogWrittenCount() {
+        return accessLogService.writtenCount();
+    }
+
+
+    @ManagedAttribute(description = "Access log entries discarded as the queue was full")
+    public long getAccessLogDroppedCount() {
+        return accessLogService.droppedCount();
+    }
+
+
+    @ManagedAttribute(description = "Access log entries which could not be written to the database")
+    public long getAccessLogFailedCount() {
+        return accessLogService.failedWriteCount();
+    }
+
+
+    @ManagedAttribute(description = "User agent info records waiting to be written")
+    public int getUserAgentInfoPendingCount() {
+        return userAgentInfoService.pendingWriteCount();
+    }
+
+
+    @ManagedAttribute
+    public long getUserAgentInfoWrittenCount() {
+        return userAgentInfoService.writtenCount();
+    }
+
+
+    @ManagedAttribute(description = "User agent info records discarded as the queue was full")
+    public long getUserAgentInfoDroppedCount() {
+        return userAgentInfoService.droppedCount();
+    }
+
+
+    @ManagedAttribute(description = "User agent info records which could not be written to the database")
+    public long getUserAgentInfoFailedCount() {
+        return userAgentInfoService.failedWriteCount();
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.latency;
+
+import org.finos.waltz.common.LatencyHistogram;
+import org.finos.waltz.common.LatencyRegistry;
+import org.finos.waltz.model.latency.ImmutableLatencySummary;
+import org.finos.waltz.model.latency.LatencySummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+/**
+ * Holds latency histograms for database queries (keyed by query fingerprint) and for
+ * web endpoints (keyed by http method and route path).
+ *
+ * Histograms accumulate from startup (or the last {@link #reset()}).  The number of distinct
+ * fingerprints/routes retained is bounded by `latency-metrics.max-names`, beyond which the
+ * least recently recorded are evicted.
+ */
+@Service
+public class LatencyMetricsService {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("(?<![\\w$])\\d+(?:\\.\\d+)?(?![\\w$])");
+    private static final Pattern BIND_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final LatencyRegistry queryLatencies;
+    private final LatencyRegistry endpointLatencies;
+
+
+    @Autowired
+    public LatencyMetricsService(@Value("${latency-metrics.max-names:1000}") int maxNames) {
+        this.queryLatencies = new LatencyRegistry(maxNames);
+        this.endpointLatencies = new LatencyRegistry(maxNames);
+    }
+
+
+    public void recordQuery(String sql, long durationNanos, long rows) {
+        queryLatencies.record(mkQueryFingerprint(sql), durationNanos, rows);
+    }
+
+
+    public void recordEndpoint(String method, String path, long durationNanos, long rows) {
+        endpointLatencies.record(method + " " + path, durationNanos, rows);
+    }
+
+
+    /**
+     * @param limit  maximum number of summaries to return
+     * @return query summaries, most expensive (by total time) first
+     */
+    public List<LatencySummary> findQuerySummaries(int limit) {
+        return summarize(queryLatencies, limit);
+    }
+
+
+    /**
+     * @param limit  maximum number of summaries to return
+     * @return endpoint summaries, most expensive (by total time) first
+     */
+    public List<LatencySummary> findEndpointSummaries(int limit) {
+        return summarize(endpointLatencies, limit);
+    }
+
+
+    public void reset() {
+        queryLatencies.clear();
+        endpointLatencies.clear();
+    }
+
+
+    /**
+     * Normalises sql so that executions of the same query share a fingerprint.  Whitespace is
+     * collapsed, string and numeric literals (e.g. from inlined selectors) are replaced by `?` and
+     * lists of bind variables (e.g. from `IN (?, ?, ?)`) are reduced to a single marker.
+     */
+    public static String mkQueryFingerprint(String sql) {
+        checkNotNull(sql, "sql cannot be null");
+        String collapsed = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        String withoutStrings = STRING_LITERAL.matcher(collapsed).replaceAll("?");
+        String withoutLiterals = NUMERIC_LITERAL.matcher(withoutStrings).replaceAll("?");
+        return BIND_LIST.matcher(withoutLiterals).replaceAll("?...");
+    }
+
+
+    // --- helpers ---
+
+    private static List<LatencySummary> summarize(LatencyRegistry registry, int limit) {
+        return registry
+                .getHistograms()
+                .entrySet()
+                .stream()
+                .map(LatencyMetricsService::toSummary)
+                .sorted(Comparator.comparingDouble(LatencySummary::totalMs).reversed())
+                .limit(limit)
+                .collect(toList());
+    }
+
+
+    private static LatencySummary toSummary(Map.Entry<String, LatencyHistogram> entry) {
+        LatencyHistogram h = entry.getValue();
+        long count = h.count();
+        return ImmutableLatencySummary
+                .builder()
+                .name(entry.getKey())
+                .count(count)
+                .totalMs(h.totalMicros() / MICROS_PER_MILLI)
+                .meanMs(h.meanMicros() / MICROS_PER_MILLI)
+                .p50Ms(h.percentileMicros(50) / MICROS_PER_MILLI)
+                .p95Ms(h.percentileMicros(95) / MICROS_PER_MILLI)
+                .p99Ms(h.percentileMicros(99) / MICROS_PER_MILLI)
+                .maxMs(h.maxMicros() / MICROS_PER_MILLI)
+                .totalRows(h.totalRows())
+                .meanRows(count == 0 ? 0 : (double) h.totalRows() / count)
+                .build();
+    }
+
+}
@@ -19,8 +19,11 @@
 package org.finos.waltz.service.licence;
 
 
+import org.finos.waltz.data.EntityReferenceNameResolver;
 import org.finos.waltz.data.licence.LicenceDao;
 import org.finos.waltz.data.licence.LicenceIdSelectorFactory;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.IdSelectionOptions;
 import org.finos.waltz.model.licence.Licence;
 import org.finos.waltz.model.licence.SaveLicenceCommand;
@@ -38,13 +41,17 @@ import static org.finos.waltz.common.Checks.checkNotNull;
 public class LicenceService {
 
     private final LicenceDao licenceDao;
+    private final EntityReferenceNameResolver nameResolver;
     private final LicenceIdSelectorFactory licenceIdSelectorFactory = new LicenceIdSelectorFactory();
 
 
     @Autowired
-    public LicenceService(LicenceDao licenceDao) {
+    public LicenceService(LicenceDao licenceDao,
+                          EntityReferenceNameResolver nameResolver) {
         checkNotNull(licenceDao, "licenceDao cannot be null");
+        checkNotNull(nameResolver, "nameResolver cannot be null");
         this.licenceDao = licenceDao;
+        this.nameResolver = nameResolver;
     }
 
 
@@ -75,7 +82,9 @@ public class LicenceService {
     }
 
     public boolean save(SaveLicenceCommand cmd, String username) {
-        return licenceDao.save(cmd, username);
+        boolean result = licenceDao.save(cmd, username);
+        cmd.id().ifPresent(id -> nameResolver.invalidate(EntityReference.mkRef(EntityKind.LICENCE, id)));
+        return result;
     }
 
     public boolean remove(long licenceId, String username) {
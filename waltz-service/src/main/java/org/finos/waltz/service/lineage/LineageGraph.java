@@ -0,0 +1,518 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.lineage;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.model.EntityReference.mkRef;
+
+/**
+ * Immutable, compact snapshot of the logical flow graph.
+ *
+ * Nodes are identified by an int index and are held in a sorted array of keys encoding their kind and id.
+ * Outbound and inbound adjacency are stored as offset/edge-index arrays (compressed sparse rows) and the
+ * data types of each edge as a sorted slice of a single array, so traversals do not allocate per edge.
+ *
+ * Instances are built via {@link #build(Collection)} and are safe to share between threads.  Small
+ * changes can be applied via {@link #withFlows(Collection, Map)}, which returns a new graph sharing
+ * these arrays with the changed flows held as a patch: superseded edges are masked and the new
+ * edges appended.
+ */
+public class LineageGraph {
+
+    private static final int KIND_SHIFT = 48;
+    private static final long ID_MASK = (1L << KIND_SHIFT) - 1;
+    private static final EntityKind[] KINDS = EntityKind.values();
+
+    // patches grow until they hold this many edges (or a tenth of the built edges, if more), then a rebuild is needed
+    private static final int MIN_PATCH_LIMIT = 1_000;
+
+    private static final int[] NO_EDGES = new int[0];
+
+
+    /**
+     * A logical flow along with the ids of the data types it carries.
+     */
+    public static final class Flow {
+
+        private final long flowId;
+        private final EntityReference source;
+        private final EntityReference target;
+        private final long[] dataTypeIds;
+
+        public Flow(long flowId, EntityReference source, EntityReference target, long[] dataTypeIds) {
+            this.flowId = flowId;
+            this.source = source;
+            this.target = target;
+            this.dataTypeIds = dataTypeIds.clone();
+            Arrays.sort(this.dataTypeIds);
+        }
+
+        public long flowId() {
+            return flowId;
+        }
+    }
+
+
+    /**
+     * Tests whether a traversal may follow an edge
+     */
+    public interface EdgeFilter {
+        boolean test(LineageGraph graph, int edge);
+
+        EdgeFilter ALL = (g, e) -> true;
+    }
+
+
+    private final long[] nodeKeys;
+
+    private final int[] outOffsets;
+    private final int[] outEdges;
+    private final int[] inOffsets;
+    private final int[] inEdges;
+
+    private final long[] edgeFlowIds;
+    private final int[] edgeSources;
+    private final int[] edgeTargets;
+    private final int[] edgeDataTypeOffsets;
+    private final long[] edgeDataTypeIds;
+
+    private final Patch patch;
+
+
+    /**
+     * Edges applied since the graph was built.  Patched edges are numbered after the built edges.
+     */
+    private static final class Patch {
+
+        private static final Patch EMPTY = new Patch(
+                new BitSet(),
+                new Flow[0],
+                new int[0],
+                new int[0],
+                Collections.emptyMap(),
+                Collections.emptyMap(),
+                Collections.emptyMap());
+
+        private final BitSet removedEdges;
+        private final Flow[] flows;
+        private final int[] sources;
+        private final int[] targets;
+        private final Map<Integer, int[]> outEdges;
+        private final Map<Integer, int[]> inEdges;
+        private final Map<Long, Integer> edgeByFlowId;
+
+        private Patch(BitSet removedEdges,
+                      Flow[] flows,
+                      int[] sources,
+                      int[] targets,
+                      Map<Integer, int[]> outEdges,
+                      Map<Integer, int[]> inEdges,
+                      Map<Long, Integer> edgeByFlowId) {
+            this.removedEdges = removedEdges;
+            this.flows = flows;
+            this.sources = sources;
+            this.targets = targets;
+            this.outEdges = outEdges;
+            this.inEdges = inEdges;
+            this.edgeByFlowId = edgeByFlowId;
+        }
+    }
+
+
+    private LineageGraph(long[] nodeKeys,
+                         int[] outOffsets,
+                         int[] outEdges,
+                         int[] inOffsets,
+                         int[] inEdges,
+                         long[] edgeFlowIds,
+                         int[] edgeSources,
+                         int[] edgeTargets,
+                         int[] edgeDataTypeOffsets,
+                         long[] edgeDataTypeIds,
+                         Patch patch) {
+        this.nodeKeys = nodeKeys;
+        this.outOffsets = outOffsets;
+        this.outEdges = outEdges;
+        this.inOffsets = inOffsets;
+        this.inEdges = inEdges;
+        this.edgeFlowIds = edgeFlowIds;
+        this.edgeSources = edgeSources;
+        this.edgeTargets = edgeTargets;
+        this.edgeDataTypeOffsets = edgeDataTypeOffsets;
+        this.edgeDataTypeIds = edgeDataTypeIds;
+        this.patch = patch;
+    }
+
+
+    public static LineageGraph build(Collection<Flow> unsortedFlows) {
+        // edges are ordered by flow id, allowing the edge for a flow to be found when patching
+        List<Flow> flows = new ArrayList<>(unsortedFlows);
+        flows.sort(Comparator.comparingLong(Flow::flowId));
+        int edgeCount = flows.size();
+
+        long[] endpointKeys = new long[edgeCount * 2];
+        int i = 0;
+        for (Flow flow : flows) {
+            endpointKeys[i++] = toKey(flow.source);
+            endpointKeys[i++] = toKey(flow.target);
+        }
+        long[] nodeKeys = distinctSorted(endpointKeys);
+        int nodeCount = nodeKeys.length;
+
+        long[] edgeFlowIds = new long[edgeCount];
+        int[] edgeSources = new int[edgeCount];
+        int[] edgeTargets = new int[edgeCount];
+        int[] edgeDataTypeOffsets = new int[edgeCount + 1];
+        int[] outOffsets = new int[nodeCount + 1];
+        int[] inOffsets = new int[nodeCount + 1];
+
+        int e = 0;
+        int dataTypeCount = 0;
+        for (Flow flow : flows) {
+            edgeFlowIds[e] = flow.flowId;
+            edgeSources[e] = Arrays.binarySearch(nodeKeys, toKey(flow.source));
+            edgeTargets[e] = Arrays.binarySearch(nodeKeys, toKey(flow.target));
+            outOffsets[edgeSources[e] + 1]++;
+            inOffsets[edgeTargets[e] + 1]++;
+            dataTypeCount += flow.dataTypeIds.length;
+            edgeDataTypeOffsets[e + 1] = dataTypeCount;
+            e++;
+        }
+
+        long[] edgeDataTypeIds = new long[dataTypeCount];
+        e = 0;
+        for (Flow flow : flows) {
+            System.arraycopy(flow.dataTypeIds, 0, edgeDataTypeIds, edgeDataTypeOffsets[e], flow.dataTypeIds.length);
+            e++;
+        }
+
+        for (int n = 0; n < nodeCount; n++) {
+            outOffsets[n + 1] += outOffsets[n];
+            inOffsets[n + 1] += inOffsets[n];
+        }
+
+        int[] outEdges = new int[edgeCount];
+        int[] inEdges = new int[edgeCount];
+        int[] outFill = Arrays.copyOf(outOffsets, nodeCount);
+        int[] inFill = Arrays.copyOf(inOffsets, nodeCount);
+        for (e = 0; e < edgeCount; e++) {
+            outEdges[outFill[edgeSources[e]]++] = e;
+            inEdges[inFill[edgeTargets[e]]++] = e;
+        }
+
+        return new LineageGraph(
+                nodeKeys,
+                outOffsets,
+                outEdges,
+                inOffsets,
+                inEdges,
+                edgeFlowIds,
+                edgeSources,
+                edgeTargets,
+                edgeDataTypeOffsets,
+                edgeDataTypeIds,
+                Patch.EMPTY);
+    }
+
+
+    /**
+     * Returns a graph reflecting changes to the given flows, without rebuilding the compact arrays.
+     * A patch cannot add nodes, so if a changed flow involves an entity which is not already in the
+     * graph, or the patch has grown too large, null is returned and the graph should be rebuilt.
+     *
+     * @param flowIds  ids of the flows which have been created, modified or removed
+     * @param activeFlows  current state of those flows, keyed by flow id, removed flows are absent
+     * @return the patched graph, or null if a rebuild is required
+     */
+    public LineageGraph withFlows(Collection<Long> flowIds, Map<Long, Flow> activeFlows) {
+        int patchLimit = Math.max(MIN_PATCH_LIMIT, edgeFlowIds.length / 10);
+        if (patch.flows.length + activeFlows.size() > patchLimit) {
+            return null;
+        }
+        for (Flow flow : activeFlows.values()) {
+            if (indexOf(flow.source) < 0 || indexOf(flow.target) < 0) {
+                return null;
+            }
+        }
+
+        BitSet removedEdges = (BitSet) patch.removedEdges.clone();
+        Map<Long, Integer> edgeByFlowId = new HashMap<>(patch.edgeByFlowId);
+        for (Long flowId : flowIds) {
+            Integer patchedEdge = edgeByFlowId.remove(flowId);
+            int edge = patchedEdge != null
+                    ? patchedEdge
+                    : Arrays.binarySearch(edgeFlowIds, flowId);
+            if (edge >= 0) {
+                removedEdges.set(edge);
+            }
+        }
+
+        int existing = patch.flows.length;
+        Flow[] flows = Arrays.copyOf(patch.flows, existing + activeFlows.size());
+        int[] sources = Arrays.copyOf(patch.sources, flows.length);
+        int[] targets = Arrays.copyOf(patch.targets, flows.length);
+        Map<Integer, int[]> patchedOutEdges = new HashMap<>(patch.outEdges);
+        Map<Integer, int[]> patchedInEdges = new HashMap<>(patch.inEdges);
+
+        int i = existing;
+        for (Flow flow : activeFlows.values()) {
+            int edge = edgeFlowIds.length + i;
+            flows[i] = flow;
+            sources[i] = indexOf(flow.source);
+            targets[i] = indexOf(flow.target);
+            patchedOutEdges.merge(sources[i], new int[]{edge}, LineageGraph::concat);
+            patchedInEdges.merge(targets[i], new int[]{edge}, LineageGraph::concat);
+            edgeByFlowId.put(flow.flowId, edge);
+            i++;
+        }
+
+        return new LineageGraph(
+                nodeKeys,
+                outOffsets,
+                outEdges,
+                inOffsets,
+                inEdges,
+                edgeFlowIds,
+                edgeSources,
+                edgeTargets,
+                edgeDataTypeOffsets,
+                edgeDataTypeIds,
+                new Patch(removedEdges, flows, sources, targets, patchedOutEdges, patchedInEdges, edgeByFlowId));
+    }
+
+
+    public int nodeCount() {
+        return nodeKeys.length;
+    }
+
+
+    public int edgeCount() {
+        return edgeFlowIds.length + patch.flows.length - patch.removedEdges.cardinality();
+    }
+
+
+    /**
+     * @return the node index for the entity, or -1 if the entity has no flows
+     */
+    public int indexOf(EntityReference ref) {
+        int idx = Arrays.binarySearch(nodeKeys, toKey(ref));
+        return idx < 0 ? -1 : idx;
+    }
+
+
+    public EntityReference nodeRef(int node) {
+        long key = nodeKeys[node];
+        return mkRef(KINDS[(int) (key >>> KIND_SHIFT)], key & ID_MASK);
+    }
+
+
+    public long flowId(int edge) {
+        return edge < edgeFlowIds.length
+                ? edgeFlowIds[edge]
+                : patch.flows[edge - edgeFlowIds.length].flowId;
+    }
+
+
+    public int source(int edge) {
+        return edge < edgeSources.length
+                ? edgeSources[edge]
+                : patch.sources[edge - edgeSources.length];
+    }
+
+
+    public int target(int edge) {
+        return edge < edgeTargets.length
+                ? edgeTargets[edge]
+                : patch.targets[edge - edgeTargets.length];
+    }
+
+
+    /**
+     * @param dataTypeIds  sorted data type ids
+     * @return true if the edge carries any of the given data types
+     */
+    public boolean carriesAny(int edge, long[] dataTypeIds) {
+        if (edge >= edgeFlowIds.length) {
+            for (long dataTypeId : patch.flows[edge - edgeFlowIds.length].dataTypeIds) {
+                if (Arrays.binarySearch(dataTypeIds, dataTypeId) >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (int i = edgeDataTypeOffsets[edge]; i < edgeDataTypeOffsets[edge + 1]; i++) {
+            if (Arrays.binarySearch(dataTypeIds, edgeDataTypeIds[i]) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Breadth first traversal from the start node.  Every edge followed from a node within
+     * <code>maxDepth - 1</code> hops of the start is returned, including edges leading back to
+     * nodes already visited, so the shape of the lineage is preserved.
+     *
+     * @param start  node index to start from
+     * @param downstream  true to follow outbound edges, false to follow inbound edges
+     * @param maxDepth  maximum number of hops from the start
+     * @param maxEdges  traversal stops once this many edges have been collected
+     * @param filter  edges failing the filter are not followed
+     * @return pairs of (edge index, depth), ordered by depth
+     */
+    public List<int[]> traverse(int start, boolean downstream, int maxDepth, int maxEdges, EdgeFilter filter) {
+        checkTrue(maxDepth > 0, "maxDepth must be positive");
+
+        int[] offsets = downstream ? outOffsets : inOffsets;
+        int[] adjacency = downstream ? outEdges : inEdges;
+        Map<Integer, int[]> patchedAdjacency = downstream ? patch.outEdges : patch.inEdges;
+
+        int[] depths = new int[nodeCount()];
+        Arrays.fill(depths, -1);
+        depths[start] = 0;
+
+        int[] queue = new int[nodeCount()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+
+        List<int[]> result = new ArrayList<>();
+        while (head < tail) {
+            int node = queue[head++];
+            int depth = depths[node];
+            if (depth >= maxDepth) {
+                continue;
+            }
+            int[] patched = patchedAdjacency.getOrDefault(node, NO_EDGES);
+            int to = offsets[node + 1];
+            for (int i = offsets[node]; i < to + patched.length; i++) {
+                int edge = i < to ? adjacency[i] : patched[i - to];
+                if (patch.removedEdges.get(edge) || ! filter.test(this, edge)) {
+                    continue;
+                }
+                if (result.size() >= maxEdges) {
+                    return result;
+                }
+                result.add(new int[]{edge, depth + 1});
+                int next = downstream ? target(edge) : source(edge);
+                if (depths[next] < 0) {
+                    depths[next] = depth + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Breadth first search for the route with the fewest hops.
+     *
+     * @return edge indices from the source to the target, empty if there is no route
+     */
+    public List<Integer> shortestPath(int source, int target, EdgeFilter filter) {
+        if (source == target) {
+            return Collections.emptyList();
+        }
+
+        int[] viaEdge = new int[nodeCount()];
+        Arrays.fill(viaEdge, -1);
+        boolean[] visited = new boolean[nodeCount()];
+        visited[source] = true;
+
+        int[] queue = new int[nodeCount()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+
+        while (head < tail) {
+            int node = queue[head++];
+            int[] patched = patch.outEdges.getOrDefault(node, NO_EDGES);
+            int to = outOffsets[node + 1];
+            for (int i = outOffsets[node]; i < to + patched.length; i++) {
+                int edge = i < to ? outEdges[i] : patched[i - to];
+                int next = target(edge);
+                if (visited[next] || patch.removedEdges.get(edge) || ! filter.test(this, edge)) {
+                    continue;
+                }
+                visited[next] = true;
+                viaEdge[next] = edge;
+                if (next == target) {
+                    return toPath(viaEdge, target);
+                }
+                queue[tail++] = next;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+
+    // --- helpers ---
+
+    private List<Integer> toPath(int[] viaEdge, int target) {
+        List<Integer> path = new ArrayList<>();
+        int node = target;
+        while (viaEdge[node] >= 0) {
+            path.add(viaEdge[node]);
+            node = source(viaEdge[node]);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+
+    private static long toKey(EntityReference ref) {
+        return ((long) ref.kind().ordinal() << KIND_SHIFT) | ref.id();
+    }
+
+
+    private static long[] distinctSorted(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+}
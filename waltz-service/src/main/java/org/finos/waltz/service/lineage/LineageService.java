@@ -0,0 +1,536 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.lineage;
+
+import org.finos.waltz.data.EntityReferenceNameResolver;
+import org.finos.waltz.data.logical_flow.LogicalFlowDao;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.datatype.DataType;
+import org.finos.waltz.model.lineage.ImmutableLineageEdge;
+import org.finos.waltz.model.lineage.ImmutableLineageResult;
+import org.finos.waltz.model.lineage.LineageDirection;
+import org.finos.waltz.model.lineage.LineageEdge;
+import org.finos.waltz.model.lineage.LineagePathCommand;
+import org.finos.waltz.model.lineage.LineageResult;
+import org.finos.waltz.model.lineage.LineageTraversalCommand;
+import org.finos.waltz.service.data_type.DataTypeService;
+import org.finos.waltz.service.lineage.LineageGraph.EdgeFilter;
+import org.finos.waltz.service.lineage.LineageGraph.Flow;
+import org.jooq.lambda.tuple.Tuple2;
+import org.jooq.lambda.tuple.Tuple4;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+/**
+ * Answers lineage queries (shortest path, upstream/downstream traversal) against a resident
+ * {@link LineageGraph} of the active logical flows and their data types.
+ *
+ * The flows are loaded in full on first use.  The flow and decorator services then pass the flows
+ * they modify to {@link #refreshFlows(Collection)} and the next query patches the graph with them,
+ * rebuilding it only if the patch cannot be applied.  Bulk changes call {@link #markStale()}, which
+ * forces a full reload.  So does passing the maximum age (<code>lineage.graph.max-age-minutes</code>,
+ * default 10), which picks up changes made outside the services, such as by loaders.
+ *
+ * Data type filters also match the descendants of the requested data type.
+ */
+@Service
+public class LineageService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LineageService.class);
+
+    private static final int MAX_DEPTH = 20;
+    private static final int MAX_EDGES = 20_000;
+
+    private final LogicalFlowDao logicalFlowDao;
+    private final DataTypeService dataTypeService;
+    private final EntityReferenceNameResolver nameResolver;
+    private final long maxAgeNanos;
+
+    // guards the resident flows, only held briefly (never while loading or building)
+    private final Object lock = new Object();
+
+    // serialises full loads and graph builds, queries against an up-to-date graph never wait on it
+    private final Object buildLock = new Object();
+
+    // guarded by 'lock'
+    private Map<Long, Flow> flowsById = null;
+    private Map<Long, List<Long>> dataTypeChildrenById = null;
+    private Set<Long> refreshedDuringLoad = null;
+    private boolean staleDuringLoad = false;
+    private Set<Long> changedSinceBuild = null; // null if the graph must be rebuilt in full
+    private final Map<Long, Long> latestRefreshById = new HashMap<>();
+    private long refreshSeq = 0;
+
+    // written under 'lock'
+    private volatile long version = 0;
+    private volatile long loadedAt = 0;
+
+    private volatile BuiltGraph graph = null;
+
+
+    private static class BuiltGraph {
+        private final LineageGraph graph;
+        private final long version;
+
+        private BuiltGraph(LineageGraph graph, long version) {
+            this.graph = graph;
+            this.version = version;
+        }
+    }
+
+
+    @Autowired
+    public LineageService(LogicalFlowDao logicalFlowDao,
+                          DataTypeService dataTypeService,
+                          EntityReferenceNameResolver nameResolver,
+                          @Value("${lineage.graph.max-age-minutes:10}") int maxAgeMinutes) {
+        checkNotNull(logicalFlowDao, "logicalFlowDao cannot be null");
+        checkNotNull(dataTypeService, "dataTypeService cannot be null");
+        checkNotNull(nameResolver, "nameResolver cannot be null");
+
+        this.logicalFlowDao = logicalFlowDao;
+        this.dataTypeService = dataTypeService;
+        this.nameResolver = nameResolver;
+        this.maxAgeNanos = TimeUnit.MINUTES.toNanos(maxAgeMinutes);
+    }
+
+
+    /**
+     * Finds the route with the fewest hops from the source to the target.
+     *
+     * @return the edges of the route, empty if no route exists
+     */
+    public LineageResult calculatePath(LineagePathCommand command) {
+        checkNotNull(command, "command cannot be null");
+
+        LineageGraph g = getGraph();
+        int source = g.indexOf(command.source());
+        int target = g.indexOf(command.target());
+        if (source < 0 || target < 0) {
+            return mkResult(g, new ArrayList<>(), false);
+        }
+
+        List<Integer> path = g.shortestPath(source, target, mkFilter(command.dataTypeId()));
+
+        List<int[]> edgesWithDepth = new ArrayList<>(path.size());
+        for (int i = 0; i < path.size(); i++) {
+            edgesWithDepth.add(new int[]{path.get(i), i + 1});
+        }
+        return mkResult(g, edgesWithDepth, false);
+    }
+
+
+    /**
+     * Collects the flows upstream or downstream of the starting entity, up to the requested depth.
+     * Results are capped, if the cap is reached the result is marked as truncated.
+     */
+    public LineageResult traverse(LineageTraversalCommand command) {
+        checkNotNull(command, "command cannot be null");
+        checkTrue(command.maxDepth() > 0, "maxDepth must be positive");
+
+        LineageGraph g = getGraph();
+        int start = g.indexOf(command.start());
+        if (start < 0) {
+            return mkResult(g, new ArrayList<>(), false);
+        }
+
+        List<int[]> edges = g.traverse(
+                start,
+                command.direction() == LineageDirection.DOWNSTREAM,
+                Math.min(command.maxDepth(), MAX_DEPTH),
+                MAX_EDGES + 1,
+                mkFilter(command.dataTypeId()));
+
+        boolean truncated = edges.size() > MAX_EDGES;
+        return mkResult(
+                g,
+                truncated ? edges.subList(0, MAX_EDGES) : edges,
+                truncated);
+    }
+
+
+    /**
+     * Re-reads the given flows (and their data types) into the resident graph.  Flows which have
+     * been removed are dropped.  Failures are logged and result in a full reload on the next query.
+     *
+     * The flows are read without holding 'lock'.  If a flow is refreshed again while being read
+     * only the later read is applied.
+     *
+     * @param flowIds  ids of logical flows which have been created or modified
+     */
+    public void refreshFlows(Collection<Long> flowIds) {
+        if (flowIds == null || flowIds.isEmpty()) {
+            return;
+        }
+
+        long seq;
+        synchronized (lock) {
+            if (refreshedDuringLoad != null) {
+                // a load may have read the flows before the change, re-read them once it completes
+                refreshedDuringLoad.addAll(flowIds);
+            }
+            if (flowsById == null) {
+                // not loaded yet, the initial load will pick up the changes
+                return;
+            }
+            seq = ++refreshSeq;
+            flowIds.forEach(id -> latestRefreshById.put(id, seq));
+        }
+
+        Map<Long, Flow> refreshed;
+        try {
+            refreshed = toFlows(logicalFlowDao.findActiveFlowDataTypesByFlowIds(flowIds));
+        } catch (Exception e) {
+            LOG.warn("Failed to refresh flows in lineage graph, will reload in full", e);
+            synchronized (lock) {
+                discardFlows();
+            }
+            return;
+        }
+
+        synchronized (lock) {
+            if (flowsById == null) {
+                // discarded while reading, the next query reloads
+                return;
+            }
+            List<Long> applied = new ArrayList<>(flowIds.size());
+            for (Long flowId : flowIds) {
+                Long latest = latestRefreshById.get(flowId);
+                if (latest == null || latest != seq) {
+                    // superseded by a later refresh (or a reload)
+                    continue;
+                }
+                latestRefreshById.remove(flowId);
+                flowsById.remove(flowId);
+                Flow flow = refreshed.get(flowId);
+                if (flow != null) {
+                    flowsById.put(flowId, flow);
+                }
+                applied.add(flowId);
+            }
+            if (applied.isEmpty()) {
+                return;
+            }
+            if (changedSinceBuild != null) {
+                changedSinceBuild.addAll(applied);
+            }
+            version++;
+            LOG.debug("Refreshed {} flows in lineage graph, {} remain active", applied.size(), refreshed.size());
+        }
+    }
+
+
+    /**
+     * Discards the resident flows, they will be reloaded in full on the next query.
+     */
+    public void markStale() {
+        synchronized (lock) {
+            LOG.info("Lineage graph marked as stale");
+            discardFlows();
+        }
+    }
+
+
+    // --- helpers ---
+
+    private LineageGraph getGraph() {
+        BuiltGraph current = graph;
+        if (isUpToDate(current)) {
+            return current.graph;
+        }
+        synchronized (buildLock) {
+            current = graph;
+            if (isUpToDate(current)) {
+                return current.graph;
+            }
+            if (current != null && ! isExpired()) {
+                LineageGraph patched = patch(current.graph);
+                if (patched != null) {
+                    return patched;
+                }
+            }
+            return rebuild();
+        }
+    }
+
+
+    /**
+     * Applies the flows refreshed since the graph was built.
+     *
+     * @return the patched graph, or null if it must be rebuilt
+     */
+    private LineageGraph patch(LineageGraph current) {
+        Set<Long> changed;
+        Map<Long, Flow> changedFlows = new HashMap<>();
+        long patchedVersion;
+        synchronized (lock) {
+            if (flowsById == null || changedSinceBuild == null) {
+                return null;
+            }
+            changed = changedSinceBuild;
+            changed.forEach(id -> {
+                Flow flow = flowsById.get(id);
+                if (flow != null) {
+                    changedFlows.put(id, flow);
+                }
+            });
+            changedSinceBuild = new HashSet<>();
+            patchedVersion = version;
+        }
+
+        LineageGraph patched = current.withFlows(changed, changedFlows);
+        if (patched != null) {
+            graph = new BuiltGraph(patched, patchedVersion);
+            LOG.debug("Patched lineage graph with {} changed flows", changed.size());
+        }
+        return patched;
+    }
+
+
+    private LineageGraph rebuild() {
+        List<Flow> flows = null;
+        long builtVersion = 0;
+        while (flows == null) {
+            Map<Long, Flow> loaded = isExpired()
+                    ? load()
+                    : null;
+            synchronized (lock) {
+                if (flowsById != null) {
+                    flows = new ArrayList<>(flowsById.values());
+                    changedSinceBuild = new HashSet<>();
+                } else if (loaded != null) {
+                    // discarded since loading, answer from the loaded flows, the next query reloads
+                    flows = new ArrayList<>(loaded.values());
+                }
+                builtVersion = version;
+            }
+        }
+
+        long start = System.nanoTime();
+        LineageGraph built = LineageGraph.build(flows);
+        graph = new BuiltGraph(built, builtVersion);
+        LOG.debug(
+                "Built lineage graph with {} nodes and {} edges in {}ms",
+                built.nodeCount(),
+                built.edgeCount(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return built;
+    }
+
+
+    private boolean isUpToDate(BuiltGraph g) {
+        return g != null && g.version == version && ! isExpired();
+    }
+
+
+    private boolean isExpired() {
+        return loadedAt == 0 || System.nanoTime() - loadedAt > maxAgeNanos;
+    }
+
+
+    // guarded by 'lock'
+    private void discardFlows() {
+        flowsById = null;
+        changedSinceBuild = null;
+        latestRefreshById.clear();
+        loadedAt = 0;
+        version++;
+        if (refreshedDuringLoad != null) {
+            staleDuringLoad = true;
+        }
+    }
+
+
+    /**
+     * Reads all active flows without holding 'lock', so changes (and their refreshes) are not
+     * blocked.  Flows refreshed while loading are re-read afterwards, as the load may have missed
+     * them.  If the flows are discarded while loading the loaded flows are used, but are
+     * immediately expired.
+     *
+     * @return the loaded flows
+     */
+    private Map<Long, Flow> load() {
+        synchronized (lock) {
+            refreshedDuringLoad = new HashSet<>();
+            staleDuringLoad = false;
+        }
+
+        long start = System.nanoTime();
+        Map<Long, Flow> loadedFlows;
+        Map<Long, List<Long>> loadedChildren;
+        try {
+            loadedFlows = logicalFlowDao.visitActiveFlowDataTypes(rows -> toFlows(rows.collect(toList())));
+            loadedChildren = loadDataTypeChildren();
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                refreshedDuringLoad = null;
+            }
+            throw e;
+        }
+
+        Set<Long> refreshed;
+        synchronized (lock) {
+            flowsById = loadedFlows;
+            changedSinceBuild = null;
+            dataTypeChildrenById = loadedChildren;
+            loadedAt = staleDuringLoad ? 0 : System.nanoTime();
+            version++;
+            refreshed = refreshedDuringLoad;
+            refreshedDuringLoad = null;
+        }
+
+        LOG.info(
+                "Loaded {} flows into lineage graph in {}ms",
+                loadedFlows.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        refreshFlows(refreshed);
+        return loadedFlows;
+    }
+
+
+    private Map<Long, List<Long>> loadDataTypeChildren() {
+        Map<Long, List<Long>> childrenById = new HashMap<>();
+        for (DataType dt : dataTypeService.findAll()) {
+            dt.parentId().ifPresent(parentId -> childrenById
+                    .computeIfAbsent(parentId, k -> new ArrayList<>())
+                    .add(dt.id().get()));
+        }
+        return childrenById;
+    }
+
+
+    /**
+     * Groups the (flow, source, target, data type) rows by flow.  Flows without data types are retained.
+     */
+    private static Map<Long, Flow> toFlows(List<Tuple4<Long, EntityReference, EntityReference, Long>> rows) {
+        Map<Long, Tuple2<Tuple4<Long, EntityReference, EntityReference, Long>, List<Long>>> rowsByFlow = new LinkedHashMap<>();
+        for (Tuple4<Long, EntityReference, EntityReference, Long> row : rows) {
+            List<Long> dataTypeIds = rowsByFlow
+                    .computeIfAbsent(row.v1, k -> tuple(row, new ArrayList<>()))
+                    .v2;
+            if (row.v4 != null) {
+                dataTypeIds.add(row.v4);
+            }
+        }
+
+        Map<Long, Flow> flows = new HashMap<>(rowsByFlow.size() * 2);
+        rowsByFlow.forEach((flowId, t) -> flows.put(
+                flowId,
+                new Flow(
+                        flowId,
+                        t.v1.v2,
+                        t.v1.v3,
+                        t.v2.stream().mapToLong(Long::longValue).toArray())));
+        return flows;
+    }
+
+
+    private EdgeFilter mkFilter(Long dataTypeId) {
+        if (dataTypeId == null) {
+            return EdgeFilter.ALL;
+        }
+        long[] dataTypeIds = findSelfAndDescendants(dataTypeId);
+        return (g, edge) -> g.carriesAny(edge, dataTypeIds);
+    }
+
+
+    private long[] findSelfAndDescendants(long dataTypeId) {
+        Map<Long, List<Long>> childrenById;
+        synchronized (lock) {
+            childrenById = dataTypeChildrenById == null
+                    ? loadDataTypeChildren()
+                    : dataTypeChildrenById;
+        }
+
+        Set<Long> result = new HashSet<>();
+        Deque<Long> toVisit = new ArrayDeque<>();
+        toVisit.add(dataTypeId);
+        while (! toVisit.isEmpty()) {
+            Long id = toVisit.pop();
+            if (result.add(id)) {
+                toVisit.addAll(childrenById.getOrDefault(id, new ArrayList<>()));
+            }
+        }
+        return result
+                .stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+    }
+
+
+    private LineageResult mkResult(LineageGraph g, List<int[]> edgesWithDepth, boolean truncated) {
+        Set<EntityReference> nodeRefs = new HashSet<>();
+        edgesWithDepth.forEach(ed -> {
+            nodeRefs.add(g.nodeRef(g.source(ed[0])));
+            nodeRefs.add(g.nodeRef(g.target(ed[0])));
+        });
+
+        Map<Tuple2<EntityKind, Long>, EntityReference> namedRefs = new HashMap<>();
+        nameResolver
+                .resolve(new ArrayList<>(nodeRefs))
+                .forEach(r -> namedRefs.put(tuple(r.kind(), r.id()), r));
+
+        List<LineageEdge> edges = edgesWithDepth
+                .stream()
+                .map(ed -> ImmutableLineageEdge
+                        .builder()
+                        .logicalFlowId(g.flowId(ed[0]))
+                        .source(toNamedRef(namedRefs, g.nodeRef(g.source(ed[0]))))
+                        .target(toNamedRef(namedRefs, g.nodeRef(g.target(ed[0]))))
+                        .depth(ed[1])
+                        .build())
+                .collect(toList());
+
+        return ImmutableLineageResult
+                .builder()
+                .edges(edges)
+                .truncated(truncated)
+                .build();
+    }
+
+
+    private static EntityReference toNamedRef(Map<Tuple2<EntityKind, Long>, EntityReference> namedRefs,
+                                              EntityReference ref) {
+        return namedRefs.getOrDefault(tuple(ref.kind(), ref.id()), ref);
+    }
+}
@@ -20,7 +20,7 @@ package org.finos.waltz.service.logical_flow;
 
 import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.data.DBExecutorPoolInterface;
-import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
+import org.finos.waltz.data.application.MaterializedApplicationIdSelectorFactory;
 import org.finos.waltz.data.data_type.DataTypeIdSelectorFactory;
 import org.finos.waltz.data.datatype_decorator.LogicalFlowDecoratorDao;
 import org.finos.waltz.data.datatype_decorator.PhysicalSpecDecoratorDao;
@@ -64,6 +64,7 @@ import org.finos.waltz.service.assessment_definition.AssessmentDefinitionService
 import org.finos.waltz.service.assessment_rating.AssessmentRatingService;
 import org.finos.waltz.service.changelog.ChangeLogService;
 import org.finos.waltz.service.data_type.DataTypeService;
+import org.finos.waltz.service.lineage.LineageService;
 import org.finos.waltz.service.permission.permission_checker.FlowPermissionChecker;
 import org.finos.waltz.service.rating_scheme.RatingSchemeService;
 import org.finos.waltz.service.usage_info.DataTypeUsageService;
@@ -120,7 +121,8 @@ public class LogicalFlowService {
     private final PhysicalFlowDao physicalFlowDao;
     private final PhysicalSpecificationDao physicalSpecificationDao;
     private final RatingSchemeService ratingSchemeService;
-    private final ApplicationIdSelectorFactory appIdSelectorFactory = new ApplicationIdSelectorFactory();
+    private final LineageService lineageService;
+    private final MaterializedApplicationIdSelectorFactory appIdSelectorFactory;
     private final LogicalFlowIdSelectorFactory logicalFlowIdSelectorFactory = new LogicalFlowIdSelectorFactory();
     private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory = new DataTypeIdSelectorFactory();
     private final PhysicalFlowIdSelectorFactory physicalFlowIdSelectorFactory = new PhysicalFlowIdSelectorFactory();
@@ -141,7 +143,9 @@ public class LogicalFlowService {
                               AssessmentDefinitionService assessmentDefinitionService,
                               PhysicalFlowDao physicalFlowDao,
                               PhysicalSpecificationDao physicalSpecificationDao,
-                              RatingSchemeService ratingSchemeService) {
+                              RatingSchemeService ratingSchemeService,
+                              LineageService lineageService,
+                              MaterializedApplicationIdSelectorFactory appIdSelectorFactory) {
 
         checkNotNull(assessmentDefinitionService, "assessmentDefinitionService cannot be null");
         checkNotNull(assessmentRatingService, "assessmentRatingService cannot be null");
@@ -157,6 +161,8 @@ public class LogicalFlowService {
         checkNotNull(physicalSpecDecoratorDao, "physicalSpecDecoratorDao cannot be null");
         checkNotNull(flowPermissionChecker, "flowPermissionChecker cannot be null");
         checkNotNull(ratingSchemeService, "ratingSchemeService cannot be null");
+        checkNotNull(lineageService, "lineageService cannot be null");
+        checkNotNull(appIdSelectorFactory, "appIdSelectorFactory cannot be null");
 
         this.assessmentDefinitionService = assessmentDefinitionService;
         this.assessmentRatingService = assessmentRatingService;
@@ -172,6 +178,8 @@ public class LogicalFlowService {
         this.physicalSpecificationDao = physicalSpecificationDao;
         this.physicalSpecDecoratorDao = physicalSpecDecoratorDao;
         this.ratingSchemeService = ratingSchemeService;
+        this.lineageService = lineageService;
+        this.appIdSelectorFactory = appIdSelectorFactory;
     }
 
 
@@ -216,6 +224,14 @@ public class LogicalFlowService {
     }
 
 
+    /**
+     * Lazily fetched variant of {@link #findBySelector(IdSelectionOptions)}, the caller must close the stream.
+     */
+    public Stream<LogicalFlow> streamBySelector(IdSelectionOptions options) {
+        return logicalFlowDao.streamBySelector(logicalFlowIdSelectorFactory.apply(options));
+    }
+
+
     /**
      * Creates a logical flow and creates a default, 'UNKNOWN' data type decoration
      * if possible.
@@ -241,6 +257,7 @@ public class LogicalFlowService {
 
         LogicalFlow logicalFlow = logicalFlowDao.addFlow(flowToAdd);
         attemptToAddUnknownDecoration(logicalFlow, username);
+        lineageService.refreshFlows(asSet(logicalFlow.id().get()));
 
         changeLogService.writeChangeLogEntries(logicalFlow, username, "Added", Operation.ADD);
 
@@ -289,7 +306,10 @@ public class LogicalFlowService {
                         .build())
                 .collect(toSet());
 
-        return logicalFlowDao.addFlows(flowsToAdd, username);
+        Set<LogicalFlow> addedFlows = logicalFlowDao.addFlows(flowsToAdd, username);
+        lineageService.refreshFlows(map(addedFlows, f -> f.id().get()));
+
+        return addedFlows;
     }
 
 
@@ -322,6 +342,7 @@ public class LogicalFlowService {
             throw new IllegalArgumentException(format("Cannot find flow with id: %d, no logical flow removed", flowId));
         } else {
             int deleted = logicalFlowDao.removeFlow(flowId, username);
+            lineageService.refreshFlows(asSet(flowId));
 
             Set<EntityReference> affectedEntityRefs = SetUtilities.fromArray(logicalFlow.source(), logicalFlow.target());
 
@@ -385,6 +406,7 @@ public class LogicalFlowService {
     public boolean restoreFlow(long logicalFlowId, String username) {
         boolean result = logicalFlowDao.restoreFlow(logicalFlowId, username);
         if (result) {
+            lineageService.refreshFlows(asSet(logicalFlowId));
             changeLogService.writeChangeLogEntries(mkRef(LOGICAL_DATA_FLOW, logicalFlowId), username, "Restored", Operation.ADD);
         }
         return result;
@@ -392,12 +414,16 @@ public class LogicalFlowService {
 
 
     public Integer cleanupOrphans() {
-        return logicalFlowDao.cleanupOrphans();
+        Integer removed = logicalFlowDao.cleanupOrphans();
+        lineageService.markStale();
+        return removed;
     }
 
 
     public int cleanupSelfReferencingFlows() {
-        return logicalFlowDao.cleanupSelfReferencingFlows();
+        int removed = logicalFlowDao.cleanupSelfReferencingFlows();
+        lineageService.markStale();
+        return removed;
     }
 
 
@@ -30,6 +30,7 @@ import org.finos.waltz.model.*;
 import org.finos.waltz.model.changelog.ImmutableChangeLog;
 import org.finos.waltz.model.entity_search.EntitySearchOptions;
 import org.finos.waltz.model.measurable.Measurable;
+import org.finos.waltz.service.entity_search.EntitySearchIndexService;
 import org.jooq.Record1;
 import org.jooq.Select;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -53,22 +54,26 @@ public class MeasurableService {
     private final MeasurableSearchDao measurableSearchDao;
     private final ChangeLogService changeLogService;
     private final EntityReferenceNameResolver nameResolver;
+    private final EntitySearchIndexService entitySearchIndexService;
 
 
     @Autowired
     public MeasurableService(MeasurableDao measurableDao,
                              MeasurableSearchDao measurableSearchDao,
                              EntityReferenceNameResolver nameResolver,
-                             ChangeLogService changeLogService) {
+                             ChangeLogService changeLogService,
+                             EntitySearchIndexService entitySearchIndexService) {
         checkNotNull(measurableDao, "measurableDao cannot be null");
         checkNotNull(measurableSearchDao, "measurableSearchDao cannot be null");
         checkNotNull(nameResolver, "nameResolver cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
+        checkNotNull(entitySearchIndexService, "entitySearchIndexService cannot be null");
 
         this.measurableDao = measurableDao;
         this.measurableSearchDao = measurableSearchDao;
         this.nameResolver = nameResolver;
         this.changeLogService = changeLogService;
+        this.entitySearchIndexService = entitySearchIndexService;
     }
 
 
@@ -137,7 +142,10 @@ public class MeasurableService {
 
     public boolean updateName(long id, String newValue, String userId) {
         logUpdate(id, "name", newValue, m -> ofNullable(m.name()), userId);
-        return measurableDao.updateName(id, newValue, userId);
+        boolean updated = measurableDao.updateName(id, newValue, userId);
+        nameResolver.invalidate(mkRef(EntityKind.MEASURABLE, id));
+        entitySearchIndexService.markStale(EntityKind.MEASURABLE);
+        return updated;
     }
 
 
@@ -149,13 +157,16 @@ public class MeasurableService {
 
     public boolean updateExternalId(long id, String newValue, String userId) {
         logUpdate(id, "externalId", newValue, ExternalIdProvider::externalId, userId);
-        return measurableDao.updateExternalId(id, newValue, userId);
+        boolean updated = measurableDao.updateExternalId(id, newValue, userId);
+        entitySearchIndexService.markStale(EntityKind.MEASURABLE);
+        return updated;
     }
 
 
     public boolean create(Measurable measurable, String userId) {
         Long measurableId = measurableDao.create(measurable);
         writeAuditMessage(measurableId, userId, String.format("created new measurable %s", measurable.name()));
+        entitySearchIndexService.markStale(EntityKind.MEASURABLE);
         return measurableId > 1;
     }
 
@@ -163,8 +174,10 @@ public class MeasurableService {
     public int deleteByIdSelector(IdSelectionOptions selectionOptions) {
         Select<Record1<Long>> selector = measurableIdSelectorFactory
                 .apply(selectionOptions);
-        return measurableDao
+        int removed = measurableDao
                 .deleteByIdSelector(selector);
+        entitySearchIndexService.markStale(EntityKind.MEASURABLE);
+        return removed;
     }
 
 
@@ -18,13 +18,16 @@
 
 package org.finos.waltz.service.measurable_category;
 
+import org.finos.waltz.data.EntityReferenceNameResolver;
 import org.finos.waltz.data.measurable_category.MeasurableCategoryDao;
+import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.exceptions.NotAuthorizedException;
 import org.finos.waltz.model.measurable_category.ImmutableMeasurableCategoryView;
 import org.finos.waltz.model.measurable_category.MeasurableCategory;
 import org.finos.waltz.model.measurable_category.MeasurableCategoryView;
 import org.finos.waltz.model.user.SystemRole;
+import org.finos.waltz.service.reference_data.ReferenceDataService;
 import org.finos.waltz.service.user.UserRoleService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -43,22 +46,32 @@ public class MeasurableCategoryService {
 
     private final MeasurableCategoryDao measurableCategoryDao;
     private final UserRoleService userRoleService;
+    private final ReferenceDataService referenceDataService;
+    private final EntityReferenceNameResolver nameResolver;
 
 
     @Autowired
-    public MeasurableCategoryService(MeasurableCategoryDao measurableCategoryDao, UserRoleService userRoleService) {
+    public MeasurableCategoryService(MeasurableCategoryDao measurableCategoryDao,
+                                     UserRoleService userRoleService,
+                                     ReferenceDataService referenceDataService,
+                                     EntityReferenceNameResolver nameResolver) {
         this.measurableCategoryDao = measurableCategoryDao;
         this.userRoleService = userRoleService;
+        this.referenceDataService = referenceDataService;
+        this.nameResolver = nameResolver;
     }
 
 
     public Collection<MeasurableCategory> findAll() {
-        return measurableCategoryDao.findAll();
+        return referenceDataService.getSnapshot().measurableCategories();
     }
 
 
     public MeasurableCategory getById(long id) {
-        return measurableCategoryDao.getById(id);
+        return referenceDataService
+                .getSnapshot()
+                .measurableCategory(id)
+                .orElseGet(() -> measurableCategoryDao.getById(id));
     }
 
 
@@ -73,7 +86,7 @@ public class MeasurableCategoryService {
 
 
     public List<MeasurableCategoryView> findPopulatedCategoriesForRef(EntityReference ref) {
-        Collection<MeasurableCategory> allCategories = measurableCategoryDao.findAll();
+        Collection<MeasurableCategory> allCategories = findAll();
 
         Map<Long, Long> ratingCountsByCategoryId = measurableCategoryDao
                 .findRatingCountsByCategoryId(ref);
@@ -92,7 +105,10 @@ public class MeasurableCategoryService {
 
     public boolean save(MeasurableCategory measurableCategory, String username) {
         ensureUserHasPermission(username);
-        return measurableCategoryDao.save(measurableCategory, username);
+        boolean result = measurableCategoryDao.save(measurableCategory, username);
+        referenceDataService.markStale("measurable category saved");
+        measurableCategory.id().ifPresent(id -> nameResolver.invalidate(EntityReference.mkRef(EntityKind.MEASURABLE_CATEGORY, id)));
+        return result;
     }
 
 
@@ -20,7 +20,7 @@ package org.finos.waltz.service.measurable_rating;
 
 import org.finos.waltz.common.DateTimeUtilities;
 import org.finos.waltz.data.EntityReferenceNameResolver;
-import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
+import org.finos.waltz.data.application.MaterializedApplicationIdSelectorFactory;
 import org.finos.waltz.data.measurable.MeasurableDao;
 import org.finos.waltz.data.measurable.MeasurableIdSelectorFactory;
 import org.finos.waltz.data.measurable_category.MeasurableCategoryDao;
@@ -31,6 +31,7 @@ import org.finos.waltz.model.IdSelectionOptions;
 import org.finos.waltz.model.Operation;
 import org.finos.waltz.model.Severity;
 import org.finos.waltz.model.UserTimestamp;
+import org.finos.waltz.model.changelog.ChangeLog;
 import org.finos.waltz.model.changelog.ImmutableChangeLog;
 import org.finos.waltz.model.measurable.Measurable;
 import org.finos.waltz.model.measurable_category.MeasurableCategory;
@@ -46,6 +47,7 @@ import org.finos.waltz.model.tally.MeasurableRatingTally;
 import org.finos.waltz.model.tally.Tally;
 import org.finos.waltz.service.changelog.ChangeLogService;
 import org.finos.waltz.service.rating_scheme.RatingSchemeService;
+import org.finos.waltz.service.report_grid.ReportGridCellStore;
 import org.jooq.Record1;
 import org.jooq.Select;
 import org.jooq.lambda.tuple.Tuple2;
@@ -54,9 +56,11 @@ import org.springframework.stereotype.Service;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 import static org.finos.waltz.common.Checks.*;
+import static org.finos.waltz.common.ListUtilities.asList;
 
 @Service
 public class MeasurableRatingService {
@@ -67,9 +71,10 @@ public class MeasurableRatingService {
     private final ChangeLogService changeLogService;
     private final RatingSchemeService ratingSchemeService;
     private final EntityReferenceNameResolver entityReferenceNameResolver;
+    private final ReportGridCellStore reportGridCellStore;
 
     private final MeasurableIdSelectorFactory measurableIdSelectorFactory = new MeasurableIdSelectorFactory();
-    private final ApplicationIdSelectorFactory applicationIdSelectorFactory = new ApplicationIdSelectorFactory();
+    private final MaterializedApplicationIdSelectorFactory applicationIdSelectorFactory;
 
 
     @Autowired
@@ -78,12 +83,16 @@ public class MeasurableRatingService {
                                    MeasurableCategoryDao measurableCategoryDao,
                                    ChangeLogService changeLogService,
                                    RatingSchemeService ratingSchemeService,
-                                   EntityReferenceNameResolver entityReferenceNameResolver) {
+                                   EntityReferenceNameResolver entityReferenceNameResolver,
+                                   ReportGridCellStore reportGridCellStore,
+                                   MaterializedApplicationIdSelectorFactory applicationIdSelectorFactory) {
         checkNotNull(measurableRatingDao, "measurableRatingDao cannot be null");
         checkNotNull(measurableDao, "measurableDao cannot be null");
         checkNotNull(measurableCategoryDao, "measurableCategoryDao cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
         checkNotNull(ratingSchemeService, "ratingSchemeService cannot be null");
+        checkNotNull(reportGridCellStore, "reportGridCellStore cannot be null");
+        checkNotNull(applicationIdSelectorFactory, "applicationIdSelectorFactory cannot be null");
 
         this.measurableRatingDao = measurableRatingDao;
         this.measurableDao = measurableDao;
@@ -91,6 +100,8 @@ public class MeasurableRatingService {
         this.changeLogService = changeLogService;
         this.ratingSchemeService = ratingSchemeService;
         this.entityReferenceNameResolver = entityReferenceNameResolver;
+        this.reportGridCellStore = reportGridCellStore;
+        this.applicationIdSelectorFactory = applicationIdSelectorFactory;
     }
 
     // -- READ
@@ -128,6 +139,16 @@ public class MeasurableRatingService {
         return measurableRatingDao.findByApplicationIdSelector(selector);
     }
 
+
+    /**
+     * Lazily fetched variant of {@link #findByAppIdSelector(IdSelectionOptions)}, the caller must close the stream.
+     */
+    public Stream<MeasurableRating> streamByAppIdSelector(IdSelectionOptions options) {
+        checkNotNull(options, "options cannot be null");
+        Select<Record1<Long>> selector = applicationIdSelectorFactory.apply(options);
+        return measurableRatingDao.streamByApplicationIdSelector(selector);
+    }
+
     public Collection<MeasurableRating> findByCategory(long id) {
         return measurableRatingDao.findByCategory(id);
     }
@@ -151,6 +172,8 @@ public class MeasurableRatingService {
                 "Cannot find category: %d", categoryId);
 
         int removedCount = measurableRatingDao.removeForCategory(ref, categoryId);
+        reportGridCellStore.invalidateForSubject(ref);
+        applicationIdSelectorFactory.invalidateForKind(EntityKind.MEASURABLE);
 
         changeLogService.write(ImmutableChangeLog.builder()
                 .message(format("Removed all (%d) ratings for category: %s which are not read-only", removedCount, category.name()))
@@ -171,6 +194,8 @@ public class MeasurableRatingService {
         Measurable measurable = measurableDao.getById(command.measurableId());
 
         boolean success = measurableRatingDao.remove(command);
+        reportGridCellStore.invalidateForSubject(command.entityReference());
+        applicationIdSelectorFactory.invalidateForKind(EntityKind.MEASURABLE);
 
         if (success && measurable != null) {
             String entityName = getEntityName(command);
@@ -195,8 +220,11 @@ public class MeasurableRatingService {
     public int deleteByMeasurableIdSelector(IdSelectionOptions selectionOptions) {
         Select<Record1<Long>> selector = measurableIdSelectorFactory
                 .apply(selectionOptions);
-        return measurableRatingDao
+        int removedCount = measurableRatingDao
                 .deleteByMeasurableIdSelector(selector);
+        reportGridCellStore.invalidateAll("measurable ratings removed by selector");
+        applicationIdSelectorFactory.invalidateForKind(EntityKind.MEASURABLE);
+        return removedCount;
     }
 
 
@@ -217,6 +245,8 @@ public class MeasurableRatingService {
                 measurableId,
                 ratingCode,
                 username);
+        reportGridCellStore.invalidateForSubject(entityRef);
+        applicationIdSelectorFactory.invalidateForKind(EntityKind.MEASURABLE);
 
         if (rc) {
             writeChangeLogEntry(
@@ -256,6 +286,8 @@ public class MeasurableRatingService {
                 measurableId,
                 isPrimary,
                 username);
+        reportGridCellStore.invalidateForSubject(entityRef);
+        applicationIdSelectorFactory.invalidateForKind(EntityKind.MEASURABLE);
 
         if (rc) {
             writeChangeLogEntry(
@@ -285,6 +317,8 @@ public class MeasurableRatingService {
                 null);
 
         boolean rc = measurableRatingDao.saveRatingDescription(entityRef, measurableId, description, username);
+        reportGridCellStore.invalidateForSubject(entityRef);
+        applicationIdSelectorFactory.invalidateForKind(EntityKind.MEASURABLE);
 
         if (rc) {
             writeChangeLogEntry(
@@ -348,6 +382,8 @@ public class MeasurableRatingService {
 
     public void migrateRatings(Long measurableId, Long targetMeasurableId, String userId) {
         measurableRatingDao.migrateRatings(measurableId, targetMeasurableId, userId);
+        reportGridCellStore.invalidateAll("measurable ratings migrated");
+        applicationIdSelectorFactory.invalidateForKind(EntityKind.MEASURABLE);
     }
 
 
@@ -370,25 +406,27 @@ public class MeasurableRatingService {
                                      Operation operation,
                                      UserTimestamp userTimestamp) {
 
-        changeLogService.write(ImmutableChangeLog.builder()
-                                                 .message(message1)
-                                                 .parentReference(ratedEntity)
-                                                 .userId(userTimestamp.by())
-                                                 .createdAt(userTimestamp.at())
-                                                 .severity(Severity.INFORMATION)
-                                                 .childKind(EntityKind.MEASURABLE)
-                                                 .operation(operation)
-                                                 .build());
+        ChangeLog ratedEntityEntry = ImmutableChangeLog.builder()
+                .message(message1)
+                .parentReference(ratedEntity)
+                .userId(userTimestamp.by())
+                .createdAt(userTimestamp.at())
+                .severity(Severity.INFORMATION)
+                .childKind(EntityKind.MEASURABLE)
+                .operation(operation)
+                .build();
+
+        ChangeLog measurableEntry = ImmutableChangeLog.builder()
+                .message(message2)
+                .parentReference(measurable)
+                .userId(userTimestamp.by())
+                .createdAt(userTimestamp.at())
+                .severity(Severity.INFORMATION)
+                .childKind(ratedEntity.kind())
+                .operation(operation)
+                .build();
 
-        changeLogService.write(ImmutableChangeLog.builder()
-                                                 .message(message2)
-                                                 .parentReference(measurable)
-                                                 .userId(userTimestamp.by())
-                                                 .createdAt(userTimestamp.at())
-                                                 .severity(Severity.INFORMATION)
-                                                 .childKind(ratedEntity.kind())
-                                                 .operation(operation)
-                                                 .build());
+        changeLogService.write(asList(ratedEntityEntry, measurableEntry));
     }
 
 
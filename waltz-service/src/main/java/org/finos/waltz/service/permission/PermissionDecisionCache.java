@@ -0,0 +1,196 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.permission;
+
+import org.finos.waltz.common.ExpiringCache;
+import org.finos.waltz.common.StringUtilities;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.permission_group.CheckPermissionCommand;
+import org.finos.waltz.model.permission_group.ImmutableCheckPermissionCommand;
+import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static java.util.Collections.singleton;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+/**
+ * Holds the outcome of permission group checks keyed by the check (user, parent entity,
+ * operation, subject and qualifier).  Each outcome is indexed by the parent entity, the user
+ * and the permission groups it was drawn from, so invalidation does not examine every entry.
+ *
+ * Entries are discarded when:
+ * <ul>
+ *     <li>involvements for the parent entity change, see {@link #invalidateForEntity(EntityReference)}</li>
+ *     <li>a user is removed or their person record is reloaded, see {@link #invalidateForUsers(Collection)}</li>
+ *     <li>the involvements required by a permission group change, see {@link #invalidateForPermissionGroups(Collection)}</li>
+ *     <li>bulk changes are made to involvements, see {@link #invalidateAll(String)}</li>
+ *     <li>the entry exceeds `permission-decisions.cache.ttl-seconds` (default 60)</li>
+ * </ul>
+ *
+ * Invalidation is local to this node, so other nodes may keep granting a revoked permission
+ * until their entry expires.  Lower the ttl if that delay is unacceptable.
+ */
+@Service
+public class PermissionDecisionCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PermissionDecisionCache.class);
+
+    private enum Tag { ENTITY, USER, PERMISSION_GROUP }
+
+    private final ExpiringCache<CheckPermissionCommand, Tuple2<Boolean, Set<Long>>> cache;
+
+
+    @Autowired
+    public PermissionDecisionCache(@Value("${permission-decisions.cache.max-entries:20000}") int maxEntries,
+                                   @Value("${permission-decisions.cache.ttl-seconds:60}") int ttlSeconds) {
+        this.cache = new ExpiringCache<>(
+                maxEntries,
+                Duration.ofSeconds(ttlSeconds),
+                (k, v) -> mkTags(k, v.v2));
+    }
+
+
+    /**
+     * Returns the cached decision for the given check, computing it via the supplier if
+     * no valid entry exists.
+     *
+     * @param command  permission check, the parent entity is compared by kind and id only
+     * @param decisionSupplier  computes the decision on a miss, along with the ids of the permission groups it was drawn from
+     * @return true if the permission is granted
+     */
+    public boolean getOrCompute(CheckPermissionCommand command,
+                                Supplier<Tuple2<Boolean, Set<Long>>> decisionSupplier) {
+        checkNotNull(command, "command cannot be null");
+
+        return cache.getOrCompute(
+                mkKey(command),
+                k -> decisionSupplier.get())
+                .v1;
+    }
+
+
+    public void invalidateForEntity(EntityReference parentEntityRef) {
+        if (parentEntityRef == null) {
+            return;
+        }
+        int removed = cache.invalidateTagged(singleton(mkEntityTag(parentEntityRef)));
+        LOG.debug("Invalidated {} cached permission decisions for entity: {}", removed, parentEntityRef);
+    }
+
+
+    public void invalidateForEntities(Collection<EntityReference> parentEntityRefs) {
+        Set<Tuple2<Tag, Object>> tags = map(parentEntityRefs, PermissionDecisionCache::mkEntityTag);
+        if (tags.isEmpty()) {
+            return;
+        }
+        int removed = cache.invalidateTagged(tags);
+        LOG.debug("Invalidated {} cached permission decisions for {} entities", removed, tags.size());
+    }
+
+
+    /**
+     * @param userIds  user names (as given in the permission checks), compared case-insensitively
+     */
+    public void invalidateForUsers(Collection<String> userIds) {
+        Set<Tuple2<Tag, Object>> tags = map(userIds, PermissionDecisionCache::mkUserTag);
+        if (tags.isEmpty()) {
+            return;
+        }
+        int removed = cache.invalidateTagged(tags);
+        LOG.debug("Invalidated {} cached permission decisions for {} users", removed, tags.size());
+    }
+
+
+    /**
+     * Discards the decisions drawn from the given permission groups, e.g. after the involvements
+     * they require have changed.  If entities are added to (or removed from) a group, use
+     * {@link #invalidateForEntities(Collection)} as their decisions were drawn from other groups.
+     */
+    public void invalidateForPermissionGroups(Collection<Long> permissionGroupIds) {
+        Set<Tuple2<Tag, Object>> tags = map(permissionGroupIds, id -> tuple(Tag.PERMISSION_GROUP, id));
+        if (tags.isEmpty()) {
+            return;
+        }
+        int removed = cache.invalidateTagged(tags);
+        LOG.debug("Invalidated {} cached permission decisions for permission groups: {}", removed, permissionGroupIds);
+    }
+
+
+    public void invalidateAll(String reason) {
+        LOG.info("Invalidating all cached permission decisions, reason: {}", reason);
+        cache.invalidateAll();
+    }
+
+
+    public int size() {
+        return cache.size();
+    }
+
+
+    public long hitCount() {
+        return cache.hitCount();
+    }
+
+
+    public long missCount() {
+        return cache.missCount();
+    }
+
+
+    // --- helpers ---
+
+    private static CheckPermissionCommand mkKey(CheckPermissionCommand command) {
+        EntityReference ref = command.parentEntityRef();
+        return ImmutableCheckPermissionCommand
+                .copyOf(command)
+                .withParentEntityRef(mkRef(ref.kind(), ref.id()));
+    }
+
+
+    private static Set<Tuple2<Tag, Object>> mkTags(CheckPermissionCommand key, Set<Long> permissionGroupIds) {
+        Set<Tuple2<Tag, Object>> tags = new HashSet<>();
+        tags.add(mkEntityTag(key.parentEntityRef()));
+        tags.add(mkUserTag(key.user()));
+        permissionGroupIds.forEach(id -> tags.add(tuple(Tag.PERMISSION_GROUP, id)));
+        return tags;
+    }
+
+
+    private static Tuple2<Tag, Object> mkEntityTag(EntityReference ref) {
+        return tuple(Tag.ENTITY, mkRef(ref.kind(), ref.id()));
+    }
+
+
+    private static Tuple2<Tag, Object> mkUserTag(String userId) {
+        return tuple(Tag.USER, StringUtilities.lower(userId));
+    }
+}
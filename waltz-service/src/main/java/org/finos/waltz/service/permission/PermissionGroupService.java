@@ -9,6 +9,7 @@ import org.finos.waltz.model.permission_group.RequiredInvolvementsResult;
 import org.finos.waltz.model.person.Person;
 import org.finos.waltz.service.involvement.InvolvementService;
 import org.finos.waltz.service.person.PersonService;
+import org.jooq.lambda.tuple.Tuple2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,6 +21,7 @@ import java.util.Set;
 import static java.util.Objects.isNull;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.SetUtilities.filter;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Service
 public class PermissionGroupService {
@@ -28,15 +30,18 @@ public class PermissionGroupService {
     private final PersonService personService;
     private final PermissionGroupDao permissionGroupDao;
     private final InvolvementService involvementService;
+    private final PermissionDecisionCache permissionDecisionCache;
 
 
     @Autowired
     public PermissionGroupService(PersonService personService,
                                   PermissionGroupDao permissionGroupDao,
-                                  InvolvementService involvementService) {
+                                  InvolvementService involvementService,
+                                  PermissionDecisionCache permissionDecisionCache) {
         this.personService = personService;
         this.permissionGroupDao = permissionGroupDao;
         this.involvementService = involvementService;
+        this.permissionDecisionCache = permissionDecisionCache;
     }
 
 
@@ -53,24 +58,49 @@ public class PermissionGroupService {
     }
 
 
+    /**
+     * Decisions are cached (see {@link PermissionDecisionCache}), changes to involvements
+     * for the parent entity, or to the involvements required by its permission groups,
+     * discard the cached decisions.
+     */
     public boolean hasPermission(CheckPermissionCommand permissionCommand) {
+        return permissionDecisionCache.getOrCompute(
+                permissionCommand,
+                () -> computePermission(permissionCommand));
+    }
+
+
+    /**
+     * @return the decision, along with the permission groups it was drawn from
+     */
+    private Tuple2<Boolean, Set<Long>> computePermission(CheckPermissionCommand permissionCommand) {
 
         RequiredInvolvementsResult required = permissionGroupDao.getRequiredInvolvements(permissionCommand);
 
         if (required.areAllUsersAllowed()) {
-            return true;
+            return tuple(true, required.permissionGroupIds());
         }
 
         if (required.requiredInvolvementKindIds().isEmpty()) {
             // no involvements (incl. defaults) for this requested permission, therefore can safely say 'no'
-            return false;
+            return tuple(false, required.permissionGroupIds());
         }
 
         Set<Long> existingInvolvements = involvementService.findExistingInvolvementKindIdsForUser(
                 permissionCommand.parentEntityRef(),
                 permissionCommand.user());
 
-        return required.isAllowed(existingInvolvements);
+        return tuple(required.isAllowed(existingInvolvements), required.permissionGroupIds());
+    }
+
+
+    /**
+     * Discards the cached decisions which depend on the given involvement group, should be called
+     * whenever the involvement kinds in the group change.
+     */
+    public void invalidateForInvolvementGroup(long involvementGroupId) {
+        permissionDecisionCache.invalidateForPermissionGroups(
+                permissionGroupDao.findPermissionGroupIdsByInvolvementGroupId(involvementGroupId));
     }
 
 
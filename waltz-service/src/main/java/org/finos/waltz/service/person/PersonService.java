@@ -19,6 +19,7 @@
 package org.finos.waltz.service.person;
 
 import org.finos.waltz.common.CollectionUtilities;
+import org.finos.waltz.data.EntityReferenceNameResolver;
 import org.finos.waltz.data.person.PersonDao;
 import org.finos.waltz.data.person.search.PersonSearchDao;
 import org.finos.waltz.model.EntityKind;
@@ -26,6 +27,7 @@ import org.finos.waltz.model.entity_search.EntitySearchOptions;
 import org.finos.waltz.model.person.ImmutablePerson;
 import org.finos.waltz.model.person.Person;
 import org.finos.waltz.model.person.PersonKind;
+import org.finos.waltz.service.permission.PermissionDecisionCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -37,6 +39,7 @@ import java.util.Set;
 import static java.util.Collections.emptyList;
 import static org.finos.waltz.common.Checks.checkNotEmpty;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.SetUtilities.map;
 import static org.finos.waltz.common.StringUtilities.isEmpty;
 
 @Service
@@ -44,15 +47,24 @@ public class PersonService {
 
     private final PersonDao personDao;
     private final PersonSearchDao personSearchDao;
+    private final EntityReferenceNameResolver nameResolver;
+    private final PermissionDecisionCache permissionDecisionCache;
 
 
     @Autowired
-    public PersonService(PersonDao personDao, PersonSearchDao personSearchDao) {
+    public PersonService(PersonDao personDao,
+                         PersonSearchDao personSearchDao,
+                         EntityReferenceNameResolver nameResolver,
+                         PermissionDecisionCache permissionDecisionCache) {
         checkNotNull(personDao, "personDao must not be null");
         checkNotNull(personSearchDao, "personSearchDao must not be null");
+        checkNotNull(nameResolver, "nameResolver must not be null");
+        checkNotNull(permissionDecisionCache, "permissionDecisionCache must not be null");
 
         this.personDao = personDao;
         this.personSearchDao = personSearchDao;
+        this.nameResolver = nameResolver;
+        this.permissionDecisionCache = permissionDecisionCache;
     }
 
 
@@ -107,7 +119,11 @@ public class PersonService {
 
 
     public int[] bulkSave(List<ImmutablePerson> people) {
-        return personDao.bulkSave(people);
+        int[] result = personDao.bulkSave(people);
+        nameResolver.invalidateKind(EntityKind.PERSON);
+        // a person's involvements are found via their email, which may have been reassigned
+        permissionDecisionCache.invalidateForUsers(map(people, Person::email));
+        return result;
     }
 
 
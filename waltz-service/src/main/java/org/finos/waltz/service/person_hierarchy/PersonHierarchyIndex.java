@@ -0,0 +1,302 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.person_hierarchy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+/**
+ * Compact, immutable, in-memory representation of the person (reporting line) hierarchy.
+ *
+ * Each employee is assigned an integer position, the hierarchy is held as an array of
+ * parent positions plus a pre-order layout of the forest, so every subtree occupies a
+ * contiguous range of that layout.  This allows:
+ * <ul>
+ *     <li>ancestor lookups by walking the parent array</li>
+ *     <li>'is X a reportee of Y' checks in constant time</li>
+ *     <li>reportee lookups proportional to the number of reportees</li>
+ * </ul>
+ *
+ * Employees who manage themselves, whose manager is unknown, or who would otherwise form a
+ * reporting cycle are treated as roots.
+ */
+public class PersonHierarchyIndex {
+
+    private static final int NO_PARENT = -1;
+
+    private static final PersonHierarchyIndex EMPTY = build(Collections.emptyMap());
+
+    private final Map<String, Integer> positionsByEmployeeId;
+    private final String[] employeeIds;
+    private final int[] parents;
+    private final int[] layout;      // positions in pre-order
+    private final int[] layoutIndex; // position -> index in layout
+    private final int[] subtreeSizes;
+
+
+    private PersonHierarchyIndex(Map<String, Integer> positionsByEmployeeId,
+                                 String[] employeeIds,
+                                 int[] parents,
+                                 int[] layout,
+                                 int[] layoutIndex,
+                                 int[] subtreeSizes) {
+        this.positionsByEmployeeId = positionsByEmployeeId;
+        this.employeeIds = employeeIds;
+        this.parents = parents;
+        this.layout = layout;
+        this.layoutIndex = layoutIndex;
+        this.subtreeSizes = subtreeSizes;
+    }
+
+
+    public static PersonHierarchyIndex empty() {
+        return EMPTY;
+    }
+
+
+    /**
+     * Builds an index from the given reporting lines
+     *
+     * @param managersByEmployeeId  employee id to manager employee id, the manager may be null
+     * @return index of the reporting lines
+     */
+    public static PersonHierarchyIndex build(Map<String, String> managersByEmployeeId) {
+        checkNotNull(managersByEmployeeId, "managersByEmployeeId cannot be null");
+
+        int size = managersByEmployeeId.size();
+        String[] employeeIds = managersByEmployeeId.keySet().toArray(new String[0]);
+        Map<String, Integer> positionsByEmployeeId = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            positionsByEmployeeId.put(employeeIds[i], i);
+        }
+
+        int[] parents = new int[size];
+        for (int i = 0; i < size; i++) {
+            Integer parent = positionsByEmployeeId.get(managersByEmployeeId.get(employeeIds[i]));
+            parents[i] = parent == null || parent == i
+                    ? NO_PARENT
+                    : parent;
+        }
+
+        breakCycles(parents);
+
+        // children are held in compressed form: children of p are childList[childStarts[p] .. childStarts[p + 1])
+        int[] childStarts = new int[size + 1];
+        for (int parent : parents) {
+            if (parent != NO_PARENT) {
+                childStarts[parent + 1]++;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            childStarts[i + 1] += childStarts[i];
+        }
+        int[] childList = new int[size];
+        int[] nextChildSlot = Arrays.copyOf(childStarts, size);
+        for (int i = 0; i < size; i++) {
+            if (parents[i] != NO_PARENT) {
+                childList[nextChildSlot[parents[i]]++] = i;
+            }
+        }
+
+        int[] layout = new int[size];
+        int[] layoutIndex = new int[size];
+        int[] subtreeSizes = new int[size];
+        int[] stack = new int[size];
+        int cursor = 0;
+
+        for (int root = 0; root < size; root++) {
+            if (parents[root] != NO_PARENT) {
+                continue;
+            }
+            int top = 0;
+            stack[top++] = root;
+            while (top > 0) {
+                int current = stack[--top];
+                layoutIndex[current] = cursor;
+                layout[cursor++] = current;
+                for (int c = childStarts[current + 1] - 1; c >= childStarts[current]; c--) {
+                    stack[top++] = childList[c];
+                }
+            }
+        }
+
+        // every node follows its parent in the layout, so sizes can be accumulated in reverse
+        Arrays.fill(subtreeSizes, 1);
+        for (int i = size - 1; i >= 0; i--) {
+            int node = layout[i];
+            if (parents[node] != NO_PARENT) {
+                subtreeSizes[parents[node]] += subtreeSizes[node];
+            }
+        }
+
+        return new PersonHierarchyIndex(
+                positionsByEmployeeId,
+                employeeIds,
+                parents,
+                layout,
+                layoutIndex,
+                subtreeSizes);
+    }
+
+
+    public int size() {
+        return employeeIds.length;
+    }
+
+
+    public List<String> getEmployeeIds() {
+        return Collections.unmodifiableList(Arrays.asList(employeeIds));
+    }
+
+
+    public boolean contains(String employeeId) {
+        return positionsByEmployeeId.containsKey(employeeId);
+    }
+
+
+    /**
+     * @param employeeId  employee to lookup
+     * @return the employee id of the (resolved) manager, or null if the employee is a root or unknown
+     */
+    public String getManagerEmployeeId(String employeeId) {
+        Integer position = positionsByEmployeeId.get(employeeId);
+        return position == null || parents[position] == NO_PARENT
+                ? null
+                : employeeIds[parents[position]];
+    }
+
+
+    /**
+     * @param employeeId  employee to lookup
+     * @return employee ids of all managers of the employee, immediate manager first
+     */
+    public List<String> findAncestors(String employeeId) {
+        Integer position = positionsByEmployeeId.get(employeeId);
+        if (position == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> ancestors = new ArrayList<>();
+        for (int p = parents[position]; p != NO_PARENT; p = parents[p]) {
+            ancestors.add(employeeIds[p]);
+        }
+        return ancestors;
+    }
+
+
+    /**
+     * @param managerEmployeeId  manager to lookup
+     * @return employee ids of everyone who (directly or indirectly) reports to the manager
+     */
+    public Set<String> findReportees(String managerEmployeeId) {
+        Integer position = positionsByEmployeeId.get(managerEmployeeId);
+        if (position == null) {
+            return Collections.emptySet();
+        }
+
+        int start = layoutIndex[position];
+        int end = start + subtreeSizes[position];
+        Set<String> reportees = new HashSet<>(Math.max(16, (end - start) * 2));
+        for (int i = start + 1; i < end; i++) {
+            reportees.add(employeeIds[layout[i]]);
+        }
+        return reportees;
+    }
+
+
+    public int countReportees(String managerEmployeeId) {
+        Integer position = positionsByEmployeeId.get(managerEmployeeId);
+        return position == null
+                ? 0
+                : subtreeSizes[position] - 1;
+    }
+
+
+    public boolean isReportee(String managerEmployeeId, String employeeId) {
+        Integer manager = positionsByEmployeeId.get(managerEmployeeId);
+        Integer employee = positionsByEmployeeId.get(employeeId);
+        if (manager == null || employee == null || manager.equals(employee)) {
+            return false;
+        }
+        int managerIndex = layoutIndex[manager];
+        int employeeIndex = layoutIndex[employee];
+        return employeeIndex > managerIndex && employeeIndex < managerIndex + subtreeSizes[manager];
+    }
+
+
+    /**
+     * Determines which employees have a different (resolved) manager in this index compared to
+     * the other.  Employees which only appear in one of the indexes are also included.
+     *
+     * @param other  index to compare against
+     * @return employee ids whose reporting line differs
+     */
+    public Set<String> findEmployeesWithChangedManagers(PersonHierarchyIndex other) {
+        checkNotNull(other, "other cannot be null");
+
+        Set<String> changed = new HashSet<>();
+        for (String employeeId : employeeIds) {
+            if (! other.contains(employeeId)
+                    || ! Objects.equals(getManagerEmployeeId(employeeId), other.getManagerEmployeeId(employeeId))) {
+                changed.add(employeeId);
+            }
+        }
+        for (String employeeId : other.employeeIds) {
+            if (! contains(employeeId)) {
+                changed.add(employeeId);
+            }
+        }
+        return changed;
+    }
+
+
+    // --- helpers ---
+
+    private static void breakCycles(int[] parents) {
+        byte[] states = new byte[parents.length]; // 0 = unvisited, 1 = on current path, 2 = done
+        int[] path = new int[parents.length];
+
+        for (int start = 0; start < parents.length; start++) {
+            int pathLength = 0;
+            int current = start;
+            while (current != NO_PARENT && states[current] == 0) {
+                states[current] = 1;
+                path[pathLength++] = current;
+                current = parents[current];
+            }
+            if (current != NO_PARENT && states[current] == 1) {
+                // the last node on the path points back into the path, cut the loop there
+                parents[path[pathLength - 1]] = NO_PARENT;
+            }
+            for (int i = 0; i < pathLength; i++) {
+                states[path[i]] = 2;
+            }
+        }
+    }
+
+}
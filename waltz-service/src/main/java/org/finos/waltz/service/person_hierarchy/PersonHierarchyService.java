@@ -15,93 +15,123 @@
  * See the License for the specific
  *
  */
-
 package org.finos.waltz.service.person_hierarchy;
 
-import org.finos.waltz.schema.tables.records.PersonHierarchyRecord;
-import org.finos.waltz.common.ListUtilities;
-import org.finos.waltz.common.hierarchy.FlatNode;
-import org.finos.waltz.common.hierarchy.Forest;
-import org.finos.waltz.common.hierarchy.HierarchyUtilities;
-import org.finos.waltz.common.hierarchy.Node;
 import org.finos.waltz.data.person.PersonDao;
+import org.finos.waltz.model.person.ImmutablePersonHierarchyRebuildSummary;
 import org.finos.waltz.model.person.Person;
+import org.finos.waltz.model.person.PersonHierarchyRebuildSummary;
+import org.finos.waltz.schema.tables.records.PersonHierarchyRecord;
+import org.jooq.BatchBindStep;
 import org.jooq.DSLContext;
+import org.jooq.Field;
 import org.jooq.Record1;
 import org.jooq.SelectConditionStep;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.schema.tables.PersonHierarchy.PERSON_HIERARCHY;
-import static java.util.stream.Collectors.toList;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
+/**
+ * Maintains the person hierarchy table (the transitive closure of the reporting lines) and
+ * a compact in-memory copy of it, see {@link PersonHierarchyIndex}.
+ *
+ * The reporting lines used by the last successful build are retained.  A subsequent
+ * {@link #build()} compares them against the current reporting lines and only recalculates
+ * the rows for the subtrees beneath employees whose manager has changed.  The first build
+ * (or a {@link #fullRebuild()}) considers every employee.
+ *
+ * In both cases the calculated rows are compared with the stored rows and only the
+ * differences are written, within a single transaction, so readers never observe an empty
+ * or partially populated table.
+ */
 @Service
 public class PersonHierarchyService {
 
     private static final Logger LOG = LoggerFactory.getLogger(PersonHierarchyService.class);
 
+    private static final int IN_CLAUSE_BATCH_SIZE = 1000;
+
     private final PersonDao personDao;
     private final DSLContext dsl;
 
+    // current reporting lines, loaded lazily or by a build
+    private volatile PersonHierarchyIndex index = null;
+
+    // true if the index reflects the reporting lines used to write the hierarchy table, guarded by 'this'
+    private boolean indexMatchesTable = false;
+
 
     @Autowired
     public PersonHierarchyService(PersonDao personDao, DSLContext dsl) {
+        checkNotNull(personDao, "personDao cannot be null");
+        checkNotNull(dsl, "dsl cannot be null");
+
         this.personDao = personDao;
         this.dsl = dsl;
     }
 
 
-    public int[] build() {
-        LOG.warn("Building person hierarchy");
-        List<Person> all = personDao.all();
-
-        Forest<Person, String> forest = toForest(all);
+    /**
+     * Brings the hierarchy table in line with the current reporting lines, recalculating only
+     * the subtrees of employees whose manager changed since the previous build.
+     *
+     * @return summary of the changes made
+     */
+    public PersonHierarchyRebuildSummary build() {
+        return rebuild(false);
+    }
 
-        List<PersonHierarchyRecord> records = toHierarchyRecords(forest);
 
-        return dsl.transactionResult(configuration -> {
-            DSLContext txDsl = DSL.using(configuration);
-            txDsl.deleteFrom(PERSON_HIERARCHY).execute();
-            return txDsl.batchStore(records).execute();
-        });
+    /**
+     * Recalculates the hierarchy rows for every employee, this corrects any changes made to
+     * the hierarchy table outside of this service.
+     *
+     * @return summary of the changes made
+     */
+    public PersonHierarchyRebuildSummary fullRebuild() {
+        return rebuild(true);
     }
 
 
-    private List<PersonHierarchyRecord> toHierarchyRecords(Forest<Person, String> forest) {
-        List<PersonHierarchyRecord> records = new LinkedList<>();
+    /**
+     * @return the in-memory hierarchy as of the last build, loaded from the current reporting lines if there has been no build
+     */
+    public PersonHierarchyIndex getIndex() {
+        PersonHierarchyIndex current = index;
+        return current == null
+                ? loadIndex()
+                : current;
+    }
 
-        for (Node<Person, String> node : forest.getAllNodes().values()) {
-            List<Person> ancestors =
-                    ListUtilities.reverse(
-                            HierarchyUtilities.parents(node)
-                                    .stream()
-                                    .map(Node::getData)
-                                    .collect(Collectors.toList()));
 
-            for (int i = 0; i < ancestors.size(); i++) {
-                String ancestorId = ancestors.get(i).employeeId();
-                String selfId = node.getData().employeeId();
-                PersonHierarchyRecord record = new PersonHierarchyRecord(ancestorId, selfId, i + 1);
-                records.add(record);
-            }
-        }
-        return records;
+    public Set<String> findReporteeEmployeeIds(String managerEmployeeId) {
+        checkNotNull(managerEmployeeId, "managerEmployeeId cannot be null");
+        return getIndex().findReportees(managerEmployeeId);
     }
 
 
-    private Forest<Person, String> toForest(List<Person> all) {
-        List<FlatNode<Person, String>> allFlatNodes = all.stream()
-                .map(p -> new FlatNode<>(p.employeeId(), p.managerEmployeeId(), p))
-                .collect(toList());
-
-        return HierarchyUtilities.toForest(allFlatNodes);
+    public List<String> findManagerEmployeeIds(String employeeId) {
+        checkNotNull(employeeId, "employeeId cannot be null");
+        return getIndex().findAncestors(employeeId);
     }
 
 
@@ -118,4 +148,216 @@ public class PersonHierarchyService {
 
         return dsl.fetchCount(rootSelector);
     }
+
+
+    // --- helpers ---
+
+    private synchronized PersonHierarchyRebuildSummary rebuild(boolean full) {
+        LOG.info("Building person hierarchy, full: {}", full);
+
+        PersonHierarchyIndex previous = full || ! indexMatchesTable ? null : index;
+        PersonHierarchyIndex updated = PersonHierarchyIndex.build(toManagersByEmployeeId(personDao.all()));
+
+        Set<String> changedEmployeeIds = previous == null
+                ? null
+                : updated.findEmployeesWithChangedManagers(previous);
+
+        Set<String> affectedEmployeeIds = changedEmployeeIds == null
+                ? null
+                : findAffectedEmployees(previous, updated, changedEmployeeIds);
+
+        // people who have left can no longer be anyone's manager
+        Set<String> removedEmployeeIds = changedEmployeeIds == null
+                ? null
+                : changedEmployeeIds
+                    .stream()
+                    .filter(employeeId -> ! updated.contains(employeeId))
+                    .collect(Collectors.toSet());
+
+        ImmutablePersonHierarchyRebuildSummary.Builder summary = ImmutablePersonHierarchyRebuildSummary
+                .builder()
+                .fullRebuild(previous == null)
+                .managerChangeCount(changedEmployeeIds == null ? updated.size() : changedEmployeeIds.size())
+                .affectedEmployeeCount(affectedEmployeeIds == null ? updated.size() : affectedEmployeeIds.size());
+
+        if (affectedEmployeeIds != null && affectedEmployeeIds.isEmpty()) {
+            index = updated;
+            indexMatchesTable = true;
+            LOG.info("No reporting line changes, person hierarchy unchanged");
+            return summary
+                    .insertedCount(0)
+                    .updatedCount(0)
+                    .removedCount(0)
+                    .build();
+        }
+
+        Map<Tuple2<String, String>, Integer> required = toRequiredLevels(
+                updated,
+                affectedEmployeeIds == null
+                        ? updated.getEmployeeIds()
+                        : affectedEmployeeIds);
+
+        PersonHierarchyRebuildSummary result = dsl.transactionResult(configuration -> {
+            DSLContext txDsl = DSL.using(configuration);
+
+            Map<Tuple2<String, String>, Integer> existing = fetchExistingLevels(txDsl, affectedEmployeeIds, removedEmployeeIds);
+
+            List<PersonHierarchyRecord> toInsert = new ArrayList<>();
+            List<PersonHierarchyRecord> toUpdate = new ArrayList<>();
+            required.forEach((key, level) -> {
+                Integer existingLevel = existing.get(key);
+                if (existingLevel == null) {
+                    toInsert.add(new PersonHierarchyRecord(key.v1, key.v2, level));
+                } else if (! Objects.equals(existingLevel, level)) {
+                    toUpdate.add(new PersonHierarchyRecord(key.v1, key.v2, level));
+                }
+            });
+
+            List<Tuple2<String, String>> toRemove = new ArrayList<>();
+            existing.keySet().forEach(key -> {
+                if (! required.containsKey(key)) {
+                    toRemove.add(key);
+                }
+            });
+
+            return summary
+                    .removedCount(removeRecords(txDsl, toRemove))
+                    .updatedCount(updateLevels(txDsl, toUpdate))
+                    .insertedCount(insertRecords(txDsl, toInsert))
+                    .build();
+        });
+
+        index = updated;
+        indexMatchesTable = true;
+
+        LOG.info("Built person hierarchy: {}", result);
+        return result;
+    }
+
+
+    private synchronized PersonHierarchyIndex loadIndex() {
+        if (index == null) {
+            index = PersonHierarchyIndex.build(toManagersByEmployeeId(personDao.all()));
+        }
+        return index;
+    }
+
+
+    private static Map<String, String> toManagersByEmployeeId(List<Person> people) {
+        Map<String, String> managersByEmployeeId = new LinkedHashMap<>(people.size() * 2);
+        people.forEach(p -> managersByEmployeeId.put(p.employeeId(), p.managerEmployeeId()));
+        return managersByEmployeeId;
+    }
+
+
+    /**
+     * If an employee's manager changes then the ancestors of everyone beneath them also change.
+     * Reportees are taken from both indexes so the former reportees of people who have left,
+     * or who have moved, are included.
+     */
+    private static Set<String> findAffectedEmployees(PersonHierarchyIndex previous,
+                                                     PersonHierarchyIndex updated,
+                                                     Set<String> changedEmployeeIds) {
+        Set<String> affected = new HashSet<>(changedEmployeeIds);
+        changedEmployeeIds
+                .forEach(employeeId -> {
+                    affected.addAll(previous.findReportees(employeeId));
+                    affected.addAll(updated.findReportees(employeeId));
+                });
+        return affected;
+    }
+
+
+    /**
+     * Level is the depth of the manager within the hierarchy, with roots being at level 1
+     */
+    private static Map<Tuple2<String, String>, Integer> toRequiredLevels(PersonHierarchyIndex index,
+                                                                         Collection<String> employeeIds) {
+        Map<Tuple2<String, String>, Integer> required = new HashMap<>();
+        for (String employeeId : employeeIds) {
+            List<String> managers = index.findAncestors(employeeId);
+            for (int i = 0; i < managers.size(); i++) {
+                required.put(tuple(managers.get(i), employeeId), managers.size() - i);
+            }
+        }
+        return required;
+    }
+
+
+    /**
+     * Fetches the stored rows for the given employees plus any rows naming one of the removed
+     * employees as a manager, or every row if no employees are given.
+     */
+    private static Map<Tuple2<String, String>, Integer> fetchExistingLevels(DSLContext txDsl,
+                                                                            Set<String> employeeIds,
+                                                                            Set<String> removedEmployeeIds) {
+        Map<Tuple2<String, String>, Integer> existing = new HashMap<>();
+
+        if (employeeIds == null) {
+            txDsl.selectFrom(PERSON_HIERARCHY)
+                    .fetch()
+                    .forEach(r -> existing.put(tuple(r.getManagerId(), r.getEmployeeId()), r.getLevel()));
+            return existing;
+        }
+
+        fetchInBatches(txDsl, PERSON_HIERARCHY.EMPLOYEE_ID, employeeIds, existing);
+        fetchInBatches(txDsl, PERSON_HIERARCHY.MANAGER_ID, removedEmployeeIds, existing);
+        return existing;
+    }
+
+
+    private static void fetchInBatches(DSLContext txDsl,
+                                       Field<String> field,
+                                       Set<String> values,
+                                       Map<Tuple2<String, String>, Integer> existing) {
+        List<String> ids = new ArrayList<>(values);
+        for (int i = 0; i < ids.size(); i += IN_CLAUSE_BATCH_SIZE) {
+            txDsl.selectFrom(PERSON_HIERARCHY)
+                    .where(field.in(ids.subList(i, Math.min(ids.size(), i + IN_CLAUSE_BATCH_SIZE))))
+                    .fetch()
+                    .forEach(r -> existing.put(tuple(r.getManagerId(), r.getEmployeeId()), r.getLevel()));
+        }
+    }
+
+
+    private static int removeRecords(DSLContext txDsl,
+                                     List<Tuple2<String, String>> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+
+        BatchBindStep batch = txDsl.batch(txDsl
+                .deleteFrom(PERSON_HIERARCHY)
+                .where(PERSON_HIERARCHY.MANAGER_ID.eq((String) null))
+                .and(PERSON_HIERARCHY.EMPLOYEE_ID.eq((String) null)));
+
+        keys.forEach(k -> batch.bind(k.v1, k.v2));
+        return IntStream.of(batch.execute()).sum();
+    }
+
+
+    private static int updateLevels(DSLContext txDsl,
+                                    List<PersonHierarchyRecord> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+
+        BatchBindStep batch = txDsl.batch(txDsl
+                .update(PERSON_HIERARCHY)
+                .set(PERSON_HIERARCHY.LEVEL, (Integer) null)
+                .where(PERSON_HIERARCHY.MANAGER_ID.eq((String) null))
+                .and(PERSON_HIERARCHY.EMPLOYEE_ID.eq((String) null)));
+
+        records.forEach(r -> batch.bind(r.getLevel(), r.getManagerId(), r.getEmployeeId()));
+        return IntStream.of(batch.execute()).sum();
+    }
+
+
+    private static int insertRecords(DSLContext txDsl,
+                                     List<PersonHierarchyRecord> records) {
+        return records.isEmpty()
+                ? 0
+                : txDsl.batchInsert(records).execute().length;
+    }
+
 }
@@ -23,7 +23,6 @@ import org.finos.waltz.common.MapUtilities;
 import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.data.actor.ActorDao;
 import org.finos.waltz.data.application.ApplicationDao;
-import org.finos.waltz.data.data_type.DataTypeDao;
 import org.finos.waltz.data.logical_flow.LogicalFlowDao;
 import org.finos.waltz.data.physical_flow.PhysicalFlowDao;
 import org.finos.waltz.data.physical_specification.PhysicalSpecificationDao;
@@ -34,75 +33,91 @@ import org.finos.waltz.model.actor.Actor;
 import org.finos.waltz.model.application.Application;
 import org.finos.waltz.model.command.CommandOutcome;
 import org.finos.waltz.model.datatype.DataType;
-import org.finos.waltz.model.datatype.DataTypeDecorator;
 import org.finos.waltz.model.enum_value.EnumValueKind;
 import org.finos.waltz.model.external_identifier.ExternalIdValue;
-import org.finos.waltz.model.logical_flow.ImmutableLogicalFlow;
-import org.finos.waltz.model.logical_flow.LogicalFlow;
 import org.finos.waltz.model.physical_flow.*;
 import org.finos.waltz.model.physical_specification.DataFormatKindValue;
 import org.finos.waltz.model.physical_specification.ImmutablePhysicalSpecification;
 import org.finos.waltz.model.physical_specification.PhysicalSpecification;
 import org.finos.waltz.service.data_type.DataTypeDecoratorService;
 import org.finos.waltz.service.enum_value.EnumValueAliasService;
+import org.finos.waltz.service.reference_data.ReferenceDataService;
+import org.jooq.DSLContext;
+import org.jooq.lambda.tuple.Tuple2;
+import org.jooq.lambda.tuple.Tuple3;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
-import static org.finos.waltz.common.SetUtilities.fromArray;
 import static org.finos.waltz.common.StringUtilities.isEmpty;
 import static org.finos.waltz.common.StringUtilities.lower;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 
 @Service
 public class PhysicalFlowUploadService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(PhysicalFlowUploadService.class);
+
+    // number of flows created per transaction
+    private static final int UPLOAD_CHUNK_SIZE = 1000;
+
     private final ActorDao actorDao;
     private final ApplicationDao applicationDao;
-    private final DataTypeDao dataTypeDao;
+    private final ReferenceDataService referenceDataService;
     private final LogicalFlowDao logicalFlowDao;
     private final DataTypeDecoratorService dataTypeDecoratorService;
     private final PhysicalFlowDao physicalFlowDao;
     private final PhysicalSpecificationDao physicalSpecificationDao;
     private final EnumValueAliasService enumValueAliasService;
+    private final DSLContext dsl;
 
     private final Pattern basisOffsetRegex = Pattern.compile("T?(?<offset>[\\+\\-]?\\d+)");
 
 
     public PhysicalFlowUploadService(ActorDao actorDao,
                                      ApplicationDao applicationDao,
-                                     DataTypeDao dataTypeDao,
+                                     ReferenceDataService referenceDataService,
                                      LogicalFlowDao logicalFlowDao,
                                      DataTypeDecoratorService dataTypeDecoratorService,
                                      PhysicalFlowDao physicalFlowDao,
                                      PhysicalSpecificationDao physicalSpecificationDao,
-                                     EnumValueAliasService enumValueAliasService) {
+                                     EnumValueAliasService enumValueAliasService,
+                                     DSLContext dsl) {
         checkNotNull(actorDao, "actorDao cannot be null");
         checkNotNull(applicationDao, "applicationDao cannot be null");
-        checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
+        checkNotNull(referenceDataService, "referenceDataService cannot be null");
         checkNotNull(dataTypeDecoratorService, "dataTypeDecoratorService cannot be null");
         checkNotNull(logicalFlowDao, "logicalFlowDao cannot be null");
         checkNotNull(physicalFlowDao, "physicalFlowDao cannot be null");
         checkNotNull(physicalSpecificationDao, "physicalSpecificationDao cannot be null");
         checkNotNull(enumValueAliasService, "enumValueAliasService cannot be null");
+        checkNotNull(dsl, "dsl cannot be null");
         this.actorDao = actorDao;
         this.applicationDao = applicationDao;
-        this.dataTypeDao = dataTypeDao;
+        this.referenceDataService = referenceDataService;
         this.logicalFlowDao = logicalFlowDao;
         this.physicalFlowDao = physicalFlowDao;
         this.physicalSpecificationDao = physicalSpecificationDao;
         this.enumValueAliasService = enumValueAliasService;
         this.dataTypeDecoratorService = dataTypeDecoratorService;
+        this.dsl = dsl;
     }
 
 
@@ -145,8 +160,13 @@ public class PhysicalFlowUploadService {
         }
 
         // no parse errors - check for duplicates
+        Map<PhysicalFlowParsed, PhysicalFlow> existingFlows = physicalFlowDao.findByParsedFlows(parsedFlows
+                .stream()
+                .map(PhysicalFlowUploadCommandResponse::parsedFlow)
+                .collect(toList()));
+
         List<PhysicalFlowUploadCommandResponse> responses = parsedFlows.stream()
-                .map(f -> Optional.ofNullable(physicalFlowDao.getByParsedFlow(f.parsedFlow()))
+                .map(f -> Optional.ofNullable(existingFlows.get(f.parsedFlow()))
                     .map(m -> (PhysicalFlowUploadCommandResponse) ImmutablePhysicalFlowUploadCommandResponse
                             .copyOf(f)
                             .withEntityReference(m.entityReference()))
@@ -172,36 +192,12 @@ public class PhysicalFlowUploadService {
                 .filter(v -> v.outcome() == CommandOutcome.SUCCESS && v.entityReference() == null)
                 .collect(toList());
 
-        // create physical flow with ids from the above two
-        List<PhysicalFlowUploadCommandResponse> created = newFlowCmds.stream()
-                .map(v -> {
-                    if (!(v.outcome() == CommandOutcome.SUCCESS && v.entityReference() == null)) {
-                        return v;
-                    }
-
-                    PhysicalFlowParsed flow = v.parsedFlow();
-                    LogicalFlow logicalFlow = getOrCreateLogicalFlow(flow.source(), flow.target(), flow.dataType(), username);
-                    PhysicalSpecification specification = getOrCreatePhysicalSpec(flow, username);
-
-                    PhysicalFlow newFlow = ImmutablePhysicalFlow.builder()
-                            .logicalFlowId(logicalFlow.id().get())
-                            .specificationId(specification.id().get())
-                            .basisOffset(flow.basisOffset())
-                            .frequency(flow.frequency())
-                            .transport(flow.transport())
-                            .criticality(flow.criticality())
-                            .description(flow.description())
-                            .externalId(Optional.ofNullable(flow.externalId()))
-                            .lastUpdatedBy(username)
-                            .lastUpdatedAt(nowUtc())
-                            .build();
-
-                    long id = getOrCreatePhysicalFlow(newFlow);
-
-                    return ImmutablePhysicalFlowUploadCommandResponse.copyOf(v)
-                            .withEntityReference(EntityReference.mkRef(EntityKind.PHYSICAL_FLOW, id));
-                })
-                .collect(toList());
+        List<PhysicalFlowUploadCommandResponse> created = new ArrayList<>(newFlowCmds.size());
+        for (int i = 0; i < newFlowCmds.size(); i += UPLOAD_CHUNK_SIZE) {
+            List<PhysicalFlowUploadCommandResponse> chunk = newFlowCmds.subList(i, Math.min(newFlowCmds.size(), i + UPLOAD_CHUNK_SIZE));
+            created.addAll(uploadChunk(username, chunk));
+            LOG.info("Physical flow upload by {}: {} of {} flows processed", username, created.size(), newFlowCmds.size());
+        }
 
         return created;
     }
@@ -375,7 +371,7 @@ public class PhysicalFlowUploadService {
 
 
     private Map<String, DataType> loadDataTypesByNameOrCode() {
-        List<DataType> allDataTypes = dataTypeDao.findAll();
+        List<DataType> allDataTypes = referenceDataService.getSnapshot().dataTypes();
         Map<String, DataType> dataTypesByName = MapUtilities.indexBy(dt -> lower(dt.name()), identity(), allDataTypes, (d1, d2) -> d2);
         Map<String, DataType> dataTypesByCode = MapUtilities.indexBy(dt -> lower(dt.code()), identity(), allDataTypes, (d1, d2) -> d2);
         dataTypesByName.putAll(dataTypesByCode);
@@ -383,91 +379,116 @@ public class PhysicalFlowUploadService {
     }
 
 
-    private LogicalFlow getOrCreateLogicalFlow(EntityReference source,
-                                               EntityReference target,
-                                               EntityReference dataType,
-                                               String username) {
-
-        LogicalFlow flow = logicalFlowDao.getBySourceAndTarget(source, target);
-
-        if (flow == null) {
-            LocalDateTime now = nowUtc();
-
-            LogicalFlow flowToAdd = ImmutableLogicalFlow.builder()
-                    .source(source)
-                    .target(target)
-                    .lastUpdatedBy(username)
-                    .lastUpdatedAt(now)
-                    .provenance("waltz")
-                    .created(UserTimestamp.mkForUser(username, now))
-                    .build();
-
-            flow = logicalFlowDao.addFlow(flowToAdd);
-        }
-
+    /**
+     * Creates the logical flows, specifications, physical flows and their data type decorators
+     * for a chunk of the upload in a single transaction, using set based lookups and batch inserts.
+     * Lineage and data type usages are refreshed once the chunk has committed.
+     */
+    private List<PhysicalFlowUploadCommandResponse> uploadChunk(String username,
+                                                                List<PhysicalFlowUploadCommandResponse> chunk) {
+        LocalDateTime now = nowUtc();
 
-        EntityReference logicalFlowEntityRef = EntityReference.mkRef(EntityKind.LOGICAL_DATA_FLOW, flow.id().get());
-        DataTypeDecorator existingDecorator = dataTypeDecoratorService.getByEntityRefAndDataTypeId(
-                logicalFlowEntityRef,
-                dataType.id());
+        List<PhysicalFlowParsed> flows = chunk
+                .stream()
+                .map(PhysicalFlowUploadCommandResponse::parsedFlow)
+                .collect(toList());
 
-        if(existingDecorator == null) {
-            dataTypeDecoratorService
-                    .addDecorators(username, logicalFlowEntityRef, fromArray(dataType.id()));
+        Tuple2<Set<Long>, List<Long>> result = dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+
+            Map<Tuple2<EntityReference, EntityReference>, Long> logicalFlowIds = logicalFlowDao.getOrCreateFlowIds(
+                    tx,
+                    flows.stream()
+                            .map(PhysicalFlowUploadService::mkLogicalFlowKey)
+                            .collect(toSet()),
+                    username);
+
+            Map<Tuple3<EntityReference, String, String>, Long> specIds = physicalSpecificationDao.getOrCreateSpecificationIds(
+                    tx,
+                    flows.stream()
+                            .map(f -> mkSpecification(f, username, now))
+                            .collect(toList()));
+
+            Map<Long, Set<Long>> dataTypeIdsByLogicalFlowId = new HashMap<>();
+            Map<Long, Set<Long>> dataTypeIdsBySpecId = new HashMap<>();
+            List<PhysicalFlow> physicalFlows = new ArrayList<>(flows.size());
+
+            for (PhysicalFlowParsed flow : flows) {
+                long logicalFlowId = logicalFlowIds.get(mkLogicalFlowKey(flow));
+                long specId = specIds.get(PhysicalSpecificationDao.mkMatchKey(flow.owner(), flow.format(), flow.name()));
+
+                dataTypeIdsByLogicalFlowId.computeIfAbsent(logicalFlowId, k -> new HashSet<>()).add(flow.dataType().id());
+                dataTypeIdsBySpecId.computeIfAbsent(specId, k -> new HashSet<>()).add(flow.dataType().id());
+                physicalFlows.add(mkPhysicalFlow(flow, logicalFlowId, specId, username, now));
+            }
+
+            Map<PhysicalFlow, Long> physicalFlowIds = physicalFlowDao.getOrCreateFlowIds(tx, physicalFlows);
+
+            // specification data types are propagated via the physical flows, so these must exist first
+            dataTypeDecoratorService.addMissingDecorators(tx, username, EntityKind.LOGICAL_DATA_FLOW, dataTypeIdsByLogicalFlowId);
+            dataTypeDecoratorService.addMissingDecorators(tx, username, EntityKind.PHYSICAL_SPECIFICATION, dataTypeIdsBySpecId);
+
+            return tuple(
+                    dataTypeIdsByLogicalFlowId.keySet(),
+                    physicalFlows
+                            .stream()
+                            .map(physicalFlowIds::get)
+                            .collect(toList()));
+        });
+
+        dataTypeDecoratorService.refreshForLogicalFlows(result.v1);
+
+        List<PhysicalFlowUploadCommandResponse> responses = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            responses.add(ImmutablePhysicalFlowUploadCommandResponse
+                    .copyOf(chunk.get(i))
+                    .withEntityReference(EntityReference.mkRef(EntityKind.PHYSICAL_FLOW, result.v2.get(i))));
         }
-        return flow;
+        return responses;
     }
 
 
-    private PhysicalSpecification getOrCreatePhysicalSpec(PhysicalFlowParsed flow,
-                                                          String username) {
-        EntityReference owner = flow.owner();
-        DataFormatKindValue format = flow.format();
-        String name = flow.name();
-
-
-        // check database
-        PhysicalSpecification spec = physicalSpecificationDao.getByParsedFlow(flow);
-        if (spec == null) {
-
-            // create
-            LocalDateTime now = nowUtc();
-            PhysicalSpecification specToAdd = ImmutablePhysicalSpecification.builder()
-                    .owningEntity(owner)
-                    .format(format)
-                    .name(name)
-                    .externalId(Optional.ofNullable(flow.specExternalId()).orElse(""))
-                    .description(Optional.ofNullable(flow.specDescription()).orElse(""))
-                    .lastUpdatedBy(username)
-                    .lastUpdatedAt(now)
-                    .provenance("waltz")
-                    .created(UserTimestamp.mkForUser(username, now))
-                    .build();
-
-            Long id = physicalSpecificationDao.create(specToAdd);
-            spec = ImmutablePhysicalSpecification
-                    .copyOf(specToAdd)
-                    .withId(id);
-        }
+    private static Tuple2<EntityReference, EntityReference> mkLogicalFlowKey(PhysicalFlowParsed flow) {
+        return tuple(
+                EntityReference.mkRef(flow.source().kind(), flow.source().id()),
+                EntityReference.mkRef(flow.target().kind(), flow.target().id()));
+    }
 
-        long dataTypeId = flow.dataType().id();
-        EntityReference specificationEntityRef = EntityReference.mkRef(EntityKind.PHYSICAL_SPECIFICATION, spec.id().get());
 
-        DataTypeDecorator existingDataType = dataTypeDecoratorService.getByEntityRefAndDataTypeId(specificationEntityRef, dataTypeId);
-        if(existingDataType == null) {
-            dataTypeDecoratorService.addDecorators(username, specificationEntityRef, fromArray(dataTypeId));
-        }
-        return spec;
+    private static PhysicalSpecification mkSpecification(PhysicalFlowParsed flow,
+                                                         String username,
+                                                         LocalDateTime now) {
+        return ImmutablePhysicalSpecification.builder()
+                .owningEntity(flow.owner())
+                .format(flow.format())
+                .name(flow.name())
+                .externalId(Optional.ofNullable(flow.specExternalId()).orElse(""))
+                .description(Optional.ofNullable(flow.specDescription()).orElse(""))
+                .lastUpdatedBy(username)
+                .lastUpdatedAt(now)
+                .provenance("waltz")
+                .created(UserTimestamp.mkForUser(username, now))
+                .build();
     }
 
 
-    private long getOrCreatePhysicalFlow(PhysicalFlow newFlow) {
-        PhysicalFlow existing = physicalFlowDao.matchPhysicalFlow(newFlow);
-        if (existing != null) {
-            return existing.id().get();
-        } else {
-            return physicalFlowDao.create(newFlow);
-        }
+    private static PhysicalFlow mkPhysicalFlow(PhysicalFlowParsed flow,
+                                               long logicalFlowId,
+                                               long specificationId,
+                                               String username,
+                                               LocalDateTime now) {
+        return ImmutablePhysicalFlow.builder()
+                .logicalFlowId(logicalFlowId)
+                .specificationId(specificationId)
+                .basisOffset(flow.basisOffset())
+                .frequency(flow.frequency())
+                .transport(flow.transport())
+                .criticality(flow.criticality())
+                .description(flow.description())
+                .externalId(Optional.ofNullable(flow.externalId()))
+                .lastUpdatedBy(username)
+                .lastUpdatedAt(now)
+                .build();
     }
 
 
@@ -23,7 +23,8 @@ import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.rating.RatingScheme;
 import org.finos.waltz.model.rating.RatingSchemeItem;
 import org.finos.waltz.model.rating.RatingSchemeItemUsageCount;
-import org.jooq.impl.DSL;
+import org.finos.waltz.service.reference_data.ReferenceDataService;
+import org.finos.waltz.service.report_grid.ReportGridCellStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -35,22 +36,31 @@ import java.util.Set;
 public class RatingSchemeService {
 
     private final RatingSchemeDAO ratingSchemeDAO;
+    private final ReferenceDataService referenceDataService;
+    private final ReportGridCellStore reportGridCellStore;
 
     @Autowired
-    public RatingSchemeService(RatingSchemeDAO ratingSchemeDAO) {
+    public RatingSchemeService(RatingSchemeDAO ratingSchemeDAO,
+                               ReferenceDataService referenceDataService,
+                               ReportGridCellStore reportGridCellStore) {
         this.ratingSchemeDAO = ratingSchemeDAO;
+        this.referenceDataService = referenceDataService;
+        this.reportGridCellStore = reportGridCellStore;
     }
 
     public Collection<RatingScheme> findAll() {
-        return ratingSchemeDAO.findAll();
+        return referenceDataService.getSnapshot().ratingSchemes();
     }
 
     public RatingScheme getById(long id) {
-        return ratingSchemeDAO.getById(id);
+        return referenceDataService
+                .getSnapshot()
+                .ratingScheme(id)
+                .orElseGet(() -> ratingSchemeDAO.getById(id));
     }
 
     public List<RatingSchemeItem> findAllRatingSchemeItems() {
-        return ratingSchemeDAO.fetchItems(DSL.trueCondition());
+        return referenceDataService.getSnapshot().ratingSchemeItems();
     }
 
     public List<RatingSchemeItem> findRatingSchemeItemsByAssessmentDefinition(long assessmentDefinitionId) {
@@ -67,17 +77,25 @@ public class RatingSchemeService {
 
 
     public Boolean save(RatingScheme scheme) {
-        return ratingSchemeDAO.save(scheme);
+        Boolean result = ratingSchemeDAO.save(scheme);
+        referenceDataService.markStale("rating scheme saved");
+        return result;
     }
 
 
     public Long saveRatingItem(long schemeId, RatingSchemeItem item) {
-        return ratingSchemeDAO.saveRatingItem(schemeId, item);
+        Long result = ratingSchemeDAO.saveRatingItem(schemeId, item);
+        referenceDataService.markStale("rating scheme item saved");
+        reportGridCellStore.invalidateAll("rating scheme item saved");
+        return result;
     }
 
 
     public Boolean removeRatingItem(long itemId) {
-        return ratingSchemeDAO.removeRatingItem(itemId);
+        Boolean result = ratingSchemeDAO.removeRatingItem(itemId);
+        referenceDataService.markStale("rating scheme item removed");
+        reportGridCellStore.invalidateAll("rating scheme item removed");
+        return result;
     }
 
 
@@ -86,6 +104,9 @@ public class RatingSchemeService {
     }
 
     public Boolean removeRatingScheme(long id) {
-        return ratingSchemeDAO.removeRatingScheme(id);
+        Boolean result = ratingSchemeDAO.removeRatingScheme(id);
+        referenceDataService.markStale("rating scheme removed");
+        reportGridCellStore.invalidateAll("rating scheme removed");
+        return result;
     }
 }
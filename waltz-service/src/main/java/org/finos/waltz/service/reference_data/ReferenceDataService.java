@@ -0,0 +1,154 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.reference_data;
+
+import org.finos.waltz.data.data_type.DataTypeDao;
+import org.finos.waltz.data.flow_classification_rule.FlowClassificationDao;
+import org.finos.waltz.data.involvement_kind.InvolvementKindDao;
+import org.finos.waltz.data.measurable_category.MeasurableCategoryDao;
+import org.finos.waltz.data.rating_scheme.RatingSchemeDAO;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+
+/**
+ * Holds a resident {@link ReferenceDataSnapshot} of data types, rating schemes, categories etc.
+ * Reloaded after {@link #markStale(String)} or once `reference-data.max-age-minutes` has passed.
+ *
+ * Rating schemes, measurable categories and involvement kinds are marked stale by their services
+ * when written.  Data types and flow classifications have no write path within Waltz (they are
+ * maintained by loaders outside the application), so changes to them rely on the max age only.
+ */
+@Service
+public class ReferenceDataService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReferenceDataService.class);
+
+    private final DataTypeDao dataTypeDao;
+    private final FlowClassificationDao flowClassificationDao;
+    private final RatingSchemeDAO ratingSchemeDAO;
+    private final MeasurableCategoryDao measurableCategoryDao;
+    private final InvolvementKindDao involvementKindDao;
+    private final long maxAgeNanos;
+
+    private final Object lock = new Object();
+    private final AtomicLong version = new AtomicLong();
+
+    // written under 'lock', volatile so reads of an up-to-date snapshot need no locking
+    private volatile ReferenceDataSnapshot snapshot = null;
+    private volatile boolean stale = true;
+    private volatile long loadedAt = 0;
+
+
+    @Autowired
+    public ReferenceDataService(DataTypeDao dataTypeDao,
+                                FlowClassificationDao flowClassificationDao,
+                                RatingSchemeDAO ratingSchemeDAO,
+                                MeasurableCategoryDao measurableCategoryDao,
+                                InvolvementKindDao involvementKindDao,
+                                @Value("${reference-data.max-age-minutes:5}") int maxAgeMinutes) {
+        checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
+        checkNotNull(flowClassificationDao, "flowClassificationDao cannot be null");
+        checkNotNull(ratingSchemeDAO, "ratingSchemeDAO cannot be null");
+        checkNotNull(measurableCategoryDao, "measurableCategoryDao cannot be null");
+        checkNotNull(involvementKindDao, "involvementKindDao cannot be null");
+
+        this.dataTypeDao = dataTypeDao;
+        this.flowClassificationDao = flowClassificationDao;
+        this.ratingSchemeDAO = ratingSchemeDAO;
+        this.measurableCategoryDao = measurableCategoryDao;
+        this.involvementKindDao = involvementKindDao;
+        this.maxAgeNanos = TimeUnit.MINUTES.toNanos(maxAgeMinutes);
+    }
+
+
+    /**
+     * @return the current snapshot, loading a new one if the current snapshot is stale or has expired
+     */
+    public ReferenceDataSnapshot getSnapshot() {
+        ReferenceDataSnapshot current = snapshot;
+        if (current != null && ! stale && ! isExpired()) {
+            return current;
+        }
+        synchronized (lock) {
+            if (snapshot == null || stale || isExpired()) {
+                load();
+            }
+            return snapshot;
+        }
+    }
+
+
+    /**
+     * Flags the current snapshot as out of date, the next read will load a new snapshot.
+     *
+     * @param reason  logged to help diagnose excessive reloading
+     */
+    public void markStale(String reason) {
+        LOG.info("Reference data snapshot marked as stale, reason: {}", reason);
+        stale = true;
+    }
+
+
+    // --- helpers ---
+
+    private boolean isExpired() {
+        return System.nanoTime() - loadedAt > maxAgeNanos;
+    }
+
+
+    private void load() {
+        long start = System.nanoTime();
+
+        // cleared before reading so changes made during the load are picked up by the following read
+        stale = false;
+
+        try {
+            snapshot = new ReferenceDataSnapshot(
+                    version.incrementAndGet(),
+                    nowUtc(),
+                    dataTypeDao.findAll(),
+                    flowClassificationDao.findAll(),
+                    ratingSchemeDAO.findAll(),
+                    ratingSchemeDAO.fetchItems(DSL.trueCondition()),
+                    measurableCategoryDao.findAll(),
+                    involvementKindDao.findAll());
+            loadedAt = System.nanoTime();
+        } catch (RuntimeException e) {
+            stale = true;
+            throw e;
+        }
+
+        LOG.info(
+                "Loaded reference data snapshot {} in {}ms",
+                snapshot,
+                TimeUnit.NANOSECONDS.toMillis(loadedAt - start));
+    }
+
+}
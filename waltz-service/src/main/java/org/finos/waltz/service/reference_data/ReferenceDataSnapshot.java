@@ -0,0 +1,199 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.reference_data;
+
+import org.finos.waltz.common.LongKeyedMap;
+import org.finos.waltz.model.IdProvider;
+import org.finos.waltz.model.datatype.DataType;
+import org.finos.waltz.model.flow_classification.FlowClassification;
+import org.finos.waltz.model.involvement_kind.InvolvementKind;
+import org.finos.waltz.model.measurable_category.MeasurableCategory;
+import org.finos.waltz.model.rating.RatingScheme;
+import org.finos.waltz.model.rating.RatingSchemeItem;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+/**
+ * An immutable, point-in-time copy of the small, slow changing reference sets (data types,
+ * flow classifications, rating schemes, measurable categories and involvement kinds).
+ *
+ * Each set is retained in the order it was loaded (matching the ordering of the corresponding
+ * dao) and is also indexed by id.  Snapshots are produced by {@link ReferenceDataService}, the
+ * version increases with every load so callers may detect that the reference data has changed.
+ */
+public final class ReferenceDataSnapshot {
+
+    private final long version;
+    private final LocalDateTime loadedAt;
+
+    private final List<DataType> dataTypes;
+    private final LongKeyedMap<DataType> dataTypesById;
+    private final Set<FlowClassification> flowClassifications;
+    private final LongKeyedMap<FlowClassification> flowClassificationsById;
+    private final List<RatingScheme> ratingSchemes;
+    private final LongKeyedMap<RatingScheme> ratingSchemesById;
+    private final List<RatingSchemeItem> ratingSchemeItems;
+    private final LongKeyedMap<RatingSchemeItem> ratingSchemeItemsById;
+    private final List<MeasurableCategory> measurableCategories;
+    private final LongKeyedMap<MeasurableCategory> measurableCategoriesById;
+    private final List<InvolvementKind> involvementKinds;
+    private final LongKeyedMap<InvolvementKind> involvementKindsById;
+
+
+    ReferenceDataSnapshot(long version,
+                          LocalDateTime loadedAt,
+                          Collection<DataType> dataTypes,
+                          Collection<FlowClassification> flowClassifications,
+                          Collection<RatingScheme> ratingSchemes,
+                          Collection<RatingSchemeItem> ratingSchemeItems,
+                          Collection<MeasurableCategory> measurableCategories,
+                          Collection<InvolvementKind> involvementKinds) {
+        checkNotNull(loadedAt, "loadedAt cannot be null");
+
+        this.version = version;
+        this.loadedAt = loadedAt;
+
+        this.dataTypes = toList(dataTypes);
+        this.dataTypesById = indexById(this.dataTypes);
+        this.flowClassifications = Collections.unmodifiableSet(new LinkedHashSet<>(flowClassifications));
+        this.flowClassificationsById = indexById(this.flowClassifications);
+        this.ratingSchemes = toList(ratingSchemes);
+        this.ratingSchemesById = indexById(this.ratingSchemes);
+        this.ratingSchemeItems = toList(ratingSchemeItems);
+        this.ratingSchemeItemsById = indexById(this.ratingSchemeItems);
+        this.measurableCategories = toList(measurableCategories);
+        this.measurableCategoriesById = indexById(this.measurableCategories);
+        this.involvementKinds = toList(involvementKinds);
+        this.involvementKindsById = indexById(this.involvementKinds);
+    }
+
+
+    public long version() {
+        return version;
+    }
+
+
+    public LocalDateTime loadedAt() {
+        return loadedAt;
+    }
+
+
+    public List<DataType> dataTypes() {
+        return dataTypes;
+    }
+
+
+    public Optional<DataType> dataType(long id) {
+        return dataTypesById.find(id);
+    }
+
+
+    public Set<FlowClassification> flowClassifications() {
+        return flowClassifications;
+    }
+
+
+    public Optional<FlowClassification> flowClassification(long id) {
+        return flowClassificationsById.find(id);
+    }
+
+
+    /**
+     * @return all rating schemes, including their ratings
+     */
+    public List<RatingScheme> ratingSchemes() {
+        return ratingSchemes;
+    }
+
+
+    public Optional<RatingScheme> ratingScheme(long id) {
+        return ratingSchemesById.find(id);
+    }
+
+
+    /**
+     * @return all rating scheme items, across all schemes, ordered by position
+     */
+    public List<RatingSchemeItem> ratingSchemeItems() {
+        return ratingSchemeItems;
+    }
+
+
+    public Optional<RatingSchemeItem> ratingSchemeItem(long id) {
+        return ratingSchemeItemsById.find(id);
+    }
+
+
+    public List<MeasurableCategory> measurableCategories() {
+        return measurableCategories;
+    }
+
+
+    public Optional<MeasurableCategory> measurableCategory(long id) {
+        return measurableCategoriesById.find(id);
+    }
+
+
+    public List<InvolvementKind> involvementKinds() {
+        return involvementKinds;
+    }
+
+
+    public Optional<InvolvementKind> involvementKind(long id) {
+        return involvementKindsById.find(id);
+    }
+
+
+    @Override
+    public String toString() {
+        return "ReferenceDataSnapshot{" +
+                "version=" + version +
+                ", loadedAt=" + loadedAt +
+                ", dataTypes=" + dataTypes.size() +
+                ", flowClassifications=" + flowClassifications.size() +
+                ", ratingSchemes=" + ratingSchemes.size() +
+                ", ratingSchemeItems=" + ratingSchemeItems.size() +
+                ", measurableCategories=" + measurableCategories.size() +
+                ", involvementKinds=" + involvementKinds.size() +
+                '}';
+    }
+
+
+    // --- helpers ---
+
+    private static <T> List<T> toList(Collection<T> xs) {
+        return Collections.unmodifiableList(new ArrayList<>(xs));
+    }
+
+
+    private static <T extends IdProvider> LongKeyedMap<T> indexById(Collection<T> xs) {
+        return LongKeyedMap.index(xs, x -> x.id().orElse(-1L));
+    }
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.report_grid;
+
+import org.finos.waltz.common.ExpiringCache;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.model.report_grid.ReportGridDefinition;
+import org.finos.waltz.model.report_grid.ReportGridInstance;
+import org.jooq.lambda.tuple.Tuple2;
+import org.jooq.lambda.tuple.Tuple3;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static java.util.Collections.singleton;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+/**
+ * Holds materialized report grid instances (subjects and cell data, including derived columns)
+ * keyed by grid id and selection options.
+ *
+ * Instances which are only partially complete (i.e. some columns could not be fetched
+ * within the deadline) are returned to the caller but are recomputed on the next request.
+ *
+ * Entries are discarded when:
+ * <ul>
+ *     <li>the grid columns change (detected by comparing against the definition used to compute the entry)</li>
+ *     <li>data for one of the entry's subjects is modified, see {@link #invalidateForSubject(EntityReference)}.
+ *     Measurable/assessment ratings, involvements, survey responses and status, attestations, tags,
+ *     aliases, application details and app group entries invalidate when written</li>
+ *     <li>the members of the entity used to select the subjects change, see {@link #invalidateForSelector(EntityReference)}</li>
+ *     <li>bulk changes are made to the underlying data, or rating scheme items change, see {@link #invalidateAll(String)}</li>
+ *     <li>the entry exceeds its time-to-live, the only way changes to flows and data types, org units,
+ *     complexities, entity statistics, loaded costs, people (e.g. renamed or removed people in involvement
+ *     columns) and ratings or involvements written outside their services (e.g. by loaders and the
+ *     waltz-jobs importers) are picked up</li>
+ * </ul>
+ */
+@Service
+public class ReportGridCellStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReportGridCellStore.class);
+
+    // entries are tagged with their grid, selector and subjects so invalidation need not scan every entry
+    private enum Tag { GRID, SELECTOR, SUBJECT }
+
+    private final ExpiringCache<Tuple2<Long, IdSelectionOptions>, Tuple2<ReportGridDefinition, ReportGridInstance>> cache;
+
+
+    @Autowired
+    public ReportGridCellStore(@Value("${report-grid.cache.max-entries:200}") int maxEntries,
+                               @Value("${report-grid.cache.ttl-minutes:15}") int ttlMinutes) {
+        this.cache = new ExpiringCache<>(
+                maxEntries,
+                Duration.ofMinutes(ttlMinutes),
+                (k, v) -> mkTags(k, v.v2));
+    }
+
+
+    /**
+     * Returns the materialized instance for the given grid/selector, computing it via the supplier if
+     * no valid entry exists.
+     *
+     * @param definition  current definition of the grid, if the columns differ from the cached definition the entry is recomputed
+     * @param selectionOptions  selector used to determine the grid subjects
+     * @param instanceSupplier  computes the instance on a miss
+     * @return materialized grid instance
+     */
+    public ReportGridInstance getOrCompute(ReportGridDefinition definition,
+                                           IdSelectionOptions selectionOptions,
+                                           Supplier<ReportGridInstance> instanceSupplier) {
+        checkNotNull(definition, "definition cannot be null");
+        checkNotNull(selectionOptions, "selectionOptions cannot be null");
+
+        Tuple2<Long, IdSelectionOptions> key = tuple(definition.id().get(), selectionOptions);
+
+        return cache
+                .getOrCompute(
+                        key,
+                        cached -> isComplete(cached.v2) && hasSameColumns(cached.v1, definition),
+                        k -> tuple(definition, instanceSupplier.get()))
+                .v2;
+    }
+
+
+    public void invalidateGrid(long gridId) {
+        int removed = cache.invalidateTagged(singleton(tuple(Tag.GRID, EntityKind.REPORT_GRID, gridId)));
+        LOG.debug("Invalidated {} cached instances for grid: {}", removed, gridId);
+    }
+
+
+    /**
+     * Discards all cached instances which contain the given subject entity as a row.
+     * @param subjectRef  entity whose data has changed
+     */
+    public void invalidateForSubject(EntityReference subjectRef) {
+        if (subjectRef == null) {
+            return;
+        }
+        int removed = cache.invalidateTagged(singleton(mkTag(Tag.SUBJECT, subjectRef)));
+        LOG.debug("Invalidated {} cached grid instances containing subject: {}", removed, subjectRef);
+    }
+
+
+    public void invalidateForSubjects(Collection<EntityReference> subjectRefs) {
+        Set<Tuple3<Tag, EntityKind, Long>> subjectTags = map(subjectRefs, r -> mkTag(Tag.SUBJECT, r));
+        if (subjectTags.isEmpty()) {
+            return;
+        }
+        int removed = cache.invalidateTagged(subjectTags);
+        LOG.debug("Invalidated {} cached grid instances for {} subjects", removed, subjectTags.size());
+    }
+
+
+    /**
+     * Discards all cached instances whose subjects were selected via the given entity (e.g. an
+     * app group), should be called when the membership of that entity changes.
+     * @param selectorRef  entity used in the selection options
+     */
+    public void invalidateForSelector(EntityReference selectorRef) {
+        if (selectorRef == null) {
+            return;
+        }
+        int removed = cache.invalidateTagged(singleton(mkTag(Tag.SELECTOR, selectorRef)));
+        LOG.debug("Invalidated {} cached grid instances selected by: {}", removed, selectorRef);
+    }
+
+
+    public void invalidateAll(String reason) {
+        LOG.info("Invalidating all cached report grid instances, reason: {}", reason);
+        cache.invalidateAll();
+    }
+
+
+    public int size() {
+        return cache.size();
+    }
+
+
+    public long hitCount() {
+        return cache.hitCount();
+    }
+
+
+    public long missCount() {
+        return cache.missCount();
+    }
+
+
+    // --- helpers ---
+
+    private static boolean isComplete(ReportGridInstance instance) {
+        return instance.incompleteColumnDefinitionIds().isEmpty();
+    }
+
+
+    private static boolean hasSameColumns(ReportGridDefinition a, ReportGridDefinition b) {
+        return a.fixedColumnDefinitions().equals(b.fixedColumnDefinitions())
+                && a.derivedColumnDefinitions().equals(b.derivedColumnDefinitions());
+    }
+
+
+    private static Set<Tuple3<Tag, EntityKind, Long>> mkTags(Tuple2<Long, IdSelectionOptions> key,
+                                                           ReportGridInstance instance) {
+        Set<Tuple3<Tag, EntityKind, Long>> tags = new HashSet<>();
+        tags.add(tuple(Tag.GRID, EntityKind.REPORT_GRID, key.v1));
+        tags.add(mkTag(Tag.SELECTOR, key.v2.entityReference()));
+        instance.subjects().forEach(s -> tags.add(mkTag(Tag.SUBJECT, s.entityReference())));
+        return tags;
+    }
+
+
+    private static Tuple3<Tag, EntityKind, Long> mkTag(Tag tag, EntityReference ref) {
+        return tuple(tag, ref.kind(), ref.id());
+    }
+}
@@ -1,11 +1,13 @@
 package org.finos.waltz.service.report_grid;
 
 import org.apache.commons.jexl3.JexlBuilder;
+import org.apache.commons.jexl3.JexlContext;
 import org.apache.commons.jexl3.JexlEngine;
 import org.apache.commons.jexl3.JexlException;
 import org.apache.commons.jexl3.JexlScript;
 import org.apache.commons.jexl3.MapContext;
 import org.finos.waltz.common.DateTimeUtilities;
+import org.finos.waltz.common.ExpiringCache;
 import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.model.either.Either;
 import org.finos.waltz.model.rating.RatingSchemeItem;
@@ -16,16 +18,24 @@ import org.finos.waltz.model.report_grid.ReportGridDerivedColumnDefinition;
 import org.finos.waltz.model.report_grid.ReportGridFixedColumnDefinition;
 import org.finos.waltz.model.report_grid.ReportGridInstance;
 import org.finos.waltz.model.report_grid.ReportSubject;
+import org.jooq.lambda.tuple.Tuple2;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static java.util.Optional.ofNullable;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static org.finos.waltz.common.MapUtilities.groupBy;
 import static org.finos.waltz.common.MapUtilities.indexBy;
@@ -40,12 +50,152 @@ import static org.jooq.lambda.tuple.Tuple.tuple;
 
 public class ReportGridColumnCalculator {
 
+    // grids with fewer rows than this are evaluated on the calling thread
+    private static final int PARALLEL_ROW_THRESHOLD = 500;
 
+    // the engine is thread-safe, the (null) namespace is supplied per row via the RowContext
+    private static final JexlEngine JEXL = new JexlBuilder().cache(512).create();
+
+    // compiled scripts (or compilation errors) keyed by the derivation script text
+    private static final ExpiringCache<String, Either<String, JexlScript>> COMPILED_SCRIPTS = new ExpiringCache<>(
+            1024,
+            Duration.ofHours(6));
+
+
+    /**
+     * Context for a single row, resolves the default function namespace to the row specific
+     * evaluator so rows can be calculated concurrently.
+     */
+    private static class RowContext extends MapContext implements JexlContext.NamespaceResolver {
+
+        private final ReportGridEvaluatorNamespace ns;
+
+        private RowContext(Map<String, Object> vars, ReportGridEvaluatorNamespace ns) {
+            super(vars);
+            this.ns = ns;
+        }
+
+        @Override
+        public Object resolveNamespace(String name) {
+            return name == null ? ns : null;
+        }
+    }
+
+
+    /**
+     * Evaluation plan for the derived columns of a grid.
+     * <ul>
+     *     <li>v1: columns in dependency order, each can be evaluated exactly once per row</li>
+     *     <li>v2: columns which are part of (or depend on) a reference cycle, these are evaluated
+     *     repeatedly until the row stabilises</li>
+     * </ul>
+     * Dependencies are found by looking for quoted ext ids in the scripts, references which are
+     * computed (e.g. <code>cell(prefix + '_X')</code>) are caught at evaluation time, see
+     * {@link #calcOrderedDerivedCols}.
+     */
+    static Tuple2<List<CompiledCalculatedColumn>, List<CompiledCalculatedColumn>> planEvaluationOrder(Collection<CompiledCalculatedColumn> columns) {
+        List<CompiledCalculatedColumn> pending = columns
+                .stream()
+                .sorted(Comparator.comparingInt(c -> c.column().position()))
+                .collect(toList());
+
+        Map<String, Collection<CompiledCalculatedColumn>> columnsByExtId = groupBy(
+                pending,
+                c -> colToExtId(c.column()));
+
+        Map<CompiledCalculatedColumn, Set<CompiledCalculatedColumn>> dependencies = new HashMap<>();
+        pending.forEach(c -> dependencies.put(
+                c,
+                columnsByExtId
+                        .entrySet()
+                        .stream()
+                        .filter(e -> references(c.column().derivationScript(), e.getKey()))
+                        .flatMap(e -> e.getValue().stream())
+                        .collect(toSet())));
+
+        List<CompiledCalculatedColumn> ordered = new ArrayList<>();
+        Set<CompiledCalculatedColumn> placed = new HashSet<>();
+
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            Iterator<CompiledCalculatedColumn> iterator = pending.iterator();
+            while (iterator.hasNext()) {
+                CompiledCalculatedColumn candidate = iterator.next();
+                if (placed.containsAll(dependencies.get(candidate))) {
+                    ordered.add(candidate);
+                    placed.add(candidate);
+                    iterator.remove();
+                    progress = true;
+                }
+            }
+        }
+
+        return tuple(ordered, pending);
+    }
+
+
+    /**
+     * Finds the derived columns which reference (directly or via other derived columns) any of
+     * the given columns.  If those columns are incomplete the derived values cannot be trusted.
+     *
+     * @param definition  grid definition
+     * @param columnIds  grid column ids of the (incomplete) columns
+     * @return grid column ids of the dependent derived columns
+     */
+    public static Set<Long> findDerivedColumnsDependingOn(ReportGridDefinition definition,
+                                                          Set<Long> columnIds) {
+        if (columnIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        Set<String> unavailableExtIds = new HashSet<>();
+        definition.fixedColumnDefinitions()
+                .stream()
+                .filter(c -> columnIds.contains(c.gridColumnId()))
+                .forEach(c -> unavailableExtIds.add(colToExtId(c)));
+        definition.derivedColumnDefinitions()
+                .stream()
+                .filter(c -> columnIds.contains(c.gridColumnId()))
+                .forEach(c -> unavailableExtIds.add(colToExtId(c)));
+
+        Set<Long> dependents = new HashSet<>();
+
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            for (ReportGridDerivedColumnDefinition col : definition.derivedColumnDefinitions()) {
+                boolean isDependent = !dependents.contains(col.gridColumnId())
+                        && unavailableExtIds
+                            .stream()
+                            .anyMatch(extId -> references(col.derivationScript(), extId));
+
+                if (isDependent) {
+                    dependents.add(col.gridColumnId());
+                    unavailableExtIds.add(colToExtId(col));
+                    progress = true;
+                }
+            }
+        }
+
+        return dependents;
+    }
+
+
+    /**
+     * Calculates the derived columns for each subject in the instance.  Derived columns which
+     * depend on any of the instance's incomplete columns are not calculated.
+     */
     public static Set<ReportGridCell> calculate(ReportGridInstance instance,
                                                 ReportGridDefinition definition) {
-        ReportGridEvaluatorNamespace ns = new ReportGridEvaluatorNamespace(definition);
-        JexlBuilder builder = new JexlBuilder();
-        JexlEngine jexl = builder.namespaces(newHashMap(null, ns)).cache(512).create();
+
+        if (definition.derivedColumnDefinitions().isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        Set<Long> skippedColumnIds = findDerivedColumnsDependingOn(
+                definition,
+                instance.incompleteColumnDefinitionIds());
 
         Map<Long, Collection<ReportGridCell>> rowBySubject = groupBy(
                 instance.cellData(),
@@ -54,40 +204,35 @@ public class ReportGridColumnCalculator {
         Map<Long, RatingSchemeItem> ratingSchemeItemsById = indexById(instance.ratingSchemeItems());
 
         Set<CompiledCalculatedColumn> derivedColumns = map(
-                definition.derivedColumnDefinitions(),
-                d -> {
-                    Either<String, JexlScript> expr = compile(
-                            jexl,
-                            d.derivationScript());
-
-                    return ImmutableCompiledCalculatedColumn
-                            .builder()
-                            .column(d)
-                            .expression(expr)
-                            .build();
-                });
-
-        return instance
-                .subjects()
-                .stream()
-                .map(s -> {
-                    long subjectId = s.entityReference().id();
-                    Map<String, Object> ctx = initialiseContext(
+                SetUtilities.filter(
+                        definition.derivedColumnDefinitions(),
+                        d -> !skippedColumnIds.contains(d.gridColumnId())),
+                d -> ImmutableCompiledCalculatedColumn
+                        .builder()
+                        .column(d)
+                        .expression(COMPILED_SCRIPTS.getOrCompute(
+                                d.derivationScript(),
+                                ReportGridColumnCalculator::compile))
+                        .build());
+
+        Tuple2<List<CompiledCalculatedColumn>, List<CompiledCalculatedColumn>> plan = planEvaluationOrder(derivedColumns);
+
+        Stream<ReportSubject> subjects = instance.subjects().size() > PARALLEL_ROW_THRESHOLD
+                ? instance.subjects().parallelStream()
+                : instance.subjects().stream();
+
+        return subjects
+                .flatMap(subject -> {
+                    ReportGridEvaluatorNamespace ns = new ReportGridEvaluatorNamespace(definition);
+                    ns.setContext(initialiseContext(
                             definition.fixedColumnDefinitions(),
                             ratingSchemeItemsById,
-                            s,
-                            lookupRow(rowBySubject, subjectId));
-                    ns.setContext(ctx);
-                    return s;
+                            subject,
+                            lookupRow(rowBySubject, subject.entityReference().id())));
+
+                    return calcOrderedDerivedCols(ns, subject, plan.v1, plan.v2).stream();
                 })
-                .flatMap(subject ->
-                        calcDerivedCols(
-                                ns,
-                                subject,
-                                derivedColumns)
-                        .stream())
                 .collect(toSet());
-
     }
 
 
@@ -99,9 +244,66 @@ public class ReportGridColumnCalculator {
     }
 
 
+    /**
+     * Evaluates the ordered columns once each, then the cyclic columns iteratively.  If a column
+     * looks up a derived column which has not been evaluated yet the plan missed a dependency, so
+     * that column and the rest of the row fall back to iterative evaluation.
+     */
+    private static Set<ReportGridCell> calcOrderedDerivedCols(ReportGridEvaluatorNamespace ns,
+                                                              ReportSubject subject,
+                                                              List<CompiledCalculatedColumn> orderedCols,
+                                                              List<CompiledCalculatedColumn> cyclicCols) {
+        Set<ReportGridCell> results = new HashSet<>();
+
+        Set<String> unevaluatedExtIds = new HashSet<>();
+        orderedCols.forEach(ccc -> unevaluatedExtIds.add(colToExtId(ccc.column())));
+        cyclicCols.forEach(ccc -> unevaluatedExtIds.add(colToExtId(ccc.column())));
+
+        for (int i = 0; i < orderedCols.size(); i++) {
+            CompiledCalculatedColumn ccc = orderedCols.get(i);
+            String extId = colToExtId(ccc.column());
+            ReportGridCell result = null;
+            ReportGridCell error = null;
+            try {
+                result = evaluateCalcCol(ns, ccc, subject);
+            } catch (Exception e) {
+                String msg = toMessage(e);
+                if (notEmpty(msg)) {
+                    error = mkExecutionError(subject, ccc.column(), msg);
+                }
+            }
+
+            boolean missedDependency = ns
+                    .drainAbsentLookups()
+                    .stream()
+                    .anyMatch(unevaluatedExtIds::contains);
+
+            if (missedDependency) {
+                List<CompiledCalculatedColumn> remaining = new ArrayList<>(orderedCols.subList(i, orderedCols.size()));
+                remaining.addAll(cyclicCols);
+                return union(results, calcDerivedCols(ns, subject, remaining));
+            }
+
+            unevaluatedExtIds.remove(extId);
+            if (result != null) {
+                results.add(result);
+                ns.addContext(extId, result);
+            } else if (error != null) {
+                results.add(error);
+            }
+        }
+
+        return union(results, calcDerivedCols(ns, subject, cyclicCols));
+    }
+
+
     private static Set<ReportGridCell> calcDerivedCols(ReportGridEvaluatorNamespace ns,
                                                        ReportSubject subject,
-                                                       Set<CompiledCalculatedColumn> colsToCalc) {
+                                                       Collection<CompiledCalculatedColumn> colsToCalc) {
+
+        if (colsToCalc.isEmpty()) {
+            return Collections.emptySet();
+        }
 
         // we need to evaluate derived cols at least once
         AtomicBoolean evaluateRowAgain = new AtomicBoolean(true);
@@ -120,7 +322,7 @@ public class ReportGridColumnCalculator {
             remaining.forEach(ccc -> {
                 try {
                     // attempt to evaluate the cell
-                    ofNullable(evaluateCalcCol(ccc, subject))
+                    ofNullable(evaluateCalcCol(ns, ccc, subject))
                             .ifPresent(result -> {
                                 ReportGridCell existingResult = results.get(ccc.column().gridColumnId());
                                 boolean isDifferent = existingResult == null || !existingResult.equals(result);
@@ -160,18 +362,31 @@ public class ReportGridColumnCalculator {
                         ccc.column(),
                         lastErrors.get(ccc.column())))
                 .filter(d -> notEmpty(d.v2))
-                .map(t -> ImmutableReportGridCell
-                        .builder()
-                        .subjectId(subject.entityReference().id())
-                        .errorValue(t.v2)
-                        .options(asSet(mkCellOption("EXECUTION_ERROR", "Execution Error")))
-                        .columnDefinitionId(t.v1.gridColumnId())
-                        .build())
+                .map(t -> mkExecutionError(subject, t.v1, t.v2))
                 .collect(toSet());
 
         return union(results.values(), errorResults);
     }
 
+
+    private static ReportGridCell mkExecutionError(ReportSubject subject,
+                                                   ReportGridDerivedColumnDefinition column,
+                                                   String msg) {
+        return ImmutableReportGridCell
+                .builder()
+                .subjectId(subject.entityReference().id())
+                .errorValue(msg)
+                .options(asSet(mkCellOption("EXECUTION_ERROR", "Execution Error")))
+                .columnDefinitionId(column.gridColumnId())
+                .build();
+    }
+
+
+    private static boolean references(String script, String extId) {
+        return script.contains("'" + extId + "'")
+                || script.contains("\"" + extId + "\"");
+    }
+
     private static String toMessage(Exception e) {
         if (e.getCause() != null) {
             return e.getCause().getMessage();
@@ -181,9 +396,9 @@ public class ReportGridColumnCalculator {
     }
 
 
-    private static Either<String, JexlScript> compile(JexlEngine jexl, String expression) {
+    private static Either<String, JexlScript> compile(String expression) {
         try {
-            JexlScript expr = jexl.createScript(expression);
+            JexlScript expr = JEXL.createScript(expression);
             return Either.right(expr);
         } catch (JexlException e) {
             return Either.left(e.getMessage());
@@ -215,7 +430,8 @@ public class ReportGridColumnCalculator {
     }
 
 
-    private static ReportGridCell evaluateCalcCol(CompiledCalculatedColumn compiledCalculatedColumn,
+    private static ReportGridCell evaluateCalcCol(ReportGridEvaluatorNamespace ns,
+                                                  CompiledCalculatedColumn compiledCalculatedColumn,
                                                   ReportSubject subject) {
 
         ReportGridDerivedColumnDefinition cd = compiledCalculatedColumn.column();
@@ -232,14 +448,16 @@ public class ReportGridColumnCalculator {
                                 .build(),
                         expr -> {
 
-                            MapContext mapContext = new MapContext(newHashMap(
-                                    "subjectId", subject.entityReference().id(),
-                                    "subjectExternalId", subject.entityReference().externalId().orElse(""),
-                                    "subjectName", subject.entityReference().name().orElse(""),
-                                    "subjectLifecyclePhase", subject.lifecyclePhase().name(),
-                                    "today", DateTimeUtilities.today()));
+                            RowContext rowContext = new RowContext(
+                                    newHashMap(
+                                        "subjectId", subject.entityReference().id(),
+                                        "subjectExternalId", subject.entityReference().externalId().orElse(""),
+                                        "subjectName", subject.entityReference().name().orElse(""),
+                                        "subjectLifecyclePhase", subject.lifecyclePhase().name(),
+                                        "today", DateTimeUtilities.today()),
+                                    ns);
 
-                            Object result = expr.execute(mapContext);
+                            Object result = expr.execute(rowContext);
 
                             if (result == null) {
                                 return null;
@@ -13,6 +13,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -33,6 +34,9 @@ public class ReportGridEvaluatorNamespace {
     private final ReportGridDefinition definition;
     private Map<String, Object> ctx = new HashMap<>();
 
+    // ext ids looked up whilst absent from the context, lets the calculator detect unplanned dependencies
+    private final Set<String> absentLookups = new HashSet<>();
+
     public ReportGridEvaluatorNamespace(ReportGridDefinition definition) {
         this.definition = definition;
     }
@@ -49,7 +53,7 @@ public class ReportGridEvaluatorNamespace {
 
 
     public Object cell(String cellExtId) {
-        return ctx.get(cellExtId);
+        return lookup(cellExtId);
     }
 
 
@@ -57,7 +61,7 @@ public class ReportGridEvaluatorNamespace {
         checkAllCellsExist(cellExtIds);
         return Stream
                 .of(cellExtIds)
-                .map(ctx::get)
+                .map(this::lookup)
                 .filter(Objects::nonNull)
                 .map(this::cellToStr) //  e.g. coalesce('ONBOARD', 'SCOPE', 'PAAS')
                 .findFirst()
@@ -75,7 +79,7 @@ public class ReportGridEvaluatorNamespace {
 
         return Stream
                 .of(cellExtIds)
-                .map(ctx::get)
+                .map(this::lookup)
                 .filter(Objects::nonNull)
                 .map(d -> (ReportGridCell) d)
                 .filter(d -> StringUtilities.isEmpty(d.errorValue())) // any cells remove cells with error!
@@ -88,7 +92,7 @@ public class ReportGridEvaluatorNamespace {
 
         return Stream
                 .of(cellExtIds)
-                .map(ctx::get)
+                .map(this::lookup)
                 .allMatch(c -> Objects.nonNull(c) && !hasErrors(c));
     }
 
@@ -310,6 +314,25 @@ public class ReportGridEvaluatorNamespace {
 
     // --- HELPERS ------------------
 
+    /**
+     * @return ext ids looked up whilst absent from the context since the last call
+     */
+    Set<String> drainAbsentLookups() {
+        Set<String> drained = new HashSet<>(absentLookups);
+        absentLookups.clear();
+        return drained;
+    }
+
+
+    private Object lookup(String cellExtId) {
+        Object value = ctx.get(cellExtId);
+        if (value == null) {
+            absentLookups.add(cellExtId);
+        }
+        return value;
+    }
+
+
     private BigDecimal calcRatio(String[] cellExtIds) {
 
         if (isEmpty(cellExtIds)) {
@@ -320,7 +343,7 @@ public class ReportGridEvaluatorNamespace {
 
         long foundColumns = Stream
                 .of(cellExtIds)
-                .map(ctx::get)
+                .map(this::lookup)
                 .filter(c -> Objects.nonNull(c) && !hasErrors(c))
                 .count();
 
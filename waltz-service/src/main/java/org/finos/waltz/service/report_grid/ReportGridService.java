@@ -35,6 +35,7 @@ import org.finos.waltz.model.report_grid.*;
 import org.finos.waltz.model.user.SystemRole;
 import org.finos.waltz.service.rating_scheme.RatingSchemeService;
 import org.finos.waltz.service.user.UserRoleService;
+import org.jooq.lambda.tuple.Tuple2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -59,6 +60,7 @@ public class ReportGridService {
     private final ChangeInitiativeDao changeInititativeDao;
     private final ReportGridDao reportGridDao;
     private final ReportGridMemberService reportGridMemberService;
+    private final ReportGridCellStore reportGridCellStore;
     private final UserRoleService userRoleService;
 
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
@@ -69,9 +71,11 @@ public class ReportGridService {
                              RatingSchemeService ratingSchemeService,
                              ReportGridMemberService reportGridMemberService,
                              UserRoleService userRoleService,
-                             ChangeInitiativeDao changeInitiativeDao) {
+                             ChangeInitiativeDao changeInitiativeDao,
+                             ReportGridCellStore reportGridCellStore) {
         checkNotNull(reportGridDao, "reportGridDao cannot be null");
         checkNotNull(reportGridMemberService, "reportGridMemberService cannot be null");
+        checkNotNull(reportGridCellStore, "reportGridCellStore cannot be null");
         checkNotNull(applicationDao, "applicationDao cannot be null");
         checkNotNull(ratingSchemeService, "ratingSchemeService cannot be null");
         checkNotNull(userRoleService, "userRoleService cannot be null");
@@ -82,6 +86,7 @@ public class ReportGridService {
         this.ratingSchemeService = ratingSchemeService;
         this.changeInititativeDao = changeInitiativeDao;
         this.userRoleService = userRoleService;
+        this.reportGridCellStore = reportGridCellStore;
     }
 
 
@@ -118,9 +123,10 @@ public class ReportGridService {
             return Optional.empty();
         }
 
-        EntityKind targetKind = definition.subjectKind();
-
-        ReportGridInstance instance = mkInstance(id, idSelectionOptions, targetKind);
+        ReportGridInstance instance = reportGridCellStore.getOrCompute(
+                definition,
+                idSelectionOptions,
+                () -> mkInstanceWithDerivedCells(definition, idSelectionOptions));
 
         Set<ReportGridMember> members = reportGridMemberService.findByGridId(id);
 
@@ -131,20 +137,6 @@ public class ReportGridService {
                 .map(ReportGridMember::role)
                 .orElse(ReportGridMemberRole.VIEWER);
 
-        if (!definition.derivedColumnDefinitions().isEmpty()) {
-            Set<ReportGridCell> calculatedCells = ReportGridColumnCalculator.calculate(instance, definition);
-
-            return Optional.of(ImmutableReportGrid
-                    .builder()
-                    .definition(definition)
-                    .instance(ImmutableReportGridInstance
-                            .copyOf(instance)
-                            .withCellData(SetUtilities.union(instance.cellData(), calculatedCells)))
-                    .members(members)
-                    .userRole(userRole)
-                    .build());
-        }
-
         return Optional.of(ImmutableReportGrid
                 .builder()
                 .definition(definition)
@@ -155,12 +147,45 @@ public class ReportGridService {
     }
 
 
+    private ReportGridInstance mkInstanceWithDerivedCells(ReportGridDefinition definition,
+                                                          IdSelectionOptions idSelectionOptions) {
+
+        ReportGridInstance instance = mkInstance(
+                definition.id().get(),
+                idSelectionOptions,
+                definition.subjectKind());
+
+        if (definition.derivedColumnDefinitions().isEmpty()) {
+            return instance;
+        }
+
+        Set<ReportGridCell> calculatedCells = ReportGridColumnCalculator.calculate(instance, definition);
+
+        // derived columns built on incomplete columns are not calculated, so are incomplete too
+        Set<Long> skippedDerivedColumnIds = ReportGridColumnCalculator.findDerivedColumnsDependingOn(
+                definition,
+                instance.incompleteColumnDefinitionIds());
+
+        return ImmutableReportGridInstance
+                .copyOf(instance)
+                .withCellData(SetUtilities.union(instance.cellData(), calculatedCells))
+                .withIncompleteColumnDefinitionIds(SetUtilities.union(instance.incompleteColumnDefinitionIds(), skippedDerivedColumnIds));
+    }
+
+
     public ReportGridInstance mkInstance(long id, IdSelectionOptions idSelectionOptions, EntityKind targetKind) {
 
         GenericSelector genericSelector = genericSelectorFactory.applyForKind(targetKind, idSelectionOptions);
-        Set<ReportGridCell> cellData = reportGridDao.findCellDataByGridId(id, genericSelector);
+        Tuple2<Set<ReportGridCell>, Set<Long>> cellDataAndIncompleteColumnIds = reportGridDao.findPartialCellDataByGridId(
+                id,
+                genericSelector);
+        Set<ReportGridCell> cellData = cellDataAndIncompleteColumnIds.v1;
         Set<ReportSubject> subjects = getReportSubjects(genericSelector);
 
+        if (! cellDataAndIncompleteColumnIds.v2.isEmpty()) {
+            LOG.warn("ReportGrid - ID={} returning partial data, incomplete columns: {}", id, cellDataAndIncompleteColumnIds.v2);
+        }
+
         Set<RatingSchemeItem> ratingSchemeItems = ratingSchemeService.findRatingSchemeItemsByIds(
                 cellData.stream().flatMap(d -> d.ratingIdValues().stream()).collect(Collectors.toSet()));
 
@@ -169,6 +194,7 @@ public class ReportGridService {
                 .subjects(subjects)
                 .cellData(cellData)
                 .ratingSchemeItems(ratingSchemeItems)
+                .incompleteColumnDefinitionIds(cellDataAndIncompleteColumnIds.v2)
                 .build();
     }
 
@@ -213,6 +239,7 @@ public class ReportGridService {
                                                         String username) throws InsufficientPrivelegeException {
         checkIsOwner(reportGridId, username);
         reportGridDao.updateColumnDefinitions(reportGridId, updateCommand);
+        reportGridCellStore.invalidateGrid(reportGridId);
         return reportGridDao.getGridDefinitionById(reportGridId);
     }
 
@@ -280,6 +307,7 @@ public class ReportGridService {
                     format("Grid def: %d not found", gridId));
         }
         reportGridMemberService.checkIsOwner(gridId, username);
+        reportGridCellStore.invalidateGrid(gridId);
 
         return reportGridDao.remove(gridId);
     }
@@ -0,0 +1,168 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.scheduled_job;
+
+import org.finos.waltz.model.scheduled_job.JobKey;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.Checks.checkFalse;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.SetUtilities.union;
+
+/**
+ * A directed acyclic graph of scheduled jobs.
+ *
+ * Jobs may only depend upon jobs which have already been added, which guarantees the graph is
+ * acyclic.  When the graph is run each job is started as soon as all of its dependencies have
+ * finished (successfully or not), so independent jobs execute concurrently.
+ */
+public class ScheduledJobGraph {
+
+    public interface JobRunner {
+        /**
+         * @param job  the job to execute
+         * @param readyAtNanos  {@link System#nanoTime()} at which the job's dependencies completed
+         */
+        void run(Job job, long readyAtNanos);
+    }
+
+
+    public static class Job {
+        private final JobKey key;
+        private final Set<JobKey> dependsOn;
+        private final Function<JobKey, Long> task;
+
+        private Job(JobKey key, Set<JobKey> dependsOn, Function<JobKey, Long> task) {
+            this.key = key;
+            this.dependsOn = dependsOn;
+            this.task = task;
+        }
+
+        public JobKey key() {
+            return key;
+        }
+
+        public Set<JobKey> dependsOn() {
+            return dependsOn;
+        }
+
+        /**
+         * @return number of rows touched by the job, or null if not reported
+         */
+        public Long execute() {
+            return task.apply(key);
+        }
+    }
+
+
+    private final Map<JobKey, Job> jobs = new LinkedHashMap<>();
+
+
+    /**
+     * @param key  key of the job to add
+     * @param task  the job, returning the number of rows it touched (or null if unknown)
+     * @param dependsOn  jobs which must finish before this job starts, these must already be in the graph
+     * @return this graph, for chaining
+     */
+    public ScheduledJobGraph add(JobKey key, Function<JobKey, Long> task, JobKey... dependsOn) {
+        checkNotNull(key, "key cannot be null");
+        checkNotNull(task, "task cannot be null");
+        checkFalse(jobs.containsKey(key), "job already added: " + key);
+
+        Set<JobKey> dependencies = asSet(dependsOn);
+        dependencies.forEach(d -> checkTrue(
+                jobs.containsKey(d),
+                "job: " + key + " depends on: " + d + " which has not been added"));
+
+        jobs.put(key, new Job(key, dependencies, task));
+        return this;
+    }
+
+
+    public Collection<Job> jobs() {
+        return jobs.values();
+    }
+
+
+    public Set<JobKey> findDependencies(JobKey key) {
+        Job job = jobs.get(key);
+        return job == null
+                ? asSet()
+                : job.dependsOn();
+    }
+
+
+    /**
+     * Jobs which should not run at the same time as the given job, i.e. its direct dependencies
+     * and direct dependents.
+     */
+    public Set<JobKey> findRelatedJobs(JobKey key) {
+        Set<JobKey> dependents = jobs
+                .values()
+                .stream()
+                .filter(j -> j.dependsOn().contains(key))
+                .map(Job::key)
+                .collect(toSet());
+
+        return union(findDependencies(key), dependents);
+    }
+
+
+    /**
+     * Runs every job in the graph, blocking until all have completed.
+     *
+     * @param executor  executor used to run the jobs, its size bounds the concurrency
+     * @param runner  invoked for each job, expected to handle (and record) any failures
+     */
+    public void run(Executor executor, JobRunner runner) {
+        Map<JobKey, CompletableFuture<Void>> completions = new LinkedHashMap<>();
+
+        jobs.values().forEach(job -> {
+            CompletableFuture<?>[] dependencies = job
+                    .dependsOn()
+                    .stream()
+                    .map(completions::get)
+                    .toArray(CompletableFuture[]::new);
+
+            CompletableFuture<Void> completion = CompletableFuture
+                    .allOf(dependencies)
+                    .thenApply(x -> System.nanoTime())
+                    .thenAcceptAsync(readyAt -> runner.run(job, readyAt), executor)
+                    // ensure a failing job does not prevent its dependents from running
+                    .exceptionally(e -> null);
+
+            completions.put(job.key(), completion);
+        });
+
+        CompletableFuture
+                .allOf(completions.values().toArray(new CompletableFuture[0]))
+                .join();
+    }
+
+}
@@ -19,11 +19,15 @@
 package org.finos.waltz.service.scheduled_job;
 
 
+import org.finos.waltz.common.DateTimeUtilities;
 import org.finos.waltz.common.ExcludeFromIntegrationTesting;
 import org.finos.waltz.data.scheduled_job.ScheduledJobDao;
 import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.attestation.SyncRecipientsResponse;
+import org.finos.waltz.model.scheduled_job.ImmutableScheduledJobExecution;
 import org.finos.waltz.model.scheduled_job.JobKey;
 import org.finos.waltz.model.scheduled_job.JobLifecycleStatus;
+import org.finos.waltz.model.scheduled_job.ScheduledJobExecution;
 import org.finos.waltz.service.attestation.AttestationRunService;
 import org.finos.waltz.service.complexity.ComplexityService;
 import org.finos.waltz.service.cost.CostService;
@@ -38,15 +42,22 @@ import org.finos.waltz.service.usage_info.DataTypeUsageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-import java.util.Set;
-import java.util.function.Consumer;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
-import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.Checks.checkTrue;
 
 @ExcludeFromIntegrationTesting
 @Service
@@ -68,6 +79,9 @@ public class ScheduledJobService {
     private final SurveyInstanceActionQueueService surveyInstanceActionQueueService;
     private final ComplexityService complexityService;
 
+    private final ScheduledJobGraph jobGraph;
+    private final ExecutorService jobExecutor;
+
 
     @Autowired
     public ScheduledJobService(AttestationRunService attestationRunService,
@@ -81,7 +95,8 @@ public class ScheduledJobService {
                                ReportGridFilterViewService reportGridFilterViewService,
                                ScheduledJobDao scheduledJobDao,
                                SurveyInstanceActionQueueService surveyInstanceActionQueueService,
-                               SurveyInstanceService surveyInstanceService) {
+                               SurveyInstanceService surveyInstanceService,
+                               @Value("${scheduled-jobs.max-concurrency:4}") int maxConcurrency) {
 
 
         checkNotNull(attestationRunService, "attestationRunService cannot be null");
@@ -95,6 +110,7 @@ public class ScheduledJobService {
         checkNotNull(scheduledJobDao, "scheduledJobDao cannot be null");
         checkNotNull(surveyInstanceActionQueueService, "surveyInstanceActionQueueService cannot be null");
         checkNotNull(surveyInstanceService, "surveyInstanceService cannot be null");
+        checkTrue(maxConcurrency > 0, "maxConcurrency must be positive");
 
         this.attestationRunService = attestationRunService;
         this.complexityService = complexityService;
@@ -108,85 +124,170 @@ public class ScheduledJobService {
         this.scheduledJobDao = scheduledJobDao;
         this.surveyInstanceActionQueueService = surveyInstanceActionQueueService;
         this.surveyInstanceService = surveyInstanceService;
+
+        this.jobGraph = mkJobGraph();
+        this.jobExecutor = Executors.newFixedThreadPool(maxConcurrency, mkJobThreadFactory());
     }
 
 
     @Scheduled(fixedRate = 300_000)
     public void run() {
         Thread.currentThread().setName("WaltzScheduledJobService");
-        runIfNeeded(JobKey.HIERARCHY_REBUILD_CHANGE_INITIATIVE,
-                (jk) -> entityHierarchyService.buildFor(EntityKind.CHANGE_INITIATIVE));
-
-        runIfNeeded(JobKey.HIERARCHY_REBUILD_DATA_TYPE,
-                (jk) -> entityHierarchyService.buildFor(EntityKind.DATA_TYPE));
-
-        runIfNeeded(JobKey.HIERARCHY_REBUILD_ENTITY_STATISTICS,
-                (jk) -> entityHierarchyService.buildFor(EntityKind.ENTITY_STATISTIC));
-
-        runIfNeeded(JobKey.HIERARCHY_REBUILD_MEASURABLE,
-                (jk) -> entityHierarchyService.buildFor(EntityKind.MEASURABLE));
-
-        runIfNeeded(JobKey.HIERARCHY_REBUILD_ORG_UNIT,
-                (jk) -> entityHierarchyService.buildFor(EntityKind.ORG_UNIT));
-
-        runIfNeeded(JobKey.HIERARCHY_REBUILD_PERSON,
-                (jk) -> entityHierarchyService.buildFor(EntityKind.PERSON));
-
-        runIfNeeded(JobKey.DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL,
-                (jk) -> physicalSpecDataTypeService.rippleDataTypesToLogicalFlows(),
-                asSet(JobKey.DATA_TYPE_USAGE_RECALC_APPLICATION));
 
-        runIfNeeded(JobKey.DATA_TYPE_USAGE_RECALC_APPLICATION,
-                (jk) -> dataTypeUsageService.recalculateForAllApplications(),
-                asSet(JobKey.DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL));
+        jobGraph.run(jobExecutor, this::runIfNeeded);
 
-        runIfNeeded(JobKey.AUTH_SOURCE_RECALC_FLOW_RATINGS,
-                (jk) -> flowClassificationRuleService.fastRecalculateAllFlowRatings());
-
-        runIfNeeded(JobKey.LOGICAL_FLOW_CLEANUP_ORPHANS,
-                (jk) -> logicalFlowService.cleanupOrphans());
-
-        runIfNeeded(JobKey.ATTESTATION_ISSUE_INSTANCES,
-                (jk) -> attestationRunService.issueInstancesForPendingRuns());
-
-        runIfNeeded(JobKey.SURVEY_INSTANCE_REASSIGN_RECIPIENTS,
-                (jk) -> surveyInstanceService.reassignRecipients());
-
-        runIfNeeded(JobKey.SURVEY_INSTANCE_REASSIGN_OWNERS,
-                (jk) -> surveyInstanceService.reassignOwners());
+        surveyInstanceActionQueueService.performActions();
+    }
 
-        runIfNeeded(JobKey.REPORT_GRID_RECALCULATE_APP_GROUPS_FROM_FILTERS,
-                (jk) -> reportGridFilterViewService.generateAppGroupsFromFilter());
 
-        runIfNeeded(JobKey.ALLOCATED_COSTS_POPULATOR,
-                (jk) -> costService.populateAllocatedCosts());
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+    }
 
-        runIfNeeded(JobKey.COMPLEXITY_REBUILD_MEASURABLE,
-                (jk) -> complexityService.populateMeasurableComplexities());
-
-        surveyInstanceActionQueueService.performActions();
 
+    /**
+     * @return metrics for the most recent execution of each job, along with the job's dependencies
+     */
+    public List<ScheduledJobExecution> findLatestExecutions() {
+        return scheduledJobDao
+                .findLatestExecutions()
+                .stream()
+                .map(e -> ImmutableScheduledJobExecution
+                        .copyOf(e)
+                        .withDependsOn(jobGraph.findDependencies(e.jobKey())))
+                .collect(toList());
     }
 
 
-    private void runIfNeeded(JobKey jobKey, Consumer<JobKey> jobExecutor) {
-        runIfNeeded(jobKey, jobExecutor, Collections.emptySet());
+    private ScheduledJobGraph mkJobGraph() {
+        return new ScheduledJobGraph()
+                .add(JobKey.HIERARCHY_REBUILD_CHANGE_INITIATIVE,
+                        jk -> (long) entityHierarchyService.buildFor(EntityKind.CHANGE_INITIATIVE))
+                .add(JobKey.HIERARCHY_REBUILD_DATA_TYPE,
+                        jk -> (long) entityHierarchyService.buildFor(EntityKind.DATA_TYPE))
+                .add(JobKey.HIERARCHY_REBUILD_ENTITY_STATISTICS,
+                        jk -> (long) entityHierarchyService.buildFor(EntityKind.ENTITY_STATISTIC))
+                .add(JobKey.HIERARCHY_REBUILD_MEASURABLE,
+                        jk -> (long) entityHierarchyService.buildFor(EntityKind.MEASURABLE))
+                .add(JobKey.HIERARCHY_REBUILD_ORG_UNIT,
+                        jk -> (long) entityHierarchyService.buildFor(EntityKind.ORG_UNIT))
+                .add(JobKey.HIERARCHY_REBUILD_PERSON,
+                        jk -> (long) entityHierarchyService.buildFor(EntityKind.PERSON))
+                .add(JobKey.LOGICAL_FLOW_CLEANUP_ORPHANS,
+                        jk -> logicalFlowService.cleanupOrphans().longValue())
+                .add(JobKey.DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL,
+                        jk -> (long) physicalSpecDataTypeService.rippleDataTypesToLogicalFlows(),
+                        JobKey.HIERARCHY_REBUILD_DATA_TYPE,
+                        JobKey.LOGICAL_FLOW_CLEANUP_ORPHANS)
+                .add(JobKey.DATA_TYPE_USAGE_RECALC_APPLICATION,
+                        jk -> {
+                            dataTypeUsageService.recalculateForAllApplications();
+                            return null;
+                        },
+                        JobKey.DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL)
+                .add(JobKey.AUTH_SOURCE_RECALC_FLOW_RATINGS,
+                        jk -> (long) flowClassificationRuleService.fastRecalculateAllFlowRatings(),
+                        JobKey.HIERARCHY_REBUILD_ORG_UNIT,
+                        JobKey.DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL)
+                .add(JobKey.ATTESTATION_ISSUE_INSTANCES,
+                        jk -> (long) attestationRunService.issueInstancesForPendingRuns(),
+                        JobKey.HIERARCHY_REBUILD_ORG_UNIT,
+                        JobKey.HIERARCHY_REBUILD_PERSON)
+                .add(JobKey.SURVEY_INSTANCE_REASSIGN_RECIPIENTS,
+                        jk -> toRowCount(surveyInstanceService.reassignRecipients()),
+                        JobKey.HIERARCHY_REBUILD_PERSON)
+                .add(JobKey.SURVEY_INSTANCE_REASSIGN_OWNERS,
+                        jk -> toRowCount(surveyInstanceService.reassignOwners()),
+                        JobKey.HIERARCHY_REBUILD_PERSON)
+                .add(JobKey.REPORT_GRID_RECALCULATE_APP_GROUPS_FROM_FILTERS,
+                        jk -> {
+                            reportGridFilterViewService.generateAppGroupsFromFilter();
+                            return null;
+                        },
+                        JobKey.HIERARCHY_REBUILD_DATA_TYPE,
+                        JobKey.HIERARCHY_REBUILD_MEASURABLE,
+                        JobKey.HIERARCHY_REBUILD_ORG_UNIT)
+                .add(JobKey.ALLOCATED_COSTS_POPULATOR,
+                        jk -> {
+                            costService.populateAllocatedCosts();
+                            return null;
+                        },
+                        JobKey.HIERARCHY_REBUILD_MEASURABLE)
+                .add(JobKey.COMPLEXITY_REBUILD_MEASURABLE,
+                        jk -> {
+                            complexityService.populateMeasurableComplexities();
+                            return null;
+                        },
+                        JobKey.HIERARCHY_REBUILD_MEASURABLE);
     }
 
-    private void runIfNeeded(JobKey jobKey, Consumer<JobKey> jobExecutor, Set<JobKey> deadlockJobKeys) {
+
+    /**
+     * Runs the job if it is flagged as runnable and none of its related jobs (dependencies or
+     * dependents) are currently running, e.g. on another Waltz instance.
+     */
+    private void runIfNeeded(ScheduledJobGraph.Job job, long readyAtNanos) {
+        JobKey jobKey = job.key();
+        long startNanos = System.nanoTime();
+        LocalDateTime startedAt = DateTimeUtilities.nowUtc();
         try {
             if (scheduledJobDao.isJobRunnable(jobKey)
-                    && !scheduledJobDao.anyJobsRunning(deadlockJobKeys)
+                    && !scheduledJobDao.anyJobsRunning(jobGraph.findRelatedJobs(jobKey))
                     && scheduledJobDao.markJobAsRunning(jobKey)) {
-                jobExecutor
-                        .andThen((jk) -> scheduledJobDao.updateJobStatus(jk, JobLifecycleStatus.COMPLETED))
-                        .accept(jobKey);
+                startNanos = System.nanoTime();
+                startedAt = DateTimeUtilities.nowUtc();
+
+                Long rowsTouched = job.execute();
+
+                scheduledJobDao.updateJobStatus(jobKey, JobLifecycleStatus.COMPLETED);
+                recordExecution(job, JobLifecycleStatus.COMPLETED, startedAt, startNanos, readyAtNanos, rowsTouched, null);
             }
         } catch (Exception e) {
             LOG.error("Failed to run job: " + jobKey, e);
             scheduledJobDao.updateJobStatus(jobKey, JobLifecycleStatus.ERRORED);
+            recordExecution(job, JobLifecycleStatus.ERRORED, startedAt, startNanos, readyAtNanos, null, e.getMessage());
         }
     }
 
 
+    private void recordExecution(ScheduledJobGraph.Job job,
+                                 JobLifecycleStatus status,
+                                 LocalDateTime startedAt,
+                                 long startNanos,
+                                 long readyAtNanos,
+                                 Long rowsTouched,
+                                 String error) {
+        try {
+            scheduledJobDao.saveExecution(ImmutableScheduledJobExecution
+                    .builder()
+                    .jobKey(job.key())
+                    .status(status)
+                    .startedAt(startedAt)
+                    .completedAt(DateTimeUtilities.nowUtc())
+                    .durationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+                    .queueWaitMs(TimeUnit.NANOSECONDS.toMillis(Math.max(0, startNanos - readyAtNanos)))
+                    .rowsTouched(rowsTouched)
+                    .error(error)
+                    .build());
+        } catch (Exception e) {
+            LOG.warn("Failed to record execution metrics for job: {}, reason: {}", job.key(), e.getMessage());
+        }
+    }
+
+
+    private static ThreadFactory mkJobThreadFactory() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "WaltzScheduledJob-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+
+    private static Long toRowCount(SyncRecipientsResponse response) {
+        return response.recipientsCreatedCount() + response.recipientsRemovedCount();
+    }
+
 }
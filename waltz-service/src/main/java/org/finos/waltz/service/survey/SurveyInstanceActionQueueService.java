@@ -1,6 +1,7 @@
 package org.finos.waltz.service.survey;
 
 import org.finos.waltz.common.Checks;
+import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.data.survey.SurveyInstanceActionQueueDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.Operation;
@@ -18,168 +19,338 @@ import org.jooq.DSLContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.lang.String.format;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
 import static org.finos.waltz.model.EntityReference.mkRef;
 
 @Service
 public class SurveyInstanceActionQueueService {
 
     private static final Logger LOG = LoggerFactory.getLogger(SurveyInstanceActionQueueService.class);
+
+    // number of actions claimed, and whose instances are prefetched, at a time
+    private static final int BATCH_SIZE = 1000;
+
     private final SurveyInstanceActionQueueDao surveyInstanceActionQueueDao;
     private final SurveyInstanceService surveyInstanceService;
     private final ChangeLogService changeLogService;
     private final DSLContext dslContext;
+    private final int maxConcurrency;
+    private final Duration staleClaimAge;
+    private final ExecutorService partitionExecutor;
 
 
     @Autowired
     public SurveyInstanceActionQueueService(SurveyInstanceActionQueueDao surveyInstanceActionQueueDao,
                                      SurveyInstanceService surveyInstanceService,
                                      ChangeLogService changeLogService,
-                                     DSLContext dslContext) {
+                                     DSLContext dslContext,
+                                     @Value("${survey.action-queue.max-concurrency:4}") int maxConcurrency,
+                                     @Value("${survey.action-queue.stale-claim-minutes:30}") int staleClaimMinutes) {
 
         Checks.checkNotNull(surveyInstanceActionQueueDao, "surveyInstanceActionQueueDao cannot be null");
         Checks.checkNotNull(surveyInstanceService, "surveyInstanceService cannot be null");
         Checks.checkNotNull(changeLogService, "changeLogService cannot be null");
         Checks.checkNotNull(dslContext, "dslContext cannot be null");
+        Checks.checkTrue(maxConcurrency > 0, "maxConcurrency must be positive");
+        Checks.checkTrue(staleClaimMinutes > 0, "staleClaimMinutes must be positive");
 
         this.surveyInstanceActionQueueDao = surveyInstanceActionQueueDao;
         this.surveyInstanceService = surveyInstanceService;
         this.changeLogService = changeLogService;
         this.dslContext = dslContext;
+        this.maxConcurrency = maxConcurrency;
+        this.staleClaimAge = Duration.ofMinutes(staleClaimMinutes);
+        this.partitionExecutor = Executors.newFixedThreadPool(maxConcurrency, mkThreadFactory());
     }
 
+
     /**
      * Looks for any 'PENDING' actions in the survey_instance_action_queue and attempts to run them in order of submission time to the queue.
      * In case of error or a precondition failure a message is saved to the action in the table.
-     * A transaction is created for each action and all changes will be rolled back if an error occurs during runtime.
+     *
+     * Actions are processed in batches.  Each batch is claimed (marked 'IN_PROGRESS') up front and the
+     * survey instances are prefetched with a single query.  The actions are then partitioned by survey
+     * instance, so actions against the same instance are still applied in submission order, and the
+     * partitions are processed concurrently.
+     *
+     * Each action runs in its own transaction, the status change is committed along with the
+     * outcome (status and message) of the action and its change log entry.  If the status change fails
+     * it alone is rolled back and the failure is recorded.  If the outcome cannot be recorded the action
+     * is marked as failed in a separate transaction.  Claims are refreshed whilst a batch is running and
+     * actions left 'IN_PROGRESS' by a consumer which was stopped part way through a batch are returned
+     * to 'PENDING' once their claim is older than <code>survey.action-queue.stale-claim-minutes</code>.
      */
     public void performActions() {
 
+        int resetCount = surveyInstanceActionQueueDao.resetStaleActionsInProgress(
+                Timestamp.valueOf(nowUtc().minus(staleClaimAge)));
+
+        if (resetCount > 0) {
+            LOG.warn("Returned {} abandoned 'IN_PROGRESS' survey actions to 'PENDING'", resetCount);
+        }
+
         List<SurveyInstanceActionQueueItem> pendingActions = surveyInstanceActionQueueDao.findPendingActions();
 
-        pendingActions
-                .forEach(action -> {
+        for (int i = 0; i < pendingActions.size(); i += BATCH_SIZE) {
+            List<SurveyInstanceActionQueueItem> batch = pendingActions.subList(i, Math.min(pendingActions.size(), i + BATCH_SIZE));
+            boolean claimed = performBatch(batch);
+            if (! claimed) {
+                LOG.info("Could not claim any queued survey actions, another action is currently in progress");
+                return;
+            }
+        }
+    }
 
-                    dslContext.transaction(ctx -> {
 
-                        DSLContext tx = ctx.dsl();
+    private boolean performBatch(List<SurveyInstanceActionQueueItem> batch) {
+
+        Set<Long> claimedActionIds = dslContext.transactionResult(ctx -> surveyInstanceActionQueueDao
+                .markActionsInProgress(
+                        ctx.dsl(),
+                        batch.stream()
+                                .map(a -> a.id().get())
+                                .collect(toList())));
+
+        if (claimedActionIds.isEmpty()) {
+            return false;
+        }
+
+        List<SurveyInstanceActionQueueItem> claimedActions = batch
+                .stream()
+                .filter(a -> claimedActionIds.contains(a.id().get()))
+                .collect(toList());
+
+        Map<Long, SurveyInstanceStatus> statusByInstanceId = surveyInstanceService
+                .findByIds(SetUtilities.map(claimedActions, SurveyInstanceActionQueueItem::surveyInstanceId))
+                .stream()
+                .collect(toMap(si -> si.id().get(), SurveyInstance::status));
+
+        List<Future<?>> partitions = new ArrayList<>();
+        for (List<SurveyInstanceActionQueueItem> partition : partitionByInstance(claimedActions)) {
+            partitions.add(partitionExecutor.submit(() -> performPartition(partition, statusByInstanceId)));
+        }
+
+        // claims are refreshed whilst waiting, so a long running batch is not reset and claimed again
+        long claimRefreshMillis = Math.max(1, staleClaimAge.toMillis() / 3);
+        for (Future<?> partition : partitions) {
+            boolean done = false;
+            while (! done) {
+                try {
+                    partition.get(claimRefreshMillis, TimeUnit.MILLISECONDS);
+                    done = true;
+                } catch (TimeoutException e) {
+                    surveyInstanceActionQueueDao.refreshClaims(claimedActionIds);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted whilst processing queued survey actions", e);
+                } catch (ExecutionException e) {
+                    LOG.error("Failed to process partition of queued survey actions", e.getCause());
+                    done = true;
+                }
+            }
+        }
+
+        LOG.info("Processed {} queued survey actions in {} partitions", claimedActions.size(), partitions.size());
+        return true;
+    }
 
-                        Long actionId = action.id().get();
 
-                        SurveyInstance instance = surveyInstanceService.getById(action.surveyInstanceId());
+    /**
+     * Splits the actions into (at most) <code>maxConcurrency</code> partitions.  All actions for a
+     * survey instance are placed in the same partition, retaining their submission order.
+     */
+    private List<List<SurveyInstanceActionQueueItem>> partitionByInstance(List<SurveyInstanceActionQueueItem> actions) {
+        Map<Long, List<SurveyInstanceActionQueueItem>> actionsByInstanceId = actions
+                .stream()
+                .collect(groupingBy(
+                        SurveyInstanceActionQueueItem::surveyInstanceId,
+                        LinkedHashMap::new,
+                        toList()));
+
+        int partitionCount = Math.min(maxConcurrency, actionsByInstanceId.size());
+
+        List<List<SurveyInstanceActionQueueItem>> partitions = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new ArrayList<>());
+        }
+
+        int idx = 0;
+        for (List<SurveyInstanceActionQueueItem> instanceActions : actionsByInstanceId.values()) {
+            partitions.get(idx++ % partitionCount).addAll(instanceActions);
+        }
+
+        return partitions;
+    }
 
-                        surveyInstanceActionQueueDao.markActionInProgress(tx, actionId);
 
-                        if (instance == null) {
+    private void performPartition(List<SurveyInstanceActionQueueItem> actions,
+                                  Map<Long, SurveyInstanceStatus> prefetchedStatusByInstanceId) {
+
+        // tracks the status of instances as actions in this partition are applied
+        Map<Long, SurveyInstanceStatus> statusByInstanceId = new HashMap<>(prefetchedStatusByInstanceId);
+
+        for (SurveyInstanceActionQueueItem action : actions) {
+            try {
+                SurveyInstanceStatus newStatus = dslContext.transactionResult(ctx -> performAction(
+                        ctx.dsl(),
+                        action,
+                        statusByInstanceId.get(action.surveyInstanceId())));
+
+                if (newStatus != null) {
+                    statusByInstanceId.put(action.surveyInstanceId(), newStatus);
+                    surveyInstanceService.invalidateReportGrids(action.surveyInstanceId());
+                }
+            } catch (Exception e) {
+                LOG.error("Failed to record outcome of queued survey action: {}", action.id().get(), e);
+                markFailed(action, e);
+            }
+        }
+    }
 
-                            String msg = format("Failed to apply queued action: %s. Could not find survey instance with id: %d", action.action().name(), action.surveyInstanceId());
 
-                            LOG.info(msg);
-                            surveyInstanceActionQueueDao.updateActionStatus(
-                                    tx,
-                                    actionId,
-                                    SurveyInstanceActionStatus.PRECONDITION_FAILURE,
-                                    msg);
+    /**
+     * Records the failure in its own transaction, an action left 'IN_PROGRESS' would prevent
+     * the queue being consumed until its claim is stale.
+     */
+    private void markFailed(SurveyInstanceActionQueueItem action, Exception cause) {
+        String msg = format("Failed to apply queued action: %s to survey: %d. Error when recording outcome: %s",
+                action.action().name(),
+                action.surveyInstanceId(),
+                cause.getMessage());
+        try {
+            dslContext.transaction(ctx -> surveyInstanceActionQueueDao.updateActionStatus(
+                    ctx.dsl(),
+                    action.id().get(),
+                    SurveyInstanceActionStatus.EXECUTION_FAILURE,
+                    msg));
+        } catch (Exception e) {
+            // the action remains 'IN_PROGRESS' and will be retried once its claim is stale
+            LOG.error("Failed to mark queued survey action: {} as failed", action.id().get(), e);
+        }
+    }
 
-                            ChangeLog changeLog = mkChangelogForAction(tx, action, msg);
-                            changeLogService.write(Optional.of(tx), changeLog);
 
-                        } else if (instance.status() != action.initialState()) {
+    /**
+     * Applies the action and records its outcome and change log entry in the given transaction.
+     *
+     * @return the new status of the survey instance, or null if it was not changed
+     */
+    private SurveyInstanceStatus performAction(DSLContext tx,
+                                               SurveyInstanceActionQueueItem action,
+                                               SurveyInstanceStatus currentStatus) {
+        Long actionId = action.id().get();
+        long instanceId = action.surveyInstanceId();
 
-                            String msg = format("Failed to apply queued action: %s to survey: %d. Initial state of survey is not as expected: %s and is actually %s",
-                                    action.action().name(),
-                                    action.surveyInstanceId(),
-                                    action.initialState().name(),
-                                    instance.status().name());
+        if (currentStatus == null) {
 
-                            LOG.info(msg);
-                            surveyInstanceActionQueueDao.updateActionStatus(
-                                    tx,
-                                    actionId,
-                                    SurveyInstanceActionStatus.PRECONDITION_FAILURE,
-                                    msg);
+            String msg = format("Failed to apply queued action: %s. Could not find survey instance with id: %d", action.action().name(), instanceId);
 
-                            ChangeLog changeLog = mkChangelogForAction(tx, action, msg);
-                            changeLogService.write(Optional.of(tx), changeLog);
+            LOG.info(msg);
+            recordOutcome(tx, action, SurveyInstanceActionStatus.PRECONDITION_FAILURE, msg, msg);
+            return null;
 
-                        } else {
+        } else if (currentStatus != action.initialState()) {
 
-                            String username = action.submittedBy();
+            String msg = format("Failed to apply queued action: %s to survey: %d. Initial state of survey is not as expected: %s and is actually %s",
+                    action.action().name(),
+                    instanceId,
+                    action.initialState().name(),
+                    currentStatus.name());
 
-                            Optional<String> reason = action.actionParams().flatMap(SurveyInstanceActionParams::reason);
-                            Optional<LocalDate> dueDate = action.actionParams().flatMap(SurveyInstanceActionParams::newDueDate);
-                            Optional<LocalDate> approvalDueDate = action.actionParams().flatMap(SurveyInstanceActionParams::newApprovalDueDate);
+            LOG.info(msg);
+            recordOutcome(tx, action, SurveyInstanceActionStatus.PRECONDITION_FAILURE, msg, msg);
+            return null;
 
-                            ImmutableSurveyInstanceStatusChangeCommand updateCmd = ImmutableSurveyInstanceStatusChangeCommand
-                                    .builder()
-                                    .action(action.action())
-                                    .reason(reason)
-                                    .newDueDate(dueDate)
-                                    .newApprovalDueDate(approvalDueDate)
-                                    .build();
+        } else {
 
-                            try {
+            String username = action.submittedBy();
 
-                                // We need a new transaction here so that any changes get rolled back; we do not fail the overall
-                                // action transaction as that resets the action to 'PENDING' and would lose the error message
+            Optional<String> reason = action.actionParams().flatMap(SurveyInstanceActionParams::reason);
+            Optional<LocalDate> dueDate = action.actionParams().flatMap(SurveyInstanceActionParams::newDueDate);
+            Optional<LocalDate> approvalDueDate = action.actionParams().flatMap(SurveyInstanceActionParams::newApprovalDueDate);
 
-                                tx.transaction(actionCtx -> {
-                                    DSLContext actionTx = actionCtx.dsl();
-                                    SurveyInstanceStatus surveyInstanceStatus = surveyInstanceService.updateStatus(
-                                            Optional.of(actionTx),
-                                            username,
-                                            action.surveyInstanceId(),
-                                            updateCmd);
+            ImmutableSurveyInstanceStatusChangeCommand updateCmd = ImmutableSurveyInstanceStatusChangeCommand
+                    .builder()
+                    .action(action.action())
+                    .reason(reason)
+                    .newDueDate(dueDate)
+                    .newApprovalDueDate(approvalDueDate)
+                    .build();
 
-                                    String msg = format("Successfully applied queued action: %s to survey: %d. New status is: %s",
-                                            action.action().name(),
-                                            action.surveyInstanceId(),
-                                            surveyInstanceStatus.name());
+            try {
 
-                                    LOG.info(msg);
-                                    surveyInstanceActionQueueDao.updateActionStatus(
-                                            tx,
-                                            actionId,
-                                            SurveyInstanceActionStatus.SUCCESS,
-                                            null);
+                // Nested transaction so that the status change alone is rolled back on failure, the
+                // outcome is still recorded (failing the action transaction would lose the error message)
 
-                                    ChangeLog changeLog = mkChangelogForAction(tx, action, msg);
-                                    changeLogService.write(Optional.of(tx), changeLog);
-                                });
+                SurveyInstanceStatus surveyInstanceStatus = tx.transactionResult(actionCtx -> surveyInstanceService
+                        .updateStatus(
+                                Optional.of(actionCtx.dsl()),
+                                username,
+                                instanceId,
+                                updateCmd));
 
+                String msg = format("Successfully applied queued action: %s to survey: %d. New status is: %s",
+                        action.action().name(),
+                        instanceId,
+                        surveyInstanceStatus.name());
 
-                            } catch (Exception e) {
+                LOG.info(msg);
+                recordOutcome(tx, action, SurveyInstanceActionStatus.SUCCESS, null, msg);
+                return surveyInstanceStatus;
 
-                                String msg = format("Failed to apply queued action: %s to survey: %d. Error when updating: %s",
-                                        action.action().name(),
-                                        action.surveyInstanceId(),
-                                        e.getMessage());
+            } catch (Exception e) {
 
-                                LOG.error(msg);
-                                surveyInstanceActionQueueDao.updateActionStatus(
-                                        tx,
-                                        actionId,
-                                        SurveyInstanceActionStatus.EXECUTION_FAILURE,
-                                        msg);
+                String msg = format("Failed to apply queued action: %s to survey: %d. Error when updating: %s",
+                        action.action().name(),
+                        instanceId,
+                        e.getMessage());
 
-                                ChangeLog changeLog = mkChangelogForAction(tx, action, msg);
-                                changeLogService.write(Optional.of(tx), changeLog);
-                            }
-                        }
+                LOG.error(msg);
+                recordOutcome(tx, action, SurveyInstanceActionStatus.EXECUTION_FAILURE, msg, msg);
+                return null;
+            }
+        }
+    }
 
-                    });
 
-                });
+    private void recordOutcome(DSLContext tx,
+                               SurveyInstanceActionQueueItem action,
+                               SurveyInstanceActionStatus status,
+                               String statusMessage,
+                               String changeLogMessage) {
+        surveyInstanceActionQueueDao.updateActionStatus(tx, action.id().get(), status, statusMessage);
+        changeLogService.write(Optional.of(tx), mkChangelogForAction(action, changeLogMessage));
     }
 
 
-    private ChangeLog mkChangelogForAction(DSLContext tx, SurveyInstanceActionQueueItem action, String msg) {
+    private ChangeLog mkChangelogForAction(SurveyInstanceActionQueueItem action, String msg) {
         return ImmutableChangeLog
                 .builder()
                 .message(msg)
@@ -191,6 +362,22 @@ public class SurveyInstanceActionQueueService {
     }
 
 
+    @PreDestroy
+    public void shutdown() {
+        partitionExecutor.shutdownNow();
+    }
+
+
+    private static ThreadFactory mkThreadFactory() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "WaltzSurveyActionQueue-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+
     public List<SurveyInstanceActionQueueItem> findPendingActions() {
         return surveyInstanceActionQueueDao.findPendingActions();
     }
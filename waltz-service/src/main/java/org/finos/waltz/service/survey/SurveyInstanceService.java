@@ -57,6 +57,7 @@ import org.finos.waltz.model.survey.SurveyTemplate;
 import org.finos.waltz.model.user.SystemRole;
 import org.finos.waltz.model.utils.IdUtilities;
 import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.report_grid.ReportGridCellStore;
 import org.finos.waltz.service.user.UserRoleService;
 import org.jooq.DSLContext;
 import org.jooq.Record1;
@@ -68,6 +69,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -104,6 +106,7 @@ public class SurveyInstanceService {
     private final SurveyQuestionService surveyQuestionService;
     private final SurveyInstanceViewService instanceViewService;
     private final SurveyTemplateDao surveyTemplateDao;
+    private final ReportGridCellStore reportGridCellStore;
 
 
     @Autowired
@@ -117,7 +120,8 @@ public class SurveyInstanceService {
                                  UserRoleService userRoleService,
                                  SurveyInstanceViewService instanceViewService,
                                  SurveyQuestionService surveyQuestionService,
-                                 SurveyTemplateDao surveyTemplateDao) {
+                                 SurveyTemplateDao surveyTemplateDao,
+                                 ReportGridCellStore reportGridCellStore) {
 
         checkNotNull(changeLogService, "changeLogService cannot be null");
         checkNotNull(personDao, "personDao cannot be null");
@@ -130,6 +134,7 @@ public class SurveyInstanceService {
         checkNotNull(instanceViewService, "instanceViewService cannot be null");
         checkNotNull(surveyQuestionService, "surveyQuestionService cannot be null");
         checkNotNull(surveyTemplateDao, "surveyTemplateDao cannot be null");
+        checkNotNull(reportGridCellStore, "reportGridCellStore cannot be null");
 
         this.changeLogService = changeLogService;
         this.personDao = personDao;
@@ -142,6 +147,7 @@ public class SurveyInstanceService {
         this.instanceViewService = instanceViewService;
         this.surveyQuestionService = surveyQuestionService;
         this.surveyTemplateDao = surveyTemplateDao;
+        this.reportGridCellStore = reportGridCellStore;
     }
 
 
@@ -150,6 +156,12 @@ public class SurveyInstanceService {
     }
 
 
+    public List<SurveyInstance> findByIds(Collection<Long> instanceIds) {
+        checkNotNull(instanceIds, "instanceIds cannot be null");
+        return surveyInstanceDao.findByIds(instanceIds);
+    }
+
+
     public Set<SurveyInstance> findForRecipient(Long personId) {
         checkNotNull(personId, "personId cannot be null");
 
@@ -226,7 +238,9 @@ public class SurveyInstanceService {
                 .questionResponse(questionResponse)
                 .build();
 
+        // the dao commits the response in its own transaction
         surveyQuestionResponseDao.saveResponse(instanceQuestionResponse);
+        reportGridCellStore.invalidateForSubject(surveyInstance.surveyEntity());
 
         return true;
     }
@@ -341,6 +355,10 @@ public class SurveyInstanceService {
         }
 
         if (nbupdates > 0) {
+            if (! tx.isPresent()) {
+                // otherwise the caller invalidates once its transaction commits, see invalidateReportGrids
+                reportGridCellStore.invalidateForSubject(surveyInstance.surveyEntity());
+            }
             changeLogService.write(
                     tx,
                     ImmutableChangeLog.builder()
@@ -356,6 +374,18 @@ public class SurveyInstanceService {
     }
 
 
+    /**
+     * Discards cached report grids containing the instance's subject, callers passing a transaction
+     * to {@link #updateStatus} should call this once it commits.
+     */
+    public void invalidateReportGrids(long instanceId) {
+        SurveyInstance surveyInstance = surveyInstanceDao.getById(instanceId);
+        if (surveyInstance != null) {
+            reportGridCellStore.invalidateForSubject(surveyInstance.surveyEntity());
+        }
+    }
+
+
     protected int removeUnnecessaryResponses(Optional<DSLContext> tx, long instanceId) {
         List<SurveyQuestion> availableQuestions = surveyQuestionService.findForSurveyInstance(instanceId);
         List<SurveyInstanceQuestionResponse> questionResponses = surveyQuestionResponseDao.findForInstance(instanceId);
@@ -18,69 +18,103 @@
 
 package org.finos.waltz.service.svg;
 
+import org.finos.waltz.common.ExpiringCache;
 import org.finos.waltz.common.SvgUtilities;
 import org.finos.waltz.data.svg.SvgDiagramDao;
 import org.finos.waltz.model.svg.ImmutableSvgDiagram;
 import org.finos.waltz.model.svg.SvgDiagram;
 import org.jooq.lambda.Unchecked;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.xml.sax.SAXException;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.xpath.XPathExpressionException;
-import java.io.IOException;
+import javax.xml.stream.XMLStreamException;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Set;
 
 import static java.util.stream.Collectors.toList;
-
+import static org.finos.waltz.common.DigestUtilities.digest;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+/**
+ * Diagrams are stored as uploaded and converted (e.g. Visio custom properties are exposed as
+ * data attributes) when read.  Converted diagrams are cached by id, along with a fingerprint of
+ * the stored diagram (its fields plus a digest of the svg), so repeated views only pay for the
+ * database read and the digest.  Any change to the stored diagram causes the entry to be recomputed.
+ * The cache is bounded by the total length of the converted svgs as diagrams vary greatly in size.
+ */
 @Service
 public class SvgDiagramService {
 
     private final SvgDiagramDao svgDiagramDao;
+    private final ExpiringCache<Long, Tuple2<SvgDiagram, SvgDiagram>> convertedDiagrams;
 
 
     @Autowired
-    public SvgDiagramService(SvgDiagramDao svgDiagramDao) {
+    public SvgDiagramService(SvgDiagramDao svgDiagramDao,
+                             @Value("${svg-diagram.cache.max-entries:100}") int maxEntries,
+                             @Value("${svg-diagram.cache.max-characters:50000000}") long maxCharacters,
+                             @Value("${svg-diagram.cache.ttl-minutes:60}") int ttlMinutes) {
         this.svgDiagramDao = svgDiagramDao;
+        this.convertedDiagrams = new ExpiringCache<>(
+                maxEntries,
+                maxCharacters,
+                entry -> entry.v2.svg().length(),
+                Duration.ofMinutes(ttlMinutes));
     }
 
 
     public SvgDiagram getById(long id) {
         SvgDiagram diagram = svgDiagramDao.getById(id);
-        return Unchecked.supplier(() -> {
-            String updatedSvg = convertProductSpecificSvg(diagram);
-            return ImmutableSvgDiagram.copyOf(diagram)
-                    .withSvg(updatedSvg);
-        }).get();
+        return Unchecked.supplier(() -> convert(diagram)).get();
     }
 
 
     public Collection<SvgDiagram> findByGroups(String... groups) {
         return svgDiagramDao.findByGroups(groups)
                 .stream()
-                .map(Unchecked.function(diagram -> {
-                    String updatedSvg = convertProductSpecificSvg(diagram);
-                    return ImmutableSvgDiagram.copyOf(diagram)
-                            .withSvg(updatedSvg);
-                }))
+                .map(Unchecked.function(this::convert))
                 .collect(toList());
     }
 
 
-    private String convertProductSpecificSvg(SvgDiagram diagram) throws ParserConfigurationException, IOException, SAXException, XPathExpressionException, TransformerException {
-        switch (diagram.product()) {
-            case "visio":
-                return convertVisioSvg(diagram);
-            default:
-                return diagram.svg();
+    private SvgDiagram convert(SvgDiagram diagram) throws NoSuchAlgorithmException {
+        if (! diagram.id().isPresent()) {
+            return convertProductSpecificSvg(diagram);
         }
+
+        SvgDiagram fingerprint = ImmutableSvgDiagram
+                .copyOf(diagram)
+                .withSvg(digest(diagram.svg().getBytes(StandardCharsets.UTF_8)));
+
+        return convertedDiagrams
+                .getOrCompute(
+                        diagram.id().get(),
+                        cached -> cached.v1.equals(fingerprint),
+                        id -> tuple(fingerprint, convertProductSpecificSvg(diagram)))
+                .v2;
+    }
+
+
+    private SvgDiagram convertProductSpecificSvg(SvgDiagram diagram) {
+        return Unchecked.supplier(() -> {
+            switch (diagram.product()) {
+                case "visio":
+                    return ImmutableSvgDiagram
+                            .copyOf(diagram)
+                            .withSvg(convertVisioSvg(diagram));
+                default:
+                    return diagram;
+            }
+        }).get();
     }
 
 
-    private String convertVisioSvg(SvgDiagram diagram) throws ParserConfigurationException, IOException, SAXException, XPathExpressionException, TransformerException {
+    private String convertVisioSvg(SvgDiagram diagram) throws XMLStreamException {
         String key = diagram.keyProperty();
         String svgStr = diagram.svg();
 
@@ -94,11 +128,15 @@ public class SvgDiagramService {
 
 
     public Boolean remove(long id) {
-        return svgDiagramDao.remove(id);
+        Boolean removed = svgDiagramDao.remove(id);
+        convertedDiagrams.invalidate(id);
+        return removed;
     }
 
 
     public Boolean save(SvgDiagram diagram) {
-        return svgDiagramDao.save(diagram);
+        Boolean saved = svgDiagramDao.save(diagram);
+        diagram.id().ifPresent(convertedDiagrams::invalidate);
+        return saved;
     }
-}
\ No newline at end of file
+}
@@ -19,6 +19,7 @@
 package org.finos.waltz.service.tag;
 
 import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.report_grid.ReportGridCellStore;
 import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.data.GenericSelectorFactory;
 import org.finos.waltz.data.tag.TagDao;
@@ -49,12 +50,16 @@ public class TagService {
 
     private final TagDao tagDao;
     private final ChangeLogService changeLogService;
+    private final ReportGridCellStore reportGridCellStore;
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
 
     @Autowired
-    public TagService(TagDao tagDao, ChangeLogService changeLogService) {
+    public TagService(TagDao tagDao,
+                      ChangeLogService changeLogService,
+                      ReportGridCellStore reportGridCellStore) {
         this.tagDao = tagDao;
         this.changeLogService = changeLogService;
+        this.reportGridCellStore = reportGridCellStore;
     }
 
 
@@ -111,6 +116,7 @@ public class TagService {
         }
 
         writeChangeLogEntries(ref, username, toRemove, toAdd);
+        reportGridCellStore.invalidateForSubject(ref);
         
         return findTagsForEntityReference(ref);
     }
@@ -18,6 +18,7 @@
 
 package org.finos.waltz.service.user;
 
+import org.finos.waltz.common.ExpiringCache;
 import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.data.person.PersonDao;
@@ -39,8 +40,10 @@ import org.jooq.lambda.tuple.Tuple3;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -66,6 +69,11 @@ import static org.jooq.lambda.tuple.Tuple.tuple;
  *     <li>Listing users and their roles</li>
  *     <li>Updating user roles</li>
  * </ul>
+ *
+ * As roles are checked on every write request, each user's roles are cached (bounded by
+ * `user-roles.cache.max-entries`).  Entries are invalidated when roles are changed via this
+ * service and expire after `user-roles.cache.ttl-seconds` (default 60).  Invalidation is local
+ * to this node, so a revoked role may still be honoured by other nodes until their entry expires.
  */
 @Service
 public class UserRoleService {
@@ -79,12 +87,16 @@ public class UserRoleService {
 
     private final PersonService personService;
 
+    private final ExpiringCache<String, Set<String>> userRolesCache;
+
 
     @Autowired
     public UserRoleService(UserRoleDao userRoleDao,
                            RoleDao roleDao,
                            PersonDao personDao, ChangeLogService changeLogService,
-                           PersonService personService) {
+                           PersonService personService,
+                           @Value("${user-roles.cache.max-entries:5000}") int cacheMaxEntries,
+                           @Value("${user-roles.cache.ttl-seconds:60}") int cacheTtlSeconds) {
         checkNotNull(personDao, "personDao must not be null");
         checkNotNull(userRoleDao, "userRoleDao must not be null");
         checkNotNull(roleDao, "roleDao must not be null");
@@ -96,6 +108,7 @@ public class UserRoleService {
         this.changeLogService = changeLogService;
         this.personService = personService;
         this.personDao = personDao;
+        this.userRolesCache = new ExpiringCache<>(cacheMaxEntries, Duration.ofSeconds(cacheTtlSeconds));
     }
 
 
@@ -110,7 +123,7 @@ public class UserRoleService {
 
 
     public boolean hasRole(String userName, Set<String> requiredRoles) {
-        Set<String> userRoles = userRoleDao.getUserRoles(userName);
+        Set<String> userRoles = getUserRoles(userName);
         return userRoles.containsAll(requiredRoles);
     }
 
@@ -121,7 +134,7 @@ public class UserRoleService {
 
 
     public boolean hasAnyRole(String userName, Set<String> requiredRoles) {
-        Set<String> userRoles = userRoleDao.getUserRoles(userName);
+        Set<String> userRoles = getUserRoles(userName);
         return ! SetUtilities.intersection(userRoles, requiredRoles)
                     .isEmpty();
     }
@@ -135,7 +148,7 @@ public class UserRoleService {
     public User getByUserId(String userId) {
         return ImmutableUser.builder()
                 .userName(userId)
-                .addAllRoles(userRoleDao.getUserRoles(userId))
+                .addAllRoles(getUserRoles(userId))
                 .build();
     }
 
@@ -162,12 +175,57 @@ public class UserRoleService {
             changeLogService.write(logEntry);
         }
 
-        return userRoleDao.updateRoles(targetUserName, command.roles());
+        try {
+            return userRoleDao.updateRoles(targetUserName, command.roles());
+        } finally {
+            invalidateRoles(targetUserName);
+        }
     }
 
 
+    /**
+     * @param userName  user to lookup, user names are case-insensitive
+     * @return the (unmodifiable) set of role keys held by the user
+     */
     public Set<String> getUserRoles(String userName) {
-        return userRoleDao.getUserRoles(userName);
+        if (userName == null) {
+            return userRoleDao.getUserRoles(null);
+        }
+        return userRolesCache.getOrCompute(
+                StringUtilities.lower(userName),
+                k -> Collections.unmodifiableSet(userRoleDao.getUserRoles(userName)));
+    }
+
+
+    /**
+     * Discards the cached roles for the given user, should be called whenever their roles are
+     * changed other than via this service.
+     */
+    public void invalidateRoles(String userName) {
+        if (userName != null) {
+            userRolesCache.invalidate(StringUtilities.lower(userName));
+        }
+    }
+
+
+    public void invalidateAllRoles(String reason) {
+        LOG.info("Invalidating all cached user roles, reason: {}", reason);
+        userRolesCache.invalidateAll();
+    }
+
+
+    public int rolesCacheSize() {
+        return userRolesCache.size();
+    }
+
+
+    public long rolesCacheHitCount() {
+        return userRolesCache.hitCount();
+    }
+
+
+    public long rolesCacheMissCount() {
+        return userRolesCache.missCount();
     }
 
 
@@ -200,15 +258,19 @@ public class UserRoleService {
         
         Set<Tuple2<String, String>> usernamesAndRoles = usersAndRolesToUpdate.stream().map(t -> tuple(t.v1, t.v2)).collect(toSet());
 
-        switch (mode) {
-            case ADD_ONLY:
-                return userRoleDao.addRoles(usernamesAndRoles);
-            case REMOVE_ONLY:
-                return userRoleDao.removeRoles(usernamesAndRoles);
-            case REPLACE:
-                return userRoleDao.replaceRoles(usernamesAndRoles);
-            default:
-                throw new UnsupportedOperationException("Unsupported mode: " + mode);
+        try {
+            switch (mode) {
+                case ADD_ONLY:
+                    return userRoleDao.addRoles(usernamesAndRoles);
+                case REMOVE_ONLY:
+                    return userRoleDao.removeRoles(usernamesAndRoles);
+                case REPLACE:
+                    return userRoleDao.replaceRoles(usernamesAndRoles);
+                default:
+                    throw new UnsupportedOperationException("Unsupported mode: " + mode);
+            }
+        } finally {
+            usernamesAndRoles.forEach(t -> invalidateRoles(t.v1));
         }
     }
 
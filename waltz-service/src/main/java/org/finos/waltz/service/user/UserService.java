@@ -48,22 +48,26 @@ public class UserService {
     private final PasswordService passwordService;
     private final UserRoleDao userRoleDao;
     private final SettingsService settingsService;
+    private final UserRoleService userRoleService;
 
 
     @Autowired
     public UserService(UserDao userDao,
                        UserRoleDao userRoleDao,
                        PasswordService passwordService,
-                       SettingsService settingsService) {
+                       SettingsService settingsService,
+                       UserRoleService userRoleService) {
         checkNotNull(userDao, "userDao must not be null");
         checkNotNull(userRoleDao, "userRoleDao cannot be null");
         checkNotNull(passwordService, "passwordService must not be null");
         checkNotNull(settingsService, "settingsService cannot be null");
+        checkNotNull(userRoleService, "userRoleService cannot be null");
 
         this.userDao = userDao;
         this.userRoleDao = userRoleDao;
         this.passwordService = passwordService;
         this.settingsService = settingsService;
+        this.userRoleService = userRoleService;
     }
 
 
@@ -89,6 +93,7 @@ public class UserService {
     public boolean deleteUser(String userName) {
         LOG.info("Deleting user: " + userName);
         userDao.deleteUser(userName);
+        userRoleService.invalidateRoles(userName);
         LOG.info("Deleted user: " + userName);
         return true;
     }
@@ -141,6 +146,7 @@ public class UserService {
                     .map(s -> tokenise(s, ","))
                     .ifPresent(roles -> userRoleDao.updateRoles(username, fromCollection(roles)));
 
+            userRoleService.invalidateRoles(username);
         }
     }
 
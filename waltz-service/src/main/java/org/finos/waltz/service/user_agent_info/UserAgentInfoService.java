@@ -19,26 +19,44 @@
 package org.finos.waltz.service.user_agent_info;
 
 import org.finos.waltz.common.Checks;
+import org.finos.waltz.common.WriteBehindQueue;
 import org.finos.waltz.data.user_agent_info.UserAgentInfoDao;
 import org.finos.waltz.model.user_agent_info.UserAgentInfo;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.List;
 
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.Checks.checkTrue;
 
+/**
+ * User agent details recorded at login are written asynchronously, see {@link #enqueue(UserAgentInfo)},
+ * so that telemetry does not add latency to requests or compete with them for database connections.
+ */
 @Service
-public class UserAgentInfoService {
+public class UserAgentInfoService implements DisposableBean {
 
     private final UserAgentInfoDao userAgentInfoDao;
+    private final WriteBehindQueue<UserAgentInfo> writeQueue;
 
 
     @Autowired
-    public UserAgentInfoService(UserAgentInfoDao userAgentInfoDao) {
+    public UserAgentInfoService(UserAgentInfoDao userAgentInfoDao,
+                                @Value("${user-agent-info.write-behind.capacity:5000}") int capacity,
+                                @Value("${user-agent-info.write-behind.batch-size:200}") int batchSize,
+                                @Value("${user-agent-info.write-behind.flush-interval-ms:1000}") int flushIntervalMillis) {
         checkNotNull(userAgentInfoDao, "userAgentInfoDao cannot be null");
         this.userAgentInfoDao = userAgentInfoDao;
+        this.writeQueue = new WriteBehindQueue<>(
+                "UserAgentInfo",
+                capacity,
+                batchSize,
+                Duration.ofMillis(flushIntervalMillis),
+                userAgentInfoDao::saveAll);
     }
 
 
@@ -48,10 +66,52 @@ public class UserAgentInfoService {
     }
 
 
+    /**
+     * Queues the record to be written in a later batch.  Never blocks, if the queue is full the
+     * record is dropped.
+     *
+     * @param userAgentInfo  record to write
+     * @return true if the record was queued
+     */
+    public boolean enqueue(UserAgentInfo userAgentInfo) {
+        checkNotNull(userAgentInfo, "userLogin cannot be null");
+        return writeQueue.offer(userAgentInfo);
+    }
+
+
     public List<UserAgentInfo> findLoginsForUser(String userName, int limit) {
         Checks.checkNotEmpty(userName, "username cannot be empty");
         checkTrue(limit > 0, "limit should be > 0");
         return userAgentInfoDao.findLoginsForUser(userName, limit);
     }
 
+
+    public int pendingWriteCount() {
+        return writeQueue.pendingCount();
+    }
+
+
+    public long writtenCount() {
+        return writeQueue.writtenCount();
+    }
+
+
+    public long droppedCount() {
+        return writeQueue.droppedCount();
+    }
+
+
+    public long failedWriteCount() {
+        return writeQueue.failedCount();
+    }
+
+
+    /**
+     * Flushes any queued records on shutdown.
+     */
+    @Override
+    public void destroy() {
+        writeQueue.close();
+    }
+
 }
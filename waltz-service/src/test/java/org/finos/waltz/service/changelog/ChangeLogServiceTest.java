@@ -0,0 +1,103 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.changelog;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.changelog.ChangeLogEvent;
+import org.finos.waltz.model.changelog.ImmutableChangeLogEvent;
+import org.jooq.lambda.tuple.Tuple2;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyMap;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ChangeLogServiceTest {
+
+    private static final EntityReference APP = mkRef(EntityKind.APPLICATION, 1L);
+    private static final EntityReference DATA_TYPE = mkRef(EntityKind.DATA_TYPE, 2L);
+
+
+    @Test
+    public void placeholdersAreReplacedByResolvedNamesInOrder() {
+        Map<Tuple2<EntityKind, Long>, String> names = new HashMap<>();
+        names.put(tuple(EntityKind.APPLICATION, 1L), "Trading");
+        names.put(tuple(EntityKind.DATA_TYPE, 2L), "Trade");
+
+        assertEquals(
+                "Rule for Trading, data type: Trade, removed",
+                ChangeLogService.formatMessage(mkEvent("Rule for {}, data type: {}, removed", APP, DATA_TYPE), names));
+    }
+
+
+    @Test
+    public void namedReferencesAreUsedAsIs() {
+        EntityReference namedApp = mkRef(EntityKind.APPLICATION, 1L, "Settlements");
+
+        assertEquals(
+                "Updated Settlements",
+                ChangeLogService.formatMessage(mkEvent("Updated {}", namedApp), emptyMap()));
+    }
+
+
+    @Test
+    public void unresolvedReferencesFallBackToTheirId() {
+        assertEquals(
+                "Updated [1]",
+                ChangeLogService.formatMessage(mkEvent("Updated {}", APP), emptyMap()));
+    }
+
+
+    @Test
+    public void surplusPlaceholdersAndReferencesAreIgnored() {
+        Map<Tuple2<EntityKind, Long>, String> names = new HashMap<>();
+        names.put(tuple(EntityKind.APPLICATION, 1L), "Trading");
+
+        assertEquals(
+                "Trading and {}",
+                ChangeLogService.formatMessage(mkEvent("{} and {}", APP), names));
+        assertEquals(
+                "Trading only",
+                ChangeLogService.formatMessage(mkEvent("{} only", APP, DATA_TYPE), names));
+        assertEquals(
+                "no placeholders",
+                ChangeLogService.formatMessage(mkEvent("no placeholders", APP), names));
+    }
+
+
+    // -- HELPERS ----
+
+    private static ChangeLogEvent mkEvent(String template, EntityReference... refs) {
+        return ImmutableChangeLogEvent
+                .builder()
+                .parentReference(APP)
+                .messageTemplate(template)
+                .messageReferences(asList(refs))
+                .userId("test")
+                .operation(Operation.UPDATE)
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package org.finos.waltz.service.entity_search;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.ImmutableEntityReference;
+import org.finos.waltz.model.entity_search.EntitySearchOptions;
+import org.finos.waltz.model.entity_search.ImmutableEntitySearchOptions;
+import org.finos.waltz.model.entity_search.ImmutableSearchableEntity;
+import org.finos.waltz.model.entity_search.SearchableEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EntitySearchIndexTest {
+
+    private final EntitySearchIndex index = EntitySearchIndex
+            .empty()
+            .withKind(EntityKind.APPLICATION, asList(
+                    mkEntity(EntityKind.APPLICATION, 1, "Trade Booking System", "TBS-01", EntityLifecycleStatus.ACTIVE),
+                    mkEntity(EntityKind.APPLICATION, 2, "Trade", "T-02", EntityLifecycleStatus.ACTIVE),
+                    mkEntity(EntityKind.APPLICATION, 3, "Retrade Monitor", "RM-03", EntityLifecycleStatus.ACTIVE),
+                    mkEntity(EntityKind.APPLICATION, 4, "Trade Archive", "TA-04", EntityLifecycleStatus.REMOVED),
+                    mkEntity(EntityKind.APPLICATION, 5, "Ledger", "LDG-05", EntityLifecycleStatus.ACTIVE, "tradeledger")))
+            .withKind(EntityKind.ORG_UNIT, asList(
+                    mkEntity(EntityKind.ORG_UNIT, 10, "Global Trade Operations", "OU-10", EntityLifecycleStatus.ACTIVE)));
+
+
+    @Test
+    public void resultsAreRankedAcrossKinds() {
+        List<Long> ids = search("trade", EntityKind.APPLICATION, EntityKind.ORG_UNIT);
+        assertEquals(asList(2L, 1L, 5L, 10L, 3L), ids, "exact name, name prefix, alias prefix, word prefix, then substring");
+    }
+
+
+    @Test
+    public void allTermsMustMatch() {
+        assertEquals(asList(1L), search("trade sys", EntityKind.APPLICATION));
+        assertEquals(asList(1L), search("booking tbs-01", EntityKind.APPLICATION), "terms can match different fields");
+        assertTrue(search("trade xyz", EntityKind.APPLICATION).isEmpty());
+    }
+
+
+    @Test
+    public void onlyRequestedKindsAndStatusesAreReturned() {
+        List<Long> ids = search("trade", EntityKind.ORG_UNIT);
+        assertEquals(asList(10L), ids);
+        assertFalse(search("trade", EntityKind.APPLICATION).contains(4L), "removed entities are excluded by default");
+    }
+
+
+    @Test
+    public void replacingAKindLeavesOtherKindsIntact() {
+        EntitySearchIndex updated = index.withKind(EntityKind.APPLICATION, newArrayList());
+        assertEquals(1, updated.size());
+        assertEquals(6, index.size(), "original index is unchanged");
+    }
+
+
+    // --- helpers
+
+    private List<Long> search(String query, EntityKind... kinds) {
+        EntitySearchOptions options = ImmutableEntitySearchOptions
+                .builder()
+                .searchQuery(query)
+                .entityKinds(asList(kinds))
+                .build();
+
+        return index
+                .search(options)
+                .stream()
+                .map(EntityReference::id)
+                .collect(toList());
+    }
+
+
+    private static SearchableEntity mkEntity(EntityKind kind,
+                                             long id,
+                                             String name,
+                                             String externalId,
+                                             EntityLifecycleStatus status,
+                                             String... aliases) {
+        return ImmutableSearchableEntity
+                .builder()
+                .entityReference(ImmutableEntityReference
+                        .builder()
+                        .kind(kind)
+                        .id(id)
+                        .name(name)
+                        .externalId(externalId)
+                        .entityLifecycleStatus(status)
+                        .build())
+                .addAliases(aliases)
+                .build();
+    }
+}
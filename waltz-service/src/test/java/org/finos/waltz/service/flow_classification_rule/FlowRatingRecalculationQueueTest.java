@@ -0,0 +1,139 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.flow_classification_rule;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FlowRatingRecalculationQueueTest {
+
+    private static final EntityReference OU = mkRef(EntityKind.ORG_UNIT, 1L);
+    private static final EntityReference APP = mkRef(EntityKind.APPLICATION, 2L);
+
+    private final List<String> events = new CopyOnWriteArrayList<>();
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private ExecutorService worker;
+
+
+    @BeforeEach
+    public void setUp() {
+        worker = Executors.newSingleThreadExecutor();
+        // hold the worker so submissions accumulate until the test releases the gate
+        worker.submit(() -> {
+            gate.await();
+            return null;
+        });
+    }
+
+
+    @AfterEach
+    public void tearDown() {
+        worker.shutdownNow();
+    }
+
+
+    @Test
+    public void duplicateScopesAreRecalculatedOnce() throws InterruptedException {
+        FlowRatingRecalculationQueue queue = mkQueue((dt, vp) -> events.add("recalc:" + dt + ":" + vp.kind()));
+
+        queue.submit(10L, OU);
+        queue.submit(10L, OU);
+        queue.submit(10L, mkRef(EntityKind.ORG_UNIT, 1L, "same ou, different name"));
+        queue.submit(11L, OU);
+        queue.submit(10L, APP);
+
+        assertEquals(3, queue.pendingCount());
+
+        drain();
+
+        assertEquals(
+                asList("recalc:10:ORG_UNIT", "recalc:11:ORG_UNIT", "recalc:10:APPLICATION", "pointToPoint"),
+                events);
+        assertEquals(3, queue.processedCount());
+        assertEquals(0, queue.pendingCount());
+    }
+
+
+    @Test
+    public void pointToPointRulesAreReappliedAfterEveryBatchEvenIfAScopeFails() throws InterruptedException {
+        FlowRatingRecalculationQueue queue = mkQueue((dt, vp) -> {
+            if (dt == 10L) {
+                throw new IllegalStateException("boom");
+            }
+            events.add("recalc:" + dt);
+        });
+
+        queue.submit(10L, OU);
+        queue.submit(11L, OU);
+
+        drain();
+
+        assertEquals(asList("recalc:11", "pointToPoint"), events);
+        assertEquals(1, queue.processedCount());
+        assertEquals(1, queue.failedCount());
+    }
+
+
+    @Test
+    public void unsupportedVantagePointsAreIgnored() throws InterruptedException {
+        FlowRatingRecalculationQueue queue = mkQueue((dt, vp) -> events.add("recalc:" + dt));
+
+        queue.submit(10L, mkRef(EntityKind.PERSON, 3L));
+
+        assertEquals(0, queue.pendingCount());
+
+        drain();
+
+        assertTrue(events.isEmpty(), "nothing should be recalculated or re-applied");
+    }
+
+
+    // --- helpers ---
+
+    private FlowRatingRecalculationQueue mkQueue(BiConsumer<Long, EntityReference> recalculator) {
+        return new FlowRatingRecalculationQueue(
+                recalculator,
+                () -> events.add("pointToPoint"),
+                worker);
+    }
+
+
+    private void drain() throws InterruptedException {
+        gate.countDown();
+        worker.shutdown();
+        assertTrue(worker.awaitTermination(10, TimeUnit.SECONDS), "worker should finish draining");
+    }
+
+}
@@ -0,0 +1,47 @@
+package org.finos.waltz.service.latency;
+
+import org.finos.waltz.model.latency.LatencySummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LatencyMetricsServiceTest {
+
+    @Test
+    public void bindListsAndWhitespaceShareAFingerprint() {
+        assertEquals(
+                LatencyMetricsService.mkQueryFingerprint("select * from app where id in (?, ?, ?)"),
+                LatencyMetricsService.mkQueryFingerprint("select *\n  from app where id in (?)".replace("(?)", "(?,?)")));
+    }
+
+
+    @Test
+    public void literalsShareAFingerprint() {
+        assertEquals(
+                "select * from app where id in (?...) and kind = ? and t1.level > ?",
+                LatencyMetricsService.mkQueryFingerprint("select * from app where id in (1, 2, 3) and kind = 'IT''S' and t1.level > 1.5"));
+        assertEquals(
+                LatencyMetricsService.mkQueryFingerprint("select * from app where id in (4, 5) and kind = 'EUC'"),
+                LatencyMetricsService.mkQueryFingerprint("select * from app where id in (6, 7, 8) and kind = 'IN_HOUSE'"));
+    }
+
+
+    @Test
+    public void summariesAreOrderedByTotalTime() {
+        LatencyMetricsService svc = new LatencyMetricsService(10);
+        svc.recordQuery("select a from t", TimeUnit.MILLISECONDS.toNanos(5), 1);
+        svc.recordQuery("select b from t", TimeUnit.MILLISECONDS.toNanos(50), 10);
+        svc.recordQuery("select a from t", TimeUnit.MILLISECONDS.toNanos(5), 3);
+
+        List<LatencySummary> summaries = svc.findQuerySummaries(10);
+
+        assertEquals(2, summaries.size());
+        assertEquals("select b from t", summaries.get(0).name());
+        assertEquals(2, summaries.get(1).count());
+        assertEquals(4, summaries.get(1).totalRows());
+        assertEquals(2.0, summaries.get(1).meanRows());
+    }
+}
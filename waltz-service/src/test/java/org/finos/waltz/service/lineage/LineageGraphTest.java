@@ -0,0 +1,166 @@
+package org.finos.waltz.service.lineage;
+
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.service.lineage.LineageGraph.EdgeFilter;
+import org.finos.waltz.service.lineage.LineageGraph.Flow;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.model.EntityKind.ACTOR;
+import static org.finos.waltz.model.EntityKind.APPLICATION;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LineageGraphTest {
+
+    private static final EntityReference A = mkRef(APPLICATION, 1);
+    private static final EntityReference B = mkRef(APPLICATION, 2);
+    private static final EntityReference C = mkRef(APPLICATION, 3);
+    private static final EntityReference D = mkRef(APPLICATION, 4);
+    private static final EntityReference X = mkRef(ACTOR, 1);
+
+    // A -> B -> C -> D, A -> C (data type 20 only), X -> A
+    private static final LineageGraph GRAPH = LineageGraph.build(asList(
+            new Flow(10, A, B, new long[]{10}),
+            new Flow(11, B, C, new long[]{10, 20}),
+            new Flow(12, C, D, new long[]{10}),
+            new Flow(13, A, C, new long[]{20}),
+            new Flow(14, X, A, new long[]{})));
+
+
+    @Test
+    public void nodesAreDistinguishedByKind() {
+        assertEquals(5, GRAPH.nodeCount());
+        assertEquals(5, GRAPH.edgeCount());
+        assertEquals(X, GRAPH.nodeRef(GRAPH.indexOf(X)));
+        assertEquals(A, GRAPH.nodeRef(GRAPH.indexOf(A)));
+        assertEquals(-1, GRAPH.indexOf(mkRef(ACTOR, 2)), "entities without flows are not in the graph");
+    }
+
+
+    @Test
+    public void shortestPathUsesFewestHops() {
+        assertEquals(asList(13L, 12L), toFlowIds(GRAPH.shortestPath(GRAPH.indexOf(A), GRAPH.indexOf(D), EdgeFilter.ALL)));
+        assertTrue(GRAPH.shortestPath(GRAPH.indexOf(D), GRAPH.indexOf(A), EdgeFilter.ALL).isEmpty(), "flows are directed");
+    }
+
+
+    @Test
+    public void shortestPathRespectsFilter() {
+        long[] dataTypes = {10};
+        List<Integer> path = GRAPH.shortestPath(
+                GRAPH.indexOf(A),
+                GRAPH.indexOf(D),
+                (g, e) -> g.carriesAny(e, dataTypes));
+
+        assertEquals(asList(10L, 11L, 12L), toFlowIds(path));
+    }
+
+
+    @Test
+    public void downstreamTraversalIsLimitedByDepth() {
+        List<int[]> edges = GRAPH.traverse(GRAPH.indexOf(A), true, 1, 100, EdgeFilter.ALL);
+        assertEquals(asList(10L, 13L), sortedFlowIds(edges));
+
+        List<int[]> deeper = GRAPH.traverse(GRAPH.indexOf(A), true, 2, 100, EdgeFilter.ALL);
+        assertEquals(asList(10L, 11L, 12L, 13L), sortedFlowIds(deeper));
+    }
+
+
+    @Test
+    public void upstreamTraversalFollowsInboundFlows() {
+        List<int[]> edges = GRAPH.traverse(GRAPH.indexOf(C), false, 5, 100, EdgeFilter.ALL);
+        assertEquals(asList(10L, 11L, 13L, 14L), sortedFlowIds(edges));
+    }
+
+
+    @Test
+    public void traversalStopsAtEdgeLimit() {
+        assertEquals(2, GRAPH.traverse(GRAPH.indexOf(X), true, 5, 2, EdgeFilter.ALL).size());
+    }
+
+
+    @Test
+    public void patchedFlowsReplaceTheirEdges() {
+        // 11 now carries data type 20 only, 12 is removed and 15 (D -> B) is added
+        Map<Long, Flow> active = new HashMap<>();
+        active.put(11L, new Flow(11, B, C, new long[]{20}));
+        active.put(15L, new Flow(15, D, B, new long[]{10}));
+        LineageGraph patched = GRAPH.withFlows(asList(11L, 12L, 15L), active);
+
+        assertEquals(5, patched.edgeCount());
+        assertEquals(5, GRAPH.edgeCount(), "original graph is unchanged");
+
+        long[] dataTypes = {10};
+        assertTrue(
+                patched.shortestPath(patched.indexOf(A), patched.indexOf(C), (g, e) -> g.carriesAny(e, dataTypes)).isEmpty(),
+                "11 no longer carries data type 10");
+        assertTrue(patched.shortestPath(patched.indexOf(C), patched.indexOf(D), EdgeFilter.ALL).isEmpty(), "12 is removed");
+        assertEquals(asList(15L, 11L), toFlowIds(patched, patched.shortestPath(patched.indexOf(D), patched.indexOf(C), EdgeFilter.ALL)));
+
+        assertEquals(asList(10L, 14L, 15L), sortedFlowIds(patched, patched.traverse(patched.indexOf(B), false, 5, 100, EdgeFilter.ALL)));
+    }
+
+
+    @Test
+    public void flowsCanBePatchedRepeatedly() {
+        Map<Long, Flow> active = new HashMap<>();
+        active.put(15L, new Flow(15, D, B, new long[]{10}));
+        LineageGraph once = GRAPH.withFlows(asList(15L), active);
+
+        active.put(15L, new Flow(15, D, A, new long[]{10}));
+        LineageGraph twice = once.withFlows(asList(15L), active);
+
+        assertEquals(6, twice.edgeCount());
+        assertEquals(asList(14L, 15L), sortedFlowIds(twice, twice.traverse(twice.indexOf(A), false, 1, 100, EdgeFilter.ALL)));
+        assertTrue(twice.shortestPath(twice.indexOf(D), twice.indexOf(B), EdgeFilter.ALL).size() > 1, "D -> B was superseded");
+
+        LineageGraph removed = twice.withFlows(asList(15L), new HashMap<>());
+        assertEquals(5, removed.edgeCount());
+        assertTrue(removed.shortestPath(removed.indexOf(D), removed.indexOf(A), EdgeFilter.ALL).isEmpty());
+    }
+
+
+    @Test
+    public void patchingCannotAddNodes() {
+        Map<Long, Flow> active = new HashMap<>();
+        active.put(15L, new Flow(15, D, mkRef(APPLICATION, 5), new long[]{10}));
+        assertNull(GRAPH.withFlows(asList(15L), active), "a rebuild is needed for new entities");
+    }
+
+
+    // -- helpers
+
+    private static List<Long> toFlowIds(List<Integer> edges) {
+        return toFlowIds(GRAPH, edges);
+    }
+
+
+    private static List<Long> toFlowIds(LineageGraph graph, List<Integer> edges) {
+        return edges
+                .stream()
+                .map(graph::flowId)
+                .collect(toList());
+    }
+
+
+    private static List<Long> sortedFlowIds(List<int[]> edgesWithDepth) {
+        return sortedFlowIds(GRAPH, edgesWithDepth);
+    }
+
+
+    private static List<Long> sortedFlowIds(LineageGraph graph, List<int[]> edgesWithDepth) {
+        return edgesWithDepth
+                .stream()
+                .map(ed -> graph.flowId(ed[0]))
+                .sorted()
+                .collect(toList());
+    }
+}
@@ -0,0 +1,107 @@
+package org.finos.waltz.service.person_hierarchy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PersonHierarchyIndexTest {
+
+    @Test
+    public void reporteesAndAncestorsCanBeFound() {
+        PersonHierarchyIndex index = PersonHierarchyIndex.build(mkOrg());
+
+        assertEquals(asSet("b", "c", "d", "e"), index.findReportees("a"));
+        assertEquals(asSet("d", "e"), index.findReportees("c"));
+        assertTrue(index.findReportees("e").isEmpty());
+        assertEquals(4, index.countReportees("a"));
+
+        assertEquals(asList("d", "c", "a"), index.findAncestors("e"));
+        assertTrue(index.findAncestors("a").isEmpty());
+
+        assertTrue(index.isReportee("a", "e"));
+        assertFalse(index.isReportee("b", "e"));
+        assertFalse(index.isReportee("e", "a"));
+        assertFalse(index.isReportee("a", "a"));
+    }
+
+
+    @Test
+    public void unknownAndSelfManagersAreTreatedAsRoots() {
+        Map<String, String> org = new LinkedHashMap<>();
+        org.put("a", "a");
+        org.put("b", "unknown");
+        org.put("c", "b");
+
+        PersonHierarchyIndex index = PersonHierarchyIndex.build(org);
+
+        assertNull(index.getManagerEmployeeId("a"));
+        assertNull(index.getManagerEmployeeId("b"));
+        assertEquals("b", index.getManagerEmployeeId("c"));
+        assertTrue(index.findReportees("unknown").isEmpty());
+    }
+
+
+    @Test
+    public void cyclesAreBroken() {
+        Map<String, String> org = new LinkedHashMap<>();
+        org.put("a", "c");
+        org.put("b", "a");
+        org.put("c", "b");
+        org.put("d", "c");
+
+        PersonHierarchyIndex index = PersonHierarchyIndex.build(org);
+
+        assertEquals(4, index.size());
+        assertEquals(1,
+                asList("a", "b", "c").stream().filter(e -> index.getManagerEmployeeId(e) == null).count(),
+                "one link in the cycle should have been cut");
+        assertEquals(3, index.countReportees(index.findAncestors("d").get(1)));
+        index.getEmployeeIds()
+                .forEach(e -> assertFalse(index.findAncestors(e).contains(e), "no employee can be their own ancestor"));
+    }
+
+
+    @Test
+    public void changedManagersAreDetected() {
+        PersonHierarchyIndex before = PersonHierarchyIndex.build(mkOrg());
+
+        Map<String, String> org = mkOrg();
+        org.put("d", "b");     // moved
+        org.remove("e");       // left
+        org.put("f", "a");     // joined
+        PersonHierarchyIndex after = PersonHierarchyIndex.build(org);
+
+        assertEquals(asSet("d", "e", "f"), after.findEmployeesWithChangedManagers(before));
+        assertTrue(after.findEmployeesWithChangedManagers(after).isEmpty());
+    }
+
+
+    // -- helpers
+
+    /**
+     * <pre>
+     *     a
+     *     +- b
+     *     +- c
+     *        +- d
+     *           +- e
+     * </pre>
+     */
+    private static Map<String, String> mkOrg() {
+        Map<String, String> org = new LinkedHashMap<>();
+        org.put("a", null);
+        org.put("b", "a");
+        org.put("c", "a");
+        org.put("d", "c");
+        org.put("e", "d");
+        return org;
+    }
+}
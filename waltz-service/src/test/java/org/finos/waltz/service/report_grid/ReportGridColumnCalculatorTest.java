@@ -0,0 +1,157 @@
+package org.finos.waltz.service.report_grid;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.application.LifecyclePhase;
+import org.finos.waltz.model.report_grid.ImmutableReportGridDefinition;
+import org.finos.waltz.model.report_grid.ImmutableReportGridDerivedColumnDefinition;
+import org.finos.waltz.model.report_grid.ImmutableReportGridFixedColumnDefinition;
+import org.finos.waltz.model.report_grid.ImmutableReportGridInstance;
+import org.finos.waltz.model.report_grid.ImmutableReportSubject;
+import org.finos.waltz.model.report_grid.ReportGridCell;
+import org.finos.waltz.model.report_grid.ReportGridDefinition;
+import org.finos.waltz.model.report_grid.ReportGridInstance;
+import org.jooq.lambda.tuple.Tuple2;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReportGridColumnCalculatorTest {
+
+    @Test
+    public void columnsAreOrderedByDependency() {
+        CompiledCalculatedColumn total = mkCol(1, "TOTAL", "cell('A') + cell(\"B\")");
+        CompiledCalculatedColumn a = mkCol(2, "A", "1");
+        CompiledCalculatedColumn b = mkCol(3, "B", "cell('A')");
+
+        Tuple2<List<CompiledCalculatedColumn>, List<CompiledCalculatedColumn>> plan = ReportGridColumnCalculator
+                .planEvaluationOrder(asList(total, a, b));
+
+        assertEquals(asList("A", "B", "TOTAL"), toExtIds(plan.v1));
+        assertTrue(plan.v2.isEmpty(), "no cycles so nothing requires iterative evaluation");
+    }
+
+
+    @Test
+    public void cyclicColumnsAndTheirDependantsAreEvaluatedIteratively() {
+        CompiledCalculatedColumn independent = mkCol(1, "INDEPENDENT", "'hello'");
+        CompiledCalculatedColumn x = mkCol(2, "X", "cell('Y')");
+        CompiledCalculatedColumn y = mkCol(3, "Y", "cell('X')");
+        CompiledCalculatedColumn z = mkCol(4, "Z", "cell('X')");
+
+        Tuple2<List<CompiledCalculatedColumn>, List<CompiledCalculatedColumn>> plan = ReportGridColumnCalculator
+                .planEvaluationOrder(asList(z, y, x, independent));
+
+        assertEquals(asList("INDEPENDENT"), toExtIds(plan.v1));
+        assertEquals(asList("X", "Y", "Z"), toExtIds(plan.v2));
+    }
+
+
+    @Test
+    public void computedReferencesFallBackToIterativeEvaluation() {
+        // the reference to 'B' is computed, so it is not seen when planning and 'A' is evaluated first
+        ReportGridDefinition definition = ImmutableReportGridDefinition
+                .builder()
+                .name("test")
+                .lastUpdatedBy("test")
+                .subjectKind(EntityKind.APPLICATION)
+                .addDerivedColumnDefinitions(
+                        mkCol(1, "A", "cell('_B'.substring(1)) == null ? 'missing' : 'found'").column(),
+                        mkCol(2, "B", "'b'").column(),
+                        mkCol(3, "C", "cell('A')").column())
+                .build();
+
+        ReportGridInstance instance = ImmutableReportGridInstance
+                .builder()
+                .addSubjects(ImmutableReportSubject
+                        .builder()
+                        .entityReference(mkRef(EntityKind.APPLICATION, 1L))
+                        .lifecyclePhase(LifecyclePhase.PRODUCTION)
+                        .build())
+                .build();
+
+        Set<ReportGridCell> cells = ReportGridColumnCalculator.calculate(instance, definition);
+
+        assertEquals(3, cells.size(), "one cell per derived column");
+        assertEquals("found", findTextValue(cells, 1L));
+        assertEquals("b", findTextValue(cells, 2L));
+    }
+
+
+    @Test
+    public void derivedColumnsDependingOnIncompleteColumnsAreFoundTransitively() {
+        ReportGridDefinition definition = ImmutableReportGridDefinition
+                .builder()
+                .name("test")
+                .lastUpdatedBy("test")
+                .subjectKind(EntityKind.APPLICATION)
+                .addFixedColumnDefinitions(
+                        mkFixedCol(10, "SLOW"),
+                        mkFixedCol(11, "FAST"))
+                .addDerivedColumnDefinitions(
+                        mkCol(1, "USES_SLOW", "cell('SLOW')").column(),
+                        mkCol(2, "USES_FAST", "cell('FAST')").column(),
+                        mkCol(3, "USES_DERIVED", "cell('USES_SLOW')").column())
+                .build();
+
+        assertEquals(
+                asSet(1L, 3L),
+                ReportGridColumnCalculator.findDerivedColumnsDependingOn(definition, asSet(10L)));
+        assertTrue(
+                ReportGridColumnCalculator.findDerivedColumnsDependingOn(definition, asSet()).isEmpty(),
+                "nothing is affected if every column is complete");
+    }
+
+
+    // -- helpers
+
+    private static ImmutableReportGridFixedColumnDefinition mkFixedCol(int position, String extId) {
+        return ImmutableReportGridFixedColumnDefinition
+                .builder()
+                .gridColumnId((long) position)
+                .position(position)
+                .columnEntityKind(EntityKind.MEASURABLE)
+                .externalId(extId)
+                .build();
+    }
+
+
+    private static CompiledCalculatedColumn mkCol(int position, String extId, String script) {
+        return ImmutableCompiledCalculatedColumn
+                .builder()
+                .column(ImmutableReportGridDerivedColumnDefinition
+                        .builder()
+                        .gridColumnId((long) position)
+                        .position(position)
+                        .displayName(extId)
+                        .externalId(extId)
+                        .derivationScript(script)
+                        .build())
+                .build();
+    }
+
+
+    private static String findTextValue(Set<ReportGridCell> cells, long columnId) {
+        return cells
+                .stream()
+                .filter(c -> c.columnDefinitionId() == columnId)
+                .findFirst()
+                .map(ReportGridCell::textValue)
+                .orElse(null);
+    }
+
+
+    private static List<String> toExtIds(List<CompiledCalculatedColumn> cols) {
+        return cols
+                .stream()
+                .map(c -> ReportGridColumnCalculator.colToExtId(c.column()))
+                .collect(toList());
+    }
+}
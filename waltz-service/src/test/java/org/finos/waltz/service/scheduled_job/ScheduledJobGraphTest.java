@@ -0,0 +1,119 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.scheduled_job;
+
+import org.finos.waltz.model.scheduled_job.JobKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScheduledJobGraphTest {
+
+    @Test
+    public void dependenciesMustBeAddedFirst() {
+        ScheduledJobGraph graph = new ScheduledJobGraph();
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> graph.add(JobKey.AUTH_SOURCE_RECALC_FLOW_RATINGS, jk -> null, JobKey.HIERARCHY_REBUILD_ORG_UNIT));
+    }
+
+
+    @Test
+    public void relatedJobsAreDependenciesAndDependents() {
+        ScheduledJobGraph graph = new ScheduledJobGraph()
+                .add(JobKey.HIERARCHY_REBUILD_DATA_TYPE, jk -> null)
+                .add(JobKey.DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL, jk -> null, JobKey.HIERARCHY_REBUILD_DATA_TYPE)
+                .add(JobKey.DATA_TYPE_USAGE_RECALC_APPLICATION, jk -> null, JobKey.DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL);
+
+        assertEquals(
+                asSet(JobKey.HIERARCHY_REBUILD_DATA_TYPE, JobKey.DATA_TYPE_USAGE_RECALC_APPLICATION),
+                graph.findRelatedJobs(JobKey.DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL));
+    }
+
+
+    @Test
+    public void independentJobsRunConcurrentlyAndDependentsRunAfterwards() {
+        // each of the independent jobs only completes if it observes the other running at the same time
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        List<JobKey> completionOrder = new CopyOnWriteArrayList<>();
+
+        ScheduledJobGraph graph = new ScheduledJobGraph()
+                .add(JobKey.HIERARCHY_REBUILD_ORG_UNIT, jk -> awaitOther(bothStarted))
+                .add(JobKey.HIERARCHY_REBUILD_MEASURABLE, jk -> awaitOther(bothStarted))
+                .add(JobKey.ALLOCATED_COSTS_POPULATOR, jk -> null, JobKey.HIERARCHY_REBUILD_MEASURABLE, JobKey.HIERARCHY_REBUILD_ORG_UNIT);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            graph.run(executor, (job, readyAt) -> {
+                Long result = job.execute();
+                if (result == null || result == 1L) {
+                    completionOrder.add(job.key());
+                }
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(3, completionOrder.size());
+        assertEquals(JobKey.ALLOCATED_COSTS_POPULATOR, completionOrder.get(2), "dependent job should run last");
+    }
+
+
+    @Test
+    public void failingJobsDoNotBlockDependents() {
+        List<JobKey> executed = new CopyOnWriteArrayList<>();
+
+        ScheduledJobGraph graph = new ScheduledJobGraph()
+                .add(JobKey.HIERARCHY_REBUILD_MEASURABLE, jk -> { throw new IllegalStateException("boom"); })
+                .add(JobKey.COMPLEXITY_REBUILD_MEASURABLE, jk -> null, JobKey.HIERARCHY_REBUILD_MEASURABLE);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            graph.run(executor, (job, readyAt) -> {
+                executed.add(job.key());
+                job.execute();
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(executed.contains(JobKey.COMPLEXITY_REBUILD_MEASURABLE));
+    }
+
+
+    private static Long awaitOther(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            return latch.await(5, TimeUnit.SECONDS) ? 1L : 0L;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0L;
+        }
+    }
+}
@@ -24,6 +24,11 @@ public class DataTypeHelper {
 
 
     public Long createDataType(String name) {
+        return createDataType(name, null);
+    }
+
+
+    public Long createDataType(String name, Long parentId) {
         DataTypeRecord record = dsl.newRecord(DATA_TYPE);
 
         record.setId(counter.incrementAndGet());
@@ -32,6 +37,7 @@ public class DataTypeHelper {
         record.setName(uniqName);
         record.setCode(uniqName);
         record.setDescription(uniqName);
+        record.setParentId(parentId);
 
         record.insert();
 
@@ -0,0 +1,65 @@
+package org.finos.waltz.test_common.helpers;
+
+import org.finos.waltz.data.flow_classification_rule.FlowClassificationRuleDao;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.flow_classification_rule.ImmutableFlowClassificationRuleCreateCommand;
+import org.jooq.DSLContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import static org.finos.waltz.schema.Tables.FLOW_CLASSIFICATION;
+import static org.finos.waltz.schema.Tables.FLOW_CLASSIFICATION_RULE;
+
+@Service
+public class FlowClassificationRuleHelper {
+
+    @Autowired
+    private DSLContext dsl;
+
+    @Autowired
+    private FlowClassificationRuleDao flowClassificationRuleDao;
+
+
+    /**
+     * @return id of the flow classification with the given code, created if it does not already exist
+     */
+    public long createFlowClassification(String code) {
+        return dsl
+                .select(FLOW_CLASSIFICATION.ID)
+                .from(FLOW_CLASSIFICATION)
+                .where(FLOW_CLASSIFICATION.CODE.eq(code))
+                .fetchOptional(FLOW_CLASSIFICATION.ID)
+                .orElseGet(() -> dsl
+                        .insertInto(FLOW_CLASSIFICATION)
+                        .set(FLOW_CLASSIFICATION.NAME, code)
+                        .set(FLOW_CLASSIFICATION.DESCRIPTION, code)
+                        .set(FLOW_CLASSIFICATION.CODE, code)
+                        .set(FLOW_CLASSIFICATION.COLOR, "#00ff00")
+                        .returning(FLOW_CLASSIFICATION.ID)
+                        .fetchOne()
+                        .getId());
+    }
+
+
+    public long createRule(EntityReference vantagePoint,
+                           EntityReference subject,
+                           long dataTypeId,
+                           long classificationId) {
+        return flowClassificationRuleDao.insert(
+                ImmutableFlowClassificationRuleCreateCommand
+                        .builder()
+                        .parentReference(vantagePoint)
+                        .subjectReference(subject)
+                        .dataTypeId(dataTypeId)
+                        .classificationId(classificationId)
+                        .description("test rule")
+                        .build(),
+                "test");
+    }
+
+
+    public void clearAllRules() {
+        dsl.deleteFrom(FLOW_CLASSIFICATION_RULE).execute();
+    }
+
+}
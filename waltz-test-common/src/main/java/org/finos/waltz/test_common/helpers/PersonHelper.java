@@ -47,6 +47,25 @@ public class PersonHelper {
     }
 
 
+    public String getEmployeeId(Long pId) {
+        return dsl
+                .select(PERSON.EMPLOYEE_ID)
+                .from(PERSON)
+                .where(PERSON.ID.eq(pId))
+                .fetchOne(PERSON.EMPLOYEE_ID);
+    }
+
+
+    public boolean updateManager(Long pId, Long managerPId) {
+        int execute = dsl.update(PERSON)
+                .set(PERSON.MANAGER_EMPLOYEE_ID, getEmployeeId(managerPId))
+                .where(PERSON.ID.eq(pId))
+                .execute();
+
+        return execute == 1;
+    }
+
+
     public Long createAdmin() {
         PersonRecord p = dsl.newRecord(PERSON);
         p.setDepartmentName("dept");
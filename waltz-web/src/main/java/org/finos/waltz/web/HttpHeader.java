@@ -3,4 +3,9 @@ package org.finos.waltz.web;
 public interface HttpHeader {
 
     String CACHE_CONTROL = "Cache-Control";
+    String ETAG = "ETag";
+    String IF_NONE_MATCH = "If-None-Match";
+    String ACCEPT_ENCODING = "Accept-Encoding";
+    String CONTENT_ENCODING = "Content-Encoding";
+    String VARY = "Vary";
 }
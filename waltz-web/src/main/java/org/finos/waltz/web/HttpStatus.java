@@ -2,6 +2,7 @@ package org.finos.waltz.web;
 
 public interface HttpStatus {
 
+    int NOT_MODIFIED_304 = 304;
     int NOT_FOUND_404 = 404;
     int BAD_REQUEST_400 = 400;
     int CONFLICT_409 = 409;
@@ -24,6 +24,7 @@ import org.finos.waltz.common.exception.InsufficientPrivelegeException;
 import org.finos.waltz.common.exception.NotFoundException;
 import org.finos.waltz.common.exception.UpdateFailedException;
 import org.finos.waltz.service.DIConfiguration;
+import org.finos.waltz.service.latency.LatencyMetricsService;
 import org.finos.waltz.service.settings.SettingsService;
 import org.finos.waltz.web.endpoints.Endpoint;
 import org.finos.waltz.web.endpoints.EndpointUtilities;
@@ -111,6 +112,8 @@ public class Main {
         LoggingUtilities.configureLogging();
 
         ctx = new AnnotationConfigApplicationContext(DIConfiguration.class);
+        // ensures queued writes (e.g. access logs) are flushed on shutdown
+        ctx.registerShutdownHook();
 
         get("api/oauthdetails", (req, resp) -> {
             resp.header("Content-Type", "application/javascript");
@@ -123,6 +126,8 @@ public class Main {
             return "const oauthdetails = " + OauthProviderDetails.get() + ";";
         });
 
+        EndpointUtilities.setLatencyMetricsService(ctx.getBean(LatencyMetricsService.class));
+
         Map<String, Endpoint> endpoints = ctx.getBeansOfType(Endpoint.class);
         endpoints.forEach((name, endpoint) -> {
             LOG.info("Registering Endpoint: {}", name);
@@ -288,6 +293,8 @@ public class Main {
                 }
             }));
 
+            EndpointUtilities.setStreamGzipEnabled(true);
+
             LOG.info("Enabled GZIP (size: " + minimumLength + ")");
 
         } else {
@@ -0,0 +1,37 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.web;
+
+import spark.Request;
+import spark.Response;
+
+import java.util.stream.Stream;
+
+
+/**
+ * Variant of {@link ListRoute} for potentially large results.  The returned stream is
+ * serialized as a JSON array as it is consumed and is closed before the response is sent,
+ * so it may be backed by an open database cursor.
+ */
+@FunctionalInterface
+public interface StreamRoute<T>  {
+
+    Stream<T> apply(Request request, Response response) throws Exception;
+}
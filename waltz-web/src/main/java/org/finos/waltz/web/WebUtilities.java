@@ -18,6 +18,11 @@
 
 package org.finos.waltz.web;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.finos.waltz.common.EnumUtilities;
 import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.common.StringUtilities;
@@ -32,6 +37,7 @@ import spark.Response;
 import spark.ResponseTransformer;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URLConnection;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -41,6 +47,7 @@ import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
@@ -66,6 +73,56 @@ public class WebUtilities {
     }
 
 
+    /**
+     * Writes the items to the output stream as a JSON array, serializing each item as it is
+     * consumed rather than rendering the whole array to a string first.  The serializer is
+     * resolved once per item class (typically once, as lists are homogeneous).
+     * The output stream is flushed, but not closed.
+     *
+     * @param items  items to write, may be null (rendered as an empty array)
+     * @param out  destination of the JSON
+     * @return number of items written
+     */
+    public static long writeJsonArray(Stream<?> items,
+                                      OutputStream out) throws IOException {
+        checkNotNull(out, "out cannot be null");
+
+        ObjectMapper mapper = getJsonMapper();
+        long count = 0;
+
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+
+            if (items != null) {
+                Class<?> writerClass = null;
+                ObjectWriter writer = null;
+                Iterator<?> iterator = items.iterator();
+                while (iterator.hasNext()) {
+                    Object item = iterator.next();
+                    if (item == null) {
+                        generator.writeNull();
+                    } else {
+                        if (item.getClass() != writerClass) {
+                            writerClass = item.getClass();
+                            writer = mapper
+                                    .writerFor(writerClass)
+                                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+                        }
+                        writer.writeValue(generator, item);
+                    }
+                    count++;
+                }
+            }
+
+            generator.writeEndArray();
+        }
+
+        out.flush();
+        return count;
+    }
+
+
     /**
      * Will render the given object to the response object, or else report failure
      * to the given logger.
@@ -18,18 +18,54 @@
 
 package org.finos.waltz.web.endpoints;
 
+import org.finos.waltz.common.SpooledOutputStream;
+import org.finos.waltz.service.latency.LatencyMetricsService;
 import org.finos.waltz.web.DatumRoute;
+import org.finos.waltz.web.HttpHeader;
 import org.finos.waltz.web.ListRoute;
+import org.finos.waltz.web.StreamRoute;
 import org.finos.waltz.web.WebUtilities;
 import spark.*;
 
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
 import static org.finos.waltz.web.WebUtilities.TYPE_JSON;
+import static org.finos.waltz.web.WebUtilities.writeJsonArray;
 
 
 public class EndpointUtilities {
 
     private static final ResponseTransformer transformer = WebUtilities.transformer;
 
+    // streamed responses beyond this size are spooled to a temporary file before being sent
+    private static final int STREAM_SPOOL_THRESHOLD = 8 * 1024 * 1024;
+
+    private static volatile LatencyMetricsService latencyMetricsService;
+    private static volatile boolean streamGzipEnabled = false;
+
+
+    /**
+     * Once set, the latency (and result size) of every route registered via these helpers is
+     * recorded against the route's method and path.
+     * @param metricsService  receives the endpoint latencies
+     */
+    public static void setLatencyMetricsService(LatencyMetricsService metricsService) {
+        latencyMetricsService = metricsService;
+    }
+
+
+    /**
+     * Streamed responses are written before the (gzip) after-filters run, if enabled they are
+     * compressed as they are written for clients which accept gzip.
+     * @param enabled  whether streamed responses should be compressed
+     */
+    public static void setStreamGzipEnabled(boolean enabled) {
+        streamGzipEnabled = enabled;
+    }
+
 
     /**
      * Helper method to register a route which provides a list of items.
@@ -39,7 +75,7 @@ public class EndpointUtilities {
      * @param <T>
      */
     public static <T> void getForList(String path, ListRoute<T> handler) {
-        Spark.get(path, wrapListHandler(handler), transformer);
+        Spark.get(path, wrapListHandler("GET", path, handler), transformer);
     }
 
 
@@ -52,31 +88,47 @@ public class EndpointUtilities {
      * @param <T>
      */
     public static <T> void getForDatum(String path, DatumRoute<T> handler) {
-        Spark.get(path, wrapDatumHandler(handler), transformer);
+        Spark.get(path, wrapDatumHandler("GET", path, handler), transformer);
     }
 
     public static <T> void postForDatum(String path, DatumRoute<T> handler) {
-        Spark.post(path, wrapDatumHandler(handler), transformer);
+        Spark.post(path, wrapDatumHandler("POST", path, handler), transformer);
     }
 
     public static <T> void postForList(String path, ListRoute<T> handler) {
-        Spark.post(path, wrapListHandler(handler), transformer);
+        Spark.post(path, wrapListHandler("POST", path, handler), transformer);
+    }
+
+    /**
+     * Helper method to register a route which provides a potentially large list of items.
+     * The items are serialized as the stream is consumed, so the full list is never held in
+     * memory, and the JSON is spooled (to disk once large) until the stream has been closed.
+     * @param path
+     * @param handler
+     * @param <T>
+     */
+    public static <T> void getForStream(String path, StreamRoute<T> handler) {
+        Spark.get(path, wrapStreamHandler("GET", path, handler));
+    }
+
+    public static <T> void postForStream(String path, StreamRoute<T> handler) {
+        Spark.post(path, wrapStreamHandler("POST", path, handler));
     }
 
     public static <T> void deleteForList(String path, ListRoute<T> handler) {
-        Spark.delete(path, wrapListHandler(handler), transformer);
+        Spark.delete(path, wrapListHandler("DELETE", path, handler), transformer);
     }
 
     public static <T> void deleteForDatum(String path, DatumRoute<T> handler) {
-        Spark.delete(path, wrapDatumHandler(handler), transformer);
+        Spark.delete(path, wrapDatumHandler("DELETE", path, handler), transformer);
     }
 
     public static <T> void putForDatum(String path, DatumRoute<T> handler) {
-        Spark.put(path, wrapDatumHandler(handler), transformer);
+        Spark.put(path, wrapDatumHandler("PUT", path, handler), transformer);
     }
 
     public static <T> void putForList(String path, ListRoute<T> handler) {
-        Spark.put(path, wrapListHandler(handler), transformer);
+        Spark.put(path, wrapListHandler("PUT", path, handler), transformer);
     }
 
     public static <T extends Exception> void addExceptionHandler(Class<T> exceptionClass, ExceptionHandler<T> handler) {
@@ -94,18 +146,75 @@ public class EndpointUtilities {
 
     // -- helpers ---
 
-    private static <T> Route wrapListHandler(ListRoute<T> handler) {
+    private static <T> Route wrapListHandler(String method, String path, ListRoute<T> handler) {
         return (request, response) -> {
             response.type(TYPE_JSON);
-            return handler.apply(request, response);
+            long start = System.nanoTime();
+            long rows = -1;
+            try {
+                Collection<T> result = handler.apply(request, response);
+                rows = result == null ? 0 : result.size();
+                return result;
+            } finally {
+                recordLatency(method, path, start, rows);
+            }
         };
     }
 
-    private static <T> Route wrapDatumHandler(DatumRoute<T> handler) {
+    private static <T> Route wrapStreamHandler(String method, String path, StreamRoute<T> handler) {
         return (request, response) -> {
             response.type(TYPE_JSON);
-            return handler.apply(request, response);
+            long start = System.nanoTime();
+            long rows = -1;
+            try (SpooledOutputStream spool = new SpooledOutputStream(STREAM_SPOOL_THRESHOLD)) {
+                // fully render (and close) the result before sending anything, so failures become error
+                // responses rather than truncated 200s and slow clients do not hold a db connection
+                try (Stream<T> result = handler.apply(request, response)) {
+                    rows = writeJsonArray(result, spool);
+                }
+
+                boolean gzip = streamGzipEnabled && acceptsGzip(request);
+                OutputStream out = response.raw().getOutputStream();
+                if (gzip) {
+                    response.header(HttpHeader.CONTENT_ENCODING, "gzip");
+                    response.header(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING);
+                    GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192);
+                    spool.writeTo(gzipOut);
+                    gzipOut.finish();
+                } else {
+                    response.raw().setContentLengthLong(spool.size());
+                    spool.writeTo(out);
+                }
+                out.flush();
+                return ""; // response has been committed, nothing further is written
+            } finally {
+                recordLatency(method, path, start, rows);
+            }
         };
     }
 
+    private static boolean acceptsGzip(Request request) {
+        String acceptEncoding = request.headers(HttpHeader.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.contains("gzip");
+    }
+
+    private static <T> Route wrapDatumHandler(String method, String path, DatumRoute<T> handler) {
+        return (request, response) -> {
+            response.type(TYPE_JSON);
+            long start = System.nanoTime();
+            try {
+                return handler.apply(request, response);
+            } finally {
+                recordLatency(method, path, start, 1);
+            }
+        };
+    }
+
+    private static void recordLatency(String method, String path, long start, long rows) {
+        LatencyMetricsService metricsService = latencyMetricsService;
+        if (metricsService != null) {
+            metricsService.recordEndpoint(method, path, System.nanoTime() - start, rows);
+        }
+    }
+
 }
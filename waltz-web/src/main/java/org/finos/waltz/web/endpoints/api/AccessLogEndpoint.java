@@ -82,7 +82,7 @@ public class AccessLogEndpoint implements Endpoint {
                 .params(request.body())
                 .build();
 
-        accessLogService.write(accessLog);
+        accessLogService.enqueue(accessLog);
 
         return waltzVersionInfo;
     }
@@ -0,0 +1,99 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web.endpoints.api;
+
+import org.finos.waltz.model.latency.LatencySummary;
+import org.finos.waltz.model.user.SystemRole;
+import org.finos.waltz.service.latency.LatencyMetricsService;
+import org.finos.waltz.service.user.UserRoleService;
+import org.finos.waltz.web.DatumRoute;
+import org.finos.waltz.web.ListRoute;
+import org.finos.waltz.web.endpoints.Endpoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import spark.Request;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.StringUtilities.parseInteger;
+import static org.finos.waltz.web.WebUtilities.mkPath;
+import static org.finos.waltz.web.WebUtilities.requireRole;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.getForList;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.postForDatum;
+
+
+/**
+ * Admin only endpoints exposing the recorded query and endpoint latencies.
+ * Results are ordered by total time, the `limit` query param (default 50, at most 1000) controls the number returned.
+ */
+@Service
+public class LatencyMetricsEndpoint implements Endpoint {
+
+    private static final String BASE_URL = mkPath("api", "latency-metrics");
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 1000;
+
+    private final LatencyMetricsService latencyMetricsService;
+    private final UserRoleService userRoleService;
+
+
+    @Autowired
+    public LatencyMetricsEndpoint(LatencyMetricsService latencyMetricsService,
+                                  UserRoleService userRoleService) {
+        checkNotNull(latencyMetricsService, "latencyMetricsService cannot be null");
+        checkNotNull(userRoleService, "userRoleService cannot be null");
+
+        this.latencyMetricsService = latencyMetricsService;
+        this.userRoleService = userRoleService;
+    }
+
+
+    @Override
+    public void register() {
+        String findQuerySummariesPath = mkPath(BASE_URL, "query");
+        String findEndpointSummariesPath = mkPath(BASE_URL, "endpoint");
+        String resetPath = mkPath(BASE_URL, "reset");
+
+        ListRoute<LatencySummary> findQuerySummariesRoute = (request, response) -> {
+            requireRole(userRoleService, request, SystemRole.ADMIN);
+            return latencyMetricsService.findQuerySummaries(readLimit(request));
+        };
+
+        ListRoute<LatencySummary> findEndpointSummariesRoute = (request, response) -> {
+            requireRole(userRoleService, request, SystemRole.ADMIN);
+            return latencyMetricsService.findEndpointSummaries(readLimit(request));
+        };
+
+        DatumRoute<Boolean> resetRoute = (request, response) -> {
+            requireRole(userRoleService, request, SystemRole.ADMIN);
+            latencyMetricsService.reset();
+            return true;
+        };
+
+        getForList(findQuerySummariesPath, findQuerySummariesRoute);
+        getForList(findEndpointSummariesPath, findEndpointSummariesRoute);
+        postForDatum(resetPath, resetRoute);
+    }
+
+
+    private static int readLimit(Request request) {
+        int limit = parseInteger(request.queryParams("limit"), DEFAULT_LIMIT);
+        return Math.max(1, Math.min(MAX_LIMIT, limit));
+    }
+
+}
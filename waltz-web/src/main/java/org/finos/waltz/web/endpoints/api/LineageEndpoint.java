@@ -0,0 +1,87 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.web.endpoints.api;
+
+import org.finos.waltz.model.lineage.LineagePathCommand;
+import org.finos.waltz.model.lineage.LineageResult;
+import org.finos.waltz.model.lineage.LineageTraversalCommand;
+import org.finos.waltz.model.user.SystemRole;
+import org.finos.waltz.service.lineage.LineageService;
+import org.finos.waltz.service.user.UserRoleService;
+import org.finos.waltz.web.DatumRoute;
+import org.finos.waltz.web.endpoints.Endpoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.web.WebUtilities.mkPath;
+import static org.finos.waltz.web.WebUtilities.readBody;
+import static org.finos.waltz.web.WebUtilities.requireRole;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.postForDatum;
+
+
+/**
+ * Lineage queries (shortest path and upstream/downstream traversal) over the logical flow graph,
+ * optionally restricted to a data type and its descendants.
+ */
+@Service
+public class LineageEndpoint implements Endpoint {
+
+    private static final String BASE_URL = mkPath("api", "lineage");
+
+    private final LineageService lineageService;
+    private final UserRoleService userRoleService;
+
+
+    @Autowired
+    public LineageEndpoint(LineageService lineageService,
+                           UserRoleService userRoleService) {
+        checkNotNull(lineageService, "lineageService cannot be null");
+        checkNotNull(userRoleService, "userRoleService cannot be null");
+
+        this.lineageService = lineageService;
+        this.userRoleService = userRoleService;
+    }
+
+
+    @Override
+    public void register() {
+        String calculatePathPath = mkPath(BASE_URL, "path");
+        String traversePath = mkPath(BASE_URL, "traverse");
+        String reloadPath = mkPath(BASE_URL, "reload");
+
+        DatumRoute<LineageResult> calculatePathRoute = (request, response)
+                -> lineageService.calculatePath(readBody(request, LineagePathCommand.class));
+
+        DatumRoute<LineageResult> traverseRoute = (request, response)
+                -> lineageService.traverse(readBody(request, LineageTraversalCommand.class));
+
+        DatumRoute<Boolean> reloadRoute = (request, response) -> {
+            requireRole(userRoleService, request, SystemRole.ADMIN);
+            lineageService.markStale();
+            return true;
+        };
+
+        postForDatum(calculatePathPath, calculatePathRoute);
+        postForDatum(traversePath, traverseRoute);
+        postForDatum(reloadPath, reloadRoute);
+    }
+
+}
@@ -37,6 +37,7 @@ import org.finos.waltz.service.permission.permission_checker.MeasurableRatingPer
 import org.finos.waltz.service.user.UserRoleService;
 import org.finos.waltz.web.DatumRoute;
 import org.finos.waltz.web.ListRoute;
+import org.finos.waltz.web.StreamRoute;
 import org.finos.waltz.web.endpoints.Endpoint;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -64,6 +65,7 @@ import static org.finos.waltz.web.endpoints.EndpointUtilities.getForDatum;
 import static org.finos.waltz.web.endpoints.EndpointUtilities.getForList;
 import static org.finos.waltz.web.endpoints.EndpointUtilities.postForDatum;
 import static org.finos.waltz.web.endpoints.EndpointUtilities.postForList;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.postForStream;
 
 @Service
 public class MeasurableRatingEndpoint implements Endpoint {
@@ -132,8 +134,8 @@ public class MeasurableRatingEndpoint implements Endpoint {
         ListRoute<MeasurableRating> findByMeasurableSelectorRoute = (request, response)
                 -> measurableRatingService.findByMeasurableIdSelector(readIdSelectionOptionsFromBody(request));
 
-        ListRoute<MeasurableRating> findByAppSelectorRoute = (request, response)
-                -> measurableRatingService.findByAppIdSelector(readIdSelectionOptionsFromBody(request));
+        StreamRoute<MeasurableRating> findByAppSelectorRoute = (request, response)
+                -> measurableRatingService.streamByAppIdSelector(readIdSelectionOptionsFromBody(request));
 
         ListRoute<MeasurableRating> findByCategoryRoute = (request, response)
                 -> measurableRatingService.findByCategory(getId(request));
@@ -154,7 +156,7 @@ public class MeasurableRatingEndpoint implements Endpoint {
         getForList(findForEntityPath, findForEntityRoute);
         getForDatum(getViewForEntityAndCategoryPath, getViewForEntityAndCategoryRoute);
         postForList(findByMeasurableSelectorPath, findByMeasurableSelectorRoute);
-        postForList(findByAppSelectorPath, findByAppSelectorRoute);
+        postForStream(findByAppSelectorPath, findByAppSelectorRoute);
         getForList(findByCategoryPath, findByCategoryRoute);
         deleteForList(modifyMeasurableForEntityPath, this::removeRoute);
         deleteForList(modifyCategoryForEntityPath, this::removeCategoryRoute);
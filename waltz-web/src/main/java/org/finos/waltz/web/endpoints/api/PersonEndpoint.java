@@ -22,6 +22,7 @@ import org.finos.waltz.service.person.PersonService;
 import org.finos.waltz.service.person_hierarchy.PersonHierarchyService;
 import org.finos.waltz.service.user.UserRoleService;
 import org.finos.waltz.web.endpoints.Endpoint;
+import org.finos.waltz.model.person.PersonHierarchyRebuildSummary;
 import org.finos.waltz.model.user.SystemRole;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -108,9 +109,8 @@ public class PersonEndpoint implements Endpoint {
 
     }
 
-    private boolean rebuildHierarchyRoute(Request request, Response response) {
+    private PersonHierarchyRebuildSummary rebuildHierarchyRoute(Request request, Response response) {
         requireRole(userRoleService, request, SystemRole.ADMIN);
-        personHierarchyService.build();
-        return true;
+        return personHierarchyService.build();
     }
 }
@@ -0,0 +1,58 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web.endpoints.api;
+
+import org.finos.waltz.model.scheduled_job.ScheduledJobExecution;
+import org.finos.waltz.service.scheduled_job.ScheduledJobService;
+import org.finos.waltz.web.ListRoute;
+import org.finos.waltz.web.endpoints.Endpoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.web.WebUtilities.mkPath;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.getForList;
+
+
+@Service
+public class ScheduledJobEndpoint implements Endpoint {
+
+    private static final String BASE_URL = mkPath("api", "scheduled-job");
+
+    private final ScheduledJobService scheduledJobService;
+
+
+    @Autowired
+    public ScheduledJobEndpoint(ScheduledJobService scheduledJobService) {
+        checkNotNull(scheduledJobService, "scheduledJobService cannot be null");
+        this.scheduledJobService = scheduledJobService;
+    }
+
+
+    @Override
+    public void register() {
+        String findLatestExecutionsPath = mkPath(BASE_URL, "execution");
+
+        ListRoute<ScheduledJobExecution> findLatestExecutionsRoute = (request, response)
+                -> scheduledJobService.findLatestExecutions();
+
+        getForList(findLatestExecutionsPath, findLatestExecutionsRoute);
+    }
+
+}
@@ -0,0 +1,384 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.web.endpoints.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.web.WebUtilities.getMimeType;
+
+/**
+ * Holds the static (front end) resources in memory along with a precomputed gzip variant
+ * and strong ETag for each, so serving a resource does not need to touch the classloader
+ * or compress the content on every request.
+ *
+ * The resources under the root are indexed when the store is created.  If the root cannot be
+ * enumerated (e.g. an unsupported classloader url protocol) resources are loaded, and then retained,
+ * the first time they are requested.  Resources larger than {@link #MAX_CACHEABLE_BYTES} are not held
+ * and should be streamed by the caller.
+ */
+public class StaticResourceStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StaticResourceStore.class);
+
+    static final int MAX_CACHEABLE_BYTES = 16 * 1024 * 1024;
+    private static final int MIN_COMPRESSIBLE_BYTES = 256;
+    private static final String INDEX_FILE = "index.html";
+
+
+    /**
+     * An immutable, fully loaded static resource.
+     */
+    public static final class StaticResource {
+
+        private final String path;
+        private final String mimeType;
+        private final byte[] content;
+        private final byte[] gzippedContent;
+        private final String etag;
+
+        private StaticResource(String path,
+                               String mimeType,
+                               byte[] content,
+                               byte[] gzippedContent,
+                               String etag) {
+            this.path = path;
+            this.mimeType = mimeType;
+            this.content = content;
+            this.gzippedContent = gzippedContent;
+            this.etag = etag;
+        }
+
+
+        public static StaticResource mkResource(String path, byte[] content) {
+            checkNotNull(path, "path cannot be null");
+            checkNotNull(content, "content cannot be null");
+            return new StaticResource(
+                    path,
+                    getMimeType(path),
+                    content,
+                    gzipIfWorthwhile(content),
+                    mkEtag(content));
+        }
+
+
+        public String path() {
+            return path;
+        }
+
+
+        public String mimeType() {
+            return mimeType;
+        }
+
+
+        public boolean hasGzipVariant() {
+            return gzippedContent != null;
+        }
+
+
+        /**
+         * Strong ETag for the requested representation, the gzip variant has a distinct tag
+         * as it is a different sequence of bytes.
+         */
+        public String etag(boolean gzipped) {
+            return gzipped && hasGzipVariant()
+                    ? "\"" + etag + "-gzip\""
+                    : "\"" + etag + "\"";
+        }
+
+
+        public byte[] content(boolean gzipped) {
+            return gzipped && hasGzipVariant()
+                    ? gzippedContent
+                    : content;
+        }
+    }
+
+
+    private final ClassLoader classLoader;
+    private final String root;
+    private final Map<String, StaticResource> resourcesByPath = new ConcurrentHashMap<>();
+    private final Set<String> directories = new HashSet<>();
+    private final Set<String> oversizedPaths = ConcurrentHashMap.newKeySet();
+    private final boolean indexed;
+
+
+    /**
+     * @param classLoader  used to locate the resources
+     * @param root  classpath directory holding the resources, e.g. "static/"
+     */
+    public StaticResourceStore(ClassLoader classLoader, String root) {
+        checkNotNull(classLoader, "classLoader cannot be null");
+        checkNotNull(root, "root cannot be null");
+
+        this.classLoader = classLoader;
+        this.root = root.endsWith("/") ? root : root + "/";
+        this.indexed = index();
+    }
+
+
+    /**
+     * Resolves a request path (e.g. '/images/logo.png') to the resource path which should be served.
+     * Directories resolve to their index.html and unknown paths to the root index.html, allowing the
+     * front end to handle its own (html5 mode) routes.
+     *
+     * @param requestPath  path info of the request
+     * @return the resource path, or null if there is no root index.html
+     */
+    public String resolvePath(String requestPath) {
+        String indexPath = root + INDEX_FILE;
+        String path = requestPath.replaceFirst("/", "");
+        String resourcePath = path.length() > 0 ? (root + path) : indexPath;
+
+        if (indexed) {
+            String directoryPath = resourcePath.endsWith("/")
+                    ? resourcePath.substring(0, resourcePath.length() - 1)
+                    : resourcePath;
+            if (directories.contains(directoryPath)) {
+                return directoryPath + "/" + INDEX_FILE;
+            } else if (resourcesByPath.containsKey(resourcePath) || oversizedPaths.contains(resourcePath)) {
+                return resourcePath;
+            } else {
+                return resourcesByPath.containsKey(indexPath)
+                        ? indexPath
+                        : null;
+            }
+        }
+
+        URL resource = classLoader.getResource(resourcePath);
+
+        if (resource == null) {
+            // 404: return index.html
+            resource = classLoader.getResource(indexPath);
+            resourcePath = indexPath;
+        }
+
+        if (resource == null) {
+            return null;
+        }
+
+        boolean isDirectory = resource
+                .getPath()
+                .endsWith("/");
+
+        return isDirectory
+                ? resourcePath + "/" + INDEX_FILE
+                : resourcePath;
+    }
+
+
+    /**
+     * @param resourcePath  a path previously returned by {@link #resolvePath(String)}
+     * @return the resource, or empty if it does not exist or is too large to be held in memory
+     */
+    public Optional<StaticResource> get(String resourcePath) {
+        StaticResource resource = resourcesByPath.get(resourcePath);
+        if (resource != null || indexed || oversizedPaths.contains(resourcePath)) {
+            return Optional.ofNullable(resource);
+        }
+
+        try (InputStream stream = classLoader.getResourceAsStream(resourcePath)) {
+            return stream == null
+                    ? Optional.empty()
+                    : Optional.ofNullable(load(resourcePath, stream));
+        } catch (IOException e) {
+            LOG.warn("Could not load static resource: {}", resourcePath, e);
+            return Optional.empty();
+        }
+    }
+
+
+    public int size() {
+        return resourcesByPath.size();
+    }
+
+
+    // --- helpers ---
+
+    private boolean index() {
+        URL rootUrl = classLoader.getResource(root);
+        if (rootUrl == null) {
+            LOG.info("No static resources found under: {}", root);
+            return false;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            switch (rootUrl.getProtocol()) {
+                case "file":
+                    indexDirectory(Paths.get(rootUrl.toURI()));
+                    break;
+                case "jar":
+                    indexJar(rootUrl);
+                    break;
+                default:
+                    LOG.info("Cannot index static resources with protocol: {}, they will be loaded on demand", rootUrl.getProtocol());
+                    return false;
+            }
+        } catch (Exception e) {
+            LOG.warn("Failed to index static resources, they will be loaded on demand", e);
+            resourcesByPath.clear();
+            directories.clear();
+            oversizedPaths.clear();
+            return false;
+        }
+
+        LOG.info(
+                "Indexed {} static resources in {}ms",
+                resourcesByPath.size(),
+                System.currentTimeMillis() - start);
+        return true;
+    }
+
+
+    private void indexDirectory(Path rootDir) throws IOException {
+        try (Stream<Path> paths = Files.walk(rootDir)) {
+            for (Path p : (Iterable<Path>) paths::iterator) {
+                String relativePath = rootDir.relativize(p).toString().replace('\\', '/');
+                if (relativePath.isEmpty()) {
+                    continue;
+                }
+                String resourcePath = root + relativePath;
+                if (Files.isDirectory(p)) {
+                    directories.add(resourcePath);
+                } else {
+                    try (InputStream stream = Files.newInputStream(p)) {
+                        load(resourcePath, stream);
+                    }
+                }
+            }
+        }
+    }
+
+
+    private void indexJar(URL rootUrl) throws IOException {
+        URLConnection connection = rootUrl.openConnection();
+        connection.setUseCaches(false);
+
+        try (JarFile jar = ((JarURLConnection) connection).getJarFile()) {
+            Enumeration<JarEntry> entries = jar.entries();
+            for (JarEntry entry : Collections.list(entries)) {
+                String name = entry.getName();
+                if (! name.startsWith(root) || name.equals(root)) {
+                    continue;
+                }
+                if (entry.isDirectory()) {
+                    directories.add(name.substring(0, name.length() - 1));
+                } else {
+                    try (InputStream stream = jar.getInputStream(entry)) {
+                        load(name, stream);
+                    }
+                }
+            }
+        }
+    }
+
+
+    private StaticResource load(String resourcePath, InputStream stream) throws IOException {
+        byte[] content = readFully(stream);
+        if (content == null) {
+            LOG.debug("Not holding static resource: {} as it exceeds {} bytes", resourcePath, MAX_CACHEABLE_BYTES);
+            oversizedPaths.add(resourcePath);
+            return null;
+        }
+        StaticResource resource = StaticResource.mkResource(resourcePath, content);
+        resourcesByPath.put(resourcePath, resource);
+        return resource;
+    }
+
+
+    private static byte[] readFully(InputStream stream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buff = new byte[8192];
+        int bytesRead;
+        while ((bytesRead = stream.read(buff)) != -1) {
+            out.write(buff, 0, bytesRead);
+            if (out.size() > MAX_CACHEABLE_BYTES) {
+                return null;
+            }
+        }
+        return out.toByteArray();
+    }
+
+
+    /**
+     * Compresses the content, the compressed form is only kept if it is meaningfully smaller
+     * (already compressed formats such as png or woff2 will not be).
+     */
+    private static byte[] gzipIfWorthwhile(byte[] content) {
+        if (content.length < MIN_COMPRESSIBLE_BYTES) {
+            return null;
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(content);
+            }
+            byte[] compressed = out.toByteArray();
+            return compressed.length < content.length * 0.9
+                    ? compressed
+                    : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+
+    private static String mkEtag(byte[] content) {
+        try {
+            byte[] digest = MessageDigest
+                    .getInstance("SHA-256")
+                    .digest(content);
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                sb.append(String.format("%02x", digest[i]));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+}
@@ -19,7 +19,10 @@
 package org.finos.waltz.web.endpoints.api;
 
 import org.finos.waltz.web.HttpHeader;
+import org.finos.waltz.web.HttpStatus;
 import org.finos.waltz.web.endpoints.Endpoint;
+import org.finos.waltz.web.endpoints.api.StaticResourceStore.StaticResource;
+import org.jooq.lambda.tuple.Tuple2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spark.Request;
@@ -27,17 +30,24 @@ import spark.Response;
 import spark.Spark;
 
 import java.io.*;
-import java.net.URL;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
-import static org.finos.waltz.web.WebUtilities.getMimeType;
 import static java.lang.String.format;
 import static org.finos.waltz.common.IOUtilities.copyStream;
 import static org.finos.waltz.common.IOUtilities.readLines;
 import static org.finos.waltz.common.StringUtilities.lower;
 import static org.finos.waltz.common.StringUtilities.notEmpty;
+import static org.finos.waltz.web.WebUtilities.getMimeType;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
+/**
+ * Serves the front end resources.  Resources are held in memory (see {@link StaticResourceStore})
+ * with precomputed gzip variants and ETags, allowing conditional requests to be answered with a 304.
+ */
 public class StaticResourcesEndpoint implements Endpoint {
 
     private static final Logger LOG = LoggerFactory.getLogger(StaticResourcesEndpoint.class);
@@ -47,6 +57,11 @@ public class StaticResourcesEndpoint implements Endpoint {
     private final ClassLoader classLoader = StaticResourcesEndpoint.class
             .getClassLoader();
 
+    private final StaticResourceStore store = new StaticResourceStore(classLoader, "static/");
+
+    // rewritten index pages keyed by (resource path, context path)
+    private final Map<Tuple2<String, String>, StaticResource> rewrittenIndexPages = new ConcurrentHashMap<>();
+
 
     @Override
     public void register() {
@@ -54,43 +69,93 @@ public class StaticResourcesEndpoint implements Endpoint {
 
         Spark.get("/*", (request, response) -> {
 
-            String resolvedPath = resolvePath(request);
+            String resolvedPath = store.resolvePath(request.pathInfo());
 
             if (resolvedPath == null) {
                 return null;
             }
 
-            try (
-                InputStream resourceAsStream = classLoader.getResourceAsStream(resolvedPath)
-            ) {
-                if (resourceAsStream == null) {
-                    return null;
+            try {
+                Optional<StaticResource> cachedResource = store.get(resolvedPath);
+
+                if (cachedResource.isPresent()) {
+                    return serve(request, response, modifyIndexBaseTagIfNeeded(request, cachedResource.get()));
                 } else {
-                    String message = format(
-                            "Serving %s in response to request for %s",
-                            resolvedPath,
-                            request.pathInfo());
-                    LOG.info(message);
+                    return stream(request, response, resolvedPath);
+                }
+            } catch (Exception e) {
+                LOG.warn("Encountered error when attempting to serve: "+resolvedPath, e);
+                return null;
+            }
+        });
+    }
 
-                    response.type(getMimeType(resolvedPath));
 
-                    addCacheHeadersIfNeeded(response, resolvedPath);
-                    InputStream modifiedStream = modifyIndexBaseTagIfNeeded(request, resolvedPath, resourceAsStream);
+    private Object serve(Request request,
+                         Response response,
+                         StaticResource resource) throws IOException {
+        LOG.debug("Serving {} in response to request for {}", resource.path(), request.pathInfo());
 
-                    OutputStream out = response
-                            .raw()
-                            .getOutputStream();
+        boolean gzipped = resource.hasGzipVariant() && acceptsGzip(request);
+        String etag = resource.etag(gzipped);
 
-                    copyStream(modifiedStream, out);
-                    out.flush();
+        response.type(resource.mimeType());
+        addCacheHeadersIfNeeded(response, resource.path());
+        response.header(HttpHeader.ETAG, etag);
+        if (resource.hasGzipVariant()) {
+            response.header(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING);
+        }
 
-                    return new Object(); // indicate we have handled the request
-                }
-            } catch (Exception e) {
-                LOG.warn("Encountered error when attempting to serve: "+resolvedPath, e);
+        if (matchesEtag(request.headers(HttpHeader.IF_NONE_MATCH), etag)) {
+            response.status(HttpStatus.NOT_MODIFIED_304);
+            return "";
+        }
+
+        if (gzipped) {
+            response.header(HttpHeader.CONTENT_ENCODING, "gzip");
+        }
+
+        byte[] content = resource.content(gzipped);
+        response.raw().setContentLength(content.length);
+
+        OutputStream out = response
+                .raw()
+                .getOutputStream();
+
+        out.write(content);
+        out.flush();
+
+        return new Object(); // indicate we have handled the request
+    }
+
+
+    /**
+     * Fallback for resources which are too large to be held by the store.
+     */
+    private Object stream(Request request,
+                          Response response,
+                          String resolvedPath) throws IOException {
+        try (
+            InputStream resourceAsStream = classLoader.getResourceAsStream(resolvedPath)
+        ) {
+            if (resourceAsStream == null) {
                 return null;
             }
-        });
+
+            LOG.debug("Streaming {} in response to request for {}", resolvedPath, request.pathInfo());
+
+            response.type(getMimeType(resolvedPath));
+            addCacheHeadersIfNeeded(response, resolvedPath);
+
+            OutputStream out = response
+                    .raw()
+                    .getOutputStream();
+
+            copyStream(resourceAsStream, out);
+            out.flush();
+
+            return new Object(); // indicate we have handled the request
+        }
     }
 
 
@@ -98,7 +163,7 @@ public class StaticResourcesEndpoint implements Endpoint {
      * We want to add a cache-control: max-age value to all resources except html.
      * This is because the html resources have references to 'cache-busted' js files
      * and other resources.  If the html was also cached then it would be difficult
-     * to detect client code updates.
+     * to detect client code updates.  Html resources are instead revalidated via their ETag.
      *
      * @param response - the http response we are servicing
      * @param resolvedPath - the resolved path to the resource we are serving
@@ -110,82 +175,99 @@ public class StaticResourcesEndpoint implements Endpoint {
     }
 
 
+    private static boolean acceptsGzip(Request request) {
+        String acceptEncoding = request.headers(HttpHeader.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (lower(parts[0]).equals("gzip")) {
+                return parts.length == 1 || ! parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
     /**
      * index.html need to have a <base href="/[site_context]/" /> tag in the head section to ensure
      * html5 mode works correctly in AngularJS.  This method will ensure the existing <base href="/" /> tag
      * is replace with one that includes the correct site context as deployed.
+     *
+     * The rewritten page is computed once per context path and retained.
+     *
      * @param request
-     * @param resolvedPath
-     * @param resourceStream
-     * @return the modified input stream with the amended <base> tag or the original unmodified resourceStream
-     * @throws IOException
+     * @param resource
+     * @return the resource with the amended <base> tag or the original unmodified resource
      */
-    private InputStream modifyIndexBaseTagIfNeeded(Request request,
-                                                   String resolvedPath,
-                                                   InputStream resourceStream) throws IOException {
-        if(resolvedPath.endsWith("index.html") && notEmpty(request.contextPath())) {
-            List<String> lines = readLines(resourceStream);
-
-            for(int i = 0; i < lines.size(); i++) {
-                String line = lower(lines.get(i));
-
-                if (line.contains("<base href=")) {
-                    LOG.info("Found <base> tag: " + line + ", adding context path: " + request.contextPath());
-                    line = line.replaceFirst(
-                            "<base href=(['\"])/(['\"])\\s*/>",
-                            format(
-                                "\t<base href=\"%s/\" />",
-                                request.contextPath()));
-                    LOG.info("Updated <base> tag: " + line);
-                    lines.set(i, line);
-
-                    // done, exit loop
-                    break;
-                }
+    private StaticResource modifyIndexBaseTagIfNeeded(Request request,
+                                                      StaticResource resource) {
+        if(resource.path().endsWith("index.html") && notEmpty(request.contextPath())) {
+            return rewrittenIndexPages.computeIfAbsent(
+                    tuple(resource.path(), request.contextPath()),
+                    k -> StaticResource.mkResource(
+                            resource.path(),
+                            rewriteBaseTag(resource.content(false), k.v2)));
+        }
+        return resource;
+    }
 
-                if (line.contains("</head>") ) {
-                    // don't need to continue if have reached here and no base tag found
-                    break;
-                }
-            }
 
-            // copy amended file into a stream
-            try(ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-                 OutputStreamWriter writer = new OutputStreamWriter(outputStream)) {
+    private static byte[] rewriteBaseTag(byte[] content, String contextPath) {
+        List<String> lines = readLines(new ByteArrayInputStream(content));
 
-                for(String line : lines) {
-                    writer.write(line);
-                    writer.write(System.lineSeparator());
-                }
+        for(int i = 0; i < lines.size(); i++) {
+            String line = lower(lines.get(i));
 
-                writer.flush();
-                return new ByteArrayInputStream(outputStream.toByteArray());
+            if (line.contains("<base href=")) {
+                LOG.info("Found <base> tag: " + line + ", adding context path: " + contextPath);
+                line = line.replaceFirst(
+                        "<base href=(['\"])/(['\"])\\s*/>",
+                        format(
+                            "\t<base href=\"%s/\" />",
+                            contextPath));
+                LOG.info("Updated <base> tag: " + line);
+                lines.set(i, line);
+
+                // done, exit loop
+                break;
             }
-        }
-        return resourceStream;
-    }
 
+            if (line.contains("</head>") ) {
+                // don't need to continue if have reached here and no base tag found
+                break;
+            }
+        }
 
-    private String resolvePath(Request request) {
-        final String indexPath = "static/index.html";
-        String path = request.pathInfo().replaceFirst("/", "");
-        String resourcePath = path.length() > 0 ? ("static/" + path) : indexPath;
+        // copy amended file into a byte array
+        try(ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+             OutputStreamWriter writer = new OutputStreamWriter(outputStream)) {
 
-        URL resource = classLoader.getResource(resourcePath);
+            for(String line : lines) {
+                writer.write(line);
+                writer.write(System.lineSeparator());
+            }
 
-        if (resource == null) {
-            // 404: return index.html
-            resource = classLoader.getResource(indexPath);
-            resourcePath = indexPath;
+            writer.flush();
+            return outputStream.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-
-        boolean isDirectory = resource
-                .getPath()
-                .endsWith("/");
-
-        return isDirectory
-                ? resourcePath + "/index.html"
-                : resourcePath;
     }
 
 }
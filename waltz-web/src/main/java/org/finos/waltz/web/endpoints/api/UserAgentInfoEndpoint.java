@@ -76,7 +76,7 @@ public class UserAgentInfoEndpoint implements Endpoint {
                     .ipAddress(request.ip())
                     .build();
 
-            return userAgentInfoService.save(userAgentInfo);
+            return userAgentInfoService.enqueue(userAgentInfo) ? 1 : 0;
         };
 
         EndpointUtilities.getForList(findForUserPath, findForUserRoute);
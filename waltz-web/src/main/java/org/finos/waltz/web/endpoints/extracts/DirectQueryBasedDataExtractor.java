@@ -19,31 +19,62 @@
 package org.finos.waltz.web.endpoints.extracts;
 
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.finos.waltz.common.SpooledOutputStream;
 import org.finos.waltz.web.MimeTypes;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
-import org.jooq.JSONFormat;
-import org.jooq.Result;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.ResultQuery;
 import org.jooq.Select;
 import org.jooq.lambda.Unchecked;
+import org.jooq.lambda.fi.util.function.CheckedConsumer;
 import org.jooq.lambda.tuple.Tuple2;
 import spark.Request;
 import spark.Response;
 
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.data.JooqUtilities.readOnlyTransactionResult;
 
 
+/**
+ * Base class for extracts which are a direct rendering of a jOOQ query.
+ *
+ * Extracts are streamed: rows are read from a lazy cursor (using {@link #EXTRACT_FETCH_SIZE},
+ * within a read-only transaction as Postgres ignores the fetch size under auto-commit) and
+ * rendered as they are read, so memory use is independent of the number of rows.  CSV and
+ * JSON are rendered to a {@link SpooledOutputStream} (which moves to a temporary file once
+ * large) and Excel extracts use an {@link SXSSFWorkbook} (which flushes rows to a temporary
+ * file once the row access window is exceeded).  Nothing is written to the response until
+ * the cursor has been fully read, so a failing query results in an error response rather
+ * than a truncated extract.
+ */
 public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
 
+    private static final int EXTRACT_FETCH_SIZE = 1000;
+    private static final int EXCEL_ROW_ACCESS_WINDOW = 2000;
+    private static final int SPOOL_THRESHOLD = 8 * 1024 * 1024;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
 
     protected DSLContext dsl;
 
@@ -83,20 +114,69 @@ public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
         }
     }
 
-    private String writeAsJson(Select<?> qry,
-                               Response response) {
-        response.type(MimeTypes.APPLICATION_JSON_UTF_8);
-        return query(dsl, qry)
-                .formatJSON(new JSONFormat()
-                        .header(false)
-                        .recordFormat(JSONFormat.RecordFormat.OBJECT));
+
+    /**
+     * Writes the rows as a json array of objects (keyed by field name).  Numbers and booleans
+     * are written as json values, everything else is written as a string.
+     */
+    private HttpServletResponse writeAsJson(Select<?> qry,
+                                            Response response) throws IOException {
+        try (SpooledOutputStream spool = new SpooledOutputStream(SPOOL_THRESHOLD)) {
+            withCursor(dsl, qry, true, cursor -> {
+                try (JsonGenerator generator = JSON_FACTORY.createGenerator(spool, JsonEncoding.UTF8)) {
+                    Field<?>[] fields = cursor.fields();
+                    generator.writeStartArray();
+                    for (Record r : cursor) {
+                        generator.writeStartObject();
+                        for (int col = 0; col < fields.length; col++) {
+                            generator.writeFieldName(fields[col].getName());
+                            writeJsonValue(generator, r.get(col));
+                        }
+                        generator.writeEndObject();
+                    }
+                    generator.writeEndArray();
+                }
+            });
+
+            HttpServletResponse httpResponse = response.raw();
+            httpResponse.setContentType(MimeTypes.APPLICATION_JSON_UTF_8);
+            return writeSpoolToResponse(httpResponse, spool);
+        }
+    }
+
+
+    private static void writeJsonValue(JsonGenerator generator, Object val) throws IOException {
+        if (val == null) {
+            generator.writeNull();
+        } else if (val instanceof Number) {
+            generator.writeNumber(val.toString());
+        } else if (val instanceof Boolean) {
+            generator.writeBoolean((Boolean) val);
+        } else {
+            generator.writeString(val.toString());
+        }
     }
 
 
-    private Result<?> query(DSLContext dslContext, Select<?> qry){
-        return dslContext == null
-                ? qry.fetch()
-                : dslContext.fetch(dslContext.renderInlined(qry));
+    /**
+     * Passes a lazy cursor over the query, opened within a read-only transaction, to the handler.
+     *
+     * @param inlined  whether to execute the query with its bind values inlined
+     */
+    private static void withCursor(DSLContext dsl,
+                                   Select<?> qry,
+                                   boolean inlined,
+                                   CheckedConsumer<Cursor<? extends Record>> handler) {
+        readOnlyTransactionResult(dsl, tx -> {
+            // executes a copy of the query so the fetch size is not set on the caller's query
+            ResultQuery<? extends Record> query = inlined
+                    ? tx.resultQuery(tx.renderInlined(qry))
+                    : tx.resultQuery(tx.render(qry), qry.getBindValues().toArray());
+            try (Cursor<? extends Record> cursor = tx.fetchLazy(query.fetchSize(EXTRACT_FETCH_SIZE))) {
+                Unchecked.consumer(handler).accept(cursor);
+            }
+            return null;
+        });
     }
 
 
@@ -105,19 +185,24 @@ public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
                                                 String suggestedFilenameStem,
                                                 Response response,
                                                 Tuple2<String, Select<?>>... sheetDefinitions) {
-        SXSSFWorkbook workbook = new SXSSFWorkbook(2000);
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_ACCESS_WINDOW);
 
-        for (Tuple2<String, Select<?>> sheetDef : sheetDefinitions) {
-            SXSSFSheet sheet = workbook.createSheet(ExtractorUtilities.sanitizeSheetName(sheetDef.v1));
-            writeExcelHeader(sheetDef.v2, sheet);
-            writeExcelBody(sheetDef.v2, sheet, dsl);
+        try {
+            for (Tuple2<String, Select<?>> sheetDef : sheetDefinitions) {
+                SXSSFSheet sheet = workbook.createSheet(ExtractorUtilities.sanitizeSheetName(sheetDef.v1));
+                writeExcelHeader(sheetDef.v2, sheet);
+                writeExcelBody(dsl, sheetDef.v2, sheet, true);
 
-            int endFilterColumnIndex = sheetDef.v2.fields().length == 0
-                    ? 0
-                    : sheetDef.v2.fields().length - 1;
+                int endFilterColumnIndex = sheetDef.v2.fields().length == 0
+                        ? 0
+                        : sheetDef.v2.fields().length - 1;
 
-            sheet.setAutoFilter(new CellRangeAddress(0, 0, 0, endFilterColumnIndex));
-            sheet.createFreezePane(0, 1);
+                sheet.setAutoFilter(new CellRangeAddress(0, 0, 0, endFilterColumnIndex));
+                sheet.createFreezePane(0, 1);
+            }
+        } catch (RuntimeException e) {
+            disposeAfterFailure(workbook, e);
+            throw e;
         }
 
         return Unchecked.supplier(() -> writeExcelToResponse(
@@ -127,74 +212,128 @@ public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
     }
 
 
-    private static Object writeAsExcel(String suggestedFilenameStem,
-                                       Select<?> qry,
-                                       Response response) throws IOException {
-        SXSSFWorkbook workbook = new SXSSFWorkbook(2000);
-        SXSSFSheet sheet = workbook.createSheet(ExtractorUtilities.sanitizeSheetName(suggestedFilenameStem));
+    private Object writeAsExcel(String suggestedFilenameStem,
+                                Select<?> qry,
+                                Response response) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_ACCESS_WINDOW);
 
-        writeExcelHeader(qry, sheet);
-        writeExcelBody(qry, sheet, null);
+        try {
+            SXSSFSheet sheet = workbook.createSheet(ExtractorUtilities.sanitizeSheetName(suggestedFilenameStem));
 
-        int endFilterColumnIndex = qry.fields().length == 0
-                ? 0
-                : qry.fields().length - 1;
+            writeExcelHeader(qry, sheet);
+            writeExcelBody(dsl, qry, sheet, false);
 
-        sheet.setAutoFilter(new CellRangeAddress(0, 0, 0, endFilterColumnIndex));
-        sheet.createFreezePane(0, 1);
+            int endFilterColumnIndex = qry.fields().length == 0
+                    ? 0
+                    : qry.fields().length - 1;
+
+            sheet.setAutoFilter(new CellRangeAddress(0, 0, 0, endFilterColumnIndex));
+            sheet.createFreezePane(0, 1);
+        } catch (RuntimeException e) {
+            disposeAfterFailure(workbook, e);
+            throw e;
+        }
 
         return writeExcelToResponse(suggestedFilenameStem, response, workbook);
     }
 
 
+    /**
+     * Removes the temporary files backing a partially written workbook, any problem doing so
+     * is added to the original failure.
+     */
+    private static void disposeAfterFailure(SXSSFWorkbook workbook, RuntimeException failure) {
+        try {
+            workbook.dispose();
+            workbook.close();
+        } catch (IOException | RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+
+    /**
+     * Writes the workbook directly to the response (without buffering it into a byte array)
+     * and then disposes of the temporary files backing the workbook.
+     */
     private static HttpServletResponse writeExcelToResponse(String suggestedFilenameStem,
                                                             Response response,
                                                             SXSSFWorkbook workbook) throws IOException {
-        byte[] bytes = ExtractorUtilities.convertExcelToByteArray(workbook);
-
         HttpServletResponse httpResponse = response.raw();
 
         httpResponse.setHeader("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
         httpResponse.setHeader("Content-Disposition", "attachment; filename=" + suggestedFilenameStem + ".xlsx");
         httpResponse.setHeader("Content-Transfer-Encoding", "7bit");
 
-        httpResponse.setContentLength(bytes.length);
-        httpResponse.getOutputStream().write(bytes);
-        httpResponse.getOutputStream().flush();
-        httpResponse.getOutputStream().close();
+        try {
+            ServletOutputStream out = httpResponse.getOutputStream();
+            workbook.write(out);
+            out.flush();
+            out.close();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
 
         return httpResponse;
     }
 
 
-    private Object writeAsCSV(String suggestedFilenameStem,
-                              Select<?> qry,
-                              Response response) {
-        String csv = qry.fetch().formatCSV();
-        response.type(MimeTypes.TEXT_PLAIN);
-        response.header("Content-disposition", "attachment; filename=" + suggestedFilenameStem + ".csv");
-        return csv;
+    /**
+     * Rows are rendered by jOOQ a chunk at a time, giving the same output (e.g. for nulls and
+     * quoting) as formatting the whole result.
+     */
+    private HttpServletResponse writeAsCSV(String suggestedFilenameStem,
+                                           Select<?> qry,
+                                           Response response) throws IOException {
+        try (SpooledOutputStream spool = new SpooledOutputStream(SPOOL_THRESHOLD)) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(spool, StandardCharsets.UTF_8));
+
+            withCursor(dsl, qry, false, cursor -> {
+                boolean header = true;
+                do {
+                    cursor.fetchNext(EXTRACT_FETCH_SIZE).formatCSV(writer, header);
+                    header = false;
+                } while (cursor.hasNext());
+            });
+            writer.flush();
+
+            HttpServletResponse httpResponse = response.raw();
+            httpResponse.setContentType(MimeTypes.TEXT_PLAIN);
+            httpResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            httpResponse.setHeader("Content-disposition", "attachment; filename=" + suggestedFilenameStem + ".csv");
+            return writeSpoolToResponse(httpResponse, spool);
+        }
+    }
+
+
+    private static HttpServletResponse writeSpoolToResponse(HttpServletResponse httpResponse,
+                                                            SpooledOutputStream spool) throws IOException {
+        httpResponse.setContentLengthLong(spool.size());
+        OutputStream out = httpResponse.getOutputStream();
+        spool.writeTo(out);
+        out.flush();
+        return httpResponse;
     }
 
 
-    private static void writeExcelBody(Select<?> qry,
+    private static void writeExcelBody(DSLContext dsl,
+                                       Select<?> qry,
                                        SXSSFSheet sheet,
-                                       DSLContext dsl) {
+                                       boolean inlined) {
         AtomicInteger rowCounter = new AtomicInteger(1);
 
-        Result<?> records = dsl == null
-                ? qry.fetch()
-                : dsl.fetch(dsl.renderInlined(qry));
-
         int colCount = qry.fields().length;
-        records.forEach(r -> {
-            int rowNum = rowCounter.getAndIncrement();
-            Row row = sheet.createRow(rowNum);
-            for (int col = 0; col < colCount; col++) {
-                Cell cell = row.createCell(col);
-                Object val = r.get(col);
-                if (val != null) {
-                    cell.setCellValue(val.toString());
+        withCursor(dsl, qry, inlined, records -> {
+            for (Record r : records) {
+                int rowNum = rowCounter.getAndIncrement();
+                Row row = sheet.createRow(rowNum);
+                for (int col = 0; col < colCount; col++) {
+                    Cell cell = row.createCell(col);
+                    Object val = r.get(col);
+                    if (val != null) {
+                        cell.setCellValue(val.toString());
+                    }
                 }
             }
         });
@@ -0,0 +1,63 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.web;
+
+
+import org.finos.waltz.model.EntityKind;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.finos.waltz.common.JacksonUtilities.getJsonMapper;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class WebUtilities_writeJsonArrayTest {
+
+    @Test
+    public void nullStreamIsWrittenAsEmptyArray() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(0, WebUtilities.writeJsonArray(null, out));
+        assertEquals("[]", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+
+    @Test
+    public void outputMatchesRenderingTheWholeList() throws Exception {
+        Object[] items = {
+                mkRef(EntityKind.APPLICATION, 1, "a"),
+                null,
+                mkRef(EntityKind.ACTOR, 2, "b"),
+                "mixed"
+        };
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = WebUtilities.writeJsonArray(Stream.of(items), out);
+
+        assertEquals(4, count);
+        assertEquals(
+                getJsonMapper().writeValueAsString(items),
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+}
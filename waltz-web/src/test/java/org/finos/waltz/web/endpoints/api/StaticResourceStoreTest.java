@@ -0,0 +1,106 @@
+package org.finos.waltz.web.endpoints.api;
+
+import org.finos.waltz.web.endpoints.api.StaticResourceStore.StaticResource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.finos.waltz.common.IOUtilities.readAsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StaticResourceStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+
+    @Test
+    public void pathsAreResolvedAgainstTheIndex() throws IOException {
+        StaticResourceStore store = mkStore();
+
+        assertEquals(3, store.size());
+        assertEquals("static/index.html", store.resolvePath("/"));
+        assertEquals("static/app.js", store.resolvePath("/app.js"));
+        assertEquals("static/docs/index.html", store.resolvePath("/docs"));
+        assertEquals("static/index.html", store.resolvePath("/application/12"), "unknown paths are handled by the front end");
+    }
+
+
+    @Test
+    public void compressibleResourcesHaveAGzipVariant() throws IOException {
+        StaticResource js = mkStore().get("static/app.js").get();
+
+        assertTrue(js.hasGzipVariant());
+        assertTrue(js.content(true).length < js.content(false).length);
+        assertNotEquals(js.etag(true), js.etag(false), "each representation needs a distinct strong etag");
+
+        assertEquals(
+                readAsString(new ByteArrayInputStream(js.content(false))),
+                readAsString(new GZIPInputStream(new ByteArrayInputStream(js.content(true)))));
+    }
+
+
+    @Test
+    public void smallResourcesAreNotCompressed() throws IOException {
+        StaticResource index = mkStore().get("static/index.html").get();
+
+        assertFalse(index.hasGzipVariant());
+        assertEquals(index.etag(false), index.etag(true));
+    }
+
+
+    @Test
+    public void etagsAreDerivedFromContent() {
+        byte[] content = "hello".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(
+                StaticResource.mkResource("a.txt", content).etag(false),
+                StaticResource.mkResource("b.txt", content).etag(false));
+        assertNotEquals(
+                StaticResource.mkResource("a.txt", content).etag(false),
+                StaticResource.mkResource("a.txt", "world".getBytes(StandardCharsets.UTF_8)).etag(false));
+    }
+
+
+    @Test
+    public void unknownPathsResolveToNothingWithoutAnIndexPage() throws IOException {
+        Files.createDirectories(tempDir.resolve("static"));
+        ClassLoader classLoader = new URLClassLoader(new URL[]{tempDir.toUri().toURL()}, null);
+        StaticResourceStore store = new StaticResourceStore(classLoader, "static/");
+
+        assertNull(store.resolvePath("/missing.js"));
+        assertFalse(store.get("static/missing.js").isPresent());
+    }
+
+
+    // -- helpers
+
+    private StaticResourceStore mkStore() throws IOException {
+        Path staticDir = Files.createDirectories(tempDir.resolve("static"));
+        Path docsDir = Files.createDirectories(staticDir.resolve("docs"));
+
+        StringBuilder js = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            js.append("console.log('line ").append(i).append("');\n");
+        }
+
+        Files.write(staticDir.resolve("index.html"), "<html><head><base href='/' /></head></html>".getBytes(StandardCharsets.UTF_8));
+        Files.write(staticDir.resolve("app.js"), js.toString().getBytes(StandardCharsets.UTF_8));
+        Files.write(docsDir.resolve("index.html"), "<html></html>".getBytes(StandardCharsets.UTF_8));
+
+        ClassLoader classLoader = new URLClassLoader(new URL[]{tempDir.toUri().toURL()}, null);
+        return new StaticResourceStore(classLoader, "static/");
+    }
+}
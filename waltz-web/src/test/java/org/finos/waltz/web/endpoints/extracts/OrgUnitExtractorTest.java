@@ -2,12 +2,15 @@ package org.finos.waltz.web.endpoints.extracts;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import org.finos.waltz.common.JacksonUtilities;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.finos.waltz.schema.tables.records.OrganisationalUnitRecord;
 import org.jooq.DSLContext;
 import org.jooq.Record6;
 import org.jooq.Result;
 import org.jooq.SQLDialect;
 import org.jooq.SelectJoinStep;
+import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
 import org.jooq.tools.jdbc.MockConnection;
 import org.jooq.tools.jdbc.MockDataProvider;
@@ -20,11 +23,20 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import spark.Request;
 import spark.Response;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
+import java.sql.SQLException;
 
 import static org.finos.waltz.schema.tables.OrganisationalUnit.ORGANISATIONAL_UNIT;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +49,10 @@ class OrgUnitExtractorTest {
     private Request request;
     @Mock
     private Response response;
+    @Mock
+    private HttpServletResponse httpResponse;
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
 
     @BeforeEach
     public void setUp(){
@@ -49,10 +65,9 @@ class OrgUnitExtractorTest {
     void recordsFoundAreTransformRecordsToJsonModel() throws IOException {
         when(request.queryParams("format"))
                 .thenReturn("JSON");
-        Object obj =
-                orgUnitExtractor.writeExtract("name",createDummyQuery(),request, response);
-        assertTrue(obj instanceof String);
-        String responseJSON = (String)obj;
+        mockRawResponse();
+        orgUnitExtractor.writeExtract("name",createDummyQuery(),request, response);
+        String responseJSON = body.toString(StandardCharsets.UTF_8.name());
         assertTrue(responseJSON.length()>0);
         JsonNode node = JacksonUtilities.getJsonMapper().readTree(responseJSON);
         JsonNode arrElement = node.get(0);
@@ -60,9 +75,83 @@ class OrgUnitExtractorTest {
         assertEquals("1", arrElement.get("id").asText());
         assertEquals("0", arrElement.get("parent_id").asText());
         assertEquals("org-name", arrElement.get("name").asText());
+        verify(httpResponse).setContentLengthLong(body.size());
+    }
+
+
+    @Test
+    void recordsAreWrittenAsCsvWithHeader() throws IOException {
+        when(request.queryParams("format"))
+                .thenReturn("CSV");
+        mockRawResponse();
+        orgUnitExtractor.writeExtract("name",createDummyQuery(),request, response);
+        String[] lines = body.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("id,parent_id,name"));
+        assertTrue(lines[1].startsWith("1,0,org-name"));
+        verify(httpResponse).setHeader("Content-disposition", "attachment; filename=name.csv");
+        verify(httpResponse).setContentLengthLong(body.size());
+    }
+
+
+    @Test
+    void recordsAreWrittenAsExcelWithHeader() throws IOException {
+        when(request.queryParams("format"))
+                .thenReturn("XLSX");
+        mockRawResponse();
+        orgUnitExtractor.writeExtract("name",createDummyQuery(),request, response);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(body.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals("id", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("name", sheet.getRow(0).getCell(2).getStringCellValue());
+            assertEquals("1", sheet.getRow(1).getCell(0).getStringCellValue());
+            assertEquals("org-name", sheet.getRow(1).getCell(2).getStringCellValue());
+            assertNull(sheet.getRow(2));
+        }
+    }
+
 
+    @Test
+    void failingQueryDoesNotWriteToResponse() {
+        DSLContext failingDsl = DSL.using(
+                new MockConnection(context -> {
+                    throw new SQLException("boom");
+                }),
+                SQLDialect.POSTGRES);
+        OrgUnitExtractor failingExtractor = new OrgUnitExtractor(failingDsl);
+
+        for (String format : new String[] {"CSV", "JSON", "XLSX"}) {
+            when(request.queryParams("format"))
+                    .thenReturn(format);
+            assertThrows(
+                    DataAccessException.class,
+                    () -> failingExtractor.writeExtract("name", createDummyQuery(), request, response),
+                    format);
+        }
+        verify(response, never()).raw();
     }
 
+
+    private void mockRawResponse() throws IOException {
+        when(response.raw()).thenReturn(httpResponse);
+        when(httpResponse.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+        });
+    }
+
+
     private DSLContext createTestDslContext(){
         MockDataProvider provider = context -> {
             DSLContext create = DSL.using(SQLDialect.POSTGRES);